@@ -0,0 +1,159 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The class {@link BulkLoadResult} is the result of a bulk load with the loaded objects in the
+ * order of the xml files, the failures and the elapsed time
+ *
+ * @param <T>
+ *            the generic type of the loaded objects
+ */
+public final class BulkLoadResult<T>
+{
+
+	/** The loaded objects in the order of the xml files */
+	private final List<T> objects;
+
+	/** The loaded objects by their xml file in the order of the xml files */
+	private final Map<Path, T> objectsByFile;
+
+	/** The xml files that could not be loaded in the order of the xml files */
+	private final List<XmlFileFailure> failures;
+
+	/** The elapsed time of the whole bulk load */
+	private final Duration elapsed;
+
+	/**
+	 * Creates a new {@link BulkLoadResult} object
+	 *
+	 * @param objects
+	 *            the loaded objects in the order of the xml files
+	 * @param objectsByFile
+	 *            the loaded objects by their xml file in the order of the xml files
+	 * @param failures
+	 *            the xml files that could not be loaded
+	 * @param elapsed
+	 *            the elapsed time of the whole bulk load
+	 */
+	public BulkLoadResult(final List<T> objects, final Map<Path, T> objectsByFile,
+		final List<XmlFileFailure> failures, final Duration elapsed)
+	{
+		this.objects = Collections.unmodifiableList(Objects.requireNonNull(objects));
+		this.objectsByFile = Collections.unmodifiableMap(Objects.requireNonNull(objectsByFile));
+		this.failures = Collections.unmodifiableList(Objects.requireNonNull(failures));
+		this.elapsed = Objects.requireNonNull(elapsed);
+	}
+
+	/**
+	 * Gets the loaded objects in the order of the xml files, failed files are left out. A file
+	 * that was given more than once has one object per occurrence
+	 *
+	 * @return the unmodifiable list of the loaded objects
+	 */
+	public List<T> getObjects()
+	{
+		return objects;
+	}
+
+	/**
+	 * Gets the loaded objects by their xml file, the iteration order is the order of the xml files.
+	 * A file that was given more than once has only one entry
+	 *
+	 * @return the unmodifiable map of the loaded objects
+	 */
+	public Map<Path, T> getObjectsByFile()
+	{
+		return objectsByFile;
+	}
+
+	/**
+	 * Gets the xml files that could not be loaded in the order of the xml files
+	 *
+	 * @return the unmodifiable list of the failures
+	 */
+	public List<XmlFileFailure> getFailures()
+	{
+		return failures;
+	}
+
+	/**
+	 * Gets the number of xml files of the bulk load
+	 *
+	 * @return the number of xml files
+	 */
+	public int getTotalCount()
+	{
+		return objects.size() + failures.size();
+	}
+
+	/**
+	 * Gets the number of xml files that were loaded successfully
+	 *
+	 * @return the number of loaded xml files
+	 */
+	public int getSuccessCount()
+	{
+		return objects.size();
+	}
+
+	/**
+	 * Gets the number of xml files that could not be loaded
+	 *
+	 * @return the number of failed xml files
+	 */
+	public int getFailureCount()
+	{
+		return failures.size();
+	}
+
+	/**
+	 * Gets the elapsed time of the whole bulk load
+	 *
+	 * @return the elapsed time
+	 */
+	public Duration getElapsed()
+	{
+		return elapsed;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%d files loaded, %d failed in %d ms", objects.size(),
+			failures.size(), elapsed.toMillis());
+	}
+
+}
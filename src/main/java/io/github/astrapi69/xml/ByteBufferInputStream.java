@@ -0,0 +1,90 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * The class {@link ByteBufferInputStream} reads the remaining bytes of a {@link ByteBuffer}
+ * without copying them into an array first, which also works for direct and memory-mapped
+ * buffers. The stream reads from a duplicate, so the position of the given buffer is not changed
+ */
+final class ByteBufferInputStream extends InputStream
+{
+
+	/** The duplicate of the buffer that is read */
+	private final ByteBuffer buffer;
+
+	/**
+	 * Creates a new {@link ByteBufferInputStream} object
+	 *
+	 * @param buffer
+	 *            the buffer, its remaining bytes are read
+	 */
+	ByteBufferInputStream(final ByteBuffer buffer)
+	{
+		this.buffer = Objects.requireNonNull(buffer).duplicate();
+	}
+
+	@Override
+	public int read()
+	{
+		return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+	}
+
+	@Override
+	public int read(final byte[] bytes, final int offset, final int length)
+	{
+		Objects.checkFromIndexSize(offset, length, bytes.length);
+		if (length == 0)
+		{
+			return 0;
+		}
+		if (!buffer.hasRemaining())
+		{
+			return -1;
+		}
+		final int count = Math.min(length, buffer.remaining());
+		buffer.get(bytes, offset, count);
+		return count;
+	}
+
+	@Override
+	public long skip(final long n)
+	{
+		final int count = (int)Math.max(0L, Math.min(n, buffer.remaining()));
+		buffer.position(buffer.position() + count);
+		return count;
+	}
+
+	@Override
+	public int available()
+	{
+		return buffer.remaining();
+	}
+
+}
@@ -0,0 +1,752 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The class {@link MappedXmlFile} is a xml file that is memory-mapped read-only in segments of 1
+ * GB, so files larger than 2 GB can be mapped. It scans the bytes of the file for the element
+ * tags without decoding them and decodes names, attribute values and text only on request. The
+ * file must be encoded in UTF-8 or US-ASCII. Entities declared in a document type definition are
+ * not resolved
+ */
+final class MappedXmlFile
+{
+
+	/** The number of bits of the offset within a mapped segment */
+	private static final int SEGMENT_SHIFT = 30;
+
+	/** The mask of the offset within a mapped segment */
+	private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+	/** The mapped segments of the file */
+	private final MappedByteBuffer[] segments;
+
+	/** The size of the file in bytes */
+	private final long size;
+
+	/**
+	 * Creates a new {@link MappedXmlFile} object
+	 *
+	 * @param xmlFile
+	 *            the xml file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	MappedXmlFile(final Path xmlFile) throws IOException
+	{
+		Objects.requireNonNull(xmlFile);
+		try (FileChannel channel = FileChannel.open(xmlFile, StandardOpenOption.READ))
+		{
+			this.size = channel.size();
+			this.segments = new MappedByteBuffer[(int)((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+			for (int i = 0; i < segments.length; i++)
+			{
+				final long position = (long)i << SEGMENT_SHIFT;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+					Math.min(SEGMENT_MASK + 1, size - position));
+			}
+		}
+	}
+
+	/**
+	 * Gets the size of the file
+	 *
+	 * @return the size in bytes
+	 */
+	long size()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the byte at the given offset
+	 *
+	 * @param position
+	 *            the offset
+	 * @return the byte
+	 */
+	byte get(final long position)
+	{
+		return segments[(int)(position >>> SEGMENT_SHIFT)].get((int)(position & SEGMENT_MASK));
+	}
+
+	/**
+	 * Scans the whole file and reports every element to the given handler. Empty element tags are
+	 * reported with a start and an end
+	 *
+	 * @param handler
+	 *            the handler
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred, the document is not well formed or
+	 *             it is not encoded in UTF-8 or US-ASCII
+	 */
+	void scan(final ScanHandler handler) throws IOException
+	{
+		// the offsets and name lengths of the open start tags
+		long[] openStarts = new long[64];
+		int[] openNameLengths = new int[64];
+		int depth = 0;
+		boolean hasRoot = false;
+		// a byte order mark of utf-8
+		long position = size >= 3 && get(0) == (byte)0xEF && get(1) == (byte)0xBB
+			&& get(2) == (byte)0xBF ? 3 : 0;
+		if (startsWith(position, "<?xml"))
+		{
+			final long end = indexOf(position, "?>");
+			checkEncoding(position, end);
+			position = end + 2;
+		}
+		while (position < size)
+		{
+			if (get(position) != '<')
+			{
+				if (depth == 0 && !isWhitespace(get(position)))
+				{
+					throw notWellFormed(position, "text outside of the root element");
+				}
+				position++;
+				continue;
+			}
+			if (startsWith(position, "<!--"))
+			{
+				position = indexOf(position + 4, "-->") + 3;
+			}
+			else if (startsWith(position, "<![CDATA["))
+			{
+				position = indexOf(position + 9, "]]>") + 3;
+			}
+			else if (startsWith(position, "<?"))
+			{
+				position = indexOf(position + 2, "?>") + 2;
+			}
+			else if (startsWith(position, "<!DOCTYPE"))
+			{
+				position = skipDoctype(position);
+			}
+			else if (startsWith(position, "</"))
+			{
+				if (depth == 0)
+				{
+					throw notWellFormed(position, "end tag without start tag");
+				}
+				depth--;
+				final int nameLength = openNameLengths[depth];
+				for (int i = 0; i < nameLength; i++)
+				{
+					if (get(position + 2 + i) != get(openStarts[depth] + 1 + i))
+					{
+						throw notWellFormed(position, "end tag does not match");
+					}
+				}
+				long end = position + 2 + nameLength;
+				while (end < size && isWhitespace(get(end)))
+				{
+					end++;
+				}
+				if (end >= size || get(end) != '>')
+				{
+					throw notWellFormed(position, "end tag does not match");
+				}
+				position = end + 1;
+				handler.endElement(position);
+			}
+			else
+			{
+				if (depth == 0 && hasRoot)
+				{
+					throw notWellFormed(position, "more than one root element");
+				}
+				hasRoot = true;
+				final long start = position;
+				position++;
+				while (position < size && !isWhitespace(get(position)) && get(position) != '/'
+					&& get(position) != '>')
+				{
+					position++;
+				}
+				if (position == start + 1 || position - start - 1 > Integer.MAX_VALUE)
+				{
+					throw notWellFormed(start, "invalid element name");
+				}
+				final int nameLength = (int)(position - start - 1);
+				position = skipTag(start, position);
+				// an attribute value can not end with a slash before the closing bracket
+				final boolean empty = get(position - 2) == '/';
+				handler.startElement(start, nameLength, position, empty);
+				if (empty)
+				{
+					handler.endElement(position);
+				}
+				else
+				{
+					if (depth == openStarts.length)
+					{
+						openStarts = Arrays.copyOf(openStarts, depth * 2);
+						openNameLengths = Arrays.copyOf(openNameLengths, depth * 2);
+					}
+					openStarts[depth] = start;
+					openNameLengths[depth++] = nameLength;
+				}
+			}
+		}
+		if (depth > 0 || !hasRoot)
+		{
+			throw notWellFormed(size, "missing end tag");
+		}
+	}
+
+	/**
+	 * Gets the value of the attribute with the given local name from the given start tag
+	 *
+	 * @param start
+	 *            the offset of the start tag
+	 * @param nameLength
+	 *            the length of the element name in bytes
+	 * @param contentStart
+	 *            the offset after the start tag
+	 * @param localName
+	 *            the local name of the attribute
+	 * @return the value or null if the start tag has no such attribute
+	 */
+	String getAttribute(final long start, final int nameLength, final long contentStart,
+		final String localName)
+	{
+		final byte[] name = localName.getBytes(StandardCharsets.UTF_8);
+		long position = start + 1 + nameLength;
+		while (position < contentStart)
+		{
+			final byte b = get(position);
+			if (isWhitespace(b) || b == '/' || b == '>')
+			{
+				position++;
+				continue;
+			}
+			final long nameStart = position;
+			while (get(position) != '=' && !isWhitespace(get(position)))
+			{
+				position++;
+			}
+			final long nameEnd = position;
+			while (get(position) != '"' && get(position) != '\'')
+			{
+				position++;
+			}
+			final byte quote = get(position++);
+			final long valueStart = position;
+			while (get(position) != quote)
+			{
+				position++;
+			}
+			if (isLocalName(nameStart, nameEnd, name))
+			{
+				return decode(valueStart, position, true);
+			}
+			position++;
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the offset of the end tag of an element
+	 *
+	 * @param contentStart
+	 *            the offset after the start tag
+	 * @param end
+	 *            the offset after the end tag
+	 * @return the offset of the end tag or the given end for an empty element tag
+	 */
+	long getContentEnd(final long contentStart, final long end)
+	{
+		if (end == contentStart)
+		{
+			return end;
+		}
+		long position = end - 1;
+		while (get(position) != '<')
+		{
+			position--;
+		}
+		return position;
+	}
+
+	/**
+	 * Checks if the name between the given offsets has the given local name
+	 *
+	 * @param start
+	 *            the offset of the name
+	 * @param end
+	 *            the offset after the name
+	 * @param localName
+	 *            the utf-8 bytes of the local name
+	 * @return true if the name has the given local name
+	 */
+	boolean isLocalName(final long start, final long end, final byte[] localName)
+	{
+		long localStart = start;
+		for (long position = start; position < end; position++)
+		{
+			if (get(position) == ':')
+			{
+				localStart = position + 1;
+			}
+		}
+		if (end - localStart != localName.length)
+		{
+			return false;
+		}
+		for (int i = 0; i < localName.length; i++)
+		{
+			if (get(localStart + i) != localName[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Decodes the text nodes between the given offsets, which must not contain tags. Comments and
+	 * processing instructions separate the text nodes like in the xpath data model, cdata sections
+	 * are part of the text node around them
+	 *
+	 * @param start
+	 *            the offset of the text
+	 * @param end
+	 *            the offset after the text
+	 * @param textNodes
+	 *            the list that the decoded text nodes that are not empty are added to
+	 */
+	void decodeTextNodes(final long start, final long end, final List<String> textNodes)
+	{
+		long nodeStart = start;
+		long position = start;
+		while (position < end)
+		{
+			if (get(position) != '<')
+			{
+				position++;
+			}
+			else if (startsWith(position, "<!--") || startsWith(position, "<?"))
+			{
+				addTextNode(nodeStart, position, textNodes);
+				position = skipMarkup(position, end, null);
+				nodeStart = position;
+			}
+			else
+			{
+				// a cdata section, which can contain markup characters
+				position = skipMarkup(position, end, null);
+			}
+		}
+		addTextNode(nodeStart, end, textNodes);
+	}
+
+	/**
+	 * Decodes the text between the given offsets. Tags, comments and processing instructions are
+	 * left out, cdata sections are unwrapped and references are resolved
+	 *
+	 * @param start
+	 *            the offset of the text
+	 * @param end
+	 *            the offset after the text
+	 * @param attribute
+	 *            true if the text is an attribute value, whose whitespace is normalized
+	 * @return the decoded text
+	 */
+	String decode(final long start, final long end, final boolean attribute)
+	{
+		final ByteBuilder builder = new ByteBuilder((int)Math.min(end - start, 1 << 16));
+		long position = start;
+		while (position < end)
+		{
+			final byte b = get(position);
+			if (b == '&')
+			{
+				position = decodeReference(position, end, builder);
+			}
+			else if (b == '<' && !attribute)
+			{
+				position = skipMarkup(position, end, builder);
+			}
+			else if (b == '\r' || attribute && isWhitespace(b))
+			{
+				// line breaks are normalized to a line feed, whitespace in attributes to a space
+				builder.append(attribute ? (byte)' ' : (byte)'\n');
+				position += b == '\r' && position + 1 < end && get(position + 1) == '\n' ? 2 : 1;
+			}
+			else
+			{
+				builder.append(b);
+				position++;
+			}
+		}
+		return builder.toString();
+	}
+
+	private boolean startsWith(final long position, final String prefix)
+	{
+		if (position + prefix.length() > size)
+		{
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++)
+		{
+			if (get(position + i) != prefix.charAt(i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long indexOf(final long from, final String token) throws IOException
+	{
+		final byte first = (byte)token.charAt(0);
+		for (long position = from; position < size; position++)
+		{
+			if (get(position) == first && startsWith(position, token))
+			{
+				return position;
+			}
+		}
+		throw notWellFormed(from, "missing " + token);
+	}
+
+	private long skipTag(final long start, final long from) throws IOException
+	{
+		byte quote = 0;
+		long position = from;
+		while (position < size)
+		{
+			final byte b = get(position++);
+			if (quote != 0)
+			{
+				if (b == quote)
+				{
+					quote = 0;
+				}
+			}
+			else if (b == '"' || b == '\'')
+			{
+				quote = b;
+			}
+			else if (b == '>')
+			{
+				return position;
+			}
+		}
+		throw notWellFormed(start, "unterminated tag");
+	}
+
+	private long skipDoctype(final long start) throws IOException
+	{
+		byte quote = 0;
+		boolean internalSubset = false;
+		for (long position = start + 9; position < size; position++)
+		{
+			final byte b = get(position);
+			if (quote != 0)
+			{
+				if (b == quote)
+				{
+					quote = 0;
+				}
+			}
+			else if (b == '"' || b == '\'')
+			{
+				quote = b;
+			}
+			else if (b == '[')
+			{
+				internalSubset = true;
+			}
+			else if (b == ']')
+			{
+				internalSubset = false;
+			}
+			else if (b == '>' && !internalSubset)
+			{
+				return position + 1;
+			}
+		}
+		throw notWellFormed(start, "unterminated document type definition");
+	}
+
+	private void checkEncoding(final long start, final long end) throws IOException
+	{
+		final byte[] declaration = new byte[(int)Math.min(end - start, 256)];
+		for (int i = 0; i < declaration.length; i++)
+		{
+			declaration[i] = get(start + i);
+		}
+		final String text = new String(declaration, StandardCharsets.US_ASCII);
+		final int index = text.indexOf("encoding");
+		if (index < 0)
+		{
+			return;
+		}
+		final int equals = text.indexOf('=', index);
+		int valueStart = equals + 1;
+		while (valueStart < text.length() && text.charAt(valueStart) != '"'
+			&& text.charAt(valueStart) != '\'')
+		{
+			valueStart++;
+		}
+		final int valueEnd = valueStart < text.length()
+			? text.indexOf(text.charAt(valueStart), valueStart + 1)
+			: -1;
+		final String encoding = valueEnd > valueStart
+			? text.substring(valueStart + 1, valueEnd).toUpperCase(Locale.ROOT)
+			: "";
+		if (!encoding.equals("UTF-8") && !encoding.equals("UTF8")
+			&& !encoding.equals("US-ASCII") && !encoding.equals("ASCII"))
+		{
+			throw new IOException("The encoding " + encoding + " is not supported");
+		}
+	}
+
+	private void addTextNode(final long start, final long end, final List<String> textNodes)
+	{
+		// an empty cdata section is no text node
+		final String textNode = decode(start, end, false);
+		if (!textNode.isEmpty())
+		{
+			textNodes.add(textNode);
+		}
+	}
+
+	private long skipMarkup(final long start, final long end, final ByteBuilder builder)
+	{
+		try
+		{
+			if (startsWith(start, "<![CDATA["))
+			{
+				final long cdataEnd = indexOf(start + 9, "]]>");
+				for (long position = start + 9; builder != null && position < cdataEnd; position++)
+				{
+					builder.append(get(position));
+				}
+				return cdataEnd + 3;
+			}
+			if (startsWith(start, "<!--"))
+			{
+				return indexOf(start + 4, "-->") + 3;
+			}
+			if (startsWith(start, "<?"))
+			{
+				return indexOf(start + 2, "?>") + 2;
+			}
+			// a start or end tag of a descendant
+			return Math.min(skipTag(start, start + 1), end);
+		}
+		catch (final IOException e)
+		{
+			// not possible, the document was checked by the scan
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private long decodeReference(final long start, final long end, final ByteBuilder builder)
+	{
+		long semicolon = start + 1;
+		while (semicolon < end && semicolon - start < 12 && get(semicolon) != ';')
+		{
+			semicolon++;
+		}
+		if (semicolon >= end || get(semicolon) != ';')
+		{
+			builder.append((byte)'&');
+			return start + 1;
+		}
+		final byte[] reference = new byte[(int)(semicolon - start - 1)];
+		for (int i = 0; i < reference.length; i++)
+		{
+			reference[i] = get(start + 1 + i);
+		}
+		final String name = new String(reference, StandardCharsets.US_ASCII);
+		int codePoint;
+		switch (name)
+		{
+			case "lt" :
+				codePoint = '<';
+				break;
+			case "gt" :
+				codePoint = '>';
+				break;
+			case "amp" :
+				codePoint = '&';
+				break;
+			case "quot" :
+				codePoint = '"';
+				break;
+			case "apos" :
+				codePoint = '\'';
+				break;
+			default :
+				codePoint = parseCharacterReference(name);
+				break;
+		}
+		if (codePoint < 0)
+		{
+			// an entity of a document type definition is kept as it is
+			for (long position = start; position <= semicolon; position++)
+			{
+				builder.append(get(position));
+			}
+		}
+		else
+		{
+			builder.append(new String(Character.toChars(codePoint))
+				.getBytes(StandardCharsets.UTF_8));
+		}
+		return semicolon + 1;
+	}
+
+	private static int parseCharacterReference(final String name)
+	{
+		try
+		{
+			final int codePoint;
+			if (name.startsWith("#x"))
+			{
+				codePoint = Integer.parseInt(name.substring(2), 16);
+			}
+			else if (name.startsWith("#"))
+			{
+				codePoint = Integer.parseInt(name.substring(1));
+			}
+			else
+			{
+				return -1;
+			}
+			return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+		}
+		catch (final NumberFormatException e)
+		{
+			// not a character reference
+			return -1;
+		}
+	}
+
+	private static boolean isWhitespace(final byte b)
+	{
+		return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+	}
+
+	private static IOException notWellFormed(final long position, final String message)
+	{
+		return new IOException(
+			"The document is not well formed at byte " + position + ": " + message);
+	}
+
+	/**
+	 * The interface {@link ScanHandler} receives the elements found by
+	 * {@link MappedXmlFile#scan(ScanHandler)} in document order
+	 */
+	interface ScanHandler
+	{
+
+		/**
+		 * Receives the start tag of an element
+		 *
+		 * @param start
+		 *            the offset of the start tag
+		 * @param nameLength
+		 *            the length of the element name in bytes, the name starts after the bracket
+		 * @param contentStart
+		 *            the offset after the start tag
+		 * @param empty
+		 *            true for an empty element tag
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		void startElement(long start, int nameLength, long contentStart, boolean empty)
+			throws IOException;
+
+		/**
+		 * Receives the end of the last started element that is not ended yet
+		 *
+		 * @param end
+		 *            the offset after the end tag
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		void endElement(long end) throws IOException;
+
+	}
+
+	/**
+	 * The class {@link ByteBuilder} collects the bytes of a decoded value
+	 */
+	private static final class ByteBuilder
+	{
+
+		/** The collected bytes */
+		private byte[] bytes;
+
+		/** The number of collected bytes */
+		private int length;
+
+		ByteBuilder(final int capacity)
+		{
+			this.bytes = new byte[Math.max(capacity, 16)];
+		}
+
+		void append(final byte b)
+		{
+			if (length == bytes.length)
+			{
+				bytes = Arrays.copyOf(bytes, length * 2);
+			}
+			bytes[length++] = b;
+		}
+
+		void append(final byte[] values)
+		{
+			for (final byte b : values)
+			{
+				append(b);
+			}
+		}
+
+		@Override
+		public String toString()
+		{
+			return new String(bytes, 0, length, StandardCharsets.UTF_8);
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+import org.codehaus.stax2.XMLStreamReader2;
+
+/**
+ * The class {@link ProjectingStreamReader} hides all elements of the underlying reader that are
+ * not selected by a projection. An element that is not on the way to a selected element is
+ * skipped as a whole at the StAX level, with the fast {@link XMLStreamReader2#skipElement()} if
+ * the underlying reader supports it. The elements on the way to a selected element are reported
+ * without their text, comments and processing instructions. The root element is always kept, so
+ * the projected document stays well formed
+ */
+final class ProjectingStreamReader extends StreamReaderDelegate
+{
+
+	/** The projection nodes of the open elements */
+	private final Deque<XmlProjection.Node> nodes = new ArrayDeque<>();
+
+	/** The projection node of the document */
+	private final XmlProjection.Node root;
+
+	/**
+	 * Creates a new {@link ProjectingStreamReader} object
+	 *
+	 * @param reader
+	 *            the underlying reader
+	 * @param root
+	 *            the projection node of the document
+	 */
+	ProjectingStreamReader(final XMLStreamReader reader, final XmlProjection.Node root)
+	{
+		super(reader);
+		this.root = root;
+	}
+
+	@Override
+	public int next() throws XMLStreamException
+	{
+		while (true)
+		{
+			final int event = super.next();
+			switch (event)
+			{
+				case XMLStreamConstants.START_ELEMENT :
+					final XmlProjection.Node parent = nodes.isEmpty() ? root : nodes.peek();
+					final XmlProjection.Node node = parent.getChild(getLocalName());
+					if (node != null)
+					{
+						nodes.push(node);
+						return event;
+					}
+					if (nodes.isEmpty())
+					{
+						// the root element stays, but none of its children is selected
+						nodes.push(XmlProjection.Node.EMPTY);
+						return event;
+					}
+					skipElement();
+					break;
+				case XMLStreamConstants.END_ELEMENT :
+					nodes.pop();
+					return event;
+				case XMLStreamConstants.CHARACTERS :
+				case XMLStreamConstants.CDATA :
+				case XMLStreamConstants.SPACE :
+				case XMLStreamConstants.COMMENT :
+				case XMLStreamConstants.PROCESSING_INSTRUCTION :
+					// the elements on the way to a selected element keep only their structure
+					if (nodes.isEmpty() || nodes.peek().isSelected())
+					{
+						return event;
+					}
+					break;
+				default :
+					return event;
+			}
+		}
+	}
+
+	@Override
+	public int nextTag() throws XMLStreamException
+	{
+		int event = next();
+		while (event != XMLStreamConstants.START_ELEMENT
+			&& event != XMLStreamConstants.END_ELEMENT)
+		{
+			if ((event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)
+				&& !isWhiteSpace())
+			{
+				throw new XMLStreamException("expected a start or end tag", getLocation());
+			}
+			event = next();
+		}
+		return event;
+	}
+
+	private void skipElement() throws XMLStreamException
+	{
+		final XMLStreamReader reader = getParent();
+		if (reader instanceof XMLStreamReader2)
+		{
+			((XMLStreamReader2)reader).skipElement();
+			return;
+		}
+		int depth = 1;
+		while (depth > 0)
+		{
+			final int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				depth++;
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				depth--;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,388 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The class {@link StreamingPath} is a compiled simple location path that is evaluated while a
+ * document is read with StAX, without building a tree. The supported subset are absolute paths of
+ * element names or <code>*</code> separated with <code>/</code> or <code>//</code>, optionally
+ * ending with an attribute step <code>@name</code> or <code>text()</code>, for instance
+ * <code>/catalog/book/title</code>, <code>//book/@id</code> or <code>/a/&#42;/c/text()</code>.
+ * Predicates, functions and other axes are not supported. Prefixes are ignored, names are matched
+ * by their local name. A compiled path is immutable and can be used from any number of threads
+ */
+final class StreamingPath
+{
+
+	/** The local names of the element steps, null for <code>*</code> */
+	private final String[] names;
+
+	/** Whether the element step is preceded by <code>//</code> */
+	private final boolean[] descendant;
+
+	/** The local name of the attribute step or null */
+	private final String attributeName;
+
+	/** Whether the path ends with a <code>text()</code> step */
+	private final boolean text;
+
+	private StreamingPath(final String[] names, final boolean[] descendant,
+		final String attributeName, final boolean text)
+	{
+		this.names = names;
+		this.descendant = descendant;
+		this.attributeName = attributeName;
+		this.text = text;
+	}
+
+	/**
+	 * Compiles the given expression
+	 *
+	 * @param expression
+	 *            the expression
+	 * @return the compiled path
+	 * @throws IllegalArgumentException
+	 *             is thrown if the expression is not in the supported subset
+	 */
+	static StreamingPath compile(final String expression)
+	{
+		Objects.requireNonNull(expression);
+		final String path = expression.trim();
+		if (!path.startsWith("/"))
+		{
+			throw unsupported(expression);
+		}
+		final List<String> stepNames = new ArrayList<>();
+		final List<Boolean> stepDescendant = new ArrayList<>();
+		String attributeName = null;
+		boolean text = false;
+		int position = 0;
+		while (position < path.length())
+		{
+			if (attributeName != null || text)
+			{
+				// attribute and text steps must be the last step
+				throw unsupported(expression);
+			}
+			boolean descendantStep = false;
+			position++;
+			if (position < path.length() && path.charAt(position) == '/')
+			{
+				descendantStep = true;
+				position++;
+			}
+			int end = path.indexOf('/', position);
+			if (end < 0)
+			{
+				end = path.length();
+			}
+			final String step = path.substring(position, end).trim();
+			position = end;
+			if (step.startsWith("@") && !descendantStep && isName(step.substring(1)))
+			{
+				attributeName = localName(step.substring(1));
+			}
+			else if (step.equals("text()") && !descendantStep)
+			{
+				text = true;
+			}
+			else if (step.equals("*") || isName(step))
+			{
+				stepNames.add(step.equals("*") ? null : localName(step));
+				stepDescendant.add(descendantStep);
+			}
+			else
+			{
+				throw unsupported(expression);
+			}
+		}
+		if (stepNames.isEmpty())
+		{
+			throw unsupported(expression);
+		}
+		final boolean[] descendant = new boolean[stepDescendant.size()];
+		for (int i = 0; i < descendant.length; i++)
+		{
+			descendant[i] = stepDescendant.get(i);
+		}
+		return new StreamingPath(stepNames.toArray(new String[0]), descendant, attributeName, text);
+	}
+
+	/**
+	 * Evaluates this path while the given reader is read and adds the string values of the
+	 * selected nodes in document order to the given list. The reading stops as soon as the list
+	 * holds the given number of values
+	 *
+	 * @param reader
+	 *            the reader, positioned at the start of the document
+	 * @param limit
+	 *            the maximum number of values
+	 * @param values
+	 *            the list for the values
+	 * @throws XMLStreamException
+	 *             is thrown if the document is not well formed
+	 */
+	void evaluate(final XMLStreamReader reader, final int limit, final List<String> values)
+		throws XMLStreamException
+	{
+		String[] elements = new String[16];
+		int depth = 0;
+		// the elements whose string value is collected, for element and text() paths
+		final List<Collector> collectors = new ArrayList<>();
+		while (reader.hasNext() && !isComplete(values, limit))
+		{
+			switch (reader.next())
+			{
+				case XMLStreamConstants.START_ELEMENT :
+					if (depth == elements.length)
+					{
+						elements = Arrays.copyOf(elements, depth * 2);
+					}
+					elements[depth++] = reader.getLocalName();
+					if (matches(elements, names.length - 1, depth - 1))
+					{
+						if (attributeName != null)
+						{
+							final String value = getAttributeValue(reader);
+							if (value != null)
+							{
+								values.add(value);
+							}
+						}
+						else
+						{
+							collectors.add(new Collector(depth, text ? -1 : values.size()));
+							if (!text)
+							{
+								// the slot keeps the document order for nested matches
+								values.add(null);
+							}
+						}
+					}
+					break;
+				case XMLStreamConstants.END_ELEMENT :
+					for (int i = collectors.size() - 1; i >= 0; i--)
+					{
+						final Collector collector = collectors.get(i);
+						if (collector.depth == depth)
+						{
+							if (collector.index >= 0)
+							{
+								values.set(collector.index, collector.value.toString());
+							}
+							collectors.remove(i);
+						}
+					}
+					depth--;
+					break;
+				case XMLStreamConstants.CHARACTERS :
+				case XMLStreamConstants.CDATA :
+				case XMLStreamConstants.SPACE :
+					for (final Collector collector : collectors)
+					{
+						if (!text)
+						{
+							collector.value.append(reader.getTextCharacters(),
+								reader.getTextStart(), reader.getTextLength());
+						}
+						else if (collector.depth == depth)
+						{
+							values.add(reader.getText());
+						}
+					}
+					break;
+				default :
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of element steps
+	 *
+	 * @return the number of element steps
+	 */
+	int getStepCount()
+	{
+		return names.length;
+	}
+
+	/**
+	 * Gets the local name of the given element step
+	 *
+	 * @param step
+	 *            the index of the element step
+	 * @return the local name or null for <code>*</code>
+	 */
+	String getName(final int step)
+	{
+		return names[step];
+	}
+
+	/**
+	 * Checks if the given element step is preceded by <code>//</code>
+	 *
+	 * @param step
+	 *            the index of the element step
+	 * @return true if the element step selects descendants
+	 */
+	boolean isDescendant(final int step)
+	{
+		return descendant[step];
+	}
+
+	/**
+	 * Gets the local name of the attribute step
+	 *
+	 * @return the local name of the attribute step or null if there is none
+	 */
+	String getAttributeName()
+	{
+		return attributeName;
+	}
+
+	/**
+	 * Checks if this path ends with a <code>text()</code> step
+	 *
+	 * @return true if this path ends with a <code>text()</code> step
+	 */
+	boolean isText()
+	{
+		return text;
+	}
+
+	private boolean isComplete(final List<String> values, final int limit)
+	{
+		if (values.size() < limit)
+		{
+			return false;
+		}
+		for (int i = 0; i < limit; i++)
+		{
+			if (values.get(i) == null)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean matches(final String[] elements, final int step, final int element)
+	{
+		if (names[step] != null && !names[step].equals(elements[element]))
+		{
+			return false;
+		}
+		if (step == 0)
+		{
+			return descendant[0] || element == 0;
+		}
+		if (!descendant[step])
+		{
+			return element > 0 && matches(elements, step - 1, element - 1);
+		}
+		for (int previous = element - 1; previous >= 0; previous--)
+		{
+			if (matches(elements, step - 1, previous))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String getAttributeValue(final XMLStreamReader reader)
+	{
+		for (int i = 0; i < reader.getAttributeCount(); i++)
+		{
+			if (attributeName.equals(reader.getAttributeLocalName(i)))
+			{
+				return reader.getAttributeValue(i);
+			}
+		}
+		return null;
+	}
+
+	private static boolean isName(final String step)
+	{
+		if (step.isEmpty())
+		{
+			return false;
+		}
+		for (int i = 0; i < step.length(); i++)
+		{
+			final char c = step.charAt(i);
+			if (!(Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == ':')
+				|| i == 0 && (Character.isDigit(c) || c == '-' || c == '.'))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String localName(final String name)
+	{
+		return name.substring(name.indexOf(':') + 1);
+	}
+
+	private static IllegalArgumentException unsupported(final String expression)
+	{
+		return new IllegalArgumentException(
+			"The expression " + expression + " is not a supported streaming location path");
+	}
+
+	/**
+	 * The class {@link Collector} collects the text of a selected element
+	 */
+	private static final class Collector
+	{
+
+		/** The depth of the selected element */
+		final int depth;
+
+		/** The index of the value in the result list or -1 for text() paths */
+		final int index;
+
+		/** The collected text */
+		final StringBuilder value = new StringBuilder();
+
+		Collector(final int depth, final int index)
+		{
+			this.depth = depth;
+			this.index = index;
+		}
+	}
+
+}
@@ -0,0 +1,403 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.w3c.dom.NodeList;
+
+/**
+ * The class {@link XPathEngine} evaluates xpath expressions. Compiled expressions are cached by
+ * their text in a bounded least recently used cache. An {@link XPathExpression} is not
+ * thread-safe, so every cached expression has a small pool of compiled instances that are
+ * borrowed by one thread at a time, and the {@link XPath} objects that compile them are pooled as
+ * well. Expressions are evaluated against a dom node, and the simple location paths described in
+ * {@link #isStreamable(String)} can also be evaluated while a document is read with StAX, without
+ * building a tree. An engine can be used from any number of threads
+ */
+public final class XPathEngine
+{
+
+	/** The default maximum number of cached expressions */
+	public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+	/** The maximum number of idle instances per expression and of idle xpath objects */
+	private static final int MAXIMUM_IDLE = Runtime.getRuntime().availableProcessors() * 2;
+
+	/** The maximum number of cached expressions */
+	private final int maximumSize;
+
+	/** The namespace context of the expressions or null */
+	private final NamespaceContext namespaceContext;
+
+	/** The factory that creates the xpath objects, guarded by itself */
+	private final XPathFactory xPathFactory = XPathFactory.newInstance();
+
+	/** The idle xpath objects */
+	private final XmlProcessorPool<XPath, RuntimeException> xPathPool;
+
+	/** The pools of the compiled expressions by their text in access order, guarded by itself */
+	private final Map<String, XmlProcessorPool<XPathExpression, XPathExpressionException>> expressions;
+
+	/** The compiled streaming paths by their text in access order, guarded by itself */
+	private final Map<String, StreamingPath> streamingPaths;
+
+	/** The factory that creates the stream readers for the streaming evaluation */
+	private final XMLInputFactory inputFactory;
+
+	/**
+	 * Creates a new {@link XPathEngine} object with the default maximum size and without a
+	 * namespace context
+	 */
+	public XPathEngine()
+	{
+		this(DEFAULT_MAXIMUM_SIZE, null);
+	}
+
+	/**
+	 * Creates a new {@link XPathEngine} object
+	 *
+	 * @param maximumSize
+	 *            the maximum number of cached expressions
+	 * @param namespaceContext
+	 *            the namespace context that resolves the prefixes in the expressions or null
+	 */
+	public XPathEngine(final int maximumSize, final NamespaceContext namespaceContext)
+	{
+		if (maximumSize < 1)
+		{
+			throw new IllegalArgumentException("maximumSize must be greater than zero");
+		}
+		this.maximumSize = maximumSize;
+		this.namespaceContext = namespaceContext;
+		this.xPathPool = new XmlProcessorPool<>(this::newXPath, this::reset, MAXIMUM_IDLE);
+		this.expressions = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+				final Map.Entry<String, XmlProcessorPool<XPathExpression, XPathExpressionException>> eldest)
+			{
+				return size() > XPathEngine.this.maximumSize;
+			}
+		};
+		this.streamingPaths = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, StreamingPath> eldest)
+			{
+				return size() > XPathEngine.this.maximumSize;
+			}
+		};
+		this.inputFactory = XMLInputFactory.newFactory();
+		this.inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+			Boolean.FALSE);
+	}
+
+	/**
+	 * Evaluates the given expression against the given item and returns the result as string
+	 *
+	 * @param expression
+	 *            the expression
+	 * @param item
+	 *            the context item, for instance a dom document or node
+	 * @return the string value of the result
+	 * @throws XPathExpressionException
+	 *             is thrown if the expression can not be compiled or evaluated
+	 */
+	public String evaluate(final String expression, final Object item)
+		throws XPathExpressionException
+	{
+		return (String)evaluate(expression, item, XPathConstants.STRING);
+	}
+
+	/**
+	 * Evaluates the given expression against the given item and returns the result as node list
+	 *
+	 * @param expression
+	 *            the expression
+	 * @param item
+	 *            the context item, for instance a dom document or node
+	 * @return the selected nodes
+	 * @throws XPathExpressionException
+	 *             is thrown if the expression can not be compiled or evaluated
+	 */
+	public NodeList evaluateNodes(final String expression, final Object item)
+		throws XPathExpressionException
+	{
+		return (NodeList)evaluate(expression, item, XPathConstants.NODESET);
+	}
+
+	/**
+	 * Evaluates the given expression against the given item and returns the result in the given
+	 * type
+	 *
+	 * @param expression
+	 *            the expression
+	 * @param item
+	 *            the context item, for instance a dom document or node
+	 * @param returnType
+	 *            the return type, one of the constants of {@link XPathConstants}
+	 * @return the result of the evaluation
+	 * @throws XPathExpressionException
+	 *             is thrown if the expression can not be compiled or evaluated
+	 */
+	public Object evaluate(final String expression, final Object item, final QName returnType)
+		throws XPathExpressionException
+	{
+		Objects.requireNonNull(returnType);
+		final XmlProcessorPool<XPathExpression, XPathExpressionException> pool = getPool(
+			expression);
+		final XPathExpression compiled = pool.borrow();
+		final Object result = compiled.evaluate(item, returnType);
+		pool.release(compiled);
+		return result;
+	}
+
+	/**
+	 * Checks whether the given expression can be evaluated while a document is streamed. These are
+	 * absolute location paths of element names or <code>*</code> separated with <code>/</code> or
+	 * <code>//</code>, optionally ending with an attribute step <code>@name</code> or
+	 * <code>text()</code>, for instance <code>/catalog/book/title</code> or
+	 * <code>//book/@id</code>. Names are matched by their local name
+	 *
+	 * @param expression
+	 *            the expression
+	 * @return true if the expression can be streamed
+	 */
+	public static boolean isStreamable(final String expression)
+	{
+		try
+		{
+			StreamingPath.compile(expression);
+			return true;
+		}
+		catch (final IllegalArgumentException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Selects the string values of all nodes that the given streamable expression selects in the
+	 * document of the given input stream, in document order. The input stream is not closed
+	 *
+	 * @param expression
+	 *            the streamable expression
+	 * @param inputStream
+	 *            the input stream with the xml document
+	 * @return the string values of the selected nodes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the document is not well formed
+	 * @throws IllegalArgumentException
+	 *             is thrown if the expression is not streamable
+	 * @see #isStreamable(String)
+	 */
+	public List<String> selectValues(final String expression, final InputStream inputStream)
+		throws IOException
+	{
+		return select(expression, inputStream, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Selects the string values of all nodes that the given streamable expression selects in the
+	 * given xml file, in document order
+	 *
+	 * @param expression
+	 *            the streamable expression
+	 * @param xmlFile
+	 *            the xml file
+	 * @return the string values of the selected nodes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the document is not well formed
+	 * @throws IllegalArgumentException
+	 *             is thrown if the expression is not streamable
+	 * @see #isStreamable(String)
+	 */
+	public List<String> selectValues(final String expression, final Path xmlFile)
+		throws IOException
+	{
+		try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(xmlFile)))
+		{
+			return select(expression, inputStream, Integer.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * Selects the string value of the first node that the given streamable expression selects in
+	 * the given xml file. The reading stops as soon as the value is found
+	 *
+	 * @param expression
+	 *            the streamable expression
+	 * @param xmlFile
+	 *            the xml file
+	 * @return the string value of the first selected node or null if no node is selected
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the document is not well formed
+	 * @throws IllegalArgumentException
+	 *             is thrown if the expression is not streamable
+	 * @see #isStreamable(String)
+	 */
+	public String selectFirstValue(final String expression, final Path xmlFile) throws IOException
+	{
+		try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(xmlFile)))
+		{
+			final List<String> values = select(expression, inputStream, 1);
+			return values.isEmpty() ? null : values.get(0);
+		}
+	}
+
+	/**
+	 * Gets the maximum number of cached expressions
+	 *
+	 * @return the maximum number of cached expressions
+	 */
+	public int getMaximumSize()
+	{
+		return maximumSize;
+	}
+
+	/**
+	 * Gets the current number of cached expressions
+	 *
+	 * @return the number of cached expressions
+	 */
+	public int getSize()
+	{
+		synchronized (expressions)
+		{
+			return expressions.size();
+		}
+	}
+
+	/**
+	 * Gets the current number of cached streaming paths
+	 *
+	 * @return the number of cached streaming paths
+	 */
+	int getStreamingPathCount()
+	{
+		synchronized (streamingPaths)
+		{
+			return streamingPaths.size();
+		}
+	}
+
+	private List<String> select(final String expression, final InputStream inputStream,
+		final int limit) throws IOException
+	{
+		Objects.requireNonNull(expression);
+		Objects.requireNonNull(inputStream);
+		final StreamingPath path;
+		synchronized (streamingPaths)
+		{
+			path = streamingPaths.computeIfAbsent(expression, StreamingPath::compile);
+		}
+		final List<String> values = new ArrayList<>();
+		try
+		{
+			final XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+			try
+			{
+				path.evaluate(reader, limit, values);
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		catch (final XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+		return values.size() > limit ? new ArrayList<>(values.subList(0, limit)) : values;
+	}
+
+	private XmlProcessorPool<XPathExpression, XPathExpressionException> getPool(
+		final String expression)
+	{
+		Objects.requireNonNull(expression);
+		synchronized (expressions)
+		{
+			return expressions.computeIfAbsent(expression,
+				key -> new XmlProcessorPool<>(() -> compile(key), compiled -> {
+				}, MAXIMUM_IDLE));
+		}
+	}
+
+	private XPathExpression compile(final String expression) throws XPathExpressionException
+	{
+		final XPath xPath = xPathPool.borrow();
+		final XPathExpression compiled = xPath.compile(expression);
+		xPathPool.release(xPath);
+		return compiled;
+	}
+
+	private XPath newXPath()
+	{
+		final XPath xPath;
+		synchronized (xPathFactory)
+		{
+			xPath = xPathFactory.newXPath();
+		}
+		reset(xPath);
+		return xPath;
+	}
+
+	private void reset(final XPath xPath)
+	{
+		// reset also removes the namespace context
+		xPath.reset();
+		if (namespaceContext != null)
+		{
+			xPath.setNamespaceContext(namespaceContext);
+		}
+	}
+
+}
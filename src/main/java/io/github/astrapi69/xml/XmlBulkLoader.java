@@ -0,0 +1,175 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The class {@link XmlBulkLoader} binds many xml files to objects of one type. The files are
+ * loaded in parallel through a {@link XmlFileFanOut} with a shared {@link XmlObjectLoader}, so the
+ * reader of the type is created only once. The number of files in flight is bounded, a failed
+ * file is recorded in the {@link BulkLoadResult} and does not abort the bulk load. The result
+ * keeps the order of the given files
+ */
+public final class XmlBulkLoader
+{
+
+	/** The default maximum number of files that are loaded at the same time */
+	public static final int DEFAULT_MAXIMUM_IN_FLIGHT = Runtime.getRuntime().availableProcessors()
+		* 4;
+
+	/** The file name suffix of the xml files in a directory */
+	private static final String XML_FILE_SUFFIX = ".xml";
+
+	/** The loader that binds one xml file */
+	private final XmlObjectLoader objectLoader;
+
+	/** The fan-out that runs the loading */
+	private final XmlFileFanOut fanOut;
+
+	/**
+	 * Creates a new {@link XmlBulkLoader} object that uses the shared object loader of
+	 * {@link XmlExtensions} and the common {@link ForkJoinPool}
+	 */
+	public XmlBulkLoader()
+	{
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a new {@link XmlBulkLoader} object that uses the shared object loader of
+	 * {@link XmlExtensions}
+	 *
+	 * @param executor
+	 *            the executor that runs the loading
+	 */
+	public XmlBulkLoader(final Executor executor)
+	{
+		this(XmlExtensions.getObjectLoader(), executor, DEFAULT_MAXIMUM_IN_FLIGHT);
+	}
+
+	/**
+	 * Creates a new {@link XmlBulkLoader} object
+	 *
+	 * @param objectLoader
+	 *            the loader that binds one xml file
+	 * @param executor
+	 *            the executor that runs the loading
+	 * @param maximumInFlight
+	 *            the maximum number of files that are loaded at the same time
+	 */
+	public XmlBulkLoader(final XmlObjectLoader objectLoader, final Executor executor,
+		final int maximumInFlight)
+	{
+		Objects.requireNonNull(objectLoader);
+		this.objectLoader = objectLoader;
+		this.fanOut = new XmlFileFanOut(executor, maximumInFlight);
+	}
+
+	/**
+	 * Loads all xml files of the given directory in the order of their file names
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param directory
+	 *            the directory with the xml files
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the result of the bulk load
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred while listing the directory
+	 * @throws InterruptedException
+	 *             is thrown if the current thread was interrupted while waiting for the bulk load
+	 */
+	public <T> BulkLoadResult<T> load(final Path directory, final Class<T> clazz)
+		throws IOException, InterruptedException
+	{
+		Objects.requireNonNull(directory);
+		final List<Path> xmlFiles;
+		try (Stream<Path> files = Files.list(directory))
+		{
+			xmlFiles = files.filter(Files::isRegularFile)
+				.filter(path -> path.getFileName().toString().endsWith(XML_FILE_SUFFIX)).sorted()
+				.collect(Collectors.toList());
+		}
+		return load(xmlFiles, clazz);
+	}
+
+	/**
+	 * Loads the given xml files, the objects in the result are in the order of the given files
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param xmlFiles
+	 *            the xml files
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the result of the bulk load
+	 * @throws InterruptedException
+	 *             is thrown if the current thread was interrupted while waiting for the bulk load
+	 */
+	public <T> BulkLoadResult<T> load(final Collection<Path> xmlFiles, final Class<T> clazz)
+		throws InterruptedException
+	{
+		Objects.requireNonNull(xmlFiles);
+		Objects.requireNonNull(clazz);
+		final long start = System.nanoTime();
+		final Path[] files = xmlFiles.toArray(new Path[0]);
+		// every task writes only its own slot, the fan-out publishes the slots to this thread
+		final Object[] objects = new Object[files.length];
+		final List<XmlFileFailure> failures = fanOut.run(Arrays.asList(files).iterator(),
+			(index, xmlFile) -> objects[index] = objectLoader.load(xmlFile, clazz));
+		final boolean[] failed = new boolean[files.length];
+		failures.forEach(failure -> failed[failure.getIndex()] = true);
+		final List<T> loaded = new ArrayList<>(files.length - failures.size());
+		final Map<Path, T> loadedByFile = new LinkedHashMap<>();
+		for (int i = 0; i < files.length; i++)
+		{
+			if (!failed[i])
+			{
+				final T object = clazz.cast(objects[i]);
+				loaded.add(object);
+				loadedByFile.put(files[i], object);
+			}
+		}
+		return new BulkLoadResult<>(loaded, loadedByFile, failures,
+			Duration.ofNanos(System.nanoTime() - start));
+	}
+
+}
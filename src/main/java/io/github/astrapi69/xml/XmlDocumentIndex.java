@@ -0,0 +1,535 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The class {@link XmlDocumentIndex} is a compact read-only representation of a xml file in the
+ * spirit of VTD-XML. The file is memory-mapped and scanned once, and only the byte offsets and the
+ * tree structure of the elements are stored in primitive arrays, about 36 bytes per element
+ * independent of the length of the names, attributes and text. Names, attribute values and text
+ * are decoded from the mapped file only when they are requested, so files of several gigabytes
+ * can be queried with little heap.
+ * <p>
+ * Elements are identified by their index in document order, the root element has the index
+ * <code>0</code> and <code>-1</code> stands for no element. Queries take the location paths of
+ * {@link XPathEngine#isStreamable(String)}, absolute paths of element names or <code>*</code>
+ * separated with <code>/</code> or <code>//</code>, optionally ending with <code>@name</code> or
+ * <code>text()</code>. Names are matched by their local name.
+ * <p>
+ * The file must be encoded in UTF-8 or US-ASCII and must not change while the index is used.
+ * Entities declared in a document type definition are not resolved. An instance is immutable and
+ * can be used from any number of threads
+ */
+public final class XmlDocumentIndex
+{
+
+	/** The mapped file */
+	private final MappedXmlFile file;
+
+	/** The distinct element names */
+	private final SymbolTable symbols = new SymbolTable();
+
+	/** The number of elements */
+	private int elementCount;
+
+	/** The symbols of the element names */
+	private int[] nameIds;
+
+	/** The parents of the elements, -1 for the root element */
+	private int[] parents;
+
+	/** The last descendants of the elements, the element itself if it has no children */
+	private int[] lastDescendants;
+
+	/** The offsets of the start tags */
+	private long[] starts;
+
+	/** The offsets after the start tags */
+	private long[] contentStarts;
+
+	/** The offsets after the end tags */
+	private long[] ends;
+
+	/**
+	 * Creates a new {@link XmlDocumentIndex} object over the given xml file
+	 *
+	 * @param xmlFile
+	 *            the xml file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred, the document is not well formed or
+	 *             it is not encoded in UTF-8 or US-ASCII
+	 */
+	public XmlDocumentIndex(final Path xmlFile) throws IOException
+	{
+		this.file = new MappedXmlFile(xmlFile);
+		final int capacity = (int)Math.min(Math.max(file.size() / 64, 16), 1 << 16);
+		this.nameIds = new int[capacity];
+		this.parents = new int[capacity];
+		this.lastDescendants = new int[capacity];
+		this.starts = new long[capacity];
+		this.contentStarts = new long[capacity];
+		this.ends = new long[capacity];
+		file.scan(new MappedXmlFile.ScanHandler()
+		{
+
+			/** The open elements */
+			private int[] open = new int[64];
+
+			/** The number of open elements */
+			private int depth;
+
+			@Override
+			public void startElement(final long start, final int nameLength,
+				final long contentStart, final boolean empty)
+			{
+				if (elementCount == nameIds.length)
+				{
+					grow();
+				}
+				final int element = elementCount++;
+				nameIds[element] = symbols.add(file, start + 1, nameLength);
+				parents[element] = depth == 0 ? -1 : open[depth - 1];
+				starts[element] = start;
+				contentStarts[element] = contentStart;
+				if (depth == open.length)
+				{
+					open = Arrays.copyOf(open, depth * 2);
+				}
+				open[depth++] = element;
+			}
+
+			@Override
+			public void endElement(final long end)
+			{
+				final int element = open[--depth];
+				ends[element] = end;
+				lastDescendants[element] = elementCount - 1;
+			}
+		});
+		this.nameIds = Arrays.copyOf(nameIds, elementCount);
+		this.parents = Arrays.copyOf(parents, elementCount);
+		this.lastDescendants = Arrays.copyOf(lastDescendants, elementCount);
+		this.starts = Arrays.copyOf(starts, elementCount);
+		this.contentStarts = Arrays.copyOf(contentStarts, elementCount);
+		this.ends = Arrays.copyOf(ends, elementCount);
+	}
+
+	/**
+	 * Gets the number of elements in the document
+	 *
+	 * @return the number of elements
+	 */
+	public int getElementCount()
+	{
+		return elementCount;
+	}
+
+	/**
+	 * Gets the root element
+	 *
+	 * @return the root element
+	 */
+	public int getRoot()
+	{
+		return 0;
+	}
+
+	/**
+	 * Gets the parent of the given element
+	 *
+	 * @param element
+	 *            the element
+	 * @return the parent or -1 for the root element
+	 */
+	public int getParent(final int element)
+	{
+		return parents[checkElement(element)];
+	}
+
+	/**
+	 * Gets the first child element of the given element
+	 *
+	 * @param element
+	 *            the element
+	 * @return the first child element or -1 if the element has no child elements
+	 */
+	public int getFirstChild(final int element)
+	{
+		return lastDescendants[checkElement(element)] > element ? element + 1 : -1;
+	}
+
+	/**
+	 * Gets the next sibling element of the given element
+	 *
+	 * @param element
+	 *            the element
+	 * @return the next sibling element or -1 if the element is the last child of its parent
+	 */
+	public int getNextSibling(final int element)
+	{
+		final int parent = parents[checkElement(element)];
+		final int next = lastDescendants[element] + 1;
+		return parent >= 0 && next <= lastDescendants[parent] ? next : -1;
+	}
+
+	/**
+	 * Gets the qualified name of the given element
+	 *
+	 * @param element
+	 *            the element
+	 * @return the qualified name
+	 */
+	public String getName(final int element)
+	{
+		return symbols.getName(nameIds[checkElement(element)]);
+	}
+
+	/**
+	 * Gets the local name of the given element
+	 *
+	 * @param element
+	 *            the element
+	 * @return the local name
+	 */
+	public String getLocalName(final int element)
+	{
+		return symbols.getLocalName(nameIds[checkElement(element)]);
+	}
+
+	/**
+	 * Gets the value of the attribute with the given local name of the given element
+	 *
+	 * @param element
+	 *            the element
+	 * @param localName
+	 *            the local name of the attribute
+	 * @return the value or null if the element has no such attribute
+	 */
+	public String getAttribute(final int element, final String localName)
+	{
+		Objects.requireNonNull(localName);
+		return file.getAttribute(starts[checkElement(element)],
+			symbols.getBytes(nameIds[element]).length, contentStarts[element], localName);
+	}
+
+	/**
+	 * Gets the string value of the given element, that is the text of the element and all its
+	 * descendants
+	 *
+	 * @param element
+	 *            the element
+	 * @return the string value
+	 */
+	public String getText(final int element)
+	{
+		return file.decode(contentStarts[checkElement(element)], getContentEnd(element), false);
+	}
+
+	/**
+	 * Selects the elements with the given location path
+	 *
+	 * @param expression
+	 *            the location path, it must not end with an attribute or <code>text()</code> step
+	 * @return the selected elements in document order
+	 * @throws IllegalArgumentException
+	 *             is thrown if the location path is not supported
+	 */
+	public int[] select(final String expression)
+	{
+		final StreamingPath path = StreamingPath.compile(expression);
+		if (path.getAttributeName() != null || path.isText())
+		{
+			throw new IllegalArgumentException(
+				"The expression " + expression + " does not select elements");
+		}
+		return select(path);
+	}
+
+	/**
+	 * Selects the string values of the nodes with the given location path
+	 *
+	 * @param expression
+	 *            the location path
+	 * @return the unmodifiable list of the string values in document order
+	 * @throws IllegalArgumentException
+	 *             is thrown if the location path is not supported
+	 */
+	public List<String> selectValues(final String expression)
+	{
+		final StreamingPath path = StreamingPath.compile(expression);
+		final int[] elements = select(path);
+		final List<String> values = new ArrayList<>(elements.length);
+		for (final int element : elements)
+		{
+			if (path.getAttributeName() != null)
+			{
+				final String value = getAttribute(element, path.getAttributeName());
+				if (value != null)
+				{
+					values.add(value);
+				}
+			}
+			else if (path.isText())
+			{
+				addTextValues(element, values);
+			}
+			else
+			{
+				values.add(getText(element));
+			}
+		}
+		return Collections.unmodifiableList(values);
+	}
+
+	private int[] select(final StreamingPath path)
+	{
+		int[] context = { -1 };
+		int contextSize = 1;
+		for (int step = 0; step < path.getStepCount(); step++)
+		{
+			final boolean[] matches = symbols.matches(path.getName(step));
+			int[] selected = new int[Math.max(16, contextSize)];
+			int selectedSize = 0;
+			for (int i = 0; i < contextSize; i++)
+			{
+				final int parent = context[i];
+				if (path.isDescendant(step))
+				{
+					final int last = parent < 0 ? elementCount - 1 : lastDescendants[parent];
+					for (int element = parent + 1; element <= last; element++)
+					{
+						if (matches[nameIds[element]])
+						{
+							selected = add(selected, selectedSize++, element);
+						}
+					}
+				}
+				else
+				{
+					int element = parent < 0 ? 0 : getFirstChild(parent);
+					while (element >= 0)
+					{
+						if (matches[nameIds[element]])
+						{
+							selected = add(selected, selectedSize++, element);
+						}
+						element = parent < 0 ? -1 : getNextSibling(element);
+					}
+				}
+			}
+			// nested context elements can select the same descendants
+			Arrays.sort(selected, 0, selectedSize);
+			contextSize = 0;
+			for (int i = 0; i < selectedSize; i++)
+			{
+				if (contextSize == 0 || selected[contextSize - 1] != selected[i])
+				{
+					selected[contextSize++] = selected[i];
+				}
+			}
+			context = selected;
+		}
+		return Arrays.copyOf(context, contextSize);
+	}
+
+	private void addTextValues(final int element, final List<String> values)
+	{
+		long position = contentStarts[element];
+		for (int child = getFirstChild(element); child >= 0; child = getNextSibling(child))
+		{
+			file.decodeTextNodes(position, starts[child], values);
+			position = ends[child];
+		}
+		file.decodeTextNodes(position, getContentEnd(element), values);
+	}
+
+	private static int[] add(final int[] array, final int index, final int value)
+	{
+		final int[] result = index < array.length
+			? array
+			: Arrays.copyOf(array, array.length + (array.length >> 1));
+		result[index] = value;
+		return result;
+	}
+
+	private int checkElement(final int element)
+	{
+		if (element < 0 || element >= elementCount)
+		{
+			throw new IndexOutOfBoundsException("No element with the index " + element);
+		}
+		return element;
+	}
+
+	private long getContentEnd(final int element)
+	{
+		return file.getContentEnd(contentStarts[element], ends[element]);
+	}
+
+	private void grow()
+	{
+		final int capacity = (int)Math.min((long)nameIds.length * 3 / 2 + 1,
+			Integer.MAX_VALUE - 8);
+		if (capacity <= nameIds.length)
+		{
+			throw new IllegalStateException("too many elements");
+		}
+		nameIds = Arrays.copyOf(nameIds, capacity);
+		parents = Arrays.copyOf(parents, capacity);
+		lastDescendants = Arrays.copyOf(lastDescendants, capacity);
+		starts = Arrays.copyOf(starts, capacity);
+		contentStarts = Arrays.copyOf(contentStarts, capacity);
+		ends = Arrays.copyOf(ends, capacity);
+	}
+
+	/**
+	 * The class {@link SymbolTable} holds the distinct element names, so every element stores only
+	 * the number of its name
+	 */
+	private static final class SymbolTable
+	{
+
+		/** The utf-8 bytes of the names */
+		private final List<byte[]> bytes = new ArrayList<>();
+
+		/** The decoded names */
+		private final List<String> names = new ArrayList<>();
+
+		/** The hash table of the symbols, -1 for a free slot */
+		private int[] table = newTable(64);
+
+		int add(final MappedXmlFile file, final long start, final int length)
+		{
+			int hash = 1;
+			for (int i = 0; i < length; i++)
+			{
+				hash = 31 * hash + file.get(start + i);
+			}
+			int slot = hash & (table.length - 1);
+			while (table[slot] >= 0)
+			{
+				final byte[] name = bytes.get(table[slot]);
+				if (equals(file, start, length, name))
+				{
+					return table[slot];
+				}
+				slot = (slot + 1) & (table.length - 1);
+			}
+			final byte[] name = new byte[length];
+			for (int i = 0; i < length; i++)
+			{
+				name[i] = file.get(start + i);
+			}
+			final int symbol = bytes.size();
+			bytes.add(name);
+			names.add(new String(name, StandardCharsets.UTF_8));
+			table[slot] = symbol;
+			if (bytes.size() * 2 > table.length)
+			{
+				rehash();
+			}
+			return symbol;
+		}
+
+		byte[] getBytes(final int symbol)
+		{
+			return bytes.get(symbol);
+		}
+
+		String getName(final int symbol)
+		{
+			return names.get(symbol);
+		}
+
+		String getLocalName(final int symbol)
+		{
+			final String name = names.get(symbol);
+			return name.substring(name.indexOf(':') + 1);
+		}
+
+		boolean[] matches(final String localName)
+		{
+			final boolean[] matches = new boolean[names.size()];
+			for (int symbol = 0; symbol < matches.length; symbol++)
+			{
+				matches[symbol] = localName == null || localName.equals(getLocalName(symbol));
+			}
+			return matches;
+		}
+
+		private void rehash()
+		{
+			table = newTable(table.length * 2);
+			for (int symbol = 0; symbol < bytes.size(); symbol++)
+			{
+				int hash = 1;
+				for (final byte b : bytes.get(symbol))
+				{
+					hash = 31 * hash + b;
+				}
+				int slot = hash & (table.length - 1);
+				while (table[slot] >= 0)
+				{
+					slot = (slot + 1) & (table.length - 1);
+				}
+				table[slot] = symbol;
+			}
+		}
+
+		private static boolean equals(final MappedXmlFile file, final long start,
+			final int length, final byte[] name)
+		{
+			if (name.length != length)
+			{
+				return false;
+			}
+			for (int i = 0; i < length; i++)
+			{
+				if (file.get(start + i) != name[i])
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static int[] newTable(final int capacity)
+		{
+			final int[] table = new int[capacity];
+			Arrays.fill(table, -1);
+			return table;
+		}
+	}
+
+}
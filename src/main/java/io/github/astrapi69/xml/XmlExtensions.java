@@ -24,24 +24,45 @@
  */
 package io.github.astrapi69.xml;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Stream;
 
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
 
 import org.apache.commons.io.FileUtils;
+import org.w3c.dom.Document;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
-import io.github.astrapi69.file.read.ReadFileExtensions;
+import com.thoughtworks.xstream.XStreamException;
+
 import io.github.astrapi69.lang.ClassExtensions;
-import io.github.astrapi69.xml.parser.DocumentExtensions;
-import io.github.astrapi69.xml.parser.DocumentFactory;
+import io.github.astrapi69.xstream.factory.XStreamFactory;
 
 /**
  * The class {@link XmlExtensions}
@@ -49,10 +70,50 @@ import io.github.astrapi69.xml.parser.DocumentFactory;
 public final class XmlExtensions
 {
 
+	/**
+	 * The size in bytes from which {@link #getInputSource(Path)} and {@link #getSource(Path)} map
+	 * a file into memory instead of reading it with a buffered stream
+	 */
+	public static final long MEMORY_MAPPING_THRESHOLD = 1024 * 1024;
+
+	/** The Constant OBJECT_LOADER. */
+	private static final XmlObjectLoader OBJECT_LOADER = new XmlObjectLoader();
+
+	/** The output property for the number of spaces per indentation level */
+	private static final String INDENT_AMOUNT = "{http://xml.apache.org/xslt}indent-amount";
+
+	/** The maximum number of idle document builders and transformers that are kept */
+	private static final int MAXIMUM_IDLE = Runtime.getRuntime().availableProcessors() * 2;
+
+	/** The Constant DOCUMENT_BUILDER_FACTORY, guarded by itself. */
+	private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory
+		.newInstance();
+
+	/** The Constant TRANSFORMER_FACTORY, guarded by itself. */
+	private static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
+
+	/** The Constant DOCUMENT_BUILDER_POOL. */
+	private static final XmlProcessorPool<DocumentBuilder, ParserConfigurationException> DOCUMENT_BUILDER_POOL = new XmlProcessorPool<>(
+		XmlExtensions::newDocumentBuilder, DocumentBuilder::reset, MAXIMUM_IDLE);
+
+	/** The Constant TRANSFORMER_POOL. */
+	private static final XmlProcessorPool<Transformer, TransformerConfigurationException> TRANSFORMER_POOL = new XmlProcessorPool<>(
+		XmlExtensions::newTransformer, Transformer::reset, MAXIMUM_IDLE);
+
 	private XmlExtensions()
 	{
 	}
 
+	/**
+	 * Gets the shared object loader that is used from the loadObject methods with a class argument
+	 *
+	 * @return the shared object loader
+	 */
+	public static XmlObjectLoader getObjectLoader()
+	{
+		return OBJECT_LOADER;
+	}
+
 	/**
 	 * Gets the input source from the given xml string.
 	 *
@@ -65,6 +126,146 @@ public final class XmlExtensions
 		return new InputSource(new StringReader(xmlString));
 	}
 
+	/**
+	 * Gets the input source from the given xml bytes. The parser reads the bytes directly and takes
+	 * the encoding from the xml declaration or the byte order mark
+	 *
+	 * @param xmlBytes
+	 *            the xml bytes
+	 * @return the input source
+	 */
+	public static InputSource getInputSource(final byte[] xmlBytes)
+	{
+		Objects.requireNonNull(xmlBytes);
+		return new InputSource(new ByteArrayInputStream(xmlBytes));
+	}
+
+	/**
+	 * Gets the input source from the remaining bytes of the given buffer, which can also be a
+	 * direct or a memory-mapped buffer. The bytes are not copied and the position of the buffer is
+	 * not changed, the encoding is taken from the xml declaration or the byte order mark
+	 *
+	 * @param xmlBuffer
+	 *            the buffer with the xml bytes
+	 * @return the input source
+	 */
+	public static InputSource getInputSource(final ByteBuffer xmlBuffer)
+	{
+		return new InputSource(new ByteBufferInputStream(xmlBuffer));
+	}
+
+	/**
+	 * Gets the input source from the given xml file. A file of at least
+	 * {@link #MEMORY_MAPPING_THRESHOLD} bytes is mapped into memory, so the parser reads the bytes
+	 * of the file directly, a smaller file is read with a buffered stream. The system id is set to
+	 * the uri of the file, so relative references in the document are resolved against the file.
+	 * <br>
+	 * <br>
+	 * A mapping is not released when the byte stream of the input source is closed but only when
+	 * the mapped buffer is garbage collected. Until then the file can not be deleted or replaced
+	 * on Windows, and if the file is truncated while it is mapped the next read fails with an
+	 * {@link InternalError}
+	 *
+	 * @param xmlPath
+	 *            the path of the xml file
+	 * @return the input source
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public static InputSource getInputSource(final Path xmlPath) throws IOException
+	{
+		final InputSource inputSource = new InputSource(newInputStream(xmlPath));
+		inputSource.setSystemId(xmlPath.toUri().toString());
+		return inputSource;
+	}
+
+	/**
+	 * Gets the source for a transformation or validation from the given xml bytes
+	 *
+	 * @param xmlBytes
+	 *            the xml bytes
+	 * @return the source
+	 * @see #getInputSource(byte[])
+	 */
+	public static Source getSource(final byte[] xmlBytes)
+	{
+		Objects.requireNonNull(xmlBytes);
+		return new StreamSource(new ByteArrayInputStream(xmlBytes));
+	}
+
+	/**
+	 * Gets the source for a transformation or validation from the remaining bytes of the given
+	 * buffer
+	 *
+	 * @param xmlBuffer
+	 *            the buffer with the xml bytes
+	 * @return the source
+	 * @see #getInputSource(ByteBuffer)
+	 */
+	public static Source getSource(final ByteBuffer xmlBuffer)
+	{
+		return new StreamSource(new ByteBufferInputStream(xmlBuffer));
+	}
+
+	/**
+	 * Gets the source for a transformation or validation from the given xml file. A file of at
+	 * least {@link #MEMORY_MAPPING_THRESHOLD} bytes is mapped into memory with the same lifetime of
+	 * the mapping as in {@link #getInputSource(Path)}, a smaller file is read with a buffered
+	 * stream
+	 *
+	 * @param xmlPath
+	 *            the path of the xml file
+	 * @return the source
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @see #getInputSource(Path)
+	 */
+	public static Source getSource(final Path xmlPath) throws IOException
+	{
+		return new StreamSource(newInputStream(xmlPath), xmlPath.toUri().toString());
+	}
+
+	private static InputStream newInputStream(final Path xmlPath) throws IOException
+	{
+		Objects.requireNonNull(xmlPath);
+		try (FileChannel channel = FileChannel.open(xmlPath, StandardOpenOption.READ))
+		{
+			final long size = channel.size();
+			if (size < MEMORY_MAPPING_THRESHOLD || Integer.MAX_VALUE < size)
+			{
+				// a small file is not worth a mapping that lives until the next garbage
+				// collection, and a mapped buffer can not hold more than 2 GB
+				return new BufferedInputStream(Files.newInputStream(xmlPath));
+			}
+			// the mapping stays valid after the channel is closed
+			return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+		}
+	}
+
+	/**
+	 * Creates a lazy stream over the elements with the given name in the given xml file, every
+	 * element is bound on its own to an object of the given type with the shared object loader.
+	 * The file is closed when the stream is closed
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param xmlPath
+	 *            the path of the xml file
+	 * @param elementName
+	 *            the local name of the repeating elements
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the lazy stream of the bound elements
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 * @see XmlObjectLoader#stream(Path, String, Class)
+	 */
+	public static <T> Stream<T> streamObjects(final Path xmlPath, final String elementName,
+		final Class<T> clazz) throws IOException
+	{
+		return OBJECT_LOADER.stream(xmlPath, elementName, clazz);
+	}
+
 	/**
 	 * Load from the given file name that should represent an xml file and transform it to the
 	 * generic type object.
@@ -79,8 +280,10 @@ public final class XmlExtensions
 	 */
 	public static <T> T loadObject(final File xmlFile) throws IOException
 	{
-		final InputStream is = FileUtils.openInputStream(xmlFile);
-		return loadObject(is);
+		try (InputStream is = new BufferedInputStream(FileUtils.openInputStream(xmlFile)))
+		{
+			return loadObject(is);
+		}
 	}
 
 	/**
@@ -100,8 +303,55 @@ public final class XmlExtensions
 	public static <T> T loadObject(final File xmlFile, final Class<T> clazz) throws IOException
 	{
 		Objects.requireNonNull(clazz);
-		final InputStream is = FileUtils.openInputStream(xmlFile);
-		return loadObject(is, clazz);
+		try (InputStream is = new BufferedInputStream(FileUtils.openInputStream(xmlFile)))
+		{
+			return loadObject(is, clazz);
+		}
+	}
+
+	/**
+	 * Load from the given path that should represent an xml file and transform it to the generic
+	 * type object. The file is parsed while it is read and closed afterwards
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param xmlPath
+	 *            the path of the xml file
+	 * @return the object from the given xml file.
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static <T> T loadObject(final Path xmlPath) throws IOException
+	{
+		Objects.requireNonNull(xmlPath);
+		try (InputStream is = new BufferedInputStream(Files.newInputStream(xmlPath)))
+		{
+			return loadObject(is);
+		}
+	}
+
+	/**
+	 * Load from the given path that should represent an xml file and transform it to the generic
+	 * type object. The file is parsed while it is read and closed afterwards
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param xmlPath
+	 *            the path of the xml file
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the object from the given xml file.
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static <T> T loadObject(final Path xmlPath, final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(xmlPath);
+		Objects.requireNonNull(clazz);
+		try (InputStream is = new BufferedInputStream(Files.newInputStream(xmlPath)))
+		{
+			return loadObject(is, clazz);
+		}
 	}
 
 	/**
@@ -126,7 +376,8 @@ public final class XmlExtensions
 	}
 
 	/**
-	 * Formats the given unformatted xml {@link String} object with the given indent
+	 * Formats the given unformatted xml {@link String} object with the given indent. The document
+	 * builder and the serializing transformer are borrowed from pools and reset after use
 	 *
 	 * @param xmlString
 	 *            the given unformatted xml {@link String} object
@@ -145,12 +396,45 @@ public final class XmlExtensions
 	public static String prettyPrint(final String xmlString, int indent)
 		throws ParserConfigurationException, IOException, SAXException, TransformerException
 	{
-		return DocumentExtensions.toString(DocumentFactory.newDocument(xmlString), indent);
+		final Document document = parse(xmlString);
+		final Transformer transformer = TRANSFORMER_POOL.borrow();
+		transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+		transformer.setOutputProperty(INDENT_AMOUNT, String.valueOf(indent));
+		final StringWriter writer = new StringWriter();
+		transformer.transform(new DOMSource(document), new StreamResult(writer));
+		TRANSFORMER_POOL.release(transformer);
+		return writer.toString();
+	}
+
+	private static Document parse(final String xmlString)
+		throws ParserConfigurationException, IOException, SAXException
+	{
+		final DocumentBuilder documentBuilder = DOCUMENT_BUILDER_POOL.borrow();
+		final Document document = documentBuilder.parse(getInputSource(xmlString));
+		DOCUMENT_BUILDER_POOL.release(documentBuilder);
+		return document;
+	}
+
+	private static DocumentBuilder newDocumentBuilder() throws ParserConfigurationException
+	{
+		synchronized (DOCUMENT_BUILDER_FACTORY)
+		{
+			return DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+		}
+	}
+
+	private static Transformer newTransformer() throws TransformerConfigurationException
+	{
+		synchronized (TRANSFORMER_FACTORY)
+		{
+			return TRANSFORMER_FACTORY.newTransformer();
+		}
 	}
 
 	/**
 	 * Load from the given input stream that should represent an xml file and transform it to the
-	 * generic type object.
+	 * generic type object. The xml is parsed while it is read with xstream, the given input stream
+	 * is not closed
 	 *
 	 * @param <T>
 	 *            the generic type
@@ -159,16 +443,41 @@ public final class XmlExtensions
 	 * @return the object from the given input stream.
 	 * @throws IOException
 	 *             Signals that an I/O exception has occurred.
+	 * @throws XStreamException
+	 *             is thrown if xstream can not read or convert the xml
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T loadObject(final InputStream is) throws IOException
+	{
+		Objects.requireNonNull(is);
+		return (T)XStreamFactory.newXStream().fromXML(is);
+	}
+
+	/**
+	 * Load from the given reader that should represent an xml file and transform it to the generic
+	 * type object. The xml is parsed while it is read with xstream, the given reader is not closed
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param reader
+	 *            the reader
+	 * @return the object from the given reader.
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 * @throws XStreamException
+	 *             is thrown if xstream can not read or convert the xml
 	 */
-	private static <T> T loadObject(final InputStream is) throws IOException
+	@SuppressWarnings("unchecked")
+	public static <T> T loadObject(final Reader reader) throws IOException
 	{
-		return io.github.astrapi69.xstream.XmlToObjectExtensions
-			.toObject(ReadFileExtensions.inputStream2String(is));
+		Objects.requireNonNull(reader);
+		return (T)XStreamFactory.newXStream().fromXML(reader);
 	}
 
 	/**
 	 * Load from the given input stream that should represent an xml file and transform it to the
-	 * generic type object.
+	 * generic type object. The xml is parsed while it is read with jackson, the given input stream
+	 * is not closed
 	 *
 	 * @param <T>
 	 *            the generic type
@@ -180,12 +489,30 @@ public final class XmlExtensions
 	 * @throws IOException
 	 *             Signals that an I/O exception has occurred.
 	 */
-	private static <T> T loadObject(final InputStream is, final Class<T> clazz) throws IOException
+	public static <T> T loadObject(final InputStream is, final Class<T> clazz) throws IOException
 	{
-		Objects.requireNonNull(is);
 		Objects.requireNonNull(clazz);
-		final String xmlString = ReadFileExtensions.inputStream2String(is);
-		return io.github.astrapi69.xml.jackson.XmlToObjectExtensions.toObject(xmlString, clazz);
+		return OBJECT_LOADER.load(is, clazz);
+	}
+
+	/**
+	 * Load from the given reader that should represent an xml file and transform it to the generic
+	 * type object. The xml is parsed while it is read with jackson, the given reader is not closed
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param reader
+	 *            the reader
+	 * @param clazz
+	 *            the clazz of the generic type
+	 * @return the object from the given reader.
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static <T> T loadObject(final Reader reader, final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(clazz);
+		return OBJECT_LOADER.load(reader, clazz);
 	}
 
 	/**
@@ -199,11 +526,14 @@ public final class XmlExtensions
 	 * @return the object from the given xml file.
 	 * @throws IOException
 	 *             Signals that an I/O exception has occurred.
+	 * @see XmlResourceCache
 	 */
 	public static <T> T loadObject(final String xmlFileName) throws IOException
 	{
-		final InputStream is = ClassExtensions.getResourceAsStream(xmlFileName);
-		return loadObject(is);
+		try (InputStream is = ClassExtensions.getResourceAsStream(xmlFileName))
+		{
+			return loadObject(is);
+		}
 	}
 
 	/**
@@ -219,17 +549,22 @@ public final class XmlExtensions
 	 * @return the object from the given xml file.
 	 * @throws IOException
 	 *             Signals that an I/O exception has occurred.
+	 * @see XmlResourceCache
 	 */
 	public static <T> T loadObject(final String xmlFileName, final Class<T> clazz)
 		throws IOException
 	{
 		Objects.requireNonNull(clazz);
-		final InputStream is = ClassExtensions.getResourceAsStream(xmlFileName);
-		return loadObject(is, clazz);
+		try (InputStream is = ClassExtensions.getResourceAsStream(xmlFileName))
+		{
+			return loadObject(is, clazz);
+		}
 	}
 
 	/**
-	 * Creates a tag from the given string values. Can be used for creating html or xml tags.
+	 * Creates a tag from the given string values. Can be used for creating html or xml tags. The
+	 * value and the attribute values are not escaped, for escaped output or many tags use the
+	 * {@link XmlTagWriter}
 	 *
 	 * @param tagname
 	 *            the tag name
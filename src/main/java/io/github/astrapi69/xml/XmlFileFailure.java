@@ -0,0 +1,104 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * The class {@link XmlFileFailure} describes one xml file of a batch that could not be processed,
+ * for instance by the {@link XmlBulkLoader} or the
+ * {@link io.github.astrapi69.xsl.transform.XsltBatchTransformer}
+ */
+public final class XmlFileFailure
+{
+
+	/** The position of the xml file in the batch */
+	private final int index;
+
+	/** The xml file that could not be processed */
+	private final Path xmlFile;
+
+	/** The cause of the failure */
+	private final Throwable cause;
+
+	/**
+	 * Creates a new {@link XmlFileFailure} object
+	 *
+	 * @param index
+	 *            the position of the xml file in the batch
+	 * @param xmlFile
+	 *            the xml file that could not be processed
+	 * @param cause
+	 *            the cause of the failure
+	 */
+	public XmlFileFailure(final int index, final Path xmlFile, final Throwable cause)
+	{
+		this.index = index;
+		this.xmlFile = Objects.requireNonNull(xmlFile);
+		this.cause = Objects.requireNonNull(cause);
+	}
+
+	/**
+	 * Gets the position of the xml file in the batch, which tells apart a file that was given
+	 * more than once
+	 *
+	 * @return the position of the xml file
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * Gets the xml file that could not be processed
+	 *
+	 * @return the xml file
+	 */
+	public Path getXmlFile()
+	{
+		return xmlFile;
+	}
+
+	/**
+	 * Gets the cause of the failure
+	 *
+	 * @return the cause
+	 */
+	public Throwable getCause()
+	{
+		return cause;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return xmlFile + ": " + cause;
+	}
+
+}
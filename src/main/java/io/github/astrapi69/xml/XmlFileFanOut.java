@@ -0,0 +1,174 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The class {@link XmlFileFanOut} runs one task per xml file on the given {@link Executor}. The
+ * number of files in flight is bounded by a {@link Semaphore}, so a batch of any size never queues
+ * more than this number of tasks. A failed file is recorded as {@link XmlFileFailure} and does not
+ * abort the batch. This is the shared fan-out of the {@link XmlBulkLoader} and the
+ * {@link io.github.astrapi69.xsl.transform.XsltBatchTransformer}
+ */
+public final class XmlFileFanOut
+{
+
+	/** The executor that runs the tasks */
+	private final Executor executor;
+
+	/** The maximum number of files that are processed at the same time */
+	private final int maximumInFlight;
+
+	/**
+	 * Creates a new {@link XmlFileFanOut} object
+	 *
+	 * @param executor
+	 *            the executor that runs the tasks
+	 * @param maximumInFlight
+	 *            the maximum number of files that are processed at the same time
+	 */
+	public XmlFileFanOut(final Executor executor, final int maximumInFlight)
+	{
+		Objects.requireNonNull(executor);
+		if (maximumInFlight < 1)
+		{
+			throw new IllegalArgumentException("maximumInFlight must be greater than zero");
+		}
+		this.executor = executor;
+		this.maximumInFlight = maximumInFlight;
+	}
+
+	/**
+	 * Runs the given task for every given xml file and waits until all tasks are done. Everything
+	 * a task has written before it returned is visible to the caller afterwards. A task that
+	 * throws an {@link Error} is recorded as failure too and the error is thrown again to the
+	 * executor
+	 *
+	 * @param xmlFiles
+	 *            the xml files
+	 * @param task
+	 *            the task that processes one xml file
+	 * @return the failures in the order of the xml files
+	 * @throws InterruptedException
+	 *             is thrown if the current thread was interrupted while waiting for a free slot,
+	 *             the files already in flight are still awaited
+	 */
+	public List<XmlFileFailure> run(final Iterator<Path> xmlFiles, final Task task)
+		throws InterruptedException
+	{
+		Objects.requireNonNull(xmlFiles);
+		Objects.requireNonNull(task);
+		final Semaphore inFlight = new Semaphore(maximumInFlight);
+		final Queue<XmlFileFailure> failures = new ConcurrentLinkedQueue<>();
+		try
+		{
+			for (int i = 0; xmlFiles.hasNext(); i++)
+			{
+				final int index = i;
+				final Path xmlFile = xmlFiles.next();
+				inFlight.acquire();
+				try
+				{
+					executor.execute(() -> {
+						try
+						{
+							task.run(index, xmlFile);
+						}
+						catch (final Exception e)
+						{
+							failures.add(new XmlFileFailure(index, xmlFile, e));
+						}
+						catch (final Error e)
+						{
+							// counted as failure, so the counts add up to the number of files
+							failures.add(new XmlFileFailure(index, xmlFile, e));
+							throw e;
+						}
+						finally
+						{
+							inFlight.release();
+						}
+					});
+				}
+				catch (final RejectedExecutionException e)
+				{
+					failures.add(new XmlFileFailure(index, xmlFile, e));
+					inFlight.release();
+				}
+			}
+		}
+		finally
+		{
+			// wait until all files in flight are done
+			inFlight.acquireUninterruptibly(maximumInFlight);
+		}
+		final List<XmlFileFailure> sorted = new ArrayList<>(failures);
+		sorted.sort(Comparator.comparingInt(XmlFileFailure::getIndex));
+		return sorted;
+	}
+
+	/**
+	 * Gets the maximum number of files that are processed at the same time
+	 *
+	 * @return the maximum number of files in flight
+	 */
+	public int getMaximumInFlight()
+	{
+		return maximumInFlight;
+	}
+
+	/**
+	 * The interface {@link Task} processes one xml file of a batch
+	 */
+	@FunctionalInterface
+	public interface Task
+	{
+
+		/**
+		 * Processes the given xml file
+		 *
+		 * @param index
+		 *            the position of the xml file in the batch
+		 * @param xmlFile
+		 *            the xml file
+		 * @throws Exception
+		 *             is thrown if the xml file could not be processed
+		 */
+		void run(int index, Path xmlFile) throws Exception;
+
+	}
+
+}
@@ -0,0 +1,479 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileOwnerAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Objects;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.Comment;
+import javax.xml.stream.events.DTD;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.ProcessingInstruction;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+/**
+ * The class {@link XmlFormatter} indents or minifies xml documents with StAX. The document is
+ * read and written event by event, so the memory use does not depend on the size of the document
+ * and files of any size can be formatted. Text that consists only of xml whitespace, that is
+ * spaces, tabs and line breaks, between elements is treated as formatting and dropped, all other
+ * text is written as it is and cdata sections are written as escaped text. Mixed content, that is an element that already had text, and elements
+ * with <code>xml:space="preserve"</code> are written as they are without any added or dropped
+ * whitespace. Elements without content are written as empty elements. The output is always
+ * encoded in UTF-8. An instance is immutable and can be used from any number of threads
+ */
+public final class XmlFormatter
+{
+
+	/** The encoding of the formatted documents */
+	private static final String ENCODING = "UTF-8";
+
+	/** The name of the attribute that controls the handling of whitespace */
+	private static final QName XML_SPACE = new QName(XMLConstants.XML_NS_URI, "space");
+
+	/** The number of spaces per level or -1 for minifying */
+	private final int indent;
+
+	/** The factory that creates the event readers */
+	private final XMLInputFactory inputFactory;
+
+	/** The factory that creates the stream writers */
+	private final XMLOutputFactory outputFactory;
+
+	private XmlFormatter(final int indent)
+	{
+		this.indent = indent;
+		this.inputFactory = XMLInputFactory.newFactory();
+		this.inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+			Boolean.FALSE);
+		this.outputFactory = XMLOutputFactory.newFactory();
+	}
+
+	/**
+	 * Creates a new {@link XmlFormatter} object that writes every element on its own line,
+	 * indented with the given number of spaces per level
+	 *
+	 * @param indent
+	 *            the number of spaces per level
+	 * @return the new formatter
+	 */
+	public static XmlFormatter prettyPrinter(final int indent)
+	{
+		if (indent < 0)
+		{
+			throw new IllegalArgumentException("indent must not be negative");
+		}
+		return new XmlFormatter(indent);
+	}
+
+	/**
+	 * Creates a new {@link XmlFormatter} object that removes all whitespace between the elements
+	 *
+	 * @return the new formatter
+	 */
+	public static XmlFormatter minifier()
+	{
+		return new XmlFormatter(-1);
+	}
+
+	/**
+	 * Formats the xml document from the given input stream into the given output stream. The
+	 * streams are not closed
+	 *
+	 * @param inputStream
+	 *            the input stream with the xml document
+	 * @param outputStream
+	 *            the output stream for the formatted document
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the document is not well formed
+	 */
+	public void format(final InputStream inputStream, final OutputStream outputStream)
+		throws IOException
+	{
+		Objects.requireNonNull(inputStream);
+		Objects.requireNonNull(outputStream);
+		XMLEventReader reader = null;
+		XMLStreamWriter writer = null;
+		try
+		{
+			reader = inputFactory.createXMLEventReader(inputStream);
+			// the declaration is written here, the writers differ in the quotes they use
+			final XMLEvent first = reader.peek();
+			final String version = first != null && first.isStartDocument()
+				&& ((StartDocument)first).getVersion() != null
+					? ((StartDocument)first).getVersion()
+					: "1.0";
+			outputStream.write(("<?xml version=\"" + version + "\" encoding=\"" + ENCODING + "\"?>")
+				.getBytes(StandardCharsets.UTF_8));
+			writer = outputFactory.createXMLStreamWriter(outputStream, ENCODING);
+			format(reader, writer);
+			writer.flush();
+		}
+		catch (final XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+		finally
+		{
+			close(reader, writer);
+		}
+	}
+
+	/**
+	 * Formats the given xml file into the given output file
+	 *
+	 * @param xmlFile
+	 *            the xml file
+	 * @param outputFile
+	 *            the output file, an existing file is replaced
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the document is not well formed
+	 */
+	public void format(final Path xmlFile, final Path outputFile) throws IOException
+	{
+		Objects.requireNonNull(xmlFile);
+		Objects.requireNonNull(outputFile);
+		try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(xmlFile));
+			OutputStream outputStream = new BufferedOutputStream(
+				Files.newOutputStream(outputFile)))
+		{
+			format(inputStream, outputStream);
+		}
+	}
+
+	/**
+	 * Formats the given xml file in place. The formatted document is written to a temporary file
+	 * in the same directory that replaces the given file only if the formatting succeeded, so
+	 * readers see either the old or the complete new file. The new file gets the permissions, the
+	 * owner and the group of the given file
+	 *
+	 * @param xmlFile
+	 *            the xml file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred, the document is not well formed or
+	 *             the owner of the given file can not be kept, the given file stays unchanged
+	 */
+	public void formatInPlace(final Path xmlFile) throws IOException
+	{
+		Objects.requireNonNull(xmlFile);
+		final Path directory = xmlFile.toAbsolutePath().getParent();
+		final Path temporaryFile = Files.createTempFile(directory,
+			xmlFile.getFileName().toString(), ".tmp");
+		try
+		{
+			format(xmlFile, temporaryFile);
+			copyAttributes(xmlFile, temporaryFile);
+			try
+			{
+				Files.move(temporaryFile, xmlFile, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (final AtomicMoveNotSupportedException e)
+			{
+				Files.move(temporaryFile, xmlFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
+	private static void copyAttributes(final Path source, final Path target) throws IOException
+	{
+		// the temporary file is created with the mode 0600, the formatted file keeps the
+		// permissions, the owner and the group of the original file
+		final PosixFileAttributeView sourceView = Files.getFileAttributeView(source,
+			PosixFileAttributeView.class);
+		final PosixFileAttributeView targetView = Files.getFileAttributeView(target,
+			PosixFileAttributeView.class);
+		if (sourceView != null && targetView != null)
+		{
+			final PosixFileAttributes attributes = sourceView.readAttributes();
+			targetView.setPermissions(attributes.permissions());
+			if (!attributes.group().equals(targetView.readAttributes().group()))
+			{
+				targetView.setGroup(attributes.group());
+			}
+		}
+		final FileOwnerAttributeView sourceOwnerView = Files.getFileAttributeView(source,
+			FileOwnerAttributeView.class);
+		final FileOwnerAttributeView targetOwnerView = Files.getFileAttributeView(target,
+			FileOwnerAttributeView.class);
+		if (sourceOwnerView != null && targetOwnerView != null
+			&& !sourceOwnerView.getOwner().equals(targetOwnerView.getOwner()))
+		{
+			targetOwnerView.setOwner(sourceOwnerView.getOwner());
+		}
+	}
+
+	private void format(final XMLEventReader reader, final XMLStreamWriter writer)
+		throws XMLStreamException
+	{
+		// per level: whether the element has text content or child nodes, whether its whitespace
+		// is preserved and whether it is written as it is because it is part of mixed content
+		final BitSet hasText = new BitSet();
+		final BitSet hasChildren = new BitSet();
+		final BitSet preserve = new BitSet();
+		final BitSet inline = new BitSet();
+		char[] indentation = new char[0];
+		int depth = 0;
+		XMLEvent pending = null;
+		while (pending != null || reader.hasNext())
+		{
+			final XMLEvent event = pending != null ? pending : reader.nextEvent();
+			pending = null;
+			switch (event.getEventType())
+			{
+				case XMLStreamConstants.DTD :
+					newLine(writer, 0, indentation);
+					writer.writeDTD(((DTD)event).getDocumentTypeDeclaration());
+					break;
+				case XMLStreamConstants.START_ELEMENT :
+					indentation = ensureIndentation(indentation, depth);
+					startNode(writer, depth, hasText, hasChildren,
+						isVerbatim(depth, preserve, inline), indentation);
+					final StartElement startElement = event.asStartElement();
+					final Attribute space = startElement.getAttributeByName(XML_SPACE);
+					final boolean preserveChild = space != null
+						? "preserve".equals(space.getValue())
+						: preserve.get(depth);
+					final boolean inlineChild = inline.get(depth) || hasText.get(depth);
+					// whitespace only text between elements is dropped, so an element with
+					// nothing else is empty
+					XMLEvent next = reader.nextEvent();
+					while (!preserveChild && !inlineChild && isWhitespace(next))
+					{
+						next = reader.nextEvent();
+					}
+					if (next.isEndElement())
+					{
+						writeStartElement(writer, startElement, true);
+					}
+					else
+					{
+						writeStartElement(writer, startElement, false);
+						depth++;
+						hasText.clear(depth);
+						hasChildren.clear(depth);
+						preserve.set(depth, preserveChild);
+						inline.set(depth, inlineChild);
+						pending = next;
+					}
+					break;
+				case XMLStreamConstants.END_ELEMENT :
+					if (hasChildren.get(depth) && !hasText.get(depth)
+						&& !isVerbatim(depth, preserve, inline))
+					{
+						newLine(writer, depth - 1, indentation);
+					}
+					depth--;
+					writer.writeEndElement();
+					break;
+				case XMLStreamConstants.CHARACTERS :
+				case XMLStreamConstants.SPACE :
+				case XMLStreamConstants.CDATA :
+					final Characters characters = event.asCharacters();
+					if (depth == 0)
+					{
+						break;
+					}
+					if (!isWhitespace(characters))
+					{
+						hasText.set(depth);
+						writer.writeCharacters(characters.getData());
+					}
+					else if (hasText.get(depth) || isVerbatim(depth, preserve, inline))
+					{
+						// whitespace of mixed or preserved content is part of the text
+						writer.writeCharacters(characters.getData());
+					}
+					break;
+				case XMLStreamConstants.COMMENT :
+					indentation = ensureIndentation(indentation, depth);
+					startNode(writer, depth, hasText, hasChildren,
+						isVerbatim(depth, preserve, inline), indentation);
+					writer.writeComment(((Comment)event).getText());
+					break;
+				case XMLStreamConstants.PROCESSING_INSTRUCTION :
+					indentation = ensureIndentation(indentation, depth);
+					startNode(writer, depth, hasText, hasChildren,
+						isVerbatim(depth, preserve, inline), indentation);
+					final ProcessingInstruction processingInstruction = (ProcessingInstruction)event;
+					writer.writeProcessingInstruction(processingInstruction.getTarget(),
+						processingInstruction.getData());
+					break;
+				case XMLStreamConstants.END_DOCUMENT :
+					if (indent >= 0)
+					{
+						writer.writeCharacters("\n");
+					}
+					writer.writeEndDocument();
+					break;
+				default :
+					break;
+			}
+		}
+	}
+
+	private void startNode(final XMLStreamWriter writer, final int depth, final BitSet hasText,
+		final BitSet hasChildren, final boolean verbatim, final char[] indentation)
+		throws XMLStreamException
+	{
+		hasChildren.set(depth);
+		// children of mixed or preserved content stay in line to keep the text as it is
+		if (!hasText.get(depth) && !verbatim)
+		{
+			newLine(writer, depth, indentation);
+		}
+	}
+
+	private static boolean isVerbatim(final int depth, final BitSet preserve, final BitSet inline)
+	{
+		return preserve.get(depth) || inline.get(depth);
+	}
+
+	private void newLine(final XMLStreamWriter writer, final int depth, final char[] indentation)
+		throws XMLStreamException
+	{
+		if (indent >= 0)
+		{
+			writer.writeCharacters(indentation, 0, 1 + depth * indent);
+		}
+	}
+
+	private char[] ensureIndentation(final char[] indentation, final int depth)
+	{
+		final int length = 1 + Math.max(0, indent) * depth;
+		if (indentation.length >= length)
+		{
+			return indentation;
+		}
+		final char[] grown = new char[Math.max(length, indentation.length * 2)];
+		Arrays.fill(grown, ' ');
+		grown[0] = '\n';
+		return grown;
+	}
+
+	private static void writeStartElement(final XMLStreamWriter writer,
+		final StartElement startElement, final boolean empty) throws XMLStreamException
+	{
+		final QName name = startElement.getName();
+		if (empty)
+		{
+			writer.writeEmptyElement(name.getPrefix(), name.getLocalPart(), name.getNamespaceURI());
+		}
+		else
+		{
+			writer.writeStartElement(name.getPrefix(), name.getLocalPart(), name.getNamespaceURI());
+		}
+		for (final Iterator<Namespace> namespaces = startElement.getNamespaces(); namespaces
+			.hasNext();)
+		{
+			final Namespace namespace = namespaces.next();
+			if (namespace.isDefaultNamespaceDeclaration())
+			{
+				writer.writeDefaultNamespace(namespace.getNamespaceURI());
+			}
+			else
+			{
+				writer.writeNamespace(namespace.getPrefix(), namespace.getNamespaceURI());
+			}
+		}
+		for (final Iterator<Attribute> attributes = startElement.getAttributes(); attributes
+			.hasNext();)
+		{
+			final Attribute attribute = attributes.next();
+			final QName attributeName = attribute.getName();
+			writer.writeAttribute(attributeName.getPrefix(), attributeName.getNamespaceURI(),
+				attributeName.getLocalPart(), attribute.getValue());
+		}
+	}
+
+	private static boolean isWhitespace(final XMLEvent event)
+	{
+		if (!event.isCharacters())
+		{
+			return false;
+		}
+		final String data = event.asCharacters().getData();
+		for (int i = 0; i < data.length(); i++)
+		{
+			// only xml whitespace is formatting, other spaces like U+3000 are content
+			final char c = data.charAt(i);
+			if (c != ' ' && c != '\t' && c != '\n' && c != '\r')
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void close(final XMLEventReader reader, final XMLStreamWriter writer)
+	{
+		try
+		{
+			if (reader != null)
+			{
+				reader.close();
+			}
+			if (writer != null)
+			{
+				writer.close();
+			}
+		}
+		catch (final XMLStreamException e)
+		{
+			// the streams are owned by the caller
+		}
+	}
+
+}
@@ -0,0 +1,349 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.input.CloseShieldReader;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.xml.XmlFactory;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+
+/**
+ * The class {@link XmlObjectLoader} transforms xml into objects with jackson. It holds one
+ * configured {@link XmlMapper} and creates one {@link ObjectReader} per target type, which is
+ * cached and reused for all further calls. Both are immutable after the creation, so one loader
+ * can be shared by any number of threads and the setup of the mapper and the readers is done only
+ * once per type
+ */
+public final class XmlObjectLoader
+{
+
+	/** The mapper that creates the readers */
+	private final XmlMapper xmlMapper;
+
+	/** The cached readers by their target type */
+	private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new {@link XmlObjectLoader} object with a default {@link XmlMapper}
+	 */
+	public XmlObjectLoader()
+	{
+		this.xmlMapper = new XmlMapper();
+	}
+
+	/**
+	 * Creates a new {@link XmlObjectLoader} object with a copy of the given configured
+	 * {@link XmlMapper}, so later changes to the given mapper do not affect this loader
+	 *
+	 * @param xmlMapper
+	 *            the configured mapper
+	 */
+	public XmlObjectLoader(final XmlMapper xmlMapper)
+	{
+		Objects.requireNonNull(xmlMapper);
+		this.xmlMapper = xmlMapper.copy();
+	}
+
+	/**
+	 * Gets the cached reader for the given type, the reader is created on the first call
+	 *
+	 * @param clazz
+	 *            the target type
+	 * @return the reader for the given type
+	 */
+	public ObjectReader getReader(final Class<?> clazz)
+	{
+		Objects.requireNonNull(clazz);
+		return readers.computeIfAbsent(clazz, xmlMapper::readerFor);
+	}
+
+	/**
+	 * Transforms the given xml string to an object of the given type
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param xmlString
+	 *            the xml string
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the object from the given xml string
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> T load(final String xmlString, final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(xmlString);
+		return getReader(clazz).readValue(xmlString);
+	}
+
+	/**
+	 * Transforms the given xml bytes to an object of the given type
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param xmlBytes
+	 *            the xml bytes, the encoding is taken from the xml declaration
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the object from the given xml bytes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> T load(final byte[] xmlBytes, final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(xmlBytes);
+		return getReader(clazz).readValue(xmlBytes);
+	}
+
+	/**
+	 * Transforms the xml from the given input stream to an object of the given type. The xml is
+	 * parsed while it is read, the given input stream is not closed
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param is
+	 *            the input stream
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the object from the given input stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> T load(final InputStream is, final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(is);
+		return getReader(clazz).readValue(CloseShieldInputStream.wrap(is));
+	}
+
+	/**
+	 * Transforms the xml from the given reader to an object of the given type. The xml is parsed
+	 * while it is read, the given reader is not closed
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param reader
+	 *            the reader
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the object from the given reader
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> T load(final Reader reader, final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(reader);
+		return getReader(clazz).readValue(CloseShieldReader.wrap(reader));
+	}
+
+	/**
+	 * Transforms the xml from the given stream reader to an object of the given type. The stream
+	 * reader must be positioned at the start of the document or at the start of the element to
+	 * bind, it is not closed
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param reader
+	 *            the stream reader
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the object from the given stream reader
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> T load(final XMLStreamReader reader, final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(reader);
+		final ObjectReader objectReader = getReader(clazz);
+		try (JsonParser parser = xmlMapper.getFactory().createParser(reader))
+		{
+			return objectReader.readValue(parser);
+		}
+	}
+
+	/**
+	 * Transforms the given xml file to an object of the given type
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param xmlFile
+	 *            the xml file
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the object from the given xml file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> T load(final File xmlFile, final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(xmlFile);
+		return load(xmlFile.toPath(), clazz);
+	}
+
+	/**
+	 * Transforms the xml file with the given path to an object of the given type
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param xmlPath
+	 *            the path of the xml file
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the object from the given xml file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> T load(final Path xmlPath, final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(xmlPath);
+		try (InputStream is = new BufferedInputStream(Files.newInputStream(xmlPath)))
+		{
+			return getReader(clazz).readValue(is);
+		}
+	}
+
+	/**
+	 * Creates a lazy stream over the elements with the given name in the given xml file. The file
+	 * is read while the stream is consumed and every element is bound to an object of the given
+	 * type on its own, so the memory use does not grow with the size of the file. The file is
+	 * closed when the stream is closed, so the stream should be used in a try-with-resources
+	 * statement. The stream can be split for parallel processing
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param xmlPath
+	 *            the path of the xml file
+	 * @param elementName
+	 *            the local name of the repeating elements, for instance <code>item</code>
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the lazy stream of the bound elements
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> Stream<T> stream(final Path xmlPath, final String elementName,
+		final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(xmlPath);
+		final InputStream is = new BufferedInputStream(Files.newInputStream(xmlPath));
+		try
+		{
+			return stream(is, elementName, clazz).onClose(() -> {
+				try
+				{
+					is.close();
+				}
+				catch (final IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		catch (final IOException | RuntimeException e)
+		{
+			is.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates a lazy stream over the elements with the given name from the given input stream. The
+	 * input stream is read while the stream is consumed and every element is bound to an object of
+	 * the given type on its own. The given input stream is not closed. Errors while reading are
+	 * thrown as {@link UncheckedIOException}
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param is
+	 *            the input stream
+	 * @param elementName
+	 *            the local name of the repeating elements, for instance <code>item</code>
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the lazy stream of the bound elements
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> Stream<T> stream(final InputStream is, final String elementName,
+		final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(is);
+		Objects.requireNonNull(elementName);
+		final ObjectReader objectReader = getReader(clazz);
+		final XmlFactory xmlFactory = xmlMapper.getFactory();
+		final XMLStreamReader xmlStreamReader;
+		try
+		{
+			xmlStreamReader = xmlFactory.getXMLInputFactory().createXMLStreamReader(is);
+		}
+		catch (final XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+		return StreamSupport
+			.stream(new XmlRecordSpliterator<T>(xmlStreamReader, xmlFactory, objectReader,
+				elementName), false)
+			.onClose(() -> {
+				try
+				{
+					xmlStreamReader.close();
+				}
+				catch (final XMLStreamException e)
+				{
+					throw new UncheckedIOException(new IOException(e));
+				}
+			});
+	}
+
+	/**
+	 * Gets the number of cached readers
+	 *
+	 * @return the number of cached readers
+	 */
+	public int getReaderCount()
+	{
+		return readers.size();
+	}
+
+}
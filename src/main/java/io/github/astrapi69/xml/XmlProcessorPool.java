@@ -0,0 +1,151 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The class {@link XmlProcessorPool} holds idle processors like
+ * {@link javax.xml.parsers.DocumentBuilder} or {@link javax.xml.transform.Transformer} objects
+ * that are not thread-safe but expensive to create. A processor is borrowed by exactly one thread,
+ * reset and given back after use. The pool is lock-free and never blocks, if no idle processor is
+ * available a new one is created
+ *
+ * @param <T>
+ *            the generic type of the processors
+ * @param <E>
+ *            the generic type of the exception that the creation of a processor can throw
+ */
+final class XmlProcessorPool<T, E extends Exception>
+{
+
+	/** The factory that creates new processors */
+	private final ProcessorFactory<T, E> factory;
+
+	/** The action that resets a processor before it is given back */
+	private final Consumer<T> resetAction;
+
+	/** The maximum number of idle processors that are kept */
+	private final int maximumIdle;
+
+	/** The idle processors */
+	private final Queue<T> idleProcessors = new ConcurrentLinkedQueue<>();
+
+	/** The number of idle processors, kept separately because the queue size is not constant */
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	/**
+	 * Creates a new {@link XmlProcessorPool} object
+	 *
+	 * @param factory
+	 *            the factory that creates new processors
+	 * @param resetAction
+	 *            the action that resets a processor before it is given back
+	 * @param maximumIdle
+	 *            the maximum number of idle processors that are kept
+	 */
+	XmlProcessorPool(final ProcessorFactory<T, E> factory, final Consumer<T> resetAction,
+		final int maximumIdle)
+	{
+		this.factory = Objects.requireNonNull(factory);
+		this.resetAction = Objects.requireNonNull(resetAction);
+		this.maximumIdle = maximumIdle;
+	}
+
+	/**
+	 * Borrows a processor from this pool. The caller gives it back with {@link #release(Object)}
+	 * or simply drops it, for instance after a failure left it in an undefined state
+	 *
+	 * @return the borrowed processor
+	 * @throws E
+	 *             is thrown if a new processor can not be created
+	 */
+	T borrow() throws E
+	{
+		final T processor = idleProcessors.poll();
+		if (processor != null)
+		{
+			idleCount.decrementAndGet();
+			return processor;
+		}
+		return factory.create();
+	}
+
+	/**
+	 * Resets the given processor and gives it back to this pool
+	 *
+	 * @param processor
+	 *            the processor to give back
+	 */
+	void release(final T processor)
+	{
+		Objects.requireNonNull(processor);
+		if (idleCount.incrementAndGet() > maximumIdle)
+		{
+			idleCount.decrementAndGet();
+			return;
+		}
+		resetAction.accept(processor);
+		idleProcessors.offer(processor);
+	}
+
+	/**
+	 * Gets the number of idle processors
+	 *
+	 * @return the number of idle processors
+	 */
+	int getIdleCount()
+	{
+		return idleCount.get();
+	}
+
+	/**
+	 * The interface {@link ProcessorFactory} creates new processors
+	 *
+	 * @param <T>
+	 *            the generic type of the processors
+	 * @param <E>
+	 *            the generic type of the exception that the creation can throw
+	 */
+	@FunctionalInterface
+	interface ProcessorFactory<T, E extends Exception>
+	{
+
+		/**
+		 * Creates a new processor
+		 *
+		 * @return the new processor
+		 * @throws E
+		 *             is thrown if the processor can not be created
+		 */
+		T create() throws E;
+
+	}
+
+}
@@ -0,0 +1,477 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * The class {@link XmlProjection} parses only the parts of a xml document that are selected by a
+ * set of element paths. A path is absolute and consists of element names or <code>*</code>
+ * separated by <code>/</code>, for instance <code>/employee/person/name</code>. Elements are
+ * matched by their local name, so a prefix in a step like <code>/p:employee</code> is ignored
+ * like in {@link StreamingPath}. A selected
+ * element is kept with its whole subtree, the elements on the way to it are kept without their
+ * other content and all other elements are skipped at the StAX level without being bound or
+ * copied. The root element is always kept. The result is either a pruned document or an object
+ * that is bound only from the selected elements. An instance is immutable and can be used from
+ * any number of threads
+ */
+public final class XmlProjection
+{
+
+	/** The encoding of the pruned documents */
+	private static final String ENCODING = "UTF-8";
+
+	/** The paths of the selected elements */
+	private final Set<String> paths;
+
+	/** The projection node of the document */
+	private final Node root;
+
+	/** The loader that binds the pruned documents */
+	private final XmlObjectLoader objectLoader;
+
+	/** The factory that creates the stream readers */
+	private final XMLInputFactory inputFactory;
+
+	/** The factory that creates the stream writers */
+	private final XMLOutputFactory outputFactory;
+
+	/**
+	 * Creates a new {@link XmlProjection} object that binds with the shared loader of
+	 * {@link XmlExtensions}
+	 *
+	 * @param paths
+	 *            the paths of the selected elements
+	 */
+	public XmlProjection(final String... paths)
+	{
+		this(XmlExtensions.getObjectLoader(), Arrays.asList(paths));
+	}
+
+	/**
+	 * Creates a new {@link XmlProjection} object
+	 *
+	 * @param objectLoader
+	 *            the loader that binds the pruned documents
+	 * @param paths
+	 *            the paths of the selected elements
+	 */
+	public XmlProjection(final XmlObjectLoader objectLoader, final Collection<String> paths)
+	{
+		Objects.requireNonNull(objectLoader);
+		Objects.requireNonNull(paths);
+		if (paths.isEmpty())
+		{
+			throw new IllegalArgumentException("a projection needs at least one path");
+		}
+		this.objectLoader = objectLoader;
+		this.paths = Collections.unmodifiableSet(new LinkedHashSet<>(paths));
+		this.root = new Node();
+		for (final String path : this.paths)
+		{
+			root.add(path);
+		}
+		this.inputFactory = XMLInputFactory.newFactory();
+		this.inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+			Boolean.FALSE);
+		this.outputFactory = XMLOutputFactory.newFactory();
+	}
+
+	/**
+	 * Wraps the given stream reader, so that it reports only the selected elements. The given
+	 * reader must be positioned at the start of the document
+	 *
+	 * @param reader
+	 *            the stream reader over the whole document
+	 * @return the stream reader over the pruned document
+	 */
+	public XMLStreamReader project(final XMLStreamReader reader)
+	{
+		Objects.requireNonNull(reader);
+		return new ProjectingStreamReader(reader, root);
+	}
+
+	/**
+	 * Writes the pruned document from the given input stream into the given output stream. The
+	 * pruned document is encoded in UTF-8, the streams are not closed
+	 *
+	 * @param inputStream
+	 *            the input stream with the xml document
+	 * @param outputStream
+	 *            the output stream for the pruned document
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the document is not well formed
+	 */
+	public void project(final InputStream inputStream, final OutputStream outputStream)
+		throws IOException
+	{
+		Objects.requireNonNull(inputStream);
+		Objects.requireNonNull(outputStream);
+		XMLStreamReader reader = null;
+		XMLStreamWriter writer = null;
+		try
+		{
+			reader = project(inputFactory.createXMLStreamReader(inputStream));
+			final String version = reader.getVersion() != null ? reader.getVersion() : "1.0";
+			// the declaration is written here, the writers differ in the quotes they use
+			outputStream.write(("<?xml version=\"" + version + "\" encoding=\"" + ENCODING + "\"?>")
+				.getBytes(StandardCharsets.UTF_8));
+			writer = outputFactory.createXMLStreamWriter(outputStream, ENCODING);
+			copy(reader, writer);
+			writer.flush();
+		}
+		catch (final XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+		finally
+		{
+			close(reader, writer);
+		}
+	}
+
+	/**
+	 * Creates the pruned document from the given xml file
+	 *
+	 * @param xmlFile
+	 *            the xml file
+	 * @return the pruned document encoded in UTF-8
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the document is not well formed
+	 */
+	public byte[] project(final Path xmlFile) throws IOException
+	{
+		Objects.requireNonNull(xmlFile);
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(xmlFile)))
+		{
+			project(inputStream, outputStream);
+		}
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * Binds the selected elements of the xml document from the given input stream to an object of
+	 * the given type. The skipped elements are neither copied nor bound, the properties of the
+	 * object that belong to them stay unset. The given input stream is not closed
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param inputStream
+	 *            the input stream with the xml document
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the partially bound object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the document is not well formed
+	 */
+	public <T> T load(final InputStream inputStream, final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(inputStream);
+		XMLStreamReader reader = null;
+		try
+		{
+			reader = project(inputFactory.createXMLStreamReader(inputStream));
+			return objectLoader.load(reader, clazz);
+		}
+		catch (final XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+		finally
+		{
+			close(reader, null);
+		}
+	}
+
+	/**
+	 * Binds the selected elements of the given xml file to an object of the given type
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param xmlFile
+	 *            the xml file
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the partially bound object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred or the document is not well formed
+	 */
+	public <T> T load(final Path xmlFile, final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(xmlFile);
+		try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(xmlFile)))
+		{
+			return load(inputStream, clazz);
+		}
+	}
+
+	/**
+	 * Gets the paths of the selected elements
+	 *
+	 * @return the unmodifiable set of the paths
+	 */
+	public Set<String> getPaths()
+	{
+		return paths;
+	}
+
+	private static void copy(final XMLStreamReader reader, final XMLStreamWriter writer)
+		throws XMLStreamException
+	{
+		while (reader.hasNext())
+		{
+			switch (reader.next())
+			{
+				case XMLStreamConstants.START_ELEMENT :
+					writer.writeStartElement(nonNull(reader.getPrefix()), reader.getLocalName(),
+						nonNull(reader.getNamespaceURI()));
+					for (int i = 0; i < reader.getNamespaceCount(); i++)
+					{
+						final String prefix = reader.getNamespacePrefix(i);
+						if (prefix == null || prefix.isEmpty())
+						{
+							writer.writeDefaultNamespace(reader.getNamespaceURI(i));
+						}
+						else
+						{
+							writer.writeNamespace(prefix, reader.getNamespaceURI(i));
+						}
+					}
+					for (int i = 0; i < reader.getAttributeCount(); i++)
+					{
+						writer.writeAttribute(nonNull(reader.getAttributePrefix(i)),
+							nonNull(reader.getAttributeNamespace(i)),
+							reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+					}
+					break;
+				case XMLStreamConstants.END_ELEMENT :
+					writer.writeEndElement();
+					break;
+				case XMLStreamConstants.CHARACTERS :
+				case XMLStreamConstants.SPACE :
+				case XMLStreamConstants.CDATA :
+					writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(),
+						reader.getTextLength());
+					break;
+				case XMLStreamConstants.COMMENT :
+					writer.writeComment(reader.getText());
+					break;
+				case XMLStreamConstants.PROCESSING_INSTRUCTION :
+					writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+					break;
+				case XMLStreamConstants.END_DOCUMENT :
+					writer.writeEndDocument();
+					break;
+				default :
+					break;
+			}
+		}
+	}
+
+	private static String nonNull(final String value)
+	{
+		return value != null ? value : "";
+	}
+
+	private static void close(final XMLStreamReader reader, final XMLStreamWriter writer)
+		throws IOException
+	{
+		try
+		{
+			if (writer != null)
+			{
+				writer.close();
+			}
+			if (reader != null)
+			{
+				reader.close();
+			}
+		}
+		catch (final XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * The class {@link Node} is one step of the selected paths. A node without children selects
+	 * its element with the whole subtree
+	 */
+	static final class Node
+	{
+
+		/** The node of the root element if none of its children is selected */
+		static final Node EMPTY = new Node();
+
+		/** The node that selects every element with its whole subtree */
+		private static final Node ALL = new Node();
+
+		/** The child nodes by the local names of the elements */
+		private final Map<String, Node> children = new HashMap<>();
+
+		/** The child node for <code>*</code> or null */
+		private Node wildcard;
+
+		/** The flag if the element of this node is selected with its whole subtree */
+		private boolean selected;
+
+		/**
+		 * Checks if the element of this node is selected with its whole subtree
+		 *
+		 * @return true if the element is selected with its whole subtree
+		 */
+		boolean isSelected()
+		{
+			return this == ALL;
+		}
+
+		/**
+		 * Gets the node of the child element with the given local name
+		 *
+		 * @param localName
+		 *            the local name of the child element
+		 * @return the node of the child element or null if the child element is skipped
+		 */
+		Node getChild(final String localName)
+		{
+			if (this == ALL)
+			{
+				return ALL;
+			}
+			final Node child = children.get(localName);
+			if (child != null && child.selected)
+			{
+				return ALL;
+			}
+			if (wildcard != null && wildcard.selected)
+			{
+				return ALL;
+			}
+			if (child == null)
+			{
+				return wildcard;
+			}
+			if (wildcard == null)
+			{
+				return child;
+			}
+			// the element matches a name and the wildcard, so both branches apply
+			final Node merged = new Node();
+			merged.merge(child);
+			merged.merge(wildcard);
+			return merged;
+		}
+
+		private void merge(final Node other)
+		{
+			selected |= other.selected;
+			other.children.forEach((name, child) -> children.merge(name, child, (a, b) -> {
+				final Node merged = new Node();
+				merged.merge(a);
+				merged.merge(b);
+				return merged;
+			}));
+			if (other.wildcard != null)
+			{
+				if (wildcard == null)
+				{
+					wildcard = other.wildcard;
+				}
+				else
+				{
+					final Node merged = new Node();
+					merged.merge(wildcard);
+					merged.merge(other.wildcard);
+					wildcard = merged;
+				}
+			}
+		}
+
+		private void add(final String path)
+		{
+			Objects.requireNonNull(path);
+			if (!path.startsWith("/") || path.length() == 1 || path.contains("//"))
+			{
+				throw new IllegalArgumentException("not an absolute element path: " + path);
+			}
+			Node node = this;
+			for (final String step : path.substring(1).split("/", -1))
+			{
+				final String name = localName(step);
+				if (name.isEmpty() || step.indexOf('@') >= 0 || step.indexOf('[') >= 0
+					|| step.indexOf('(') >= 0)
+				{
+					throw new IllegalArgumentException("not an absolute element path: " + path);
+				}
+				if ("*".equals(name))
+				{
+					if (node.wildcard == null)
+					{
+						node.wildcard = new Node();
+					}
+					node = node.wildcard;
+				}
+				else
+				{
+					node = node.children.computeIfAbsent(name, key -> new Node());
+				}
+			}
+			node.selected = true;
+		}
+
+		private static String localName(final String step)
+		{
+			// the elements are matched by their local name
+			return step.substring(step.indexOf(':') + 1);
+		}
+
+	}
+
+}
@@ -0,0 +1,323 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The class {@link XmlRecordIndexer} makes one pass over a xml file and writes the byte offsets
+ * of all records, the elements with a given local name, into a compact sidecar file. A record
+ * can optionally be keyed by one of its attributes or by the text of one of its child elements.
+ * Records that are nested in other records are part of the outer record and are not indexed on
+ * their own. The sidecar file is read by {@link XmlRecordReader}, which reads single records
+ * without scanning the xml file again. The xml file must be encoded in UTF-8 or US-ASCII. An
+ * instance is immutable and can be used from any number of threads
+ */
+public final class XmlRecordIndexer
+{
+
+	/** The first bytes of a sidecar file */
+	static final int MAGIC = 0x58524958;
+
+	/** The version of the format of the sidecar file */
+	static final int VERSION = 1;
+
+	/** The local name of the records */
+	private final String recordName;
+
+	/** The local name of the key attribute or key element or null */
+	private final String keyName;
+
+	/** The flag if the key is an attribute */
+	private final boolean keyAttribute;
+
+	private XmlRecordIndexer(final String recordName, final String keyName,
+		final boolean keyAttribute)
+	{
+		this.recordName = Objects.requireNonNull(recordName);
+		this.keyName = keyName;
+		this.keyAttribute = keyAttribute;
+	}
+
+	/**
+	 * Creates a new {@link XmlRecordIndexer} object for records without keys
+	 *
+	 * @param recordName
+	 *            the local name of the record elements, for instance <code>item</code>
+	 * @return the new indexer
+	 */
+	public static XmlRecordIndexer forRecords(final String recordName)
+	{
+		return new XmlRecordIndexer(recordName, null, false);
+	}
+
+	/**
+	 * Creates a new {@link XmlRecordIndexer} object for records that are keyed by the value of
+	 * the attribute with the given local name
+	 *
+	 * @param recordName
+	 *            the local name of the record elements
+	 * @param attributeName
+	 *            the local name of the key attribute, for instance <code>id</code>
+	 * @return the new indexer
+	 */
+	public static XmlRecordIndexer keyedByAttribute(final String recordName,
+		final String attributeName)
+	{
+		return new XmlRecordIndexer(recordName, Objects.requireNonNull(attributeName), true);
+	}
+
+	/**
+	 * Creates a new {@link XmlRecordIndexer} object for records that are keyed by the text of the
+	 * first child element with the given local name
+	 *
+	 * @param recordName
+	 *            the local name of the record elements
+	 * @param elementName
+	 *            the local name of the key element, for instance <code>id</code>
+	 * @return the new indexer
+	 */
+	public static XmlRecordIndexer keyedByElement(final String recordName,
+		final String elementName)
+	{
+		return new XmlRecordIndexer(recordName, Objects.requireNonNull(elementName), false);
+	}
+
+	/**
+	 * Indexes the records of the given xml file into the given sidecar file
+	 *
+	 * @param xmlFile
+	 *            the xml file
+	 * @param indexFile
+	 *            the sidecar file, an existing file is replaced
+	 * @return the number of indexed records
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred, the document is not well formed or
+	 *             it is not encoded in UTF-8 or US-ASCII
+	 */
+	public int index(final Path xmlFile, final Path indexFile) throws IOException
+	{
+		Objects.requireNonNull(xmlFile);
+		Objects.requireNonNull(indexFile);
+		final long lastModified = Files.getLastModifiedTime(xmlFile).toMillis();
+		final MappedXmlFile file = new MappedXmlFile(xmlFile);
+		final RecordCollector collector = new RecordCollector(file);
+		file.scan(collector);
+		try (DataOutputStream output = new DataOutputStream(
+			new BufferedOutputStream(Files.newOutputStream(indexFile))))
+		{
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeLong(file.size());
+			output.writeLong(lastModified);
+			output.writeUTF(recordName);
+			output.writeBoolean(keyName != null);
+			if (keyName != null)
+			{
+				output.writeUTF(keyName);
+				output.writeBoolean(keyAttribute);
+			}
+			output.writeInt(collector.count);
+			long previousEnd = 0;
+			for (int i = 0; i < collector.count; i++)
+			{
+				// the offsets grow, so the gaps are small and need only a few bytes
+				writeVarLong(output, collector.starts[i] - previousEnd);
+				writeVarLong(output, collector.lengths[i]);
+				previousEnd = collector.starts[i] + collector.lengths[i];
+				if (keyName != null)
+				{
+					final String key = collector.keys.get(i);
+					if (key == null)
+					{
+						writeVarLong(output, 0);
+					}
+					else
+					{
+						final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+						writeVarLong(output, bytes.length + 1L);
+						output.write(bytes);
+					}
+				}
+			}
+		}
+		return collector.count;
+	}
+
+	/**
+	 * Gets the local name of the records
+	 *
+	 * @return the local name of the records
+	 */
+	public String getRecordName()
+	{
+		return recordName;
+	}
+
+	/**
+	 * Gets the local name of the key attribute or key element
+	 *
+	 * @return the local name of the key or null if the records have no key
+	 */
+	public String getKeyName()
+	{
+		return keyName;
+	}
+
+	private static void writeVarLong(final OutputStream output, final long value)
+		throws IOException
+	{
+		long remaining = value;
+		while ((remaining & ~0x7FL) != 0)
+		{
+			output.write((int)(remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		output.write((int)remaining);
+	}
+
+	/**
+	 * The class {@link RecordCollector} collects the offsets and keys of the records while the
+	 * xml file is scanned
+	 */
+	private final class RecordCollector implements MappedXmlFile.ScanHandler
+	{
+
+		/** The scanned file */
+		private final MappedXmlFile file;
+
+		/** The utf-8 bytes of the local name of the records */
+		private final byte[] recordNameBytes;
+
+		/** The utf-8 bytes of the local name of the key element or null */
+		private final byte[] keyElementBytes;
+
+		/** The offsets of the records */
+		long[] starts = new long[1024];
+
+		/** The lengths of the records in bytes */
+		int[] lengths = new int[1024];
+
+		/** The keys of the records */
+		final List<String> keys = new ArrayList<>();
+
+		/** The number of records */
+		int count;
+
+		/** The depth of the current element */
+		private int depth;
+
+		/** The depth of the current record or -1 outside of a record */
+		private int recordDepth = -1;
+
+		/** The offset of the current record */
+		private long recordStart;
+
+		/** The key of the current record */
+		private String key;
+
+		/** The depth of the current key element or -1 outside of a key element */
+		private int keyDepth = -1;
+
+		/** The offset after the start tag of the current key element */
+		private long keyContentStart;
+
+		RecordCollector(final MappedXmlFile file)
+		{
+			this.file = file;
+			this.recordNameBytes = recordName.getBytes(StandardCharsets.UTF_8);
+			this.keyElementBytes = keyName != null && !keyAttribute
+				? keyName.getBytes(StandardCharsets.UTF_8)
+				: null;
+		}
+
+		@Override
+		public void startElement(final long start, final int nameLength, final long contentStart,
+			final boolean empty)
+		{
+			depth++;
+			if (recordDepth < 0)
+			{
+				if (file.isLocalName(start + 1, start + 1 + nameLength, recordNameBytes))
+				{
+					recordDepth = depth;
+					recordStart = start;
+					key = keyAttribute
+						? file.getAttribute(start, nameLength, contentStart, keyName)
+						: null;
+				}
+			}
+			else if (keyElementBytes != null && key == null && keyDepth < 0
+				&& depth == recordDepth + 1
+				&& file.isLocalName(start + 1, start + 1 + nameLength, keyElementBytes))
+			{
+				keyDepth = depth;
+				keyContentStart = contentStart;
+			}
+		}
+
+		@Override
+		public void endElement(final long end) throws IOException
+		{
+			if (depth == keyDepth)
+			{
+				key = file.decode(keyContentStart, file.getContentEnd(keyContentStart, end),
+					false);
+				keyDepth = -1;
+			}
+			else if (depth == recordDepth)
+			{
+				if (end - recordStart > Integer.MAX_VALUE)
+				{
+					throw new IOException("The record at byte " + recordStart + " is too large");
+				}
+				if (count == starts.length)
+				{
+					starts = Arrays.copyOf(starts, count * 2);
+					lengths = Arrays.copyOf(lengths, count * 2);
+				}
+				starts[count] = recordStart;
+				lengths[count++] = (int)(end - recordStart);
+				if (keyName != null)
+				{
+					keys.add(key);
+				}
+				recordDepth = -1;
+			}
+			depth--;
+		}
+	}
+
+}
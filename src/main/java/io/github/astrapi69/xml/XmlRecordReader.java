@@ -0,0 +1,306 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The class {@link XmlRecordReader} reads single records of a xml file with the sidecar file of
+ * a {@link XmlRecordIndexer}. A record is read with one positional read from a
+ * {@link FileChannel} and bound with the jackson or xstream methods of {@link XmlExtensions}, so
+ * record number N or the record with a given key is found without scanning the xml file. A record
+ * is bound on its own, namespace declarations and entities of its ancestors are not available.
+ * The reader checks that the xml file did not change since it was indexed. An instance can be
+ * used from any number of threads
+ */
+public final class XmlRecordReader implements Closeable
+{
+
+	/** The channel of the xml file */
+	private final FileChannel channel;
+
+	/** The local name of the records */
+	private final String recordName;
+
+	/** The offsets of the records */
+	private final long[] starts;
+
+	/** The lengths of the records in bytes */
+	private final int[] lengths;
+
+	/** The record numbers by their keys, the first record of a key wins */
+	private final Map<String, Integer> recordNumbers;
+
+	/**
+	 * Creates a new {@link XmlRecordReader} object
+	 *
+	 * @param xmlFile
+	 *            the xml file
+	 * @param indexFile
+	 *            the sidecar file that was written by a {@link XmlRecordIndexer} for the xml file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred, the sidecar file is invalid or the
+	 *             xml file changed since it was indexed
+	 */
+	public XmlRecordReader(final Path xmlFile, final Path indexFile) throws IOException
+	{
+		Objects.requireNonNull(xmlFile);
+		Objects.requireNonNull(indexFile);
+		try (DataInputStream input = new DataInputStream(
+			new BufferedInputStream(Files.newInputStream(indexFile))))
+		{
+			if (input.readInt() != XmlRecordIndexer.MAGIC
+				|| input.readInt() != XmlRecordIndexer.VERSION)
+			{
+				throw new IOException(indexFile + " is not a record index");
+			}
+			final long size = input.readLong();
+			final long lastModified = input.readLong();
+			if (size != Files.size(xmlFile)
+				|| lastModified != Files.getLastModifiedTime(xmlFile).toMillis())
+			{
+				throw new IOException(xmlFile + " changed since it was indexed");
+			}
+			this.recordName = input.readUTF();
+			final boolean keyed = input.readBoolean();
+			if (keyed)
+			{
+				input.readUTF();
+				input.readBoolean();
+			}
+			final int count = input.readInt();
+			this.starts = new long[count];
+			this.lengths = new int[count];
+			this.recordNumbers = keyed ? new HashMap<>() : null;
+			long previousEnd = 0;
+			for (int i = 0; i < count; i++)
+			{
+				starts[i] = previousEnd + readVarLong(input);
+				lengths[i] = (int)readVarLong(input);
+				previousEnd = starts[i] + lengths[i];
+				if (keyed)
+				{
+					final int keyLength = (int)readVarLong(input) - 1;
+					if (keyLength >= 0)
+					{
+						final byte[] key = new byte[keyLength];
+						input.readFully(key);
+						recordNumbers.putIfAbsent(new String(key, StandardCharsets.UTF_8), i);
+					}
+				}
+			}
+		}
+		this.channel = FileChannel.open(xmlFile, StandardOpenOption.READ);
+	}
+
+	/**
+	 * Gets the number of records
+	 *
+	 * @return the number of records
+	 */
+	public int getRecordCount()
+	{
+		return starts.length;
+	}
+
+	/**
+	 * Gets the local name of the records
+	 *
+	 * @return the local name of the records
+	 */
+	public String getRecordName()
+	{
+		return recordName;
+	}
+
+	/**
+	 * Gets the number of the first record with the given key
+	 *
+	 * @param key
+	 *            the key
+	 * @return the record number or -1 if there is no record with the given key
+	 * @throws IllegalStateException
+	 *             is thrown if the records were indexed without keys
+	 */
+	public int getRecordNumber(final String key)
+	{
+		Objects.requireNonNull(key);
+		if (recordNumbers == null)
+		{
+			throw new IllegalStateException("The records were indexed without keys");
+		}
+		return recordNumbers.getOrDefault(key, -1);
+	}
+
+	/**
+	 * Reads the xml of the record with the given number
+	 *
+	 * @param recordNumber
+	 *            the record number, starting with 0
+	 * @return the buffer with the utf-8 bytes of the record
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public ByteBuffer readRecord(final int recordNumber) throws IOException
+	{
+		if (recordNumber < 0 || recordNumber >= starts.length)
+		{
+			throw new IndexOutOfBoundsException("No record with the number " + recordNumber);
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(lengths[recordNumber]);
+		long position = starts[recordNumber];
+		while (buffer.hasRemaining())
+		{
+			final int read = channel.read(buffer, position);
+			if (read < 0)
+			{
+				throw new EOFException("The xml file ends before the record " + recordNumber);
+			}
+			position += read;
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Reads the record with the given number and transforms it to an object with xstream
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param recordNumber
+	 *            the record number, starting with 0
+	 * @return the object from the record
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> T load(final int recordNumber) throws IOException
+	{
+		try (InputStream is = new ByteBufferInputStream(readRecord(recordNumber)))
+		{
+			return XmlExtensions.loadObject(is);
+		}
+	}
+
+	/**
+	 * Reads the record with the given number and transforms it to an object of the given type with
+	 * jackson
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param recordNumber
+	 *            the record number, starting with 0
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the object from the record
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> T load(final int recordNumber, final Class<T> clazz) throws IOException
+	{
+		try (InputStream is = new ByteBufferInputStream(readRecord(recordNumber)))
+		{
+			return XmlExtensions.loadObject(is, clazz);
+		}
+	}
+
+	/**
+	 * Reads the first record with the given key and transforms it to an object with xstream
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param key
+	 *            the key
+	 * @return the object from the record or null if there is no record with the given key
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> T loadByKey(final String key) throws IOException
+	{
+		final int recordNumber = getRecordNumber(key);
+		return recordNumber >= 0 ? load(recordNumber) : null;
+	}
+
+	/**
+	 * Reads the first record with the given key and transforms it to an object of the given type
+	 * with jackson
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param key
+	 *            the key
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the object from the record or null if there is no record with the given key
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> T loadByKey(final String key, final Class<T> clazz) throws IOException
+	{
+		final int recordNumber = getRecordNumber(key);
+		return recordNumber >= 0 ? load(recordNumber, clazz) : null;
+	}
+
+	/**
+	 * Closes the xml file
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+
+	private static long readVarLong(final DataInputStream input) throws IOException
+	{
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7)
+		{
+			final byte b = input.readByte();
+			value |= (long)(b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new IOException("Invalid record index");
+	}
+
+}
@@ -0,0 +1,137 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.xml.XmlFactory;
+
+/**
+ * The class {@link XmlRecordSpliterator} walks through a {@link XMLStreamReader} and binds every
+ * element with the record name to an object, one element at a time. Only the current element is
+ * held in memory. A split hands out the next {@value #BATCH_SIZE} records, already bound, to
+ * another thread while this spliterator keeps reading, so a parallel stream holds at most this
+ * many records per split in memory
+ *
+ * @param <T>
+ *            the generic type of the records
+ */
+class XmlRecordSpliterator<T> extends Spliterators.AbstractSpliterator<T>
+{
+
+	/** The number of records that one split hands out */
+	static final int BATCH_SIZE = 128;
+
+	/** The stream reader over the whole document */
+	private final XMLStreamReader xmlStreamReader;
+
+	/** The factory that creates the parser for one record */
+	private final XmlFactory xmlFactory;
+
+	/** The reader that binds one record */
+	private final ObjectReader objectReader;
+
+	/** The local name of the record elements */
+	private final String elementName;
+
+	/**
+	 * Creates a new {@link XmlRecordSpliterator} object
+	 *
+	 * @param xmlStreamReader
+	 *            the stream reader over the whole document
+	 * @param xmlFactory
+	 *            the factory that creates the parser for one record
+	 * @param objectReader
+	 *            the reader that binds one record
+	 * @param elementName
+	 *            the local name of the record elements
+	 */
+	XmlRecordSpliterator(final XMLStreamReader xmlStreamReader, final XmlFactory xmlFactory,
+		final ObjectReader objectReader, final String elementName)
+	{
+		super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+		this.xmlStreamReader = Objects.requireNonNull(xmlStreamReader);
+		this.xmlFactory = Objects.requireNonNull(xmlFactory);
+		this.objectReader = Objects.requireNonNull(objectReader);
+		this.elementName = Objects.requireNonNull(elementName);
+	}
+
+	@Override
+	public boolean tryAdvance(final Consumer<? super T> action)
+	{
+		try
+		{
+			while (xmlStreamReader.hasNext())
+			{
+				if (xmlStreamReader.next() == XMLStreamConstants.START_ELEMENT
+					&& elementName.equals(xmlStreamReader.getLocalName()))
+				{
+					// the parser stops at the end element of the record, the stream reader is
+					// not closed with it
+					final T value = objectReader.readValue(xmlFactory.createParser(xmlStreamReader));
+					action.accept(value);
+					return true;
+				}
+			}
+			return false;
+		}
+		catch (final XMLStreamException e)
+		{
+			throw new UncheckedIOException(new IOException(e));
+		}
+		catch (final IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public Spliterator<T> trySplit()
+	{
+		// a fixed batch instead of the growing batches of the super class, which reach 2^25
+		// records and would hold a large part of the document in memory
+		final List<T> batch = new ArrayList<>(BATCH_SIZE);
+		while (batch.size() < BATCH_SIZE && tryAdvance(batch::add))
+		{
+			// the records are added to the batch
+		}
+		return batch.isEmpty()
+			? null
+			: Spliterators.spliterator(batch, Spliterator.ORDERED | Spliterator.NONNULL);
+	}
+
+}
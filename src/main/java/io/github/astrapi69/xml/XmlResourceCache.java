@@ -0,0 +1,434 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * The class {@link XmlResourceCache} is a bounded least recently used cache of the objects that
+ * are loaded from xml classpath resources with the loadObject methods of {@link XmlExtensions}.
+ * The objects are identified by the resource name and the target type, so a repeated load of the
+ * same resource costs a map lookup instead of a parse. Optionally the objects expire a given time
+ * after they were loaded. The cached objects are shared between all callers, so they must not be
+ * changed. Callers that need to change the result use a method with a copier that returns a
+ * defensive copy of the cached object
+ */
+public final class XmlResourceCache
+{
+
+	/** The default maximum number of objects that a cache holds */
+	public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+	/** The maximum number of objects */
+	private final int maximumSize;
+
+	/** The time after the load when an object expires in nanoseconds or 0 if it never expires */
+	private final long expireAfterNanos;
+
+	/** The cache entries in access order, guarded by this cache */
+	private final Map<ResourceKey, CacheEntry> entries;
+
+	/** The number of lookups that found a valid object */
+	private final LongAdder hitCount = new LongAdder();
+
+	/** The number of lookups that had to load the resource */
+	private final LongAdder missCount = new LongAdder();
+
+	/** The number of objects that was removed because the cache was full */
+	private final LongAdder evictionCount = new LongAdder();
+
+	/** The number of invalidations, guarded by this cache */
+	private long invalidationCount;
+
+	/**
+	 * Creates a new {@link XmlResourceCache} object with the default maximum size and without
+	 * expiration
+	 */
+	public XmlResourceCache()
+	{
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * Creates a new {@link XmlResourceCache} object with the given maximum size and without
+	 * expiration
+	 *
+	 * @param maximumSize
+	 *            the maximum number of objects
+	 */
+	public XmlResourceCache(final int maximumSize)
+	{
+		this(maximumSize, Duration.ZERO);
+	}
+
+	/**
+	 * Creates a new {@link XmlResourceCache} object with the given maximum size and expiration
+	 *
+	 * @param maximumSize
+	 *            the maximum number of objects
+	 * @param expireAfterLoad
+	 *            the time after the load when an object expires and the resource is loaded again,
+	 *            zero for no expiration
+	 */
+	public XmlResourceCache(final int maximumSize, final Duration expireAfterLoad)
+	{
+		if (maximumSize < 1)
+		{
+			throw new IllegalArgumentException("maximumSize must be greater than zero");
+		}
+		Objects.requireNonNull(expireAfterLoad);
+		if (expireAfterLoad.isNegative())
+		{
+			throw new IllegalArgumentException("expireAfterLoad must not be negative");
+		}
+		this.maximumSize = maximumSize;
+		this.expireAfterNanos = expireAfterLoad.toNanos();
+		this.entries = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<ResourceKey, CacheEntry> eldest)
+			{
+				if (size() > XmlResourceCache.this.maximumSize)
+				{
+					evictionCount.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Gets the object from the given classpath resource that is loaded with xstream. The returned
+	 * object is shared and must not be changed
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param resourceName
+	 *            the name of the classpath resource
+	 * @return the cached object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @see XmlExtensions#loadObject(String)
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getObject(final String resourceName) throws IOException
+	{
+		Objects.requireNonNull(resourceName);
+		return (T)getObject(resourceName, null, () -> XmlExtensions.loadObject(resourceName));
+	}
+
+	/**
+	 * Gets a copy of the object from the given classpath resource that is loaded with xstream. The
+	 * cached object is handed to the given copier and only the copy is returned, so the caller can
+	 * change it
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param resourceName
+	 *            the name of the classpath resource
+	 * @param copier
+	 *            the function that creates a defensive copy of the cached object
+	 * @return the copy of the cached object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> T getObject(final String resourceName, final UnaryOperator<T> copier)
+		throws IOException
+	{
+		Objects.requireNonNull(copier);
+		return copier.apply(getObject(resourceName));
+	}
+
+	/**
+	 * Gets the object of the given type from the given classpath resource that is loaded with
+	 * jackson. The returned object is shared and must not be changed
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param resourceName
+	 *            the name of the classpath resource
+	 * @param clazz
+	 *            the class of the generic type
+	 * @return the cached object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @see XmlExtensions#loadObject(String, Class)
+	 */
+	public <T> T getObject(final String resourceName, final Class<T> clazz) throws IOException
+	{
+		Objects.requireNonNull(resourceName);
+		Objects.requireNonNull(clazz);
+		return clazz.cast(
+			getObject(resourceName, clazz, () -> XmlExtensions.loadObject(resourceName, clazz)));
+	}
+
+	/**
+	 * Gets a copy of the object of the given type from the given classpath resource that is loaded
+	 * with jackson. The cached object is handed to the given copier and only the copy is returned,
+	 * so the caller can change it
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param resourceName
+	 *            the name of the classpath resource
+	 * @param clazz
+	 *            the class of the generic type
+	 * @param copier
+	 *            the function that creates a defensive copy of the cached object
+	 * @return the copy of the cached object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public <T> T getObject(final String resourceName, final Class<T> clazz,
+		final UnaryOperator<T> copier) throws IOException
+	{
+		Objects.requireNonNull(copier);
+		return copier.apply(getObject(resourceName, clazz));
+	}
+
+	/**
+	 * Removes all objects of the given classpath resource, so the next call loads it again
+	 *
+	 * @param resourceName
+	 *            the name of the classpath resource
+	 */
+	public synchronized void invalidate(final String resourceName)
+	{
+		Objects.requireNonNull(resourceName);
+		invalidationCount++;
+		entries.keySet().removeIf(key -> key.resourceName.equals(resourceName));
+	}
+
+	/**
+	 * Removes all objects from this cache
+	 */
+	public synchronized void invalidateAll()
+	{
+		invalidationCount++;
+		entries.clear();
+	}
+
+	/**
+	 * Gets the current number of objects in this cache
+	 *
+	 * @return the number of objects
+	 */
+	public synchronized int getSize()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Gets the maximum number of objects
+	 *
+	 * @return the maximum number of objects
+	 */
+	public int getMaximumSize()
+	{
+		return maximumSize;
+	}
+
+	/**
+	 * Gets the number of lookups that found a valid object
+	 *
+	 * @return the hit count
+	 */
+	public long getHitCount()
+	{
+		return hitCount.sum();
+	}
+
+	/**
+	 * Gets the number of lookups that had to load the resource
+	 *
+	 * @return the miss count
+	 */
+	public long getMissCount()
+	{
+		return missCount.sum();
+	}
+
+	/**
+	 * Gets the number of objects that was removed because the cache was full
+	 *
+	 * @return the eviction count
+	 */
+	public long getEvictionCount()
+	{
+		return evictionCount.sum();
+	}
+
+	/**
+	 * Gets the cached object with the given resource name and type or loads it with the given
+	 * loader. An object whose load overlapped an invalidation is returned but not cached, so an
+	 * in-flight load can not put back data that was invalidated meanwhile
+	 *
+	 * @param resourceName
+	 *            the name of the classpath resource
+	 * @param type
+	 *            the target type or null for objects that are loaded with xstream
+	 * @param loader
+	 *            the loader that loads the object on a miss
+	 * @return the cached or loaded object
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	Object getObject(final String resourceName, final Class<?> type, final Loader loader)
+		throws IOException
+	{
+		final ResourceKey key = new ResourceKey(resourceName, type);
+		final Object cached = lookup(key);
+		if (cached != null)
+		{
+			return cached;
+		}
+		final long invalidationsBefore;
+		synchronized (this)
+		{
+			invalidationsBefore = invalidationCount;
+		}
+		final Object object = loader.load();
+		put(key, object, invalidationsBefore);
+		return object;
+	}
+
+	private Object lookup(final ResourceKey key)
+	{
+		final CacheEntry entry;
+		synchronized (this)
+		{
+			entry = entries.get(key);
+		}
+		if (entry != null && entry.value != null && !isExpired(entry))
+		{
+			hitCount.increment();
+			return entry.value;
+		}
+		missCount.increment();
+		return null;
+	}
+
+	private boolean isExpired(final CacheEntry entry)
+	{
+		return expireAfterNanos != 0L && System.nanoTime() - entry.loadedAt >= expireAfterNanos;
+	}
+
+	private synchronized void put(final ResourceKey key, final Object value,
+		final long invalidationsBefore)
+	{
+		if (invalidationCount == invalidationsBefore)
+		{
+			entries.put(key, new CacheEntry(value, System.nanoTime()));
+		}
+	}
+
+	/**
+	 * The interface {@link Loader} loads an object on a cache miss
+	 */
+	@FunctionalInterface
+	interface Loader
+	{
+
+		/**
+		 * Loads the object
+		 *
+		 * @return the loaded object
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		Object load() throws IOException;
+
+	}
+
+	/**
+	 * The class {@link ResourceKey} identifies a cached object by the resource name and the target
+	 * type
+	 */
+	private static final class ResourceKey
+	{
+
+		/** The name of the classpath resource */
+		final String resourceName;
+
+		/** The target type or null for objects that are loaded with xstream */
+		final Class<?> type;
+
+		ResourceKey(final String resourceName, final Class<?> type)
+		{
+			this.resourceName = resourceName;
+			this.type = type;
+		}
+
+		@Override
+		public boolean equals(final Object object)
+		{
+			if (this == object)
+			{
+				return true;
+			}
+			if (!(object instanceof ResourceKey))
+			{
+				return false;
+			}
+			final ResourceKey other = (ResourceKey)object;
+			return resourceName.equals(other.resourceName) && type == other.type;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * resourceName.hashCode() + Objects.hashCode(type);
+		}
+	}
+
+	/**
+	 * The class {@link CacheEntry} holds a cached object together with the time of the load
+	 */
+	private static final class CacheEntry
+	{
+
+		/** The cached object */
+		final Object value;
+
+		/** The value of {@link System#nanoTime()} when the object was loaded */
+		final long loadedAt;
+
+		CacheEntry(final Object value, final long loadedAt)
+		{
+			this.value = value;
+			this.loadedAt = loadedAt;
+		}
+	}
+
+}
@@ -0,0 +1,452 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The class {@link XmlTagWriter} writes nested xml elements with attributes and text directly to
+ * an {@link Appendable}, a {@link Writer} or a {@link ByteBuffer} in UTF-8. Attribute values and
+ * text are escaped with a lookup table, the output is collected in a reusable buffer and the
+ * element names are kept in a reusable stack, so writing tags allocates nothing once the buffers
+ * have grown to the needed size. Characters that are not allowed in xml 1.0 are rejected, this
+ * includes surrogates that are not part of a surrogate pair. The names of elements and attributes
+ * are written as they are. A writer is not thread-safe
+ */
+public final class XmlTagWriter
+{
+
+	/** The size of the output buffer */
+	private static final int BUFFER_SIZE = 8192;
+
+	/** The escape sequences of the characters below 64 in text, null if written as they are */
+	private static final char[][] TEXT_ESCAPES = new char[64][];
+
+	/** The escape sequences of the characters below 64 in attributes, null if written as they are */
+	private static final char[][] ATTRIBUTE_ESCAPES = new char[64][];
+
+	/** The marker for characters that are not allowed in xml 1.0 */
+	private static final char[] INVALID = new char[0];
+
+	static
+	{
+		for (char c = 0; c < 0x20; c++)
+		{
+			TEXT_ESCAPES[c] = INVALID;
+			ATTRIBUTE_ESCAPES[c] = INVALID;
+		}
+		TEXT_ESCAPES['\t'] = null;
+		TEXT_ESCAPES['\n'] = null;
+		TEXT_ESCAPES['\r'] = "&#13;".toCharArray();
+		TEXT_ESCAPES['&'] = "&amp;".toCharArray();
+		TEXT_ESCAPES['<'] = "&lt;".toCharArray();
+		TEXT_ESCAPES['>'] = "&gt;".toCharArray();
+		// whitespace in attribute values would be normalized to spaces by a parser
+		ATTRIBUTE_ESCAPES['\t'] = "&#9;".toCharArray();
+		ATTRIBUTE_ESCAPES['\n'] = "&#10;".toCharArray();
+		ATTRIBUTE_ESCAPES['\r'] = "&#13;".toCharArray();
+		ATTRIBUTE_ESCAPES['&'] = "&amp;".toCharArray();
+		ATTRIBUTE_ESCAPES['<'] = "&lt;".toCharArray();
+		ATTRIBUTE_ESCAPES['>'] = "&gt;".toCharArray();
+		ATTRIBUTE_ESCAPES['"'] = "&quot;".toCharArray();
+	}
+
+	/** The target if it is an appendable, otherwise null */
+	private final Appendable appendable;
+
+	/** The target if it is a writer, otherwise null */
+	private final Writer writer;
+
+	/** The target if it is a byte buffer, otherwise null */
+	private final ByteBuffer byteBuffer;
+
+	/** The output buffer */
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	/** The view of the output buffer that is handed to the appendable */
+	private final CharBuffer bufferView = CharBuffer.wrap(buffer);
+
+	/** The number of characters in the output buffer */
+	private int length;
+
+	/** The names of the open elements */
+	private String[] elementNames = new String[16];
+
+	/** The number of open elements */
+	private int depth;
+
+	/** Whether the start tag of the current element is still open for attributes */
+	private boolean startTagOpen;
+
+	/**
+	 * Creates a new {@link XmlTagWriter} object that writes to the given appendable, for instance a
+	 * {@link StringBuilder} or a {@link Writer}
+	 *
+	 * @param appendable
+	 *            the appendable
+	 */
+	public XmlTagWriter(final Appendable appendable)
+	{
+		Objects.requireNonNull(appendable);
+		this.writer = appendable instanceof Writer ? (Writer)appendable : null;
+		this.appendable = this.writer == null ? appendable : null;
+		this.byteBuffer = null;
+	}
+
+	/**
+	 * Creates a new {@link XmlTagWriter} object that encodes the written xml in UTF-8 into the given
+	 * byte buffer. A {@link java.nio.BufferOverflowException} is thrown if the byte buffer is full
+	 *
+	 * @param byteBuffer
+	 *            the byte buffer
+	 */
+	public XmlTagWriter(final ByteBuffer byteBuffer)
+	{
+		this.byteBuffer = Objects.requireNonNull(byteBuffer);
+		this.appendable = null;
+		this.writer = null;
+	}
+
+	/**
+	 * Writes the start tag of a new element. Attributes can be added until text or a child
+	 * element is written
+	 *
+	 * @param name
+	 *            the name of the element
+	 * @return this writer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public XmlTagWriter startElement(final String name) throws IOException
+	{
+		Objects.requireNonNull(name);
+		closeStartTag();
+		if (depth == elementNames.length)
+		{
+			elementNames = Arrays.copyOf(elementNames, depth * 2);
+		}
+		elementNames[depth++] = name;
+		write('<');
+		write(name);
+		startTagOpen = true;
+		return this;
+	}
+
+	/**
+	 * Writes an attribute of the current element
+	 *
+	 * @param name
+	 *            the name of the attribute
+	 * @param value
+	 *            the value of the attribute, it is escaped
+	 * @return this writer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @throws IllegalStateException
+	 *             is thrown if there is no start tag that is open for attributes
+	 */
+	public XmlTagWriter attribute(final String name, final CharSequence value) throws IOException
+	{
+		Objects.requireNonNull(name);
+		Objects.requireNonNull(value);
+		if (!startTagOpen)
+		{
+			throw new IllegalStateException("attributes must follow the start tag of an element");
+		}
+		write(' ');
+		write(name);
+		write('=');
+		write('"');
+		writeEscaped(value, ATTRIBUTE_ESCAPES);
+		write('"');
+		return this;
+	}
+
+	/**
+	 * Writes the given text into the current element
+	 *
+	 * @param text
+	 *            the text, it is escaped
+	 * @return this writer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public XmlTagWriter text(final CharSequence text) throws IOException
+	{
+		Objects.requireNonNull(text);
+		closeStartTag();
+		writeEscaped(text, TEXT_ESCAPES);
+		return this;
+	}
+
+	/**
+	 * Writes an element with the given text and without attributes
+	 *
+	 * @param name
+	 *            the name of the element
+	 * @param text
+	 *            the text, it is escaped
+	 * @return this writer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public XmlTagWriter element(final String name, final CharSequence text) throws IOException
+	{
+		return startElement(name).text(text).endElement();
+	}
+
+	/**
+	 * Writes the end tag of the current element, an element without content is written as empty
+	 * element
+	 *
+	 * @return this writer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @throws IllegalStateException
+	 *             is thrown if there is no open element
+	 */
+	public XmlTagWriter endElement() throws IOException
+	{
+		if (depth == 0)
+		{
+			throw new IllegalStateException("there is no open element");
+		}
+		final String name = elementNames[--depth];
+		elementNames[depth] = null;
+		if (startTagOpen)
+		{
+			startTagOpen = false;
+			write('/');
+			write('>');
+		}
+		else
+		{
+			write('<');
+			write('/');
+			write(name);
+			write('>');
+		}
+		return this;
+	}
+
+	/**
+	 * Gets the number of open elements
+	 *
+	 * @return the number of open elements
+	 */
+	public int getDepth()
+	{
+		return depth;
+	}
+
+	/**
+	 * Writes the buffered output to the target and flushes the target if it is
+	 * {@link Flushable}. The target is not closed
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public void flush() throws IOException
+	{
+		flushBuffer(true);
+		if (writer != null)
+		{
+			writer.flush();
+		}
+		else if (appendable instanceof Flushable)
+		{
+			((Flushable)appendable).flush();
+		}
+	}
+
+	private void closeStartTag() throws IOException
+	{
+		if (startTagOpen)
+		{
+			startTagOpen = false;
+			write('>');
+		}
+	}
+
+	private void write(final char c) throws IOException
+	{
+		if (length == buffer.length)
+		{
+			flushBuffer(false);
+		}
+		buffer[length++] = c;
+	}
+
+	private void write(final String value) throws IOException
+	{
+		writeRun(value, 0, value.length());
+	}
+
+	private void write(final char[] value) throws IOException
+	{
+		if (buffer.length - length < value.length)
+		{
+			flushBuffer(false);
+		}
+		System.arraycopy(value, 0, buffer, length, value.length);
+		length += value.length;
+	}
+
+	private void writeEscaped(final CharSequence value, final char[][] escapes) throws IOException
+	{
+		final int end = value.length();
+		int runStart = 0;
+		for (int i = 0; i < end; i++)
+		{
+			final char c = value.charAt(i);
+			final char[] escape = c < escapes.length ? escapes[c] : null;
+			if (escape == null && c < Character.MIN_SURROGATE)
+			{
+				continue;
+			}
+			if (Character.isHighSurrogate(c) && i + 1 < end
+				&& Character.isLowSurrogate(value.charAt(i + 1)))
+			{
+				i++;
+				continue;
+			}
+			if (escape == null && !Character.isSurrogate(c) && c < 0xFFFE)
+			{
+				continue;
+			}
+			// the characters before this one are written as they are in one run
+			writeRun(value, runStart, i);
+			runStart = i + 1;
+			if (escape == null || escape == INVALID)
+			{
+				throw new IllegalArgumentException(
+					"character 0x" + Integer.toHexString(c) + " is not allowed in xml");
+			}
+			write(escape);
+		}
+		writeRun(value, runStart, end);
+	}
+
+	private void writeRun(final CharSequence value, int start, final int end) throws IOException
+	{
+		while (start < end)
+		{
+			if (length == buffer.length)
+			{
+				flushBuffer(false);
+			}
+			final int count = Math.min(end - start, buffer.length - length);
+			if (value instanceof String)
+			{
+				((String)value).getChars(start, start + count, buffer, length);
+			}
+			else
+			{
+				for (int i = 0; i < count; i++)
+				{
+					buffer[length + i] = value.charAt(start + i);
+				}
+			}
+			length += count;
+			start += count;
+		}
+	}
+
+	private void flushBuffer(final boolean complete) throws IOException
+	{
+		if (length == 0)
+		{
+			return;
+		}
+		if (writer != null)
+		{
+			writer.write(buffer, 0, length);
+		}
+		else if (appendable != null)
+		{
+			appendable.append(bufferView, 0, length);
+		}
+		else
+		{
+			encode(complete);
+			return;
+		}
+		length = 0;
+	}
+
+	private void encode(final boolean complete)
+	{
+		int end = length;
+		// a high surrogate at the end waits for its low surrogate in the next chunk
+		if (!complete && Character.isHighSurrogate(buffer[end - 1]))
+		{
+			end--;
+		}
+		for (int i = 0; i < end; i++)
+		{
+			final char c = buffer[i];
+			if (c < 0x80)
+			{
+				byteBuffer.put((byte)c);
+			}
+			else if (c < 0x800)
+			{
+				byteBuffer.put((byte)(0xC0 | c >> 6));
+				byteBuffer.put((byte)(0x80 | c & 0x3F));
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < end
+				&& Character.isLowSurrogate(buffer[i + 1]))
+			{
+				final int codePoint = Character.toCodePoint(c, buffer[++i]);
+				byteBuffer.put((byte)(0xF0 | codePoint >> 18));
+				byteBuffer.put((byte)(0x80 | codePoint >> 12 & 0x3F));
+				byteBuffer.put((byte)(0x80 | codePoint >> 6 & 0x3F));
+				byteBuffer.put((byte)(0x80 | codePoint & 0x3F));
+			}
+			else if (Character.isSurrogate(c))
+			{
+				byteBuffer.put((byte)'?');
+			}
+			else
+			{
+				byteBuffer.put((byte)(0xE0 | c >> 12));
+				byteBuffer.put((byte)(0x80 | c >> 6 & 0x3F));
+				byteBuffer.put((byte)(0x80 | c & 0x3F));
+			}
+		}
+		if (end < length)
+		{
+			buffer[0] = buffer[end];
+		}
+		length = length - end;
+	}
+
+}
@@ -0,0 +1,139 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import io.github.astrapi69.xml.XmlFileFailure;
+
+/**
+ * The class {@link BatchTransformResult} is the summary of a batch transformation with the number
+ * of transformed and failed xml files, the failures and the elapsed time
+ */
+public final class BatchTransformResult
+{
+
+	/** The number of xml files that were transformed successfully */
+	private final long successCount;
+
+	/** The xml files that could not be transformed in the order of the xml files */
+	private final List<XmlFileFailure> failures;
+
+	/** The elapsed time of the whole batch */
+	private final Duration elapsed;
+
+	/**
+	 * Creates a new {@link BatchTransformResult} object
+	 *
+	 * @param successCount
+	 *            the number of xml files that were transformed successfully
+	 * @param failures
+	 *            the xml files that could not be transformed
+	 * @param elapsed
+	 *            the elapsed time of the whole batch
+	 */
+	public BatchTransformResult(final long successCount,
+		final List<XmlFileFailure> failures, final Duration elapsed)
+	{
+		this.successCount = successCount;
+		this.failures = Collections.unmodifiableList(Objects.requireNonNull(failures));
+		this.elapsed = Objects.requireNonNull(elapsed);
+	}
+
+	/**
+	 * Gets the number of xml files of the batch
+	 *
+	 * @return the number of xml files
+	 */
+	public long getTotalCount()
+	{
+		return successCount + failures.size();
+	}
+
+	/**
+	 * Gets the number of xml files that were transformed successfully
+	 *
+	 * @return the number of transformed xml files
+	 */
+	public long getSuccessCount()
+	{
+		return successCount;
+	}
+
+	/**
+	 * Gets the number of xml files that could not be transformed
+	 *
+	 * @return the number of failed xml files
+	 */
+	public long getFailureCount()
+	{
+		return failures.size();
+	}
+
+	/**
+	 * Gets the xml files that could not be transformed in the order of the xml files
+	 *
+	 * @return the unmodifiable list of the failures
+	 */
+	public List<XmlFileFailure> getFailures()
+	{
+		return failures;
+	}
+
+	/**
+	 * Gets the elapsed time of the whole batch
+	 *
+	 * @return the elapsed time
+	 */
+	public Duration getElapsed()
+	{
+		return elapsed;
+	}
+
+	/**
+	 * Gets the throughput of the batch in xml files per second, failed files included
+	 *
+	 * @return the number of xml files per second
+	 */
+	public double getFilesPerSecond()
+	{
+		final long nanos = Math.max(1L, elapsed.toNanos());
+		return getTotalCount() * 1_000_000_000d / nanos;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%d files transformed, %d failed in %d ms (%.1f files/s)",
+			successCount, failures.size(), elapsed.toMillis(), getFilesPerSecond());
+	}
+
+}
@@ -0,0 +1,269 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamSource;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+
+/**
+ * The class {@link CancellationCheck} checks a {@link CancellationToken} during one transformation
+ * and counts the checked sax events. The source and the result of the transformation are wrapped,
+ * so every sax event of the input and the output is checked. An instance is used by the thread of
+ * the transformation only
+ */
+class CancellationCheck
+{
+
+	/** The factory for the readers of the input, guarded by itself */
+	private static final SAXParserFactory PARSER_FACTORY = newParserFactory();
+
+	/** The factory for the serializers of the output, guarded by itself */
+	private static final SAXTransformerFactory TRANSFORMER_FACTORY = (SAXTransformerFactory)TransformerFactory
+		.newInstance();
+
+	/** The checked token */
+	private final CancellationToken cancellationToken;
+
+	/** The start of the transformation as a value of {@link System#nanoTime()} */
+	private final long startNanos = System.nanoTime();
+
+	/** The number of checked input events */
+	private long inputEventCount;
+
+	/** The number of checked output events */
+	private long outputEventCount;
+
+	/** The reason of the abort or null if the transformation was not aborted */
+	private String abortReason;
+
+	/**
+	 * Creates a new {@link CancellationCheck} object
+	 *
+	 * @param cancellationToken
+	 *            the checked token
+	 */
+	CancellationCheck(final CancellationToken cancellationToken)
+	{
+		this.cancellationToken = Objects.requireNonNull(cancellationToken);
+	}
+
+	/**
+	 * Wraps the given source, so its sax events are checked. Only stream and sax sources can be
+	 * wrapped, all other sources are returned unchanged
+	 *
+	 * @param source
+	 *            the source
+	 * @return the checked source
+	 * @throws TransformerConfigurationException
+	 *             is thrown if no xml reader can be created
+	 */
+	Source wrap(final Source source) throws TransformerConfigurationException
+	{
+		if (source instanceof SAXSource)
+		{
+			final SAXSource saxSource = (SAXSource)source;
+			final XMLReader reader = saxSource.getXMLReader() != null
+				? saxSource.getXMLReader()
+				: newXMLReader();
+			return new SAXSource(new CancellationCheckingFilter(reader, this),
+				saxSource.getInputSource());
+		}
+		if (source instanceof StreamSource)
+		{
+			return new SAXSource(new CancellationCheckingFilter(newXMLReader(), this),
+				SAXSource.sourceToInputSource(source));
+		}
+		return source;
+	}
+
+	/**
+	 * Wraps the given result, so its sax events are checked. A result that is not a sax result is
+	 * written through a serializer with the output properties of the given compiled stylesheet
+	 *
+	 * @param result
+	 *            the result
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @return the checked result
+	 * @throws TransformerConfigurationException
+	 *             is thrown if no serializer can be created
+	 */
+	Result wrap(final Result result, final Templates templates)
+		throws TransformerConfigurationException
+	{
+		final CancellationCheckingHandler handler;
+		if (result instanceof SAXResult)
+		{
+			final SAXResult saxResult = (SAXResult)result;
+			LexicalHandler lexicalHandler = saxResult.getLexicalHandler();
+			if (lexicalHandler == null && saxResult.getHandler() instanceof LexicalHandler)
+			{
+				lexicalHandler = (LexicalHandler)saxResult.getHandler();
+			}
+			handler = new CancellationCheckingHandler(saxResult.getHandler(), lexicalHandler,
+				this);
+		}
+		else
+		{
+			final TransformerHandler serializer;
+			synchronized (TRANSFORMER_FACTORY)
+			{
+				serializer = TRANSFORMER_FACTORY.newTransformerHandler();
+			}
+			serializer.getTransformer().setOutputProperties(templates.getOutputProperties());
+			serializer.setResult(result);
+			handler = new CancellationCheckingHandler(serializer, serializer, this);
+		}
+		final SAXResult checkedResult = new SAXResult(handler);
+		checkedResult.setLexicalHandler(handler);
+		checkedResult.setSystemId(result.getSystemId());
+		return checkedResult;
+	}
+
+	/**
+	 * Counts and checks an input event
+	 *
+	 * @throws SAXException
+	 *             is thrown if the transformation has to be aborted
+	 */
+	void checkInput() throws SAXException
+	{
+		inputEventCount++;
+		check();
+	}
+
+	/**
+	 * Counts and checks an output event
+	 *
+	 * @throws SAXException
+	 *             is thrown if the transformation has to be aborted
+	 */
+	void checkOutput() throws SAXException
+	{
+		outputEventCount++;
+		check();
+	}
+
+	/**
+	 * Checks the token before the transformation starts
+	 *
+	 * @throws TransformCancelledException
+	 *             is thrown if the token is already cancelled
+	 */
+	void checkStart() throws TransformCancelledException
+	{
+		try
+		{
+			check();
+		}
+		catch (final SAXException e)
+		{
+			throw newException(e);
+		}
+	}
+
+	/**
+	 * Checks if the transformation was aborted by this check
+	 *
+	 * @return true if the transformation was aborted otherwise false
+	 */
+	boolean isAborted()
+	{
+		return abortReason != null;
+	}
+
+	/**
+	 * Creates the exception that reports the abort and the progress of the transformation
+	 *
+	 * @param cause
+	 *            the exception that aborted the transformer
+	 * @return the new exception
+	 */
+	TransformCancelledException newException(final Throwable cause)
+	{
+		return new TransformCancelledException(abortReason, inputEventCount, outputEventCount,
+			Duration.ofNanos(System.nanoTime() - startNanos), cause);
+	}
+
+	private void check() throws SAXException
+	{
+		if (cancellationToken.isDeadlineExceeded())
+		{
+			abortReason = "Transformation deadline exceeded";
+		}
+		else if (cancellationToken.isCancelled())
+		{
+			abortReason = "Transformation cancelled";
+		}
+		else if (Thread.currentThread().isInterrupted())
+		{
+			abortReason = "Transformation interrupted";
+		}
+		if (abortReason != null)
+		{
+			throw new SAXException(abortReason);
+		}
+	}
+
+	private static XMLReader newXMLReader() throws TransformerConfigurationException
+	{
+		try
+		{
+			synchronized (PARSER_FACTORY)
+			{
+				return PARSER_FACTORY.newSAXParser().getXMLReader();
+			}
+		}
+		catch (final ParserConfigurationException | SAXException e)
+		{
+			throw new TransformerConfigurationException(e);
+		}
+	}
+
+	private static SAXParserFactory newParserFactory()
+	{
+		final SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+		parserFactory.setNamespaceAware(true);
+		return parserFactory;
+	}
+
+}
@@ -0,0 +1,81 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.util.Objects;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * The class {@link CancellationCheckingFilter} checks a {@link CancellationCheck} before it
+ * forwards the content events of the parsed input of a transformation
+ */
+class CancellationCheckingFilter extends XMLFilterImpl
+{
+
+	/** The check of the transformation */
+	private final CancellationCheck cancellationCheck;
+
+	/**
+	 * Creates a new {@link CancellationCheckingFilter} object
+	 *
+	 * @param parent
+	 *            the reader that parses the input
+	 * @param cancellationCheck
+	 *            the check of the transformation
+	 */
+	CancellationCheckingFilter(final XMLReader parent, final CancellationCheck cancellationCheck)
+	{
+		super(parent);
+		this.cancellationCheck = Objects.requireNonNull(cancellationCheck);
+	}
+
+	@Override
+	public void startElement(final String uri, final String localName, final String qName,
+		final Attributes atts) throws SAXException
+	{
+		cancellationCheck.checkInput();
+		super.startElement(uri, localName, qName, atts);
+	}
+
+	@Override
+	public void endElement(final String uri, final String localName, final String qName)
+		throws SAXException
+	{
+		cancellationCheck.checkInput();
+		super.endElement(uri, localName, qName);
+	}
+
+	@Override
+	public void characters(final char[] ch, final int start, final int length) throws SAXException
+	{
+		cancellationCheck.checkInput();
+		super.characters(ch, start, length);
+	}
+
+}
@@ -0,0 +1,208 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.util.Objects;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+
+/**
+ * The class {@link CancellationCheckingHandler} forwards all sax events of a transformation result
+ * to a delegate and checks a {@link CancellationCheck} before the content events
+ */
+class CancellationCheckingHandler implements ContentHandler, LexicalHandler
+{
+
+	/** The handler that receives the forwarded events */
+	private final ContentHandler delegate;
+
+	/** The handler that receives the forwarded lexical events or null */
+	private final LexicalHandler lexicalDelegate;
+
+	/** The check of the transformation */
+	private final CancellationCheck cancellationCheck;
+
+	/**
+	 * Creates a new {@link CancellationCheckingHandler} object
+	 *
+	 * @param delegate
+	 *            the handler that receives the forwarded events
+	 * @param lexicalDelegate
+	 *            the handler that receives the forwarded lexical events or null
+	 * @param cancellationCheck
+	 *            the check of the transformation
+	 */
+	CancellationCheckingHandler(final ContentHandler delegate,
+		final LexicalHandler lexicalDelegate, final CancellationCheck cancellationCheck)
+	{
+		this.delegate = Objects.requireNonNull(delegate);
+		this.lexicalDelegate = lexicalDelegate;
+		this.cancellationCheck = Objects.requireNonNull(cancellationCheck);
+	}
+
+	@Override
+	public void setDocumentLocator(final Locator locator)
+	{
+		delegate.setDocumentLocator(locator);
+	}
+
+	@Override
+	public void startDocument() throws SAXException
+	{
+		delegate.startDocument();
+	}
+
+	@Override
+	public void endDocument() throws SAXException
+	{
+		delegate.endDocument();
+	}
+
+	@Override
+	public void startPrefixMapping(final String prefix, final String uri) throws SAXException
+	{
+		delegate.startPrefixMapping(prefix, uri);
+	}
+
+	@Override
+	public void endPrefixMapping(final String prefix) throws SAXException
+	{
+		delegate.endPrefixMapping(prefix);
+	}
+
+	@Override
+	public void startElement(final String uri, final String localName, final String qName,
+		final Attributes atts) throws SAXException
+	{
+		cancellationCheck.checkOutput();
+		delegate.startElement(uri, localName, qName, atts);
+	}
+
+	@Override
+	public void endElement(final String uri, final String localName, final String qName)
+		throws SAXException
+	{
+		cancellationCheck.checkOutput();
+		delegate.endElement(uri, localName, qName);
+	}
+
+	@Override
+	public void characters(final char[] ch, final int start, final int length) throws SAXException
+	{
+		cancellationCheck.checkOutput();
+		delegate.characters(ch, start, length);
+	}
+
+	@Override
+	public void ignorableWhitespace(final char[] ch, final int start, final int length)
+		throws SAXException
+	{
+		cancellationCheck.checkOutput();
+		delegate.ignorableWhitespace(ch, start, length);
+	}
+
+	@Override
+	public void processingInstruction(final String target, final String data) throws SAXException
+	{
+		cancellationCheck.checkOutput();
+		delegate.processingInstruction(target, data);
+	}
+
+	@Override
+	public void skippedEntity(final String name) throws SAXException
+	{
+		delegate.skippedEntity(name);
+	}
+
+	@Override
+	public void startDTD(final String name, final String publicId, final String systemId)
+		throws SAXException
+	{
+		if (lexicalDelegate != null)
+		{
+			lexicalDelegate.startDTD(name, publicId, systemId);
+		}
+	}
+
+	@Override
+	public void endDTD() throws SAXException
+	{
+		if (lexicalDelegate != null)
+		{
+			lexicalDelegate.endDTD();
+		}
+	}
+
+	@Override
+	public void startEntity(final String name) throws SAXException
+	{
+		if (lexicalDelegate != null)
+		{
+			lexicalDelegate.startEntity(name);
+		}
+	}
+
+	@Override
+	public void endEntity(final String name) throws SAXException
+	{
+		if (lexicalDelegate != null)
+		{
+			lexicalDelegate.endEntity(name);
+		}
+	}
+
+	@Override
+	public void startCDATA() throws SAXException
+	{
+		if (lexicalDelegate != null)
+		{
+			lexicalDelegate.startCDATA();
+		}
+	}
+
+	@Override
+	public void endCDATA() throws SAXException
+	{
+		if (lexicalDelegate != null)
+		{
+			lexicalDelegate.endCDATA();
+		}
+	}
+
+	@Override
+	public void comment(final char[] ch, final int start, final int length) throws SAXException
+	{
+		cancellationCheck.checkOutput();
+		if (lexicalDelegate != null)
+		{
+			lexicalDelegate.comment(ch, start, length);
+		}
+	}
+
+}
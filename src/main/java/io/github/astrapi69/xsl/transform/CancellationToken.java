@@ -0,0 +1,105 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The class {@link CancellationToken} signals a running transformation of the
+ * {@link XsltTransformEngine} that it should stop. A token is cancelled either explicitly with
+ * {@link #cancel()} from any thread or when its deadline is exceeded. The running transformation
+ * checks the token on every sax event of its input and its output
+ */
+public final class CancellationToken
+{
+
+	/** The flag if this token was cancelled explicitly */
+	private volatile boolean cancelled;
+
+	/** The deadline as a value of {@link System#nanoTime()} */
+	private final long deadlineNanos;
+
+	/** The flag if this token has a deadline */
+	private final boolean hasDeadline;
+
+	/**
+	 * Creates a new {@link CancellationToken} object without a deadline
+	 */
+	public CancellationToken()
+	{
+		this.deadlineNanos = 0L;
+		this.hasDeadline = false;
+	}
+
+	private CancellationToken(final long deadlineNanos)
+	{
+		this.deadlineNanos = deadlineNanos;
+		this.hasDeadline = true;
+	}
+
+	/**
+	 * Creates a new {@link CancellationToken} object that is cancelled when the given timeout
+	 * elapsed from now on
+	 *
+	 * @param timeout
+	 *            the timeout
+	 * @return the new token
+	 */
+	public static CancellationToken withTimeout(final Duration timeout)
+	{
+		Objects.requireNonNull(timeout);
+		return new CancellationToken(System.nanoTime() + timeout.toNanos());
+	}
+
+	/**
+	 * Cancels this token
+	 */
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+	/**
+	 * Checks if this token was cancelled explicitly or its deadline is exceeded
+	 *
+	 * @return true if this token is cancelled otherwise false
+	 */
+	public boolean isCancelled()
+	{
+		return cancelled || isDeadlineExceeded();
+	}
+
+	/**
+	 * Checks if the deadline of this token is exceeded
+	 *
+	 * @return true if this token has a deadline and it is exceeded otherwise false
+	 */
+	public boolean isDeadlineExceeded()
+	{
+		return hasDeadline && System.nanoTime() - deadlineNanos > 0;
+	}
+
+}
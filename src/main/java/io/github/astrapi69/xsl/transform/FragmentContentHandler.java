@@ -0,0 +1,165 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.util.Objects;
+
+import javax.xml.transform.sax.TransformerHandler;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+
+/**
+ * The class {@link FragmentContentHandler} forwards all sax events except the start and the end of
+ * the document to a {@link TransformerHandler}. Several transformation results can so be written
+ * into one surrounding document
+ */
+class FragmentContentHandler implements ContentHandler, LexicalHandler
+{
+
+	/** The handler that receives the forwarded events */
+	private final TransformerHandler delegate;
+
+	/**
+	 * Creates a new {@link FragmentContentHandler} object
+	 *
+	 * @param delegate
+	 *            the handler that receives the forwarded events
+	 */
+	FragmentContentHandler(final TransformerHandler delegate)
+	{
+		this.delegate = Objects.requireNonNull(delegate);
+	}
+
+	@Override
+	public void setDocumentLocator(final Locator locator)
+	{
+	}
+
+	@Override
+	public void startDocument()
+	{
+	}
+
+	@Override
+	public void endDocument()
+	{
+	}
+
+	@Override
+	public void startPrefixMapping(final String prefix, final String uri) throws SAXException
+	{
+		delegate.startPrefixMapping(prefix, uri);
+	}
+
+	@Override
+	public void endPrefixMapping(final String prefix) throws SAXException
+	{
+		delegate.endPrefixMapping(prefix);
+	}
+
+	@Override
+	public void startElement(final String uri, final String localName, final String qName,
+		final Attributes atts) throws SAXException
+	{
+		delegate.startElement(uri, localName, qName, atts);
+	}
+
+	@Override
+	public void endElement(final String uri, final String localName, final String qName)
+		throws SAXException
+	{
+		delegate.endElement(uri, localName, qName);
+	}
+
+	@Override
+	public void characters(final char[] ch, final int start, final int length) throws SAXException
+	{
+		delegate.characters(ch, start, length);
+	}
+
+	@Override
+	public void ignorableWhitespace(final char[] ch, final int start, final int length)
+		throws SAXException
+	{
+		delegate.ignorableWhitespace(ch, start, length);
+	}
+
+	@Override
+	public void processingInstruction(final String target, final String data) throws SAXException
+	{
+		delegate.processingInstruction(target, data);
+	}
+
+	@Override
+	public void skippedEntity(final String name) throws SAXException
+	{
+		delegate.skippedEntity(name);
+	}
+
+	@Override
+	public void startDTD(final String name, final String publicId, final String systemId)
+	{
+	}
+
+	@Override
+	public void endDTD()
+	{
+	}
+
+	@Override
+	public void startEntity(final String name) throws SAXException
+	{
+		delegate.startEntity(name);
+	}
+
+	@Override
+	public void endEntity(final String name) throws SAXException
+	{
+		delegate.endEntity(name);
+	}
+
+	@Override
+	public void startCDATA() throws SAXException
+	{
+		delegate.startCDATA();
+	}
+
+	@Override
+	public void endCDATA() throws SAXException
+	{
+		delegate.endCDATA();
+	}
+
+	@Override
+	public void comment(final char[] ch, final int start, final int length) throws SAXException
+	{
+		delegate.comment(ch, start, length);
+	}
+
+}
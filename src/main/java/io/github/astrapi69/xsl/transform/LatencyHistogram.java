@@ -0,0 +1,119 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The class {@link LatencyHistogram} records latencies into 64 buckets that grow in powers of two.
+ * Recording is lock-free and does not allocate
+ */
+class LatencyHistogram
+{
+
+	/** The number of buckets, one for every bit of a long */
+	private static final int BUCKET_COUNT = 64;
+
+	/** The bucket i counts the latencies that need exactly i bits, bucket 0 counts zeros */
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	/** The sum of the recorded latencies */
+	private final LongAdder totalNanos = new LongAdder();
+
+	/** The maximum recorded latency */
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+	/**
+	 * Records the given latency
+	 *
+	 * @param nanos
+	 *            the latency in nanoseconds
+	 */
+	void record(final long nanos)
+	{
+		final long value = Math.max(0L, nanos);
+		buckets.incrementAndGet(
+			Math.min(BUCKET_COUNT - 1, BUCKET_COUNT - Long.numberOfLeadingZeros(value)));
+		totalNanos.add(value);
+		maxNanos.accumulate(value);
+	}
+
+	/**
+	 * Creates an immutable copy of this histogram
+	 *
+	 * @return the snapshot
+	 */
+	LatencySnapshot snapshot()
+	{
+		final long[] counts = new long[BUCKET_COUNT];
+		long count = 0L;
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			counts[i] = buckets.get(i);
+			count += counts[i];
+		}
+		final long max = maxNanos.get();
+		return new LatencySnapshot(count, totalNanos.sum(), max,
+			percentile(counts, count, 0.50, max), percentile(counts, count, 0.90, max),
+			percentile(counts, count, 0.99, max));
+	}
+
+	/**
+	 * Resets this histogram
+	 */
+	void reset()
+	{
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			buckets.set(i, 0L);
+		}
+		totalNanos.reset();
+		maxNanos.reset();
+	}
+
+	private static long percentile(final long[] counts, final long count, final double quantile,
+		final long max)
+	{
+		if (count == 0)
+		{
+			return 0L;
+		}
+		final long rank = (long)Math.ceil(count * quantile);
+		long seen = 0L;
+		for (int i = 0; i < counts.length; i++)
+		{
+			seen += counts[i];
+			if (seen >= rank)
+			{
+				final long upperBound = i >= 63 ? Long.MAX_VALUE : (1L << i) - 1;
+				return Math.min(upperBound, max);
+			}
+		}
+		return max;
+	}
+
+}
@@ -0,0 +1,145 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+/**
+ * The class {@link LatencySnapshot} is an immutable copy of a latency histogram of the
+ * {@link TransformMetrics}. The percentiles are approximated by the upper bound of their bucket,
+ * the buckets grow in powers of two
+ */
+public final class LatencySnapshot
+{
+
+	/** The number of recorded latencies */
+	private final long count;
+
+	/** The sum of the recorded latencies in nanoseconds */
+	private final long totalNanos;
+
+	/** The maximum recorded latency in nanoseconds */
+	private final long maxNanos;
+
+	/** The approximated median in nanoseconds */
+	private final long p50Nanos;
+
+	/** The approximated 90th percentile in nanoseconds */
+	private final long p90Nanos;
+
+	/** The approximated 99th percentile in nanoseconds */
+	private final long p99Nanos;
+
+	LatencySnapshot(final long count, final long totalNanos, final long maxNanos,
+		final long p50Nanos, final long p90Nanos, final long p99Nanos)
+	{
+		this.count = count;
+		this.totalNanos = totalNanos;
+		this.maxNanos = maxNanos;
+		this.p50Nanos = p50Nanos;
+		this.p90Nanos = p90Nanos;
+		this.p99Nanos = p99Nanos;
+	}
+
+	/**
+	 * Gets the number of recorded latencies
+	 *
+	 * @return the count
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Gets the sum of the recorded latencies
+	 *
+	 * @return the sum in nanoseconds
+	 */
+	public long getTotalNanos()
+	{
+		return totalNanos;
+	}
+
+	/**
+	 * Gets the mean of the recorded latencies
+	 *
+	 * @return the mean in nanoseconds or zero if nothing was recorded
+	 */
+	public long getMeanNanos()
+	{
+		return count == 0 ? 0L : totalNanos / count;
+	}
+
+	/**
+	 * Gets the maximum recorded latency
+	 *
+	 * @return the maximum in nanoseconds
+	 */
+	public long getMaxNanos()
+	{
+		return maxNanos;
+	}
+
+	/**
+	 * Gets the approximated median
+	 *
+	 * @return the median in nanoseconds
+	 */
+	public long getP50Nanos()
+	{
+		return p50Nanos;
+	}
+
+	/**
+	 * Gets the approximated 90th percentile
+	 *
+	 * @return the 90th percentile in nanoseconds
+	 */
+	public long getP90Nanos()
+	{
+		return p90Nanos;
+	}
+
+	/**
+	 * Gets the approximated 99th percentile
+	 *
+	 * @return the 99th percentile in nanoseconds
+	 */
+	public long getP99Nanos()
+	{
+		return p99Nanos;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "count=" + count + ", mean=" + getMeanNanos() / 1000 + "us, p50=" + p50Nanos / 1000
+			+ "us, p90=" + p90Nanos / 1000 + "us, p99=" + p99Nanos / 1000 + "us, max="
+			+ maxNanos / 1000 + "us";
+	}
+
+}
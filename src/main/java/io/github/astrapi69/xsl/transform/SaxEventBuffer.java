@@ -0,0 +1,288 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.util.Arrays;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * The class {@link SaxEventBuffer} records the sax events of one document and replays them to any
+ * number of handlers. After the document is recorded the buffer is read-only, so it can be
+ * replayed from several threads at the same time. The document locator and the dtd events are not
+ * recorded
+ */
+class SaxEventBuffer implements ContentHandler, LexicalHandler
+{
+
+	private static final byte START_PREFIX_MAPPING = 1;
+
+	private static final byte END_PREFIX_MAPPING = 2;
+
+	private static final byte START_ELEMENT = 3;
+
+	private static final byte END_ELEMENT = 4;
+
+	private static final byte CHARACTERS = 5;
+
+	private static final byte IGNORABLE_WHITESPACE = 6;
+
+	private static final byte PROCESSING_INSTRUCTION = 7;
+
+	private static final byte SKIPPED_ENTITY = 8;
+
+	private static final byte START_CDATA = 9;
+
+	private static final byte END_CDATA = 10;
+
+	private static final byte COMMENT = 11;
+
+	/** The recorded event types */
+	private byte[] events = new byte[256];
+
+	/** The number of recorded events */
+	private int eventCount;
+
+	/** The arguments of the recorded events in the order of the events */
+	private Object[] arguments = new Object[512];
+
+	/** The number of recorded arguments */
+	private int argumentCount;
+
+	/**
+	 * Gets the number of recorded events
+	 *
+	 * @return the number of events
+	 */
+	int getEventCount()
+	{
+		return eventCount;
+	}
+
+	/**
+	 * Replays the recorded document to the given handlers
+	 *
+	 * @param contentHandler
+	 *            the content handler
+	 * @param lexicalHandler
+	 *            the lexical handler or null if the lexical events are not needed
+	 * @throws SAXException
+	 *             is thrown if one of the handlers fails
+	 */
+	void replay(final ContentHandler contentHandler, final LexicalHandler lexicalHandler)
+		throws SAXException
+	{
+		int argument = 0;
+		contentHandler.startDocument();
+		for (int i = 0; i < eventCount; i++)
+		{
+			switch (events[i])
+			{
+				case START_PREFIX_MAPPING :
+					contentHandler.startPrefixMapping((String)arguments[argument],
+						(String)arguments[argument + 1]);
+					argument += 2;
+					break;
+				case END_PREFIX_MAPPING :
+					contentHandler.endPrefixMapping((String)arguments[argument++]);
+					break;
+				case START_ELEMENT :
+					contentHandler.startElement((String)arguments[argument],
+						(String)arguments[argument + 1], (String)arguments[argument + 2],
+						(Attributes)arguments[argument + 3]);
+					argument += 4;
+					break;
+				case END_ELEMENT :
+					contentHandler.endElement((String)arguments[argument],
+						(String)arguments[argument + 1], (String)arguments[argument + 2]);
+					argument += 3;
+					break;
+				case CHARACTERS :
+					final char[] characters = (char[])arguments[argument++];
+					contentHandler.characters(characters, 0, characters.length);
+					break;
+				case IGNORABLE_WHITESPACE :
+					final char[] whitespace = (char[])arguments[argument++];
+					contentHandler.ignorableWhitespace(whitespace, 0, whitespace.length);
+					break;
+				case PROCESSING_INSTRUCTION :
+					contentHandler.processingInstruction((String)arguments[argument],
+						(String)arguments[argument + 1]);
+					argument += 2;
+					break;
+				case SKIPPED_ENTITY :
+					contentHandler.skippedEntity((String)arguments[argument++]);
+					break;
+				case START_CDATA :
+					if (lexicalHandler != null)
+					{
+						lexicalHandler.startCDATA();
+					}
+					break;
+				case END_CDATA :
+					if (lexicalHandler != null)
+					{
+						lexicalHandler.endCDATA();
+					}
+					break;
+				case COMMENT :
+					final char[] comment = (char[])arguments[argument++];
+					if (lexicalHandler != null)
+					{
+						lexicalHandler.comment(comment, 0, comment.length);
+					}
+					break;
+				default :
+					throw new IllegalStateException("unknown event " + events[i]);
+			}
+		}
+		contentHandler.endDocument();
+	}
+
+	@Override
+	public void setDocumentLocator(final Locator locator)
+	{
+	}
+
+	@Override
+	public void startDocument()
+	{
+	}
+
+	@Override
+	public void endDocument()
+	{
+	}
+
+	@Override
+	public void startPrefixMapping(final String prefix, final String uri)
+	{
+		record(START_PREFIX_MAPPING, prefix, uri);
+	}
+
+	@Override
+	public void endPrefixMapping(final String prefix)
+	{
+		record(END_PREFIX_MAPPING, prefix);
+	}
+
+	@Override
+	public void startElement(final String uri, final String localName, final String qName,
+		final Attributes atts)
+	{
+		// the parser reuses its attributes object, so it has to be copied
+		record(START_ELEMENT, uri, localName, qName, new AttributesImpl(atts));
+	}
+
+	@Override
+	public void endElement(final String uri, final String localName, final String qName)
+	{
+		record(END_ELEMENT, uri, localName, qName);
+	}
+
+	@Override
+	public void characters(final char[] ch, final int start, final int length)
+	{
+		record(CHARACTERS, Arrays.copyOfRange(ch, start, start + length));
+	}
+
+	@Override
+	public void ignorableWhitespace(final char[] ch, final int start, final int length)
+	{
+		record(IGNORABLE_WHITESPACE, Arrays.copyOfRange(ch, start, start + length));
+	}
+
+	@Override
+	public void processingInstruction(final String target, final String data)
+	{
+		record(PROCESSING_INSTRUCTION, target, data);
+	}
+
+	@Override
+	public void skippedEntity(final String name)
+	{
+		record(SKIPPED_ENTITY, name);
+	}
+
+	@Override
+	public void startDTD(final String name, final String publicId, final String systemId)
+	{
+	}
+
+	@Override
+	public void endDTD()
+	{
+	}
+
+	@Override
+	public void startEntity(final String name)
+	{
+	}
+
+	@Override
+	public void endEntity(final String name)
+	{
+	}
+
+	@Override
+	public void startCDATA()
+	{
+		record(START_CDATA);
+	}
+
+	@Override
+	public void endCDATA()
+	{
+		record(END_CDATA);
+	}
+
+	@Override
+	public void comment(final char[] ch, final int start, final int length)
+	{
+		record(COMMENT, Arrays.copyOfRange(ch, start, start + length));
+	}
+
+	private void record(final byte event, final Object... eventArguments)
+	{
+		if (eventCount == events.length)
+		{
+			events = Arrays.copyOf(events, events.length * 2);
+		}
+		events[eventCount++] = event;
+		if (argumentCount + eventArguments.length > arguments.length)
+		{
+			arguments = Arrays.copyOf(arguments,
+				Math.max(arguments.length * 2, argumentCount + eventArguments.length));
+		}
+		System.arraycopy(eventArguments, 0, arguments, argumentCount, eventArguments.length);
+		argumentCount += eventArguments.length;
+	}
+
+}
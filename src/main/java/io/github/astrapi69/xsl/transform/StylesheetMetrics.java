@@ -0,0 +1,101 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The class {@link StylesheetMetrics} holds the counters and the latency histograms of one
+ * stylesheet
+ */
+class StylesheetMetrics
+{
+
+	/** The name of the stylesheet */
+	private final String name;
+
+	/** The number of lookups in the templates cache that found the compiled stylesheet */
+	private final LongAdder cacheHitCount = new LongAdder();
+
+	/** The latencies of the compilations */
+	private final LatencyHistogram compileLatency = new LatencyHistogram();
+
+	/** The latencies of the transformations */
+	private final LatencyHistogram transformLatency = new LatencyHistogram();
+
+	/** The number of failed transformations */
+	private final LongAdder transformFailureCount = new LongAdder();
+
+	/** The number of read input bytes */
+	private final LongAdder bytesIn = new LongAdder();
+
+	/** The number of written output bytes */
+	private final LongAdder bytesOut = new LongAdder();
+
+	StylesheetMetrics(final String name)
+	{
+		this.name = name;
+	}
+
+	void recordCacheHit()
+	{
+		cacheHitCount.increment();
+	}
+
+	void recordCompile(final long nanos)
+	{
+		compileLatency.record(nanos);
+	}
+
+	void recordTransform(final long nanos, final long inputBytes, final long outputBytes,
+		final boolean failed)
+	{
+		transformLatency.record(nanos);
+		bytesIn.add(inputBytes);
+		bytesOut.add(outputBytes);
+		if (failed)
+		{
+			transformFailureCount.increment();
+		}
+	}
+
+	StylesheetMetricsSnapshot snapshot()
+	{
+		return new StylesheetMetricsSnapshot(name, cacheHitCount.sum(), compileLatency.snapshot(),
+			transformLatency.snapshot(), transformFailureCount.sum(), bytesIn.sum(),
+			bytesOut.sum());
+	}
+
+	void reset()
+	{
+		cacheHitCount.reset();
+		compileLatency.reset();
+		transformLatency.reset();
+		transformFailureCount.reset();
+		bytesIn.reset();
+		bytesOut.reset();
+	}
+
+}
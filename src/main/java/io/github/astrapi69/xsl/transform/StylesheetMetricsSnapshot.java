@@ -0,0 +1,171 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+/**
+ * The class {@link StylesheetMetricsSnapshot} is an immutable copy of the metrics of one
+ * stylesheet from the {@link TransformMetrics}
+ */
+public final class StylesheetMetricsSnapshot
+{
+
+	/** The name of the stylesheet */
+	private final String name;
+
+	/** The number of lookups in the templates cache that found the compiled stylesheet */
+	private final long cacheHitCount;
+
+	/** The latencies of the compilations, every compilation is a cache miss */
+	private final LatencySnapshot compileLatency;
+
+	/** The latencies of the transformations */
+	private final LatencySnapshot transformLatency;
+
+	/** The number of failed transformations */
+	private final long transformFailureCount;
+
+	/** The number of read input bytes */
+	private final long bytesIn;
+
+	/** The number of written output bytes */
+	private final long bytesOut;
+
+	StylesheetMetricsSnapshot(final String name, final long cacheHitCount,
+		final LatencySnapshot compileLatency, final LatencySnapshot transformLatency,
+		final long transformFailureCount, final long bytesIn, final long bytesOut)
+	{
+		this.name = name;
+		this.cacheHitCount = cacheHitCount;
+		this.compileLatency = compileLatency;
+		this.transformLatency = transformLatency;
+		this.transformFailureCount = transformFailureCount;
+		this.bytesIn = bytesIn;
+		this.bytesOut = bytesOut;
+	}
+
+	/**
+	 * Gets the name of the stylesheet, this is the path of a stylesheet file or the content hash of
+	 * an in-memory stylesheet
+	 *
+	 * @return the name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Gets the number of lookups in the templates cache that found the compiled stylesheet
+	 *
+	 * @return the cache hit count
+	 */
+	public long getCacheHitCount()
+	{
+		return cacheHitCount;
+	}
+
+	/**
+	 * Gets the number of lookups in the templates cache that had to compile the stylesheet
+	 *
+	 * @return the cache miss count
+	 */
+	public long getCacheMissCount()
+	{
+		return compileLatency.getCount();
+	}
+
+	/**
+	 * Gets the ratio of the cache hits to all lookups in the templates cache
+	 *
+	 * @return the cache hit ratio between zero and one or zero if there were no lookups
+	 */
+	public double getCacheHitRatio()
+	{
+		final long lookups = cacheHitCount + getCacheMissCount();
+		return lookups == 0 ? 0.0 : (double)cacheHitCount / lookups;
+	}
+
+	/**
+	 * Gets the latencies of the compilations
+	 *
+	 * @return the compile latencies
+	 */
+	public LatencySnapshot getCompileLatency()
+	{
+		return compileLatency;
+	}
+
+	/**
+	 * Gets the latencies of the transformations, failed transformations included
+	 *
+	 * @return the transform latencies
+	 */
+	public LatencySnapshot getTransformLatency()
+	{
+		return transformLatency;
+	}
+
+	/**
+	 * Gets the number of failed transformations
+	 *
+	 * @return the failure count
+	 */
+	public long getTransformFailureCount()
+	{
+		return transformFailureCount;
+	}
+
+	/**
+	 * Gets the number of read input bytes. Only inputs from files and input streams are counted
+	 *
+	 * @return the number of input bytes
+	 */
+	public long getBytesIn()
+	{
+		return bytesIn;
+	}
+
+	/**
+	 * Gets the number of written output bytes
+	 *
+	 * @return the number of output bytes
+	 */
+	public long getBytesOut()
+	{
+		return bytesOut;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return name + ": cache hit ratio " + getCacheHitRatio() + ", compile [" + compileLatency
+			+ "], transform [" + transformLatency + "], failures " + transformFailureCount
+			+ ", bytes in " + bytesIn + ", bytes out " + bytesOut;
+	}
+
+}
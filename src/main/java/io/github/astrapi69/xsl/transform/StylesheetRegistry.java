@@ -0,0 +1,526 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.ErrorListener;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+
+/**
+ * The class {@link StylesheetRegistry} compiles all xslt files of a directory at startup and
+ * watches the directory with a {@link WatchService}. Changed files are compiled again on a
+ * background thread and swapped in atomically, so transformations never wait for a compilation
+ * and never see a partly compiled stylesheet. If a changed file can not be compiled, for instance
+ * because it is still being written, the previous version stays in use. Compile errors are
+ * reported through the thrown exceptions and {@link #getCompileFailures()}, never on the console
+ */
+public final class StylesheetRegistry implements Closeable
+{
+
+	/** The file name suffix of the xslt files */
+	private static final String XSLT_FILE_SUFFIX = ".xsl";
+
+	/** The watched directory */
+	private final Path directory;
+
+	/** The transform engine */
+	private final XsltTransformEngine transformEngine;
+
+	/** The listener that collects the errors of the current compilation, guarded by the factory */
+	private final CompileErrorListener errorListener = new CompileErrorListener();
+
+	/** The factory that compiles the stylesheets, guarded by itself */
+	private final TransformerFactory transformerFactory = newTransformerFactory(errorListener);
+
+	/** The factory of the parsers that read the xslt files, guarded by the transformer factory */
+	private final SAXParserFactory parserFactory = newParserFactory();
+
+	/** The current compiled stylesheets by their file name */
+	private final ConcurrentMap<String, CompiledStylesheet> stylesheets = new ConcurrentHashMap<>();
+
+	/** The locks that serialize the compilations of one file, by the file name */
+	private final ConcurrentMap<String, Object> reloadLocks = new ConcurrentHashMap<>();
+
+	/** The last compile failures by the file name */
+	private final ConcurrentMap<String, TransformerConfigurationException> compileFailures = new ConcurrentHashMap<>();
+
+	/** The number of successful compilations after the startup */
+	private final AtomicLong reloadCount = new AtomicLong();
+
+	/** The service that watches the directory */
+	private final WatchService watchService;
+
+	/** The background thread that compiles the changed files */
+	private final Thread watcherThread;
+
+	/**
+	 * Creates a new {@link StylesheetRegistry} object that uses the shared transform engine of
+	 * {@link XsltTransformerExtensions}
+	 *
+	 * @param directory
+	 *            the directory with the xslt files
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @throws TransformerConfigurationException
+	 *             is thrown if one of the xslt files can not be compiled
+	 */
+	public StylesheetRegistry(final Path directory)
+		throws IOException, TransformerConfigurationException
+	{
+		this(directory, XsltTransformerExtensions.getTransformEngine());
+	}
+
+	/**
+	 * Creates a new {@link StylesheetRegistry} object
+	 *
+	 * @param directory
+	 *            the directory with the xslt files
+	 * @param transformEngine
+	 *            the transform engine
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @throws TransformerConfigurationException
+	 *             is thrown if one of the xslt files can not be compiled
+	 */
+	public StylesheetRegistry(final Path directory, final XsltTransformEngine transformEngine)
+		throws IOException, TransformerConfigurationException
+	{
+		Objects.requireNonNull(directory);
+		Objects.requireNonNull(transformEngine);
+		this.directory = directory.toAbsolutePath();
+		this.transformEngine = transformEngine;
+		try (Stream<Path> files = Files.list(this.directory))
+		{
+			for (final Path file : (Iterable<Path>)files.filter(StylesheetRegistry::isXsltFile)::iterator)
+			{
+				final String name = file.getFileName().toString();
+				final CompiledStylesheet stylesheet = compile(file);
+				transformEngine.getTransformerPool(stylesheet.templates);
+				stylesheets.put(name, stylesheet);
+			}
+		}
+		this.watchService = this.directory.getFileSystem().newWatchService();
+		this.directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+			StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+		this.watcherThread = new Thread(this::watch,
+			"stylesheet-registry-" + this.directory.getFileName());
+		this.watcherThread.setDaemon(true);
+		this.watcherThread.start();
+	}
+
+	/**
+	 * Gets the current compiled stylesheet with the given file name
+	 *
+	 * @param name
+	 *            the file name of the stylesheet, for instance <code>functions.xsl</code>
+	 * @return the compiled stylesheet or null if there is no stylesheet with the given name
+	 */
+	public Templates getTemplates(final String name)
+	{
+		Objects.requireNonNull(name);
+		final CompiledStylesheet stylesheet = stylesheets.get(name);
+		return stylesheet != null ? stylesheet.templates : null;
+	}
+
+	/**
+	 * Transforms the given xml source with the current version of the stylesheet with the given
+	 * file name into the given result
+	 *
+	 * @param name
+	 *            the file name of the stylesheet
+	 * @param xmlSource
+	 *            the xml source
+	 * @param result
+	 *            the result
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there is no stylesheet with the given name or it is not possible to
+	 *             create a <code>Transformer</code> instance.
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of the
+	 *             transformation.
+	 */
+	public void transform(final String name, final Source xmlSource, final Result result)
+		throws TransformerConfigurationException, TransformerException
+	{
+		final Templates templates = getTemplates(name);
+		if (templates == null)
+		{
+			throw new TransformerConfigurationException(
+				"No stylesheet with the name " + name + " in " + directory);
+		}
+		transformEngine.transform(templates, xmlSource, result);
+	}
+
+	/**
+	 * Compiles the xslt file with the given name again and swaps it in. This is done automatically
+	 * when the file changes, but can be called directly for instance on file systems that do not
+	 * notify about changes. Reloads of the same file are serialized, so an older compilation can
+	 * never replace a newer one
+	 *
+	 * @param name
+	 *            the file name of the stylesheet
+	 * @throws TransformerConfigurationException
+	 *             is thrown if the xslt file can not be compiled, the previous version stays in use
+	 */
+	public void reload(final String name) throws TransformerConfigurationException
+	{
+		Objects.requireNonNull(name);
+		synchronized (getReloadLock(name))
+		{
+			doReload(name);
+		}
+	}
+
+	/**
+	 * Gets the file names of all current stylesheets
+	 *
+	 * @return the unmodifiable set of the file names
+	 */
+	public Set<String> getNames()
+	{
+		return Collections.unmodifiableSet(stylesheets.keySet());
+	}
+
+	/**
+	 * Gets the failures of the last compilation of the changed files that could not be compiled
+	 *
+	 * @return the unmodifiable map of the failures by the file names
+	 */
+	public Map<String, TransformerConfigurationException> getCompileFailures()
+	{
+		return Collections.unmodifiableMap(compileFailures);
+	}
+
+	/**
+	 * Gets the number of stylesheets that were compiled again after the startup
+	 *
+	 * @return the reload count
+	 */
+	public long getReloadCount()
+	{
+		return reloadCount.get();
+	}
+
+	/**
+	 * Stops watching the directory. The compiled stylesheets stay available
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		watchService.close();
+		try
+		{
+			watcherThread.join();
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void watch()
+	{
+		try
+		{
+			while (true)
+			{
+				final WatchKey key = watchService.take();
+				for (final WatchEvent<?> event : key.pollEvents())
+				{
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+					{
+						reloadAll();
+						continue;
+					}
+					final Path file = directory.resolve((Path)event.context());
+					if (!isXsltFile(file))
+					{
+						continue;
+					}
+					final String name = file.getFileName().toString();
+					try
+					{
+						if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE)
+						{
+							remove(name);
+						}
+						else
+						{
+							reloadIfModified(name, file);
+						}
+					}
+					catch (final RuntimeException e)
+					{
+						// the watcher thread must survive a single broken file
+						compileFailures.put(name, new TransformerConfigurationException(e));
+					}
+				}
+				if (!key.reset())
+				{
+					return;
+				}
+			}
+		}
+		catch (final ClosedWatchServiceException | InterruptedException e)
+		{
+			// the registry was closed
+		}
+	}
+
+	private void reloadAll()
+	{
+		try (Stream<Path> files = Files.list(directory))
+		{
+			files.filter(StylesheetRegistry::isXsltFile)
+				.forEach(file -> reloadIfModified(file.getFileName().toString(), file));
+		}
+		catch (final IOException e)
+		{
+			// the next event triggers another try
+		}
+	}
+
+	private void reloadIfModified(final String name, final Path file)
+	{
+		synchronized (getReloadLock(name))
+		{
+			final CompiledStylesheet current = stylesheets.get(name);
+			if (current != null && current.lastModified == file.toFile().lastModified())
+			{
+				return;
+			}
+			try
+			{
+				doReload(name);
+			}
+			catch (final TransformerConfigurationException e)
+			{
+				// recorded in the compile failures, the previous version stays in use
+			}
+		}
+	}
+
+	private void doReload(final String name) throws TransformerConfigurationException
+	{
+		try
+		{
+			swap(name, compile(directory.resolve(name)));
+			compileFailures.remove(name);
+		}
+		catch (final TransformerConfigurationException e)
+		{
+			compileFailures.put(name, e);
+			throw e;
+		}
+	}
+
+	private Object getReloadLock(final String name)
+	{
+		return reloadLocks.computeIfAbsent(name, key -> new Object());
+	}
+
+	private void swap(final String name, final CompiledStylesheet stylesheet)
+	{
+		// the stylesheets of the registry are not cached, so their pools are created here
+		transformEngine.getTransformerPool(stylesheet.templates);
+		final CompiledStylesheet previous = stylesheets.put(name, stylesheet);
+		reloadCount.incrementAndGet();
+		if (previous != null)
+		{
+			transformEngine.removeTransformerPool(previous.templates);
+		}
+	}
+
+	private void remove(final String name)
+	{
+		synchronized (getReloadLock(name))
+		{
+			final CompiledStylesheet previous = stylesheets.remove(name);
+			compileFailures.remove(name);
+			if (previous != null)
+			{
+				transformEngine.removeTransformerPool(previous.templates);
+			}
+		}
+	}
+
+	private CompiledStylesheet compile(final Path file) throws TransformerConfigurationException
+	{
+		final long lastModified = file.toFile().lastModified();
+		final Templates templates;
+		synchronized (transformerFactory)
+		{
+			errorListener.errors.clear();
+			try
+			{
+				// a parser of our own, the default one prints fatal errors to the console
+				final XMLReader reader = parserFactory.newSAXParser().getXMLReader();
+				reader.setErrorHandler(errorListener);
+				templates = transformerFactory.newTemplates(
+					new SAXSource(reader, new InputSource(file.toUri().toString())));
+			}
+			catch (final ParserConfigurationException | SAXException e)
+			{
+				throw new TransformerConfigurationException(e);
+			}
+			catch (final TransformerConfigurationException e)
+			{
+				errorListener.errors.stream().filter(error -> error != e)
+					.forEach(e::addSuppressed);
+				throw e;
+			}
+			finally
+			{
+				errorListener.errors.clear();
+			}
+		}
+		return new CompiledStylesheet(templates, lastModified);
+	}
+
+	private static TransformerFactory newTransformerFactory(final ErrorListener errorListener)
+	{
+		final TransformerFactory factory = TransformerFactory.newInstance();
+		factory.setErrorListener(errorListener);
+		return factory;
+	}
+
+	private static SAXParserFactory newParserFactory()
+	{
+		final SAXParserFactory factory = SAXParserFactory.newInstance();
+		factory.setNamespaceAware(true);
+		return factory;
+	}
+
+	private static boolean isXsltFile(final Path file)
+	{
+		return file.getFileName().toString().endsWith(XSLT_FILE_SUFFIX) && !Files.isDirectory(file);
+	}
+
+	/**
+	 * The class {@link CompiledStylesheet} holds a compiled stylesheet together with the last
+	 * modified time of the file it was compiled from
+	 */
+	private static final class CompiledStylesheet
+	{
+
+		/** The compiled stylesheet */
+		final Templates templates;
+
+		/** The last modified time of the xslt file */
+		final long lastModified;
+
+		CompiledStylesheet(final Templates templates, final long lastModified)
+		{
+			this.templates = templates;
+			this.lastModified = lastModified;
+		}
+	}
+
+	/**
+	 * The class {@link CompileErrorListener} collects the warnings and errors of a compilation
+	 * instead of printing them to the console and rethrows the fatal errors, so the compilation
+	 * fails with the cause. The collected errors are added to the thrown exception as suppressed
+	 * exceptions
+	 */
+	private static final class CompileErrorListener implements ErrorListener, ErrorHandler
+	{
+
+		/** The warnings and errors of the current compilation */
+		final List<Exception> errors = new ArrayList<>();
+
+		@Override
+		public void warning(final TransformerException exception)
+		{
+			errors.add(exception);
+		}
+
+		@Override
+		public void error(final TransformerException exception)
+		{
+			errors.add(exception);
+		}
+
+		@Override
+		public void fatalError(final TransformerException exception) throws TransformerException
+		{
+			throw exception;
+		}
+
+		@Override
+		public void warning(final SAXParseException exception)
+		{
+			errors.add(exception);
+		}
+
+		@Override
+		public void error(final SAXParseException exception)
+		{
+			errors.add(exception);
+		}
+
+		@Override
+		public void fatalError(final SAXParseException exception) throws SAXException
+		{
+			throw exception;
+		}
+	}
+
+}
@@ -0,0 +1,641 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.ErrorListener;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.TransformerFactoryConfigurationError;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * The class {@link TemplatesCache} is a bounded least recently used cache of compiled
+ * {@link Templates} objects. Stylesheet files are identified by their absolute path and their last
+ * modified time, in-memory stylesheets by a hash of their content. A {@link Templates} object is
+ * thread-safe, so one cached instance can serve any number of concurrent transformations
+ */
+public final class TemplatesCache
+{
+
+	/** The default maximum number of compiled stylesheets that a cache holds */
+	public static final int DEFAULT_MAXIMUM_SIZE = 64;
+
+	/** The key prefix for stylesheets that are identified by their file path */
+	private static final String FILE_KEY_PREFIX = "file:";
+
+	/** The key prefix for stylesheets that are identified by a hash of their content */
+	private static final String CONTENT_KEY_PREFIX = "sha256:";
+
+	/** The maximum number of compiled stylesheets */
+	private final int maximumSize;
+
+	/** The factory that compiles the stylesheets, guarded by itself */
+	private final TransformerFactory transformerFactory;
+
+	/** The supplier of the factories for the parallel compilation or null */
+	private final Supplier<TransformerFactory> transformerFactorySupplier;
+
+	/** The cache entries in access order, guarded by this cache */
+	private final Map<String, CacheEntry> entries;
+
+	/** The compiled stylesheets of the cache entries, guarded by this cache */
+	private final Set<Templates> cachedTemplates = Collections
+		.newSetFromMap(new IdentityHashMap<>());
+
+	/** The number of lookups that found a valid compiled stylesheet */
+	private final LongAdder hitCount = new LongAdder();
+
+	/** The number of lookups that had to compile the stylesheet */
+	private final LongAdder missCount = new LongAdder();
+
+	/** The number of compiled stylesheets that was removed because the cache was full */
+	private final LongAdder evictionCount = new LongAdder();
+
+	/** The listeners that are notified when a compiled stylesheet leaves the cache */
+	private final List<Consumer<Templates>> removalListeners = new CopyOnWriteArrayList<>();
+
+	/** The metrics that record the compilations and the cache hits or null */
+	private volatile TransformMetrics metrics;
+
+	/**
+	 * Creates a new {@link TemplatesCache} object with the default maximum size
+	 */
+	public TemplatesCache()
+	{
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * Creates a new {@link TemplatesCache} object with the given maximum size
+	 *
+	 * @param maximumSize
+	 *            the maximum number of compiled stylesheets
+	 */
+	public TemplatesCache(final int maximumSize)
+	{
+		this(maximumSize, TransformerFactory::newInstance);
+	}
+
+	/**
+	 * Creates a new {@link TemplatesCache} object with the given maximum size that compiles the
+	 * stylesheets with factories from the given supplier. The cache compiles with one factory from
+	 * the supplier and every task of {@link #preload(Collection, Executor)} with a new one, so the
+	 * supplier has to return a new and equally configured factory on every call
+	 *
+	 * @param maximumSize
+	 *            the maximum number of compiled stylesheets
+	 * @param transformerFactorySupplier
+	 *            the supplier of the transformer factories that compile the stylesheets
+	 */
+	public TemplatesCache(final int maximumSize,
+		final Supplier<TransformerFactory> transformerFactorySupplier)
+	{
+		this(maximumSize, Objects.requireNonNull(transformerFactorySupplier.get()),
+			transformerFactorySupplier);
+	}
+
+	/**
+	 * Creates a new {@link TemplatesCache} object with the given maximum size that compiles the
+	 * stylesheets with the given {@link TransformerFactory}
+	 *
+	 * @param maximumSize
+	 *            the maximum number of compiled stylesheets
+	 * @param transformerFactory
+	 *            the transformer factory that compiles the stylesheets
+	 */
+	public TemplatesCache(final int maximumSize, final TransformerFactory transformerFactory)
+	{
+		this(maximumSize, transformerFactory, null);
+	}
+
+	private TemplatesCache(final int maximumSize, final TransformerFactory transformerFactory,
+		final Supplier<TransformerFactory> transformerFactorySupplier)
+	{
+		if (maximumSize < 1)
+		{
+			throw new IllegalArgumentException("maximumSize must be greater than zero");
+		}
+		Objects.requireNonNull(transformerFactory);
+		this.maximumSize = maximumSize;
+		this.transformerFactory = transformerFactory;
+		this.transformerFactorySupplier = transformerFactorySupplier;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, CacheEntry> eldest)
+			{
+				final boolean evict = size() > TemplatesCache.this.maximumSize;
+				if (evict)
+				{
+					evictionCount.increment();
+					cachedTemplates.remove(eldest.getValue().templates);
+					notifyRemoval(eldest.getValue());
+				}
+				return evict;
+			}
+		};
+	}
+
+	/**
+	 * Gets the compiled stylesheet of the given xslt file. The stylesheet is compiled again if the
+	 * file was modified since it was cached
+	 *
+	 * @param xsltFile
+	 *            the xslt file
+	 * @return the compiled stylesheet
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when parsing the stylesheet
+	 */
+	public Templates getTemplates(final File xsltFile) throws TransformerConfigurationException
+	{
+		Objects.requireNonNull(xsltFile);
+		final File absoluteFile = xsltFile.getAbsoluteFile();
+		final String key = FILE_KEY_PREFIX + absoluteFile.getPath();
+		final long lastModified = absoluteFile.lastModified();
+		final Templates cached = lookup(key, lastModified);
+		if (cached != null)
+		{
+			return cached;
+		}
+		return compileAndCache(key, lastModified, new StreamSource(absoluteFile));
+	}
+
+	/**
+	 * Gets the compiled stylesheet of the given xslt source. A {@link StreamSource} that only
+	 * carries a file system id is treated like a file, a {@link StreamSource} with an input stream
+	 * or a reader is read completely and identified by the hash of its content. All other source
+	 * types are compiled on every call and bypass the cache
+	 *
+	 * @param xsltSource
+	 *            the xslt source
+	 * @return the compiled stylesheet
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when reading or parsing the stylesheet
+	 */
+	public Templates getTemplates(final Source xsltSource) throws TransformerConfigurationException
+	{
+		Objects.requireNonNull(xsltSource);
+		if (!(xsltSource instanceof StreamSource))
+		{
+			return compile(xsltSource);
+		}
+		final StreamSource streamSource = (StreamSource)xsltSource;
+		final File file = toFile(streamSource);
+		if (file != null)
+		{
+			return getTemplates(file);
+		}
+		try
+		{
+			if (streamSource.getInputStream() != null)
+			{
+				final byte[] content = IOUtils.toByteArray(streamSource.getInputStream());
+				final String key = contentKey(content, streamSource.getSystemId());
+				final Templates cached = lookup(key, 0L);
+				if (cached != null)
+				{
+					return cached;
+				}
+				return compileAndCache(key, 0L, new StreamSource(new ByteArrayInputStream(content),
+					streamSource.getSystemId()));
+			}
+			if (streamSource.getReader() != null)
+			{
+				final String content = IOUtils.toString(streamSource.getReader());
+				final String key = contentKey(content.getBytes(StandardCharsets.UTF_8),
+					streamSource.getSystemId());
+				final Templates cached = lookup(key, 0L);
+				if (cached != null)
+				{
+					return cached;
+				}
+				return compileAndCache(key, 0L,
+					new StreamSource(new StringReader(content), streamSource.getSystemId()));
+			}
+		}
+		catch (final IOException e)
+		{
+			throw new TransformerConfigurationException(e);
+		}
+		return compile(xsltSource);
+	}
+
+	/**
+	 * Compiles the given xslt files in parallel on the given executor and puts them into this
+	 * cache, so the first transformation with one of them does not pay for the compilation. Files
+	 * that are already cached in their current version are skipped. Every task compiles with its
+	 * own factory, because a factory is not thread-safe. The factory comes from the supplier of
+	 * this cache or, if the cache was created with a factory, is a new instance of the same class
+	 * with the uri resolver, the error listener, the secure processing feature and the external
+	 * access attributes of that factory. If such an instance cannot be created the task compiles
+	 * with the factory of this cache one at a time
+	 *
+	 * @param xsltFiles
+	 *            the xslt files
+	 * @param executor
+	 *            the executor that compiles the stylesheets
+	 * @return the number of compiled stylesheets
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when parsing one of the stylesheets, the errors of
+	 *             the other stylesheets are added as suppressed exceptions. All stylesheets without
+	 *             errors are cached anyway
+	 */
+	public int preload(final Collection<File> xsltFiles, final Executor executor)
+		throws TransformerConfigurationException
+	{
+		Objects.requireNonNull(xsltFiles);
+		Objects.requireNonNull(executor);
+		final Queue<TransformerConfigurationException> failures = new ConcurrentLinkedQueue<>();
+		final AtomicInteger compiledCount = new AtomicInteger();
+		final List<CompletableFuture<Void>> futures = new ArrayList<>(xsltFiles.size());
+		for (final File xsltFile : xsltFiles)
+		{
+			final File absoluteFile = xsltFile.getAbsoluteFile();
+			final String key = FILE_KEY_PREFIX + absoluteFile.getPath();
+			final long lastModified = absoluteFile.lastModified();
+			synchronized (this)
+			{
+				final CacheEntry entry = entries.get(key);
+				if (entry != null && entry.version == lastModified)
+				{
+					continue;
+				}
+			}
+			futures.add(CompletableFuture.runAsync(() -> {
+				try
+				{
+					final long start = System.nanoTime();
+					final TransformerFactory taskFactory = newTaskFactory();
+					final StreamSource source = new StreamSource(absoluteFile);
+					final Templates templates = taskFactory != null
+						? taskFactory.newTemplates(source)
+						: compile(source);
+					recordCompile(key, templates, System.nanoTime() - start);
+					put(key, lastModified, templates);
+					compiledCount.incrementAndGet();
+				}
+				catch (final TransformerConfigurationException e)
+				{
+					failures.add(e);
+				}
+			}, executor));
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		final TransformerConfigurationException failure = failures.poll();
+		if (failure != null)
+		{
+			failures.forEach(failure::addSuppressed);
+			throw failure;
+		}
+		return compiledCount.get();
+	}
+
+	/**
+	 * Removes the compiled stylesheet of the given xslt file from this cache
+	 *
+	 * @param xsltFile
+	 *            the xslt file
+	 * @return true if a compiled stylesheet was removed otherwise false
+	 */
+	public boolean invalidate(final File xsltFile)
+	{
+		Objects.requireNonNull(xsltFile);
+		final String key = FILE_KEY_PREFIX + xsltFile.getAbsoluteFile().getPath();
+		final CacheEntry removed;
+		synchronized (this)
+		{
+			removed = entries.remove(key);
+			if (removed != null)
+			{
+				cachedTemplates.remove(removed.templates);
+			}
+		}
+		notifyRemoval(removed);
+		return removed != null;
+	}
+
+	/**
+	 * Removes all compiled stylesheets from this cache. The counters are not reset
+	 */
+	public void invalidateAll()
+	{
+		final List<CacheEntry> removed;
+		synchronized (this)
+		{
+			removed = new ArrayList<>(entries.values());
+			entries.clear();
+			cachedTemplates.clear();
+		}
+		removed.forEach(this::notifyRemoval);
+	}
+
+	/**
+	 * Adds a listener that is notified with every compiled stylesheet that leaves this cache,
+	 * either because it was evicted, invalidated or replaced by a newer version. The listener is
+	 * called on the thread that caused the removal and must not call back into this cache
+	 *
+	 * @param removalListener
+	 *            the listener for removed compiled stylesheets
+	 */
+	public void addRemovalListener(final Consumer<Templates> removalListener)
+	{
+		Objects.requireNonNull(removalListener);
+		removalListeners.add(removalListener);
+	}
+
+	/**
+	 * Gets the number of compiled stylesheets in this cache
+	 *
+	 * @return the number of compiled stylesheets
+	 */
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Checks if the given compiled stylesheet is held by this cache
+	 *
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @return true if the compiled stylesheet is held by this cache
+	 */
+	public synchronized boolean contains(final Templates templates)
+	{
+		return cachedTemplates.contains(templates);
+	}
+
+	/**
+	 * Gets the maximum number of compiled stylesheets in this cache
+	 *
+	 * @return the maximum number of compiled stylesheets
+	 */
+	public int getMaximumSize()
+	{
+		return maximumSize;
+	}
+
+	/**
+	 * Gets the number of lookups that found a valid compiled stylesheet
+	 *
+	 * @return the hit count
+	 */
+	public long getHitCount()
+	{
+		return hitCount.sum();
+	}
+
+	/**
+	 * Gets the number of lookups that had to compile the stylesheet
+	 *
+	 * @return the miss count
+	 */
+	public long getMissCount()
+	{
+		return missCount.sum();
+	}
+
+	/**
+	 * Gets the number of compiled stylesheets that was removed because this cache was full
+	 *
+	 * @return the eviction count
+	 */
+	public long getEvictionCount()
+	{
+		return evictionCount.sum();
+	}
+
+	/**
+	 * Sets the metrics that record the compilations and the cache hits of this cache
+	 *
+	 * @param metrics
+	 *            the metrics or null for no recording
+	 */
+	void setMetrics(final TransformMetrics metrics)
+	{
+		this.metrics = metrics;
+	}
+
+	private Templates lookup(final String key, final long version)
+	{
+		final CacheEntry entry;
+		synchronized (this)
+		{
+			entry = entries.get(key);
+		}
+		if (entry != null && entry.version == version)
+		{
+			hitCount.increment();
+			final TransformMetrics currentMetrics = metrics;
+			if (currentMetrics != null)
+			{
+				currentMetrics.recordCacheHit(entry.templates);
+			}
+			return entry.templates;
+		}
+		missCount.increment();
+		return null;
+	}
+
+	private Templates compileAndCache(final String key, final long version, final Source source)
+		throws TransformerConfigurationException
+	{
+		final long start = System.nanoTime();
+		final Templates templates = compile(source);
+		recordCompile(key, templates, System.nanoTime() - start);
+		put(key, version, templates);
+		return templates;
+	}
+
+	private void recordCompile(final String key, final Templates templates, final long nanos)
+	{
+		final TransformMetrics currentMetrics = metrics;
+		if (currentMetrics != null)
+		{
+			currentMetrics.recordCompile(templates,
+				key.startsWith(FILE_KEY_PREFIX) ? key.substring(FILE_KEY_PREFIX.length()) : key,
+				nanos);
+		}
+	}
+
+	private void put(final String key, final long version, final Templates templates)
+	{
+		final CacheEntry replaced;
+		synchronized (this)
+		{
+			replaced = entries.put(key, new CacheEntry(templates, version));
+			if (replaced != null)
+			{
+				cachedTemplates.remove(replaced.templates);
+			}
+			cachedTemplates.add(templates);
+		}
+		notifyRemoval(replaced);
+	}
+
+	private void notifyRemoval(final CacheEntry entry)
+	{
+		if (entry != null)
+		{
+			final TransformMetrics currentMetrics = metrics;
+			if (currentMetrics != null)
+			{
+				currentMetrics.remove(entry.templates);
+			}
+			removalListeners.forEach(listener -> listener.accept(entry.templates));
+		}
+	}
+
+	private TransformerFactory newTaskFactory() throws TransformerConfigurationException
+	{
+		if (transformerFactorySupplier != null)
+		{
+			return Objects.requireNonNull(transformerFactorySupplier.get());
+		}
+		synchronized (transformerFactory)
+		{
+			final TransformerFactory taskFactory;
+			try
+			{
+				taskFactory = TransformerFactory.newInstance(
+					transformerFactory.getClass().getName(),
+					transformerFactory.getClass().getClassLoader());
+			}
+			catch (final TransformerFactoryConfigurationError e)
+			{
+				// no public constructor, the task uses the factory of this cache
+				return null;
+			}
+			taskFactory.setURIResolver(transformerFactory.getURIResolver());
+			final ErrorListener errorListener = transformerFactory.getErrorListener();
+			if (errorListener != null)
+			{
+				taskFactory.setErrorListener(errorListener);
+			}
+			taskFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING,
+				transformerFactory.getFeature(XMLConstants.FEATURE_SECURE_PROCESSING));
+			for (final String attribute : new String[] { XMLConstants.ACCESS_EXTERNAL_DTD,
+					XMLConstants.ACCESS_EXTERNAL_STYLESHEET })
+			{
+				try
+				{
+					taskFactory.setAttribute(attribute, transformerFactory.getAttribute(attribute));
+				}
+				catch (final IllegalArgumentException e)
+				{
+					// the attribute is not supported by this implementation
+				}
+			}
+			return taskFactory;
+		}
+	}
+
+	private Templates compile(final Source source) throws TransformerConfigurationException
+	{
+		synchronized (transformerFactory)
+		{
+			return transformerFactory.newTemplates(source);
+		}
+	}
+
+	private static String contentKey(final byte[] content, final String systemId)
+	{
+		// the system id is the base uri of relative includes and imports
+		final String key = CONTENT_KEY_PREFIX + DigestUtils.sha256Hex(content);
+		return systemId != null ? key + "@" + systemId : key;
+	}
+
+	private static File toFile(final StreamSource streamSource)
+	{
+		final String systemId = streamSource.getSystemId();
+		if (streamSource.getInputStream() != null || streamSource.getReader() != null
+			|| systemId == null || !systemId.startsWith("file:"))
+		{
+			return null;
+		}
+		try
+		{
+			return new File(URI.create(systemId));
+		}
+		catch (final IllegalArgumentException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * The class {@link CacheEntry} holds a compiled stylesheet together with the version of the
+	 * stylesheet it was compiled from
+	 */
+	private static final class CacheEntry
+	{
+
+		/** The compiled stylesheet */
+		final Templates templates;
+
+		/** The last modified time of a stylesheet file or zero for in-memory stylesheets */
+		final long version;
+
+		CacheEntry(final Templates templates, final long version)
+		{
+			this.templates = templates;
+			this.version = version;
+		}
+	}
+
+}
@@ -0,0 +1,206 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.util.Objects;
+
+import javax.xml.transform.sax.TransformerHandler;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+
+/**
+ * The class {@link TimingContentHandler} forwards all sax events to a {@link TransformerHandler}
+ * and sums up the time spent in the delegate. The measured time includes the time of all handlers
+ * that the delegate calls itself
+ */
+class TimingContentHandler implements ContentHandler, LexicalHandler
+{
+
+	/** The handler that receives the forwarded events */
+	private final TransformerHandler delegate;
+
+	/** The time spent in the delegate */
+	private long nanos;
+
+	/**
+	 * Creates a new {@link TimingContentHandler} object
+	 *
+	 * @param delegate
+	 *            the handler that receives the forwarded events
+	 */
+	TimingContentHandler(final TransformerHandler delegate)
+	{
+		this.delegate = Objects.requireNonNull(delegate);
+	}
+
+	/**
+	 * Gets the time spent in the delegate
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getNanos()
+	{
+		return nanos;
+	}
+
+	@Override
+	public void setDocumentLocator(final Locator locator)
+	{
+		delegate.setDocumentLocator(locator);
+	}
+
+	@Override
+	public void startDocument() throws SAXException
+	{
+		final long start = System.nanoTime();
+		delegate.startDocument();
+		nanos += System.nanoTime() - start;
+	}
+
+	@Override
+	public void endDocument() throws SAXException
+	{
+		final long start = System.nanoTime();
+		delegate.endDocument();
+		nanos += System.nanoTime() - start;
+	}
+
+	@Override
+	public void startPrefixMapping(final String prefix, final String uri) throws SAXException
+	{
+		final long start = System.nanoTime();
+		delegate.startPrefixMapping(prefix, uri);
+		nanos += System.nanoTime() - start;
+	}
+
+	@Override
+	public void endPrefixMapping(final String prefix) throws SAXException
+	{
+		final long start = System.nanoTime();
+		delegate.endPrefixMapping(prefix);
+		nanos += System.nanoTime() - start;
+	}
+
+	@Override
+	public void startElement(final String uri, final String localName, final String qName,
+		final Attributes atts) throws SAXException
+	{
+		final long start = System.nanoTime();
+		delegate.startElement(uri, localName, qName, atts);
+		nanos += System.nanoTime() - start;
+	}
+
+	@Override
+	public void endElement(final String uri, final String localName, final String qName)
+		throws SAXException
+	{
+		final long start = System.nanoTime();
+		delegate.endElement(uri, localName, qName);
+		nanos += System.nanoTime() - start;
+	}
+
+	@Override
+	public void characters(final char[] ch, final int start, final int length) throws SAXException
+	{
+		final long begin = System.nanoTime();
+		delegate.characters(ch, start, length);
+		nanos += System.nanoTime() - begin;
+	}
+
+	@Override
+	public void ignorableWhitespace(final char[] ch, final int start, final int length)
+		throws SAXException
+	{
+		final long begin = System.nanoTime();
+		delegate.ignorableWhitespace(ch, start, length);
+		nanos += System.nanoTime() - begin;
+	}
+
+	@Override
+	public void processingInstruction(final String target, final String data) throws SAXException
+	{
+		final long start = System.nanoTime();
+		delegate.processingInstruction(target, data);
+		nanos += System.nanoTime() - start;
+	}
+
+	@Override
+	public void skippedEntity(final String name) throws SAXException
+	{
+		final long start = System.nanoTime();
+		delegate.skippedEntity(name);
+		nanos += System.nanoTime() - start;
+	}
+
+	@Override
+	public void startDTD(final String name, final String publicId, final String systemId)
+		throws SAXException
+	{
+		delegate.startDTD(name, publicId, systemId);
+	}
+
+	@Override
+	public void endDTD() throws SAXException
+	{
+		delegate.endDTD();
+	}
+
+	@Override
+	public void startEntity(final String name) throws SAXException
+	{
+		delegate.startEntity(name);
+	}
+
+	@Override
+	public void endEntity(final String name) throws SAXException
+	{
+		delegate.endEntity(name);
+	}
+
+	@Override
+	public void startCDATA() throws SAXException
+	{
+		delegate.startCDATA();
+	}
+
+	@Override
+	public void endCDATA() throws SAXException
+	{
+		delegate.endCDATA();
+	}
+
+	@Override
+	public void comment(final char[] ch, final int start, final int length) throws SAXException
+	{
+		final long begin = System.nanoTime();
+		delegate.comment(ch, start, length);
+		nanos += System.nanoTime() - begin;
+	}
+
+}
@@ -0,0 +1,105 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.time.Duration;
+
+import javax.xml.transform.TransformerException;
+
+/**
+ * The class {@link TransformCancelledException} is thrown if a transformation was aborted because
+ * its {@link CancellationToken} was cancelled, its deadline was exceeded or its thread was
+ * interrupted. It reports how far the transformation got
+ */
+public class TransformCancelledException extends TransformerException
+{
+
+	private static final long serialVersionUID = 1L;
+
+	/** The number of sax events that were read from the input */
+	private final long inputEventCount;
+
+	/** The number of sax events that were written to the output */
+	private final long outputEventCount;
+
+	/** The time from the start of the transformation until it was aborted */
+	private final Duration elapsed;
+
+	/**
+	 * Creates a new {@link TransformCancelledException} object
+	 *
+	 * @param message
+	 *            the message
+	 * @param inputEventCount
+	 *            the number of sax events that were read from the input
+	 * @param outputEventCount
+	 *            the number of sax events that were written to the output
+	 * @param elapsed
+	 *            the time from the start of the transformation until it was aborted
+	 * @param cause
+	 *            the exception that aborted the transformer
+	 */
+	public TransformCancelledException(final String message, final long inputEventCount,
+		final long outputEventCount, final Duration elapsed, final Throwable cause)
+	{
+		super(message + " after " + elapsed.toMillis() + " milliseconds, " + inputEventCount
+			+ " input events and " + outputEventCount + " output events", cause);
+		this.inputEventCount = inputEventCount;
+		this.outputEventCount = outputEventCount;
+		this.elapsed = elapsed;
+	}
+
+	/**
+	 * Gets the number of sax events that were read from the input. This is zero if the input was
+	 * not a stream or sax source
+	 *
+	 * @return the number of input events
+	 */
+	public long getInputEventCount()
+	{
+		return inputEventCount;
+	}
+
+	/**
+	 * Gets the number of sax events that were written to the output
+	 *
+	 * @return the number of output events
+	 */
+	public long getOutputEventCount()
+	{
+		return outputEventCount;
+	}
+
+	/**
+	 * Gets the time from the start of the transformation until it was aborted
+	 *
+	 * @return the elapsed time
+	 */
+	public Duration getElapsed()
+	{
+		return elapsed;
+	}
+
+}
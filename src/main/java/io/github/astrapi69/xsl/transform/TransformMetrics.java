@@ -0,0 +1,241 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.xml.transform.Templates;
+
+/**
+ * The class {@link TransformMetrics} records per stylesheet the cache hits, the compile and
+ * transform latencies and the transformed bytes. Recording is disabled by default, a disabled
+ * instance costs one volatile read per recording point. The metrics can be read with
+ * {@link #snapshot()} or through jmx after {@link #registerMBean()}
+ */
+public final class TransformMetrics implements TransformMetricsMXBean
+{
+
+	/** The object name of the mbean */
+	public static final String OBJECT_NAME = //
+		"io.github.astrapi69.xsl.transform:type=TransformMetrics";
+
+	/** The name of the one entry for all compiled stylesheets that did not come from a cache */
+	static final String ANONYMOUS_NAME = "anonymous";
+
+	/** The flag if the metrics are recorded */
+	private volatile boolean enabled;
+
+	/** The metrics by the names of the stylesheets */
+	private final ConcurrentMap<String, StylesheetMetrics> stylesheets = new ConcurrentHashMap<>();
+
+	/** The names of the compiled stylesheets, guarded by itself */
+	private final Map<Templates, String> names = new WeakHashMap<>();
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<StylesheetMetricsSnapshot> getStylesheets()
+	{
+		return snapshot();
+	}
+
+	/**
+	 * Creates an immutable copy of the current metrics of all stylesheets
+	 *
+	 * @return the snapshots of the stylesheets ordered by their names
+	 */
+	public List<StylesheetMetricsSnapshot> snapshot()
+	{
+		final List<StylesheetMetricsSnapshot> snapshots = new ArrayList<>(stylesheets.size());
+		stylesheets.values().forEach(metrics -> snapshots.add(metrics.snapshot()));
+		snapshots.sort(Comparator.comparing(StylesheetMetricsSnapshot::getName));
+		return Collections.unmodifiableList(snapshots);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset()
+	{
+		stylesheets.values().forEach(StylesheetMetrics::reset);
+	}
+
+	/**
+	 * Registers this instance at the platform mbean server with the name {@link #OBJECT_NAME}
+	 *
+	 * @return the object name
+	 * @throws JMException
+	 *             is thrown if the registration fails, for instance because an instance is already
+	 *             registered
+	 */
+	public ObjectName registerMBean() throws JMException
+	{
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName objectName = new ObjectName(OBJECT_NAME);
+		server.registerMBean(this, objectName);
+		return objectName;
+	}
+
+	/**
+	 * Unregisters the mbean with the name {@link #OBJECT_NAME} from the platform mbean server
+	 *
+	 * @throws JMException
+	 *             is thrown if no mbean with this name is registered
+	 */
+	public void unregisterMBean() throws JMException
+	{
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+	}
+
+	/**
+	 * Records the compilation of a stylesheet. The name of the compiled stylesheet is remembered
+	 * even if recording is disabled, so later transformations can be attributed to it
+	 *
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @param name
+	 *            the name of the stylesheet
+	 * @param nanos
+	 *            the compile time in nanoseconds
+	 */
+	void recordCompile(final Templates templates, final String name, final long nanos)
+	{
+		synchronized (names)
+		{
+			names.put(templates, name);
+		}
+		if (enabled)
+		{
+			getStylesheetMetrics(name).recordCompile(nanos);
+		}
+	}
+
+	/**
+	 * Records a lookup in the templates cache that found the compiled stylesheet
+	 *
+	 * @param templates
+	 *            the compiled stylesheet
+	 */
+	void recordCacheHit(final Templates templates)
+	{
+		if (enabled)
+		{
+			getStylesheetMetrics(getName(templates)).recordCacheHit();
+		}
+	}
+
+	/**
+	 * Records a transformation
+	 *
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @param nanos
+	 *            the transform time in nanoseconds
+	 * @param bytesIn
+	 *            the number of read input bytes
+	 * @param bytesOut
+	 *            the number of written output bytes
+	 * @param failed
+	 *            the flag if the transformation failed
+	 */
+	void recordTransform(final Templates templates, final long nanos, final long bytesIn,
+		final long bytesOut, final boolean failed)
+	{
+		if (enabled)
+		{
+			getStylesheetMetrics(getName(templates)).recordTransform(nanos, bytesIn, bytesOut,
+				failed);
+		}
+	}
+
+	/**
+	 * Forgets the given compiled stylesheet after it was removed from the templates cache. The
+	 * metrics of its name are dropped too if no other compiled stylesheet has this name, so the
+	 * metrics of evicted in-memory stylesheets do not pile up
+	 *
+	 * @param templates
+	 *            the removed compiled stylesheet
+	 */
+	void remove(final Templates templates)
+	{
+		synchronized (names)
+		{
+			final String name = names.remove(templates);
+			if (name != null && !names.containsValue(name))
+			{
+				stylesheets.remove(name);
+			}
+		}
+	}
+
+	private String getName(final Templates templates)
+	{
+		Objects.requireNonNull(templates);
+		final String name;
+		synchronized (names)
+		{
+			name = names.get(templates);
+		}
+		return name != null ? name : ANONYMOUS_NAME;
+	}
+
+	private StylesheetMetrics getStylesheetMetrics(final String name)
+	{
+		return stylesheets.computeIfAbsent(name, StylesheetMetrics::new);
+	}
+
+}
@@ -0,0 +1,549 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * The class {@link TransformResultCache} caches the results of xslt transformations that are pure
+ * functions of the input document and the stylesheet parameters. A result is identified by the
+ * sha-256 digest of the input bytes, the version of the stylesheet and the parameter map, so a
+ * repeated input skips the transformer completely. The digest is collision resistant, so a
+ * different or crafted input can not get the cached result of another document. The results are held in
+ * memory up to a maximum number of bytes in least recently used order and optionally in a
+ * directory on disk, which is bounded by its own maximum number of bytes and evicts in least
+ * recently used order as well. Errors of the disk tier are ignored and treated as cache misses
+ */
+public final class TransformResultCache
+{
+
+	/** The default maximum number of result bytes that the disk tier holds */
+	public static final long DEFAULT_MAXIMUM_DISK_BYTES = 256L * 1024 * 1024;
+
+	/** The file name suffix of the results in the disk tier */
+	private static final String RESULT_FILE_SUFFIX = ".result";
+
+	/** The maximum number of result bytes that the memory tier holds */
+	private final long maximumBytes;
+
+	/** The directory of the disk tier or null if there is no disk tier */
+	private final Path diskDirectory;
+
+	/** The maximum number of result bytes that the disk tier holds */
+	private final long maximumDiskBytes;
+
+	/** The sizes of the result files of the disk tier in access order, guarded by itself */
+	private final LinkedHashMap<Path, Long> diskEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/** The number of result bytes in the disk tier, guarded by the disk entries */
+	private long currentDiskBytes;
+
+	/** The transform engine that runs the transformations on a cache miss */
+	private final XsltTransformEngine transformEngine;
+
+	/** The results of the memory tier in access order, guarded by this cache */
+	private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/** The number of result bytes in the memory tier, guarded by this cache */
+	private long currentBytes;
+
+	/** The number of lookups that were served from the memory tier */
+	private final LongAdder memoryHitCount = new LongAdder();
+
+	/** The number of lookups that were served from the disk tier */
+	private final LongAdder diskHitCount = new LongAdder();
+
+	/** The number of lookups that had to run the transformation */
+	private final LongAdder missCount = new LongAdder();
+
+	/**
+	 * Creates a new {@link TransformResultCache} object with only a memory tier that uses the
+	 * shared transform engine of {@link XsltTransformerExtensions}
+	 *
+	 * @param maximumBytes
+	 *            the maximum number of result bytes that are held in memory
+	 */
+	public TransformResultCache(final long maximumBytes)
+	{
+		this(maximumBytes, null, XsltTransformerExtensions.getTransformEngine());
+	}
+
+	/**
+	 * Creates a new {@link TransformResultCache} object with a memory tier and a disk tier of at
+	 * most {@link #DEFAULT_MAXIMUM_DISK_BYTES} in the given directory that uses the shared
+	 * transform engine of {@link XsltTransformerExtensions}
+	 *
+	 * @param maximumBytes
+	 *            the maximum number of result bytes that are held in memory
+	 * @param diskDirectory
+	 *            the directory of the disk tier
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public TransformResultCache(final long maximumBytes, final Path diskDirectory)
+		throws IOException
+	{
+		this(maximumBytes, Files.createDirectories(Objects.requireNonNull(diskDirectory)),
+			XsltTransformerExtensions.getTransformEngine());
+	}
+
+	/**
+	 * Creates a new {@link TransformResultCache} object with a disk tier of at most
+	 * {@link #DEFAULT_MAXIMUM_DISK_BYTES}
+	 *
+	 * @param maximumBytes
+	 *            the maximum number of result bytes that are held in memory
+	 * @param diskDirectory
+	 *            the existing directory of the disk tier or null for no disk tier
+	 * @param transformEngine
+	 *            the transform engine that runs the transformations on a cache miss
+	 */
+	public TransformResultCache(final long maximumBytes, final Path diskDirectory,
+		final XsltTransformEngine transformEngine)
+	{
+		this(maximumBytes, diskDirectory, DEFAULT_MAXIMUM_DISK_BYTES, transformEngine);
+	}
+
+	/**
+	 * Creates a new {@link TransformResultCache} object. Results that are already in the given
+	 * directory count against the maximum of the disk tier, the oldest are evicted first
+	 *
+	 * @param maximumBytes
+	 *            the maximum number of result bytes that are held in memory
+	 * @param diskDirectory
+	 *            the existing directory of the disk tier or null for no disk tier
+	 * @param maximumDiskBytes
+	 *            the maximum number of result bytes that are held on disk
+	 * @param transformEngine
+	 *            the transform engine that runs the transformations on a cache miss
+	 */
+	public TransformResultCache(final long maximumBytes, final Path diskDirectory,
+		final long maximumDiskBytes, final XsltTransformEngine transformEngine)
+	{
+		if (maximumBytes < 0)
+		{
+			throw new IllegalArgumentException("maximumBytes must not be negative");
+		}
+		if (maximumDiskBytes < 0)
+		{
+			throw new IllegalArgumentException("maximumDiskBytes must not be negative");
+		}
+		this.maximumBytes = maximumBytes;
+		this.diskDirectory = diskDirectory;
+		this.maximumDiskBytes = maximumDiskBytes;
+		this.transformEngine = Objects.requireNonNull(transformEngine);
+		if (diskDirectory != null)
+		{
+			loadDiskEntries();
+		}
+	}
+
+	/**
+	 * Transforms the given xml bytes with the given xslt file or returns the cached result. The
+	 * version of the stylesheet is derived from the absolute path, the length and the last
+	 * modified time of the file
+	 *
+	 * @param xsltFile
+	 *            the xslt file
+	 * @param xml
+	 *            the xml bytes
+	 * @param parameters
+	 *            the stylesheet parameters
+	 * @return the result bytes, the returned array must not be modified
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when parsing the stylesheet or it is not possible to
+	 *             create a <code>Transformer</code> instance.
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of the
+	 *             transformation.
+	 */
+	public byte[] transform(final File xsltFile, final byte[] xml, final Map<String, ?> parameters)
+		throws TransformerConfigurationException, TransformerException
+	{
+		Objects.requireNonNull(xsltFile);
+		final String stylesheetVersion = xsltFile.getAbsolutePath() + ':' + xsltFile.length() + ':'
+			+ xsltFile.lastModified();
+		return transform(transformEngine.getTemplatesCache().getTemplates(xsltFile),
+			stylesheetVersion, xml, parameters);
+	}
+
+	/**
+	 * Transforms the given xml bytes with the given compiled stylesheet or returns the cached
+	 * result
+	 *
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @param stylesheetVersion
+	 *            a string that changes whenever the stylesheet changes. It is part of the cache key
+	 *            and must be stable across restarts if the disk tier is used
+	 * @param xml
+	 *            the xml bytes
+	 * @param parameters
+	 *            the stylesheet parameters
+	 * @return the result bytes, the returned array must not be modified
+	 * @throws TransformerConfigurationException
+	 *             is thrown if it is not possible to create a <code>Transformer</code> instance.
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of the
+	 *             transformation.
+	 */
+	public byte[] transform(final Templates templates, final String stylesheetVersion,
+		final byte[] xml, final Map<String, ?> parameters)
+		throws TransformerConfigurationException, TransformerException
+	{
+		Objects.requireNonNull(templates);
+		final String key = newKey(stylesheetVersion, xml, parameters);
+		byte[] result = getFromMemory(key);
+		if (result != null)
+		{
+			memoryHitCount.increment();
+			return result;
+		}
+		result = readFromDisk(key);
+		if (result != null)
+		{
+			diskHitCount.increment();
+			putInMemory(key, result);
+			return result;
+		}
+		missCount.increment();
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		transformEngine.transform(templates, new StreamSource(new ByteArrayInputStream(xml)),
+			new StreamResult(outputStream), parameters);
+		result = outputStream.toByteArray();
+		putInMemory(key, result);
+		writeToDisk(key, result);
+		return result;
+	}
+
+	/**
+	 * Removes all results from the memory tier and the disk tier
+	 */
+	public void invalidateAll()
+	{
+		synchronized (this)
+		{
+			entries.clear();
+			currentBytes = 0;
+		}
+		if (diskDirectory == null)
+		{
+			return;
+		}
+		synchronized (diskEntries)
+		{
+			diskEntries.clear();
+			currentDiskBytes = 0;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(diskDirectory,
+			"*" + RESULT_FILE_SUFFIX))
+		{
+			for (final Path file : files)
+			{
+				Files.deleteIfExists(file);
+			}
+		}
+		catch (final IOException e)
+		{
+			// the disk tier is best effort
+		}
+	}
+
+	/**
+	 * Gets the number of result bytes that are currently held in memory
+	 *
+	 * @return the number of bytes
+	 */
+	public synchronized long getMemoryBytes()
+	{
+		return currentBytes;
+	}
+
+	/**
+	 * Gets the maximum number of result bytes that are held in memory
+	 *
+	 * @return the maximum number of bytes
+	 */
+	public long getMaximumBytes()
+	{
+		return maximumBytes;
+	}
+
+	/**
+	 * Gets the number of result bytes that are currently held on disk
+	 *
+	 * @return the number of bytes
+	 */
+	public long getDiskBytes()
+	{
+		synchronized (diskEntries)
+		{
+			return currentDiskBytes;
+		}
+	}
+
+	/**
+	 * Gets the maximum number of result bytes that are held on disk
+	 *
+	 * @return the maximum number of bytes
+	 */
+	public long getMaximumDiskBytes()
+	{
+		return maximumDiskBytes;
+	}
+
+	/**
+	 * Gets the number of lookups that were served from the memory tier
+	 *
+	 * @return the memory hit count
+	 */
+	public long getMemoryHitCount()
+	{
+		return memoryHitCount.sum();
+	}
+
+	/**
+	 * Gets the number of lookups that were served from the disk tier
+	 *
+	 * @return the disk hit count
+	 */
+	public long getDiskHitCount()
+	{
+		return diskHitCount.sum();
+	}
+
+	/**
+	 * Gets the number of lookups that had to run the transformation
+	 *
+	 * @return the miss count
+	 */
+	public long getMissCount()
+	{
+		return missCount.sum();
+	}
+
+	private synchronized byte[] getFromMemory(final String key)
+	{
+		return entries.get(key);
+	}
+
+	private synchronized void putInMemory(final String key, final byte[] result)
+	{
+		if (result.length > maximumBytes)
+		{
+			return;
+		}
+		final byte[] previous = entries.put(key, result);
+		currentBytes += result.length - (previous != null ? previous.length : 0);
+		final Iterator<byte[]> iterator = entries.values().iterator();
+		while (currentBytes > maximumBytes && iterator.hasNext())
+		{
+			currentBytes -= iterator.next().length;
+			iterator.remove();
+		}
+	}
+
+	private byte[] readFromDisk(final String key)
+	{
+		if (diskDirectory == null)
+		{
+			return null;
+		}
+		final Path file = toDiskFile(key);
+		try
+		{
+			final byte[] result = Files.readAllBytes(file);
+			synchronized (diskEntries)
+			{
+				// moves the file to the end of the access order
+				diskEntries.get(file);
+			}
+			return result;
+		}
+		catch (final NoSuchFileException e)
+		{
+			removeDiskEntry(file);
+			return null;
+		}
+		catch (final IOException e)
+		{
+			// the disk tier is best effort
+			return null;
+		}
+	}
+
+	private void writeToDisk(final String key, final byte[] result)
+	{
+		if (diskDirectory == null || result.length > maximumDiskBytes)
+		{
+			return;
+		}
+		Path temporaryFile = null;
+		try
+		{
+			temporaryFile = Files.createTempFile(diskDirectory, "result", ".tmp");
+			Files.write(temporaryFile, result);
+			// readers see either no file or the complete result
+			try
+			{
+				Files.move(temporaryFile, toDiskFile(key), StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (final AtomicMoveNotSupportedException e)
+			{
+				Files.move(temporaryFile, toDiskFile(key), StandardCopyOption.REPLACE_EXISTING);
+			}
+			addDiskEntry(toDiskFile(key), result.length);
+		}
+		catch (final IOException e)
+		{
+			deleteQuietly(temporaryFile);
+		}
+	}
+
+	private void loadDiskEntries()
+	{
+		final Map<Path, BasicFileAttributes> files = new HashMap<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(diskDirectory,
+			"*" + RESULT_FILE_SUFFIX))
+		{
+			for (final Path file : stream)
+			{
+				files.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+			}
+		}
+		catch (final IOException e)
+		{
+			// the disk tier is best effort, files that are not known are never evicted
+		}
+		// the results of earlier runs are ordered by their age
+		files.entrySet().stream()
+			.sorted(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()))
+			.forEach(entry -> addDiskEntry(entry.getKey(), entry.getValue().size()));
+	}
+
+	private void addDiskEntry(final Path file, final long size)
+	{
+		final List<Path> evicted = new ArrayList<>();
+		synchronized (diskEntries)
+		{
+			final Long previous = diskEntries.put(file, size);
+			currentDiskBytes += size - (previous != null ? previous : 0L);
+			final Iterator<Map.Entry<Path, Long>> iterator = diskEntries.entrySet().iterator();
+			while (currentDiskBytes > maximumDiskBytes && iterator.hasNext())
+			{
+				final Map.Entry<Path, Long> eldest = iterator.next();
+				currentDiskBytes -= eldest.getValue();
+				evicted.add(eldest.getKey());
+				iterator.remove();
+			}
+		}
+		evicted.forEach(TransformResultCache::deleteQuietly);
+	}
+
+	private void removeDiskEntry(final Path file)
+	{
+		synchronized (diskEntries)
+		{
+			final Long size = diskEntries.remove(file);
+			if (size != null)
+			{
+				currentDiskBytes -= size;
+			}
+		}
+	}
+
+	private Path toDiskFile(final String key)
+	{
+		return diskDirectory.resolve(DigestUtils.sha256Hex(key) + RESULT_FILE_SUFFIX);
+	}
+
+	private static void deleteQuietly(final Path file)
+	{
+		if (file == null)
+		{
+			return;
+		}
+		try
+		{
+			Files.deleteIfExists(file);
+		}
+		catch (final IOException e)
+		{
+			// nothing left to do
+		}
+	}
+
+	private static String newKey(final String stylesheetVersion, final byte[] xml,
+		final Map<String, ?> parameters)
+	{
+		Objects.requireNonNull(stylesheetVersion);
+		Objects.requireNonNull(xml);
+		Objects.requireNonNull(parameters);
+		final StringBuilder key = new StringBuilder(96 + stylesheetVersion.length());
+		key.append(DigestUtils.sha256Hex(xml)).append('/').append(xml.length).append('\n');
+		appendLengthPrefixed(key, stylesheetVersion);
+		// the parameters are sorted so the key does not depend on the iteration order of the map
+		for (final Map.Entry<String, ?> parameter : new TreeMap<>(parameters).entrySet())
+		{
+			appendLengthPrefixed(key, parameter.getKey());
+			appendLengthPrefixed(key, String.valueOf(parameter.getValue()));
+		}
+		return key.toString();
+	}
+
+	private static void appendLengthPrefixed(final StringBuilder key, final String value)
+	{
+		key.append(value.length()).append(':').append(value);
+	}
+
+}
@@ -0,0 +1,147 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+
+/**
+ * The class {@link TransformerPool} holds idle {@link Transformer} objects of one compiled
+ * stylesheet. A {@link Transformer} is not thread-safe, so it is borrowed by exactly one thread,
+ * reset and given back after use. The pool is lock-free and never blocks, if no idle transformer
+ * is available a new one is created from the compiled stylesheet
+ */
+public final class TransformerPool
+{
+
+	/** The compiled stylesheet that creates the transformers */
+	private final Templates templates;
+
+	/** The maximum number of idle transformers that are kept */
+	private final int maximumIdle;
+
+	/** The idle transformers */
+	private final Queue<Transformer> idleTransformers = new ConcurrentLinkedQueue<>();
+
+	/** The number of idle transformers, kept separately because the queue size is not constant */
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	/**
+	 * Creates a new {@link TransformerPool} object
+	 *
+	 * @param templates
+	 *            the compiled stylesheet that creates the transformers
+	 * @param maximumIdle
+	 *            the maximum number of idle transformers that are kept
+	 */
+	public TransformerPool(final Templates templates, final int maximumIdle)
+	{
+		Objects.requireNonNull(templates);
+		if (maximumIdle < 0)
+		{
+			throw new IllegalArgumentException("maximumIdle must not be negative");
+		}
+		this.templates = templates;
+		this.maximumIdle = maximumIdle;
+	}
+
+	/**
+	 * Borrows a transformer from this pool. The caller gives it back with
+	 * {@link #release(Transformer)} or simply drops it, for instance after a failed transformation
+	 * left it in an undefined state
+	 *
+	 * @return the borrowed transformer
+	 * @throws TransformerConfigurationException
+	 *             is thrown if it is not possible to create a new <code>Transformer</code> instance
+	 */
+	public Transformer borrow() throws TransformerConfigurationException
+	{
+		final Transformer transformer = idleTransformers.poll();
+		if (transformer != null)
+		{
+			idleCount.decrementAndGet();
+			return transformer;
+		}
+		return templates.newTransformer();
+	}
+
+	/**
+	 * Resets the given transformer to the state of a new transformer of the compiled stylesheet and
+	 * gives it back to this pool
+	 *
+	 * @param transformer
+	 *            the transformer to give back
+	 */
+	public void release(final Transformer transformer)
+	{
+		Objects.requireNonNull(transformer);
+		if (idleCount.incrementAndGet() > maximumIdle)
+		{
+			idleCount.decrementAndGet();
+			return;
+		}
+		// reset does not clear the parameters of the xsltc translet in the jdk implementation
+		transformer.clearParameters();
+		transformer.reset();
+		idleTransformers.offer(transformer);
+	}
+
+	/**
+	 * Gets the compiled stylesheet of this pool
+	 *
+	 * @return the compiled stylesheet
+	 */
+	public Templates getTemplates()
+	{
+		return templates;
+	}
+
+	/**
+	 * Gets the number of idle transformers
+	 *
+	 * @return the number of idle transformers
+	 */
+	public int getIdleCount()
+	{
+		return idleCount.get();
+	}
+
+	/**
+	 * Gets the maximum number of idle transformers that are kept
+	 *
+	 * @return the maximum number of idle transformers
+	 */
+	public int getMaximumIdle()
+	{
+		return maximumIdle;
+	}
+
+}
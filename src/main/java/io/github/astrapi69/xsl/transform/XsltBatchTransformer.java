@@ -0,0 +1,184 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import io.github.astrapi69.xml.XmlFileFailure;
+import io.github.astrapi69.xml.XmlFileFanOut;
+
+/**
+ * The class {@link XsltBatchTransformer} transforms many xml files with one stylesheet. The
+ * stylesheet is compiled once, the files are transformed in parallel through a
+ * {@link XmlFileFanOut} and the number of files in flight is bounded, so a batch of any size never
+ * queues more than this number of tasks. A failed file is recorded in the
+ * {@link BatchTransformResult} and does not abort the batch
+ */
+public final class XsltBatchTransformer
+{
+
+	/** The default maximum number of files that are transformed at the same time */
+	public static final int DEFAULT_MAXIMUM_IN_FLIGHT = Runtime.getRuntime().availableProcessors()
+		* 4;
+
+	/** The file name suffix of the xml files in a directory */
+	private static final String XML_FILE_SUFFIX = ".xml";
+
+	/** The transform engine */
+	private final XsltTransformEngine transformEngine;
+
+	/** The fan-out that runs the transformations */
+	private final XmlFileFanOut fanOut;
+
+	/**
+	 * Creates a new {@link XsltBatchTransformer} object that uses the shared transform engine of
+	 * {@link XsltTransformerExtensions}
+	 *
+	 * @param executor
+	 *            the executor that runs the transformations
+	 */
+	public XsltBatchTransformer(final Executor executor)
+	{
+		this(XsltTransformerExtensions.getTransformEngine(), executor, DEFAULT_MAXIMUM_IN_FLIGHT);
+	}
+
+	/**
+	 * Creates a new {@link XsltBatchTransformer} object
+	 *
+	 * @param transformEngine
+	 *            the transform engine
+	 * @param executor
+	 *            the executor that runs the transformations
+	 * @param maximumInFlight
+	 *            the maximum number of files that are transformed at the same time
+	 */
+	public XsltBatchTransformer(final XsltTransformEngine transformEngine, final Executor executor,
+		final int maximumInFlight)
+	{
+		Objects.requireNonNull(transformEngine);
+		this.transformEngine = transformEngine;
+		this.fanOut = new XmlFileFanOut(executor, maximumInFlight);
+	}
+
+	/**
+	 * Transforms all xml files of the given input directory with the given xslt file. Every result
+	 * is written to a file with the same name in the given output directory
+	 *
+	 * @param xsltFile
+	 *            the xslt file
+	 * @param inputDirectory
+	 *            the directory with the xml files
+	 * @param outputDirectory
+	 *            the directory for the results
+	 * @return the summary of the batch
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when parsing the stylesheet
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @throws InterruptedException
+	 *             is thrown if the current thread was interrupted while waiting for the batch
+	 */
+	public BatchTransformResult transform(final File xsltFile, final Path inputDirectory,
+		final Path outputDirectory)
+		throws TransformerConfigurationException, IOException, InterruptedException
+	{
+		Objects.requireNonNull(xsltFile);
+		Objects.requireNonNull(inputDirectory);
+		Objects.requireNonNull(outputDirectory);
+		final Templates templates = transformEngine.getTemplatesCache().getTemplates(xsltFile);
+		Files.createDirectories(outputDirectory);
+		try (Stream<Path> xmlFiles = Files.list(inputDirectory))
+		{
+			return transform(templates,
+				xmlFiles.filter(Files::isRegularFile)
+					.filter(path -> path.getFileName().toString().endsWith(XML_FILE_SUFFIX)),
+				xmlFile -> outputDirectory.resolve(xmlFile.getFileName()));
+		}
+	}
+
+	/**
+	 * Transforms the given xml files with the given compiled stylesheet. The result of every xml
+	 * file is written to the file that the given function resolves for it
+	 *
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @param xmlFiles
+	 *            the xml files
+	 * @param outputFileResolver
+	 *            the function that resolves the output file for an xml file
+	 * @return the summary of the batch
+	 * @throws InterruptedException
+	 *             is thrown if the current thread was interrupted while waiting for the batch
+	 */
+	public BatchTransformResult transform(final Templates templates, final Stream<Path> xmlFiles,
+		final Function<Path, Path> outputFileResolver) throws InterruptedException
+	{
+		Objects.requireNonNull(templates);
+		Objects.requireNonNull(xmlFiles);
+		Objects.requireNonNull(outputFileResolver);
+		final long start = System.nanoTime();
+		final AtomicLong successCount = new AtomicLong();
+		final List<XmlFileFailure> failures = fanOut.run(xmlFiles.iterator(), (index, xmlFile) -> {
+			transform(templates, xmlFile, outputFileResolver.apply(xmlFile));
+			successCount.incrementAndGet();
+		});
+		return new BatchTransformResult(successCount.get(), failures,
+			Duration.ofNanos(System.nanoTime() - start));
+	}
+
+	private void transform(final Templates templates, final Path xmlFile, final Path outputFile)
+		throws IOException, TransformerException
+	{
+		try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(xmlFile));
+			OutputStream outputStream = new BufferedOutputStream(
+				Files.newOutputStream(outputFile)))
+		{
+			transformEngine.transform(templates,
+				new StreamSource(inputStream, xmlFile.toUri().toString()),
+				new StreamResult(outputStream));
+		}
+	}
+
+}
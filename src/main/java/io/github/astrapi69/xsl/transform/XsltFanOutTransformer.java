@@ -0,0 +1,209 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.xml.sax.SAXException;
+
+/**
+ * The class {@link XsltFanOutTransformer} applies several compiled stylesheets to one xml
+ * document. The document is parsed only once into a read-only buffer of sax events that is
+ * replayed to every stylesheet, optionally in parallel on an {@link Executor}
+ */
+public final class XsltFanOutTransformer
+{
+
+	/** The factory that creates the transformer handlers, guarded by itself */
+	private final SAXTransformerFactory transformerFactory;
+
+	/**
+	 * Creates a new {@link XsltFanOutTransformer} object
+	 */
+	public XsltFanOutTransformer()
+	{
+		this.transformerFactory = (SAXTransformerFactory)TransformerFactory.newInstance();
+	}
+
+	/**
+	 * Transforms the given xml source with every given compiled stylesheet one after another. The
+	 * result of the stylesheet at an index is written to the output stream at the same index, the
+	 * output streams are not closed
+	 *
+	 * @param xmlSource
+	 *            the xml source
+	 * @param templates
+	 *            the compiled stylesheets
+	 * @param outputStreams
+	 *            the output streams for the results
+	 * @throws TransformerConfigurationException
+	 *             is thrown if it is not possible to create a <code>TransformerHandler</code>
+	 *             instance.
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of one of the
+	 *             transformations.
+	 */
+	public void transform(final Source xmlSource, final List<Templates> templates,
+		final List<? extends OutputStream> outputStreams)
+		throws TransformerConfigurationException, TransformerException
+	{
+		transform(xmlSource, templates, outputStreams, Runnable::run);
+	}
+
+	/**
+	 * Transforms the given xml source with every given compiled stylesheet in parallel on the given
+	 * executor. The result of the stylesheet at an index is written to the output stream at the
+	 * same index, the output streams are not closed. This method returns when all transformations
+	 * are done, if some of them fail the first failure is thrown with the others suppressed
+	 *
+	 * @param xmlSource
+	 *            the xml source
+	 * @param templates
+	 *            the compiled stylesheets
+	 * @param outputStreams
+	 *            the output streams for the results
+	 * @param executor
+	 *            the executor that runs the transformations
+	 * @throws TransformerConfigurationException
+	 *             is thrown if it is not possible to create a <code>TransformerHandler</code>
+	 *             instance.
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of one of the
+	 *             transformations.
+	 */
+	public void transform(final Source xmlSource, final List<Templates> templates,
+		final List<? extends OutputStream> outputStreams, final Executor executor)
+		throws TransformerConfigurationException, TransformerException
+	{
+		Objects.requireNonNull(xmlSource);
+		Objects.requireNonNull(templates);
+		Objects.requireNonNull(outputStreams);
+		Objects.requireNonNull(executor);
+		if (templates.size() != outputStreams.size())
+		{
+			throw new IllegalArgumentException(
+				"every stylesheet needs exactly one output stream, got " + templates.size()
+					+ " stylesheets and " + outputStreams.size() + " output streams");
+		}
+		final SaxEventBuffer buffer = parse(xmlSource);
+		final TransformerException[] failures = new TransformerException[templates.size()];
+		final List<CompletableFuture<Void>> futures = new ArrayList<>(templates.size());
+		for (int i = 0; i < templates.size(); i++)
+		{
+			final int index = i;
+			futures.add(CompletableFuture.runAsync(() -> {
+				try
+				{
+					replay(buffer, xmlSource.getSystemId(), templates.get(index),
+						outputStreams.get(index));
+				}
+				catch (final TransformerException e)
+				{
+					failures[index] = e;
+				}
+			}, executor));
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		TransformerException failure = null;
+		for (final TransformerException e : failures)
+		{
+			if (e == null)
+			{
+				continue;
+			}
+			if (failure == null)
+			{
+				failure = e;
+			}
+			else
+			{
+				failure.addSuppressed(e);
+			}
+		}
+		if (failure != null)
+		{
+			throw failure;
+		}
+	}
+
+	private SaxEventBuffer parse(final Source xmlSource) throws TransformerException
+	{
+		final SaxEventBuffer buffer = new SaxEventBuffer();
+		final SAXResult result = new SAXResult(buffer);
+		result.setLexicalHandler(buffer);
+		final Transformer identityTransformer;
+		synchronized (transformerFactory)
+		{
+			identityTransformer = transformerFactory.newTransformer();
+		}
+		identityTransformer.transform(xmlSource, result);
+		return buffer;
+	}
+
+	private void replay(final SaxEventBuffer buffer, final String systemId,
+		final Templates templates, final OutputStream outputStream) throws TransformerException
+	{
+		final TransformerHandler handler;
+		synchronized (transformerFactory)
+		{
+			handler = transformerFactory.newTransformerHandler(templates);
+		}
+		if (systemId != null)
+		{
+			// the base uri of document() and relative uris in the replayed document
+			handler.setSystemId(systemId);
+		}
+		handler.setResult(new StreamResult(outputStream));
+		try
+		{
+			buffer.replay(handler, handler);
+		}
+		catch (final SAXException e)
+		{
+			if (e.getException() instanceof TransformerException)
+			{
+				throw (TransformerException)e.getException();
+			}
+			throw new TransformerException(e);
+		}
+	}
+
+}
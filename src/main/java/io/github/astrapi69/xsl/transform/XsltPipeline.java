@@ -0,0 +1,243 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+
+/**
+ * The class {@link XsltPipeline} chains several compiled stylesheets. The stages are linked
+ * through sax {@link TransformerHandler} objects, so the result of one stage is handed as sax
+ * events to the next stage and no intermediate result is serialized or parsed again. The time
+ * spent in every stage is measured and accumulated in the {@link XsltPipelineStage} objects. A
+ * pipeline is immutable and can be used from any number of threads
+ */
+public final class XsltPipeline
+{
+
+	/** The stages of this pipeline in the order of execution */
+	private final List<XsltPipelineStage> stages;
+
+	/** The factory that creates the transformer handlers, guarded by itself */
+	private final SAXTransformerFactory transformerFactory;
+
+	private XsltPipeline(final List<XsltPipelineStage> stages)
+	{
+		this.stages = Collections.unmodifiableList(new ArrayList<>(stages));
+		this.transformerFactory = (SAXTransformerFactory)TransformerFactory.newInstance();
+	}
+
+	/**
+	 * Creates a new {@link Builder} object that takes the compiled stylesheets from the shared
+	 * cache of {@link XsltTransformerExtensions}
+	 *
+	 * @return the new builder
+	 */
+	public static Builder builder()
+	{
+		return new Builder(XsltTransformerExtensions.getTemplatesCache());
+	}
+
+	/**
+	 * Creates a new {@link Builder} object that takes the compiled stylesheets from the given cache
+	 *
+	 * @param templatesCache
+	 *            the cache of the compiled stylesheets
+	 * @return the new builder
+	 */
+	public static Builder builder(final TemplatesCache templatesCache)
+	{
+		return new Builder(templatesCache);
+	}
+
+	/**
+	 * Transforms the given xml source through all stages of this pipeline into the given result
+	 *
+	 * @param xmlSource
+	 *            the xml source
+	 * @param result
+	 *            the result of the last stage
+	 * @throws TransformerConfigurationException
+	 *             is thrown if it is not possible to create a <code>TransformerHandler</code>
+	 *             instance.
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of the
+	 *             transformation.
+	 */
+	public void transform(final Source xmlSource, final Result result)
+		throws TransformerConfigurationException, TransformerException
+	{
+		Objects.requireNonNull(xmlSource);
+		Objects.requireNonNull(result);
+		final TimingContentHandler[] timers = new TimingContentHandler[stages.size()];
+		Result nextResult = result;
+		for (int i = stages.size() - 1; i >= 0; i--)
+		{
+			final XsltPipelineStage stage = stages.get(i);
+			final TransformerHandler handler = newTransformerHandler(stage.getTemplates());
+			stage.getParameters().forEach(handler.getTransformer()::setParameter);
+			handler.setResult(nextResult);
+			timers[i] = new TimingContentHandler(handler);
+			final SAXResult saxResult = new SAXResult(timers[i]);
+			saxResult.setLexicalHandler(timers[i]);
+			nextResult = saxResult;
+		}
+		// the identity transformer parses or walks the source and feeds the first stage
+		newIdentityTransformer().transform(xmlSource, nextResult);
+		for (int i = 0; i < timers.length; i++)
+		{
+			final long downstreamNanos = i + 1 < timers.length ? timers[i + 1].getNanos() : 0L;
+			stages.get(i).record(timers[i].getNanos() - downstreamNanos);
+		}
+	}
+
+	/**
+	 * Gets the stages of this pipeline with their accumulated timings
+	 *
+	 * @return the unmodifiable list of the stages in the order of execution
+	 */
+	public List<XsltPipelineStage> getStages()
+	{
+		return stages;
+	}
+
+	private TransformerHandler newTransformerHandler(final Templates templates)
+		throws TransformerConfigurationException
+	{
+		synchronized (transformerFactory)
+		{
+			return transformerFactory.newTransformerHandler(templates);
+		}
+	}
+
+	private Transformer newIdentityTransformer() throws TransformerConfigurationException
+	{
+		synchronized (transformerFactory)
+		{
+			return transformerFactory.newTransformer();
+		}
+	}
+
+	/**
+	 * The class {@link Builder} collects the stages of a {@link XsltPipeline}
+	 */
+	public static final class Builder
+	{
+
+		/** The cache of the compiled stylesheets */
+		private final TemplatesCache templatesCache;
+
+		/** The stages in the order of execution */
+		private final List<XsltPipelineStage> stages = new ArrayList<>();
+
+		private Builder(final TemplatesCache templatesCache)
+		{
+			this.templatesCache = Objects.requireNonNull(templatesCache);
+		}
+
+		/**
+		 * Adds a stage with the given xslt file, the stage is named after the file
+		 *
+		 * @param xsltFile
+		 *            the xslt file
+		 * @return this builder
+		 * @throws TransformerConfigurationException
+		 *             is thrown if there are errors when parsing the stylesheet
+		 */
+		public Builder addStage(final File xsltFile) throws TransformerConfigurationException
+		{
+			Objects.requireNonNull(xsltFile);
+			return addStage(xsltFile.getName(), templatesCache.getTemplates(xsltFile),
+				Collections.emptyMap());
+		}
+
+		/**
+		 * Adds a stage with the given xslt source
+		 *
+		 * @param name
+		 *            the name of the stage
+		 * @param xsltSource
+		 *            the xslt source
+		 * @return this builder
+		 * @throws TransformerConfigurationException
+		 *             is thrown if there are errors when parsing the stylesheet
+		 */
+		public Builder addStage(final String name, final Source xsltSource)
+			throws TransformerConfigurationException
+		{
+			return addStage(name, templatesCache.getTemplates(xsltSource), Collections.emptyMap());
+		}
+
+		/**
+		 * Adds a stage with the given compiled stylesheet and the given stylesheet parameters
+		 *
+		 * @param name
+		 *            the name of the stage
+		 * @param templates
+		 *            the compiled stylesheet
+		 * @param parameters
+		 *            the stylesheet parameters
+		 * @return this builder
+		 */
+		public Builder addStage(final String name, final Templates templates,
+			final Map<String, ?> parameters)
+		{
+			Objects.requireNonNull(parameters);
+			stages.add(new XsltPipelineStage(name, templates, parameters));
+			return this;
+		}
+
+		/**
+		 * Builds the pipeline
+		 *
+		 * @return the new pipeline
+		 */
+		public XsltPipeline build()
+		{
+			if (stages.isEmpty())
+			{
+				throw new IllegalStateException("a pipeline needs at least one stage");
+			}
+			return new XsltPipeline(stages);
+		}
+
+	}
+
+}
@@ -0,0 +1,155 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.xml.transform.Templates;
+
+/**
+ * The class {@link XsltPipelineStage} is one compiled stylesheet of a {@link XsltPipeline} with
+ * its parameters and the accumulated time that the pipeline spent in this stage
+ */
+public final class XsltPipelineStage
+{
+
+	/** The name of the stage */
+	private final String name;
+
+	/** The compiled stylesheet */
+	private final Templates templates;
+
+	/** The stylesheet parameters */
+	private final Map<String, Object> parameters;
+
+	/** The number of transformations that ran through this stage */
+	private final LongAdder invocationCount = new LongAdder();
+
+	/** The time spent in this stage without the time of the following stages */
+	private final LongAdder totalNanos = new LongAdder();
+
+	/**
+	 * Creates a new {@link XsltPipelineStage} object
+	 *
+	 * @param name
+	 *            the name of the stage
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @param parameters
+	 *            the stylesheet parameters
+	 */
+	XsltPipelineStage(final String name, final Templates templates,
+		final Map<String, ?> parameters)
+	{
+		this.name = Objects.requireNonNull(name);
+		this.templates = Objects.requireNonNull(templates);
+		this.parameters = Collections.unmodifiableMap(new LinkedHashMap<>(parameters));
+	}
+
+	/**
+	 * Gets the name of this stage
+	 *
+	 * @return the name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Gets the compiled stylesheet of this stage
+	 *
+	 * @return the compiled stylesheet
+	 */
+	public Templates getTemplates()
+	{
+		return templates;
+	}
+
+	/**
+	 * Gets the stylesheet parameters of this stage
+	 *
+	 * @return the unmodifiable stylesheet parameters
+	 */
+	public Map<String, Object> getParameters()
+	{
+		return parameters;
+	}
+
+	/**
+	 * Gets the number of transformations that ran through this stage
+	 *
+	 * @return the number of transformations
+	 */
+	public long getInvocationCount()
+	{
+		return invocationCount.sum();
+	}
+
+	/**
+	 * Gets the accumulated time that was spent in this stage, the time of the following stages is
+	 * not included. This is the time for building the input tree of the stylesheet and for running
+	 * the stylesheet
+	 *
+	 * @return the accumulated time of this stage
+	 */
+	public Duration getTotalTime()
+	{
+		return Duration.ofNanos(totalNanos.sum());
+	}
+
+	/**
+	 * Gets the average time per transformation that was spent in this stage
+	 *
+	 * @return the average time of this stage
+	 */
+	public Duration getAverageTime()
+	{
+		final long count = invocationCount.sum();
+		return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / count);
+	}
+
+	void record(final long nanos)
+	{
+		invocationCount.increment();
+		totalNanos.add(nanos);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return name + ": " + getInvocationCount() + " transformations, average "
+			+ getAverageTime().toNanos() / 1000 + " microseconds";
+	}
+
+}
@@ -0,0 +1,282 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * The class {@link XsltRecordTransformer} transforms xml documents of any size that consist of
+ * repeating records. The input is read with StAX and split on the record element, every record is
+ * transformed on its own with the compiled stylesheet and all results are streamed into one output
+ * document inside an optional wrapper element. Only one record is held in memory at a time, so the
+ * heap use does not depend on the size of the input. Content outside of the records is skipped
+ */
+public final class XsltRecordTransformer
+{
+
+	/** The transform engine */
+	private final XsltTransformEngine transformEngine;
+
+	/**
+	 * Creates a new {@link XsltRecordTransformer} object that uses the shared transform engine of
+	 * {@link XsltTransformerExtensions}
+	 */
+	public XsltRecordTransformer()
+	{
+		this(XsltTransformerExtensions.getTransformEngine());
+	}
+
+	/**
+	 * Creates a new {@link XsltRecordTransformer} object
+	 *
+	 * @param transformEngine
+	 *            the transform engine
+	 */
+	public XsltRecordTransformer(final XsltTransformEngine transformEngine)
+	{
+		this.transformEngine = Objects.requireNonNull(transformEngine);
+	}
+
+	/**
+	 * Transforms every record of the given xml file with the given xslt file and writes the results
+	 * into the given output stream
+	 *
+	 * @param xsltFile
+	 *            the xslt file
+	 * @param xmlFile
+	 *            the xml file
+	 * @param recordPath
+	 *            the absolute path of the record element, for instance <code>/export/record</code>
+	 * @param wrapperElementName
+	 *            the name of the element that wraps the results or null for no wrapper element
+	 * @param outputStream
+	 *            the output stream
+	 * @return the number of transformed records
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @throws XMLStreamException
+	 *             is thrown if the xml file is not well-formed
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of the
+	 *             transformation.
+	 */
+	public long transform(final File xsltFile, final Path xmlFile, final String recordPath,
+		final String wrapperElementName, final OutputStream outputStream)
+		throws IOException, XMLStreamException, TransformerException
+	{
+		Objects.requireNonNull(xsltFile);
+		Objects.requireNonNull(xmlFile);
+		final Templates templates = transformEngine.getTemplatesCache().getTemplates(xsltFile);
+		try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(xmlFile)))
+		{
+			return transform(templates, inputStream, recordPath, wrapperElementName,
+				outputStream);
+		}
+	}
+
+	/**
+	 * Transforms every record of the given xml input stream with the given compiled stylesheet and
+	 * writes the results into the given output stream. The output properties of the compiled
+	 * stylesheet apply to the whole output document
+	 *
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @param inputStream
+	 *            the xml input stream
+	 * @param recordPath
+	 *            the absolute path of the record element, for instance <code>/export/record</code>
+	 * @param wrapperElementName
+	 *            the name of the element that wraps the results or null for no wrapper element
+	 * @param outputStream
+	 *            the output stream
+	 * @return the number of transformed records
+	 * @throws XMLStreamException
+	 *             is thrown if the xml input is not well-formed
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of the
+	 *             transformation.
+	 */
+	public long transform(final Templates templates, final InputStream inputStream,
+		final String recordPath, final String wrapperElementName, final OutputStream outputStream)
+		throws XMLStreamException, TransformerException
+	{
+		Objects.requireNonNull(templates);
+		Objects.requireNonNull(inputStream);
+		Objects.requireNonNull(outputStream);
+		final List<String> recordElementNames = parseRecordPath(recordPath);
+		final TransformerHandler serializer = newSerializer(templates, outputStream);
+		final SAXResult recordResult = new SAXResult(new FragmentContentHandler(serializer));
+		recordResult.setLexicalHandler((FragmentContentHandler)recordResult.getHandler());
+		final DocumentBuilder documentBuilder = newDocumentBuilder();
+		final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+		final XMLEventReader reader = inputFactory.createXMLEventReader(inputStream);
+		final List<String> path = new ArrayList<>();
+		long recordCount = 0;
+		try
+		{
+			serializer.startDocument();
+			if (wrapperElementName != null)
+			{
+				serializer.startElement("", wrapperElementName, wrapperElementName,
+					new AttributesImpl());
+			}
+			while (reader.hasNext())
+			{
+				final XMLEvent event = reader.nextEvent();
+				if (event.isStartElement())
+				{
+					path.add(event.asStartElement().getName().getLocalPart());
+					if (path.equals(recordElementNames))
+					{
+						final Document record = readRecord(event, reader, documentBuilder,
+							outputFactory);
+						path.remove(path.size() - 1);
+						transformEngine.transform(templates, new DOMSource(record), recordResult);
+						recordCount++;
+					}
+				}
+				else if (event.isEndElement())
+				{
+					path.remove(path.size() - 1);
+				}
+			}
+			if (wrapperElementName != null)
+			{
+				serializer.endElement("", wrapperElementName, wrapperElementName);
+			}
+			serializer.endDocument();
+		}
+		catch (final SAXException e)
+		{
+			throw new TransformerException(e);
+		}
+		finally
+		{
+			reader.close();
+		}
+		return recordCount;
+	}
+
+	/**
+	 * Copies the record that starts with the given start element event into a new document. The
+	 * reader is positioned after the end element of the record afterwards
+	 */
+	private static Document readRecord(final XMLEvent startElement, final XMLEventReader reader,
+		final DocumentBuilder documentBuilder, final XMLOutputFactory outputFactory)
+		throws XMLStreamException
+	{
+		final Document record = documentBuilder.newDocument();
+		final XMLEventWriter writer = outputFactory.createXMLEventWriter(new DOMResult(record));
+		writer.add(startElement);
+		int depth = 1;
+		while (depth > 0)
+		{
+			final XMLEvent event = reader.nextEvent();
+			if (event.isStartElement())
+			{
+				depth++;
+			}
+			else if (event.isEndElement())
+			{
+				depth--;
+			}
+			writer.add(event);
+		}
+		writer.close();
+		return record;
+	}
+
+	private static List<String> parseRecordPath(final String recordPath)
+	{
+		Objects.requireNonNull(recordPath);
+		if (!recordPath.startsWith("/") || recordPath.length() < 2 || recordPath.endsWith("/"))
+		{
+			throw new IllegalArgumentException(
+				"recordPath must be an absolute path like /export/record but was " + recordPath);
+		}
+		return Arrays.asList(recordPath.substring(1).split("/"));
+	}
+
+	private static TransformerHandler newSerializer(final Templates templates,
+		final OutputStream outputStream) throws TransformerConfigurationException
+	{
+		final TransformerHandler serializer = ((SAXTransformerFactory)TransformerFactory
+			.newInstance()).newTransformerHandler();
+		serializer.getTransformer().setOutputProperties(templates.getOutputProperties());
+		serializer.setResult(new StreamResult(outputStream));
+		return serializer;
+	}
+
+	private static DocumentBuilder newDocumentBuilder() throws TransformerConfigurationException
+	{
+		final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+		documentBuilderFactory.setNamespaceAware(true);
+		try
+		{
+			return documentBuilderFactory.newDocumentBuilder();
+		}
+		catch (final ParserConfigurationException e)
+		{
+			throw new TransformerConfigurationException(e);
+		}
+	}
+
+}
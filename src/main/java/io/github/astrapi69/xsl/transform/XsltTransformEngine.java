@@ -0,0 +1,338 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+
+/**
+ * The class {@link XsltTransformEngine} runs xslt transformations from any number of threads. The
+ * compiled stylesheets come from a {@link TemplatesCache} and every compiled stylesheet gets its
+ * own {@link TransformerPool}, so a {@link Transformer} is created once per concurrently running
+ * transformation and reused afterwards. Pools of compiled stylesheets that leave the cache are
+ * dropped. Compiled stylesheets that are not held by the cache, for instance from sources that the
+ * cache does not cache, get a new transformer for every transformation unless their pool was
+ * created with {@link #getTransformerPool(Templates)}
+ */
+public final class XsltTransformEngine
+{
+
+	/** The default maximum number of idle transformers per compiled stylesheet */
+	public static final int DEFAULT_MAXIMUM_IDLE = Runtime.getRuntime().availableProcessors() * 2;
+
+	/** The cache of the compiled stylesheets */
+	private final TemplatesCache templatesCache;
+
+	/** The maximum number of idle transformers per compiled stylesheet */
+	private final int maximumIdle;
+
+	/** The transformer pools by their compiled stylesheet */
+	private final ConcurrentMap<Templates, TransformerPool> pools = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new {@link XsltTransformEngine} object with its own {@link TemplatesCache}
+	 */
+	public XsltTransformEngine()
+	{
+		this(new TemplatesCache());
+	}
+
+	/**
+	 * Creates a new {@link XsltTransformEngine} object that takes the compiled stylesheets from the
+	 * given {@link TemplatesCache}
+	 *
+	 * @param templatesCache
+	 *            the cache of the compiled stylesheets
+	 */
+	public XsltTransformEngine(final TemplatesCache templatesCache)
+	{
+		this(templatesCache, DEFAULT_MAXIMUM_IDLE);
+	}
+
+	/**
+	 * Creates a new {@link XsltTransformEngine} object that takes the compiled stylesheets from the
+	 * given {@link TemplatesCache}
+	 *
+	 * @param templatesCache
+	 *            the cache of the compiled stylesheets
+	 * @param maximumIdle
+	 *            the maximum number of idle transformers per compiled stylesheet
+	 */
+	public XsltTransformEngine(final TemplatesCache templatesCache, final int maximumIdle)
+	{
+		Objects.requireNonNull(templatesCache);
+		if (maximumIdle < 0)
+		{
+			throw new IllegalArgumentException("maximumIdle must not be negative");
+		}
+		this.templatesCache = templatesCache;
+		this.maximumIdle = maximumIdle;
+		templatesCache.addRemovalListener(pools::remove);
+	}
+
+	/**
+	 * Transforms the given xml source with the given xslt file into the given result
+	 *
+	 * @param xsltFile
+	 *            the xslt file
+	 * @param xmlSource
+	 *            the xml source
+	 * @param result
+	 *            the result
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when parsing the stylesheet or it is not possible
+	 *             to create a <code>Transformer</code> instance.
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of the
+	 *             transformation.
+	 */
+	public void transform(final File xsltFile, final Source xmlSource, final Result result)
+		throws TransformerConfigurationException, TransformerException
+	{
+		transform(templatesCache.getTemplates(xsltFile), xmlSource, result,
+			Collections.emptyMap());
+	}
+
+	/**
+	 * Transforms the given xml source with the given xslt source into the given result
+	 *
+	 * @param xsltSource
+	 *            the xslt source
+	 * @param xmlSource
+	 *            the xml source
+	 * @param result
+	 *            the result
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when parsing the stylesheet or it is not possible
+	 *             to create a <code>Transformer</code> instance.
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of the
+	 *             transformation.
+	 */
+	public void transform(final Source xsltSource, final Source xmlSource, final Result result)
+		throws TransformerConfigurationException, TransformerException
+	{
+		transform(templatesCache.getTemplates(xsltSource), xmlSource, result,
+			Collections.emptyMap());
+	}
+
+	/**
+	 * Transforms the given xml source with the given compiled stylesheet into the given result
+	 *
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @param xmlSource
+	 *            the xml source
+	 * @param result
+	 *            the result
+	 * @throws TransformerConfigurationException
+	 *             is thrown if it is not possible to create a <code>Transformer</code> instance.
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of the
+	 *             transformation.
+	 */
+	public void transform(final Templates templates, final Source xmlSource, final Result result)
+		throws TransformerConfigurationException, TransformerException
+	{
+		transform(templates, xmlSource, result, Collections.emptyMap());
+	}
+
+	/**
+	 * Transforms the given xml source with the given compiled stylesheet and the given stylesheet
+	 * parameters into the given result
+	 *
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @param xmlSource
+	 *            the xml source
+	 * @param result
+	 *            the result
+	 * @param parameters
+	 *            the stylesheet parameters
+	 * @throws TransformerConfigurationException
+	 *             is thrown if it is not possible to create a <code>Transformer</code> instance.
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of the
+	 *             transformation.
+	 */
+	public void transform(final Templates templates, final Source xmlSource, final Result result,
+		final Map<String, ?> parameters)
+		throws TransformerConfigurationException, TransformerException
+	{
+		Objects.requireNonNull(templates);
+		Objects.requireNonNull(xmlSource);
+		Objects.requireNonNull(result);
+		Objects.requireNonNull(parameters);
+		final TransformerPool pool = findTransformerPool(templates);
+		final Transformer transformer = pool != null ? pool.borrow() : templates.newTransformer();
+		parameters.forEach(transformer::setParameter);
+		transformer.transform(xmlSource, result);
+		if (pool != null)
+		{
+			pool.release(transformer);
+		}
+	}
+
+	/**
+	 * Transforms the given xml source with the given compiled stylesheet and the given stylesheet
+	 * parameters into the given result and aborts when the given token is cancelled, its deadline
+	 * is exceeded or the current thread is interrupted. The token is checked on every sax event of
+	 * the input if it is a stream or sax source and on every sax event of the output, so a
+	 * stylesheet that neither reads nor writes can not be aborted. An aborted transformer is not
+	 * returned to its pool and the output written so far is incomplete
+	 *
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @param xmlSource
+	 *            the xml source
+	 * @param result
+	 *            the result
+	 * @param parameters
+	 *            the stylesheet parameters
+	 * @param cancellationToken
+	 *            the token that signals the abort
+	 * @throws TransformCancelledException
+	 *             is thrown if the transformation was aborted, the exception reports how far the
+	 *             transformation got
+	 * @throws TransformerConfigurationException
+	 *             is thrown if it is not possible to create a <code>Transformer</code> instance.
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of the
+	 *             transformation.
+	 */
+	public void transform(final Templates templates, final Source xmlSource, final Result result,
+		final Map<String, ?> parameters, final CancellationToken cancellationToken)
+		throws TransformCancelledException, TransformerConfigurationException, TransformerException
+	{
+		Objects.requireNonNull(templates);
+		Objects.requireNonNull(xmlSource);
+		Objects.requireNonNull(result);
+		Objects.requireNonNull(parameters);
+		final CancellationCheck cancellationCheck = new CancellationCheck(cancellationToken);
+		cancellationCheck.checkStart();
+		final Source checkedSource = cancellationCheck.wrap(xmlSource);
+		final Result checkedResult = cancellationCheck.wrap(result, templates);
+		final TransformerPool pool = findTransformerPool(templates);
+		final Transformer transformer = pool != null ? pool.borrow() : templates.newTransformer();
+		parameters.forEach(transformer::setParameter);
+		try
+		{
+			transformer.transform(checkedSource, checkedResult);
+		}
+		catch (final TransformerException e)
+		{
+			if (cancellationCheck.isAborted())
+			{
+				throw cancellationCheck.newException(e);
+			}
+			throw e;
+		}
+		if (pool != null)
+		{
+			pool.release(transformer);
+		}
+	}
+
+	/**
+	 * Gets the transformer pool of the given compiled stylesheet, the pool is created on the first
+	 * call. The transformations of this engine use the pools of the compiled stylesheets from the
+	 * {@link TemplatesCache} and the pools that were created with this method, all other compiled
+	 * stylesheets create a new transformer for every transformation
+	 *
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @return the transformer pool
+	 */
+	public TransformerPool getTransformerPool(final Templates templates)
+	{
+		Objects.requireNonNull(templates);
+		return pools.computeIfAbsent(templates, key -> new TransformerPool(key, maximumIdle));
+	}
+
+	/**
+	 * Gets the number of transformer pools of this engine
+	 *
+	 * @return the number of transformer pools
+	 */
+	public int getTransformerPoolCount()
+	{
+		return pools.size();
+	}
+
+	/**
+	 * Removes the transformer pool of the given compiled stylesheet. Pools of compiled stylesheets
+	 * from the {@link TemplatesCache} are removed automatically, pools that were created with
+	 * {@link #getTransformerPool(Templates)} for other compiled stylesheets have to be removed with
+	 * this method when the stylesheet is not used anymore
+	 *
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @return true if a transformer pool was removed otherwise false
+	 */
+	public boolean removeTransformerPool(final Templates templates)
+	{
+		Objects.requireNonNull(templates);
+		return pools.remove(templates) != null;
+	}
+
+	private TransformerPool findTransformerPool(final Templates templates)
+	{
+		final TransformerPool pool = pools.get(templates);
+		if (pool != null || !templatesCache.contains(templates))
+		{
+			// an uncached stylesheet gets no pool, nothing would ever remove it
+			return pool;
+		}
+		final TransformerPool created = getTransformerPool(templates);
+		if (!templatesCache.contains(templates))
+		{
+			// the stylesheet left the cache meanwhile and its removal missed the new pool
+			pools.remove(templates, created);
+		}
+		return created;
+	}
+
+	/**
+	 * Gets the cache of the compiled stylesheets
+	 *
+	 * @return the cache of the compiled stylesheets
+	 */
+	public TemplatesCache getTemplatesCache()
+	{
+		return templatesCache;
+	}
+
+}
@@ -25,21 +25,36 @@
 package io.github.astrapi69.xsl.transform;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
+import javax.xml.transform.Templates;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
-import io.github.astrapi69.xml.transform.TransformerFactoryInitializer;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.CountingOutputStream;
 
 /**
- * The class {@link XsltTransformerExtensions}
+ * The class {@link XsltTransformerExtensions} provides methods for transform xml with xslt
+ * stylesheets. Compiled stylesheets are kept in a shared {@link TemplatesCache}, so a stylesheet is
+ * only parsed and compiled again if it changed, and the transformers are reused through a shared
+ * {@link XsltTransformEngine}, so all methods can be called from any number of threads
  */
 public final class XsltTransformerExtensions
 {
@@ -47,6 +62,22 @@ public final class XsltTransformerExtensions
 	/** The Constant TRANSFORMER_FACTORY. */
 	private static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
 
+	/** The Constant TEMPLATES_CACHE. */
+	private static final TemplatesCache TEMPLATES_CACHE = new TemplatesCache(
+		TemplatesCache.DEFAULT_MAXIMUM_SIZE, TRANSFORMER_FACTORY);
+
+	/** The Constant TRANSFORM_ENGINE. */
+	private static final XsltTransformEngine TRANSFORM_ENGINE = new XsltTransformEngine(
+		TEMPLATES_CACHE);
+
+	/** The Constant METRICS. */
+	private static final TransformMetrics METRICS = new TransformMetrics();
+
+	static
+	{
+		TEMPLATES_CACHE.setMetrics(METRICS);
+	}
+
 	private XsltTransformerExtensions()
 	{
 	}
@@ -74,8 +105,7 @@ public final class XsltTransformerExtensions
 		Objects.requireNonNull(xmlFile);
 		Objects.requireNonNull(xsltFile);
 		final Source xmlSource = new StreamSource(xmlFile);
-		final Source xsltSource = new StreamSource(xsltFile);
-		transform(xmlSource, xsltSource, outputStream);
+		transform(xmlSource, TEMPLATES_CACHE.getTemplates(xsltFile), outputStream);
 	}
 
 	/**
@@ -98,8 +128,70 @@ public final class XsltTransformerExtensions
 		final OutputStream outputStream)
 		throws TransformerConfigurationException, TransformerException
 	{
-		final Transformer transformer = TransformerFactoryInitializer.newTransformer(xsltSource);
-		transformer.transform(xmlSource, new StreamResult(outputStream));
+		transform(xmlSource, TEMPLATES_CACHE.getTemplates(xsltSource), outputStream);
+	}
+
+	/**
+	 * Transform.
+	 *
+	 * @param xmlSource
+	 *            the xml source
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @param outputStream
+	 *            the output stream
+	 * @throws TransformerConfigurationException
+	 *             is thrown if it is not possible to create a <code>Transformer</code> instance.
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of the
+	 *             transformation.
+	 */
+	public static void transform(final Source xmlSource, final Templates templates,
+		final OutputStream outputStream)
+		throws TransformerConfigurationException, TransformerException
+	{
+		if (!METRICS.isEnabled())
+		{
+			TRANSFORM_ENGINE.transform(templates, xmlSource, new StreamResult(outputStream));
+			return;
+		}
+		Objects.requireNonNull(xmlSource);
+		Objects.requireNonNull(outputStream);
+		long bytesIn = 0L;
+		Source countedSource = xmlSource;
+		CountingInputStream countingInputStream = null;
+		if (xmlSource instanceof StreamSource)
+		{
+			final StreamSource streamSource = (StreamSource)xmlSource;
+			if (streamSource.getInputStream() != null)
+			{
+				countingInputStream = new CountingInputStream(streamSource.getInputStream());
+				countedSource = new StreamSource(countingInputStream, streamSource.getSystemId());
+			}
+			else if (streamSource.getReader() == null && streamSource.getSystemId() != null
+				&& streamSource.getSystemId().startsWith("file:"))
+			{
+				bytesIn = new File(URI.create(streamSource.getSystemId())).length();
+			}
+		}
+		final CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+		final long start = System.nanoTime();
+		boolean failed = true;
+		try
+		{
+			TRANSFORM_ENGINE.transform(templates, countedSource,
+				new StreamResult(countingOutputStream));
+			failed = false;
+		}
+		finally
+		{
+			if (countingInputStream != null)
+			{
+				bytesIn = countingInputStream.getByteCount();
+			}
+			METRICS.recordTransform(templates, System.nanoTime() - start, bytesIn,
+				countingOutputStream.getByteCount(), failed);
+		}
 	}
 
 	/**
@@ -127,4 +219,190 @@ public final class XsltTransformerExtensions
 		transform(xmlFile, xsltFile, outputStream);
 	}
 
+	/**
+	 * Transforms asynchronously on the default executor. On java 21 or newer the default executor
+	 * runs every transformation on its own virtual thread, otherwise it is the common fork join
+	 * pool
+	 *
+	 * @param xmlFile
+	 *            the xml file
+	 * @param xsltFile
+	 *            the xslt file
+	 * @param outputStream
+	 *            the output stream
+	 * @return the future that completes when the transformation is done or completes
+	 *         exceptionally with the <code>TransformerException</code> of the transformation
+	 */
+	public static CompletableFuture<Void> transformAsync(final File xmlFile, final File xsltFile,
+		final OutputStream outputStream)
+	{
+		return transformAsync(xmlFile, xsltFile, outputStream, getDefaultExecutor());
+	}
+
+	/**
+	 * Transforms asynchronously on the given executor
+	 *
+	 * @param xmlFile
+	 *            the xml file
+	 * @param xsltFile
+	 *            the xslt file
+	 * @param outputStream
+	 *            the output stream
+	 * @param executor
+	 *            the executor that runs the transformation
+	 * @return the future that completes when the transformation is done or completes
+	 *         exceptionally with the <code>TransformerException</code> of the transformation
+	 */
+	public static CompletableFuture<Void> transformAsync(final File xmlFile, final File xsltFile,
+		final OutputStream outputStream, final Executor executor)
+	{
+		Objects.requireNonNull(xmlFile);
+		Objects.requireNonNull(xsltFile);
+		return runAsync(() -> transform(xmlFile, xsltFile, outputStream), executor);
+	}
+
+	/**
+	 * Transforms asynchronously with the given compiled stylesheet on the default executor
+	 *
+	 * @param xmlSource
+	 *            the xml source
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @param outputStream
+	 *            the output stream
+	 * @return the future that completes when the transformation is done or completes
+	 *         exceptionally with the <code>TransformerException</code> of the transformation
+	 */
+	public static CompletableFuture<Void> transformAsync(final Source xmlSource,
+		final Templates templates, final OutputStream outputStream)
+	{
+		return transformAsync(xmlSource, templates, outputStream, getDefaultExecutor());
+	}
+
+	/**
+	 * Transforms asynchronously with the given compiled stylesheet on the given executor
+	 *
+	 * @param xmlSource
+	 *            the xml source
+	 * @param templates
+	 *            the compiled stylesheet
+	 * @param outputStream
+	 *            the output stream
+	 * @param executor
+	 *            the executor that runs the transformation
+	 * @return the future that completes when the transformation is done or completes
+	 *         exceptionally with the <code>TransformerException</code> of the transformation
+	 */
+	public static CompletableFuture<Void> transformAsync(final Source xmlSource,
+		final Templates templates, final OutputStream outputStream, final Executor executor)
+	{
+		Objects.requireNonNull(xmlSource);
+		Objects.requireNonNull(templates);
+		return runAsync(() -> transform(xmlSource, templates, outputStream), executor);
+	}
+
+	/**
+	 * Gets the default executor of the asynchronous transformations. On java 21 or newer it runs
+	 * every transformation on its own virtual thread, otherwise it is the common fork join pool
+	 *
+	 * @return the default executor
+	 */
+	public static Executor getDefaultExecutor()
+	{
+		return DefaultExecutors.getTransformExecutor();
+	}
+
+	/**
+	 * Compiles all xslt files of the given directory in parallel into the shared cache of the
+	 * compiled stylesheets. Call this at startup, so the first transformation with one of the
+	 * stylesheets does not pay for the compilation
+	 *
+	 * @param directory
+	 *            the directory with the xslt files
+	 * @return the number of compiled stylesheets
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when parsing one of the stylesheets
+	 */
+	public static int preload(final Path directory)
+		throws IOException, TransformerConfigurationException
+	{
+		Objects.requireNonNull(directory);
+		final List<File> xsltFiles;
+		try (Stream<Path> files = Files.list(directory))
+		{
+			xsltFiles = files.filter(Files::isRegularFile)
+				.filter(path -> path.getFileName().toString().endsWith(".xsl")).map(Path::toFile)
+				.collect(Collectors.toList());
+		}
+		return TEMPLATES_CACHE.preload(xsltFiles, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Gets the shared cache of the compiled stylesheets. The returned cache can be used for read
+	 * the hit, miss and eviction counters or for invalidate compiled stylesheets
+	 *
+	 * @return the shared cache of the compiled stylesheets
+	 */
+	public static TemplatesCache getTemplatesCache()
+	{
+		return TEMPLATES_CACHE;
+	}
+
+	/**
+	 * Gets the shared metrics of the compilations and transformations. The metrics are disabled by
+	 * default and can be enabled with {@link TransformMetrics#setEnabled(boolean)}
+	 *
+	 * @return the shared metrics
+	 */
+	public static TransformMetrics getMetrics()
+	{
+		return METRICS;
+	}
+
+	/**
+	 * Gets the shared transform engine that pools the transformers of the compiled stylesheets
+	 *
+	 * @return the shared transform engine
+	 */
+	public static XsltTransformEngine getTransformEngine()
+	{
+		return TRANSFORM_ENGINE;
+	}
+
+	private static CompletableFuture<Void> runAsync(final TransformTask task,
+		final Executor executor)
+	{
+		Objects.requireNonNull(executor);
+		return CompletableFuture.runAsync(() -> {
+			try
+			{
+				task.run();
+			}
+			catch (final TransformerException e)
+			{
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+
+	/**
+	 * The interface {@link TransformTask} is a transformation that can be run asynchronously
+	 */
+	@FunctionalInterface
+	private interface TransformTask
+	{
+
+		/**
+		 * Runs the transformation
+		 *
+		 * @throws TransformerException
+		 *             is thrown if an unrecoverable error occurs during the course of the
+		 *             transformation.
+		 */
+		void run() throws TransformerException;
+
+	}
+
 }
@@ -0,0 +1,57 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The class {@link DefaultExecutors} provides the executor for asynchronous transformations if the
+ * caller does not give one. This is the version for java 21 or newer, it runs every transformation
+ * on its own virtual thread
+ */
+final class DefaultExecutors
+{
+
+	/** The shared executor that starts a virtual thread per transformation */
+	private static final ExecutorService TRANSFORM_EXECUTOR = Executors
+		.newVirtualThreadPerTaskExecutor();
+
+	private DefaultExecutors()
+	{
+	}
+
+	/**
+	 * Gets the default executor for asynchronous transformations
+	 *
+	 * @return the executor that starts a virtual thread per transformation
+	 */
+	static Executor getTransformExecutor()
+	{
+		return TRANSFORM_EXECUTOR;
+	}
+
+}
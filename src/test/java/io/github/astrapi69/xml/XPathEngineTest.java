@@ -0,0 +1,174 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+/**
+ * The unit test class for the class {@link XPathEngine}
+ */
+public class XPathEngineTest
+{
+
+	private static final String CATALOG = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+		+ "<catalog><book id=\"1\"><title>Dune</title><price>9.5</price></book>"
+		+ "<shelf><book id=\"2\"><title>Emma <i>annotated</i></title><price>4</price></book></shelf>"
+		+ "<note>see <b>also</b> the index</note></catalog>";
+
+	private static List<String> select(final XPathEngine engine, final String expression)
+		throws IOException
+	{
+		return engine.selectValues(expression,
+			new ByteArrayInputStream(CATALOG.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Test method for {@link XPathEngine#evaluate(String, Object)} and the other dom methods
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testEvaluate() throws Exception
+	{
+		XPathEngine engine;
+		Document document;
+
+		engine = new XPathEngine();
+		document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+			.parse(XmlExtensions.getInputSource(CATALOG));
+
+		assertEquals("Dune", engine.evaluate("/catalog/book/title", document));
+		assertEquals("Dune", engine.evaluate("/catalog/book/title", document));
+		assertEquals(2, engine.evaluateNodes("//book", document).getLength());
+		assertEquals(13.5,
+			(Double)engine.evaluate("sum(//price)", document, XPathConstants.NUMBER), 0.0);
+		assertEquals(3, engine.getSize());
+	}
+
+	/**
+	 * Test method for {@link XPathEngine#selectValues(String, java.io.InputStream)}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testSelectValues() throws IOException
+	{
+		XPathEngine engine;
+
+		engine = new XPathEngine();
+		assertEquals(Collections.singletonList("Dune"), select(engine, "/catalog/book/title"));
+		assertEquals(Arrays.asList("Dune", "Emma annotated"), select(engine, "//book/title"));
+		assertEquals(Arrays.asList("1", "2"), select(engine, "//book/@id"));
+		assertEquals(Collections.singletonList("2"), select(engine, "/catalog/*/book/@id"));
+		assertEquals(Arrays.asList("see ", " the index"), select(engine, "/catalog/note/text()"));
+		assertEquals(Collections.emptyList(), select(engine, "/book"));
+
+		// the streaming paths are cached with the same bound as the expressions
+		engine = new XPathEngine(2, null);
+		for (int i = 0; i < 10; i++)
+		{
+			select(engine, "/catalog/book" + i);
+		}
+		assertEquals(2, engine.getStreamingPathCount());
+	}
+
+	/**
+	 * Test method for {@link XPathEngine#selectFirstValue(String, Path)}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testSelectFirstValue() throws IOException
+	{
+		XPathEngine engine;
+		Path xmlFile;
+
+		engine = new XPathEngine();
+		xmlFile = Files.createTempFile("catalog", ".xml");
+		try
+		{
+			// the reading stops before the document that is not well formed ends
+			Files.write(xmlFile, (CATALOG.replace("</catalog>", "<broken>"))
+				.getBytes(StandardCharsets.UTF_8));
+			assertEquals("9.5", engine.selectFirstValue("//price", xmlFile));
+			assertNull(engine.selectFirstValue("//book/@missing", Files.write(xmlFile,
+				CATALOG.getBytes(StandardCharsets.UTF_8))));
+		}
+		finally
+		{
+			Files.delete(xmlFile);
+		}
+	}
+
+	/**
+	 * Test method for {@link XPathEngine#isStreamable(String)}
+	 */
+	@Test
+	public void testIsStreamable()
+	{
+		assertTrue(XPathEngine.isStreamable("/catalog/book/title"));
+		assertTrue(XPathEngine.isStreamable("//book/@id"));
+		assertTrue(XPathEngine.isStreamable("/a/*/c/text()"));
+		assertFalse(XPathEngine.isStreamable("book/title"));
+		assertFalse(XPathEngine.isStreamable("/catalog/book[1]"));
+		assertFalse(XPathEngine.isStreamable("/catalog/@id/title"));
+		assertFalse(XPathEngine.isStreamable("count(//book)"));
+	}
+
+	/**
+	 * Test method for {@link XPathEngine#selectValues(String, java.io.InputStream)} with an
+	 * expression that is not streamable
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testSelectValuesNotStreamable() throws IOException
+	{
+		select(new XPathEngine(), "//book[@id='1']");
+	}
+
+}
@@ -0,0 +1,147 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.test.object.Person;
+
+/**
+ * The unit test class for the class {@link XmlBulkLoader}
+ */
+public class XmlBulkLoaderTest
+{
+
+	/**
+	 * Test method for {@link XmlBulkLoader#load(Path, Class)}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testLoad() throws Exception
+	{
+		Path directory;
+		ExecutorService executorService;
+		BulkLoadResult<Person> result;
+		List<String> expectedNames;
+
+		directory = Files.createTempDirectory("bulk-load");
+		executorService = Executors.newFixedThreadPool(4);
+		try
+		{
+			expectedNames = new ArrayList<>();
+			for (int i = 0; i < 20; i++)
+			{
+				final String name = String.format("person%02d", i);
+				final String xml = i == 7
+					? "<Person><name>broken</name>"
+					: "<Person><name>" + name + "</name></Person>";
+				Files.write(directory.resolve(name + ".xml"), xml.getBytes(StandardCharsets.UTF_8));
+				if (i != 7)
+				{
+					expectedNames.add(name);
+				}
+			}
+			Files.write(directory.resolve("readme.txt"), new byte[0]);
+
+			result = new XmlBulkLoader(new XmlObjectLoader(), executorService, 3).load(directory,
+				Person.class);
+
+			assertEquals(20, result.getTotalCount());
+			assertEquals(19, result.getSuccessCount());
+			assertEquals(1, result.getFailureCount());
+			assertEquals(directory.resolve("person07.xml"),
+				result.getFailures().get(0).getXmlFile());
+			final List<String> actualNames = new ArrayList<>();
+			result.getObjects().forEach(person -> actualNames.add(person.getName()));
+			assertEquals(expectedNames, actualNames);
+			assertEquals("person03",
+				result.getObjectsByFile().get(directory.resolve("person03.xml")).getName());
+			assertTrue(result.getElapsed().toNanos() > 0);
+		}
+		finally
+		{
+			executorService.shutdown();
+			FileUtils.deleteDirectory(directory.toFile());
+		}
+	}
+
+	/**
+	 * Test method for {@link XmlBulkLoader#load(java.util.Collection, Class)} with a file that is
+	 * given more than once
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testLoadDuplicateFiles() throws Exception
+	{
+		Path xmlFile;
+		BulkLoadResult<Person> result;
+
+		xmlFile = Files.createTempFile("bulk-load", ".xml");
+		try
+		{
+			Files.write(xmlFile,
+				"<Person><name>Anna</name></Person>".getBytes(StandardCharsets.UTF_8));
+			result = new XmlBulkLoader(new XmlObjectLoader(), Runnable::run, 2)
+				.load(Arrays.asList(xmlFile, xmlFile, xmlFile), Person.class);
+
+			assertEquals(3, result.getTotalCount());
+			assertEquals(3, result.getSuccessCount());
+			assertEquals(3, result.getObjects().size());
+			assertEquals(1, result.getObjectsByFile().size());
+		}
+		finally
+		{
+			Files.delete(xmlFile);
+		}
+	}
+
+	/**
+	 * Test method for {@link XmlBulkLoader#XmlBulkLoader(XmlObjectLoader,
+	 * java.util.concurrent.Executor, int)} with an invalid maximum
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testNewWithInvalidMaximumInFlight()
+	{
+		new XmlBulkLoader(new XmlObjectLoader(), Runnable::run, 0);
+	}
+
+}
@@ -0,0 +1,173 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link XmlDocumentIndex}
+ */
+public class XmlDocumentIndexTest
+{
+
+	private static final String CATALOG = "﻿<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+		+ "<!DOCTYPE catalog [<!ELEMENT catalog ANY>]>\n"
+		+ "<c:catalog xmlns:c=\"urn:catalog\"><!-- books -->\n"
+		+ "<book id=\"1\" note='a &amp; b'><title>Düne</title><price>9.5</price></book>\n"
+		+ "<shelf><book id=\"2\"><title>Emma <i>annotated</i> &lt;1&gt;</title></book></shelf>\n"
+		+ "<note>see <![CDATA[<raw>]]><b>also</b> &#x263A;</note><empty/></c:catalog>\n";
+
+	private static XmlDocumentIndex newIndex(final String xml) throws IOException
+	{
+		final Path xmlFile = Files.createTempFile("index", ".xml");
+		xmlFile.toFile().deleteOnExit();
+		Files.write(xmlFile, xml.getBytes(StandardCharsets.UTF_8));
+		return new XmlDocumentIndex(xmlFile);
+	}
+
+	/**
+	 * Test method for the navigation of {@link XmlDocumentIndex}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testNavigation() throws IOException
+	{
+		final XmlDocumentIndex index = newIndex(CATALOG);
+		assertEquals(11, index.getElementCount());
+		final int root = index.getRoot();
+		assertEquals("c:catalog", index.getName(root));
+		assertEquals("catalog", index.getLocalName(root));
+		assertEquals(-1, index.getParent(root));
+		assertEquals(-1, index.getNextSibling(root));
+
+		final int book = index.getFirstChild(root);
+		assertEquals("book", index.getName(book));
+		assertEquals("1", index.getAttribute(book, "id"));
+		assertEquals("a & b", index.getAttribute(book, "note"));
+		assertNull(index.getAttribute(book, "title"));
+		assertEquals("Düne9.5", index.getText(book));
+
+		final int shelf = index.getNextSibling(book);
+		assertEquals("shelf", index.getName(shelf));
+		assertEquals(root, index.getParent(shelf));
+		final int note = index.getNextSibling(shelf);
+		assertEquals("see <raw>also ☺", index.getText(note));
+		final int empty = index.getNextSibling(note);
+		assertEquals("", index.getText(empty));
+		assertEquals(-1, index.getFirstChild(empty));
+		assertEquals(-1, index.getNextSibling(empty));
+	}
+
+	/**
+	 * Test method for {@link XmlDocumentIndex#select(String)} and
+	 * {@link XmlDocumentIndex#selectValues(String)}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testSelect() throws IOException
+	{
+		final XmlDocumentIndex index = newIndex(CATALOG);
+		assertEquals(1, index.select("/catalog/book").length);
+		assertEquals(2, index.select("//book").length);
+		assertEquals(1, index.select("/catalog/*/title").length);
+		assertEquals(2, index.select("//*/title").length);
+		assertEquals(Arrays.asList("Düne", "Emma annotated <1>"),
+			index.selectValues("//book/title"));
+		assertEquals(Arrays.asList("1", "2"), index.selectValues("//book/@id"));
+		assertEquals(Arrays.asList("Emma ", " <1>"), index.selectValues("//shelf//title/text()"));
+		assertEquals(Collections.emptyList(), index.selectValues("/shelf/book"));
+		assertEquals(Arrays.asList("annotated"), index.selectValues("//*//i"));
+	}
+
+	/**
+	 * Test method for {@link XmlDocumentIndex#selectValues(String)} with text nodes that are
+	 * separated by comments and processing instructions
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testSelectTextNodes() throws Exception
+	{
+		final String xml = "<r><s>t1<!--x-->t2<?pi data?>t3</s>"
+			+ "<s>a<![CDATA[<!--b-->]]>c<![CDATA[]]><!----><e/>d</s></r>";
+		final XmlDocumentIndex index = newIndex(xml);
+		assertEquals(Arrays.asList("t1", "t2", "t3", "a<!--b-->c", "d"),
+			index.selectValues("/r/s/text()"));
+		assertEquals(new XPathEngine().selectValues("/r/s/text()",
+			new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))),
+			index.selectValues("/r/s/text()"));
+	}
+
+	/**
+	 * Test method for {@link XmlDocumentIndex#XmlDocumentIndex(Path)} with a document that is not
+	 * well formed
+	 */
+	@Test
+	public void testNotWellFormed()
+	{
+		for (final String xml : Arrays.asList("<a><b></a>", "<a></a><b/>", "<a>", "text<a/>"))
+		{
+			try
+			{
+				newIndex(xml);
+				throw new AssertionError("not well formed: " + xml);
+			}
+			catch (final IOException e)
+			{
+				assertTrue(e.getMessage().contains("not well formed"));
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link XmlDocumentIndex#select(String)} with an attribute path
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testSelectAttributePath() throws IOException
+	{
+		newIndex("<a b=\"1\"/>").select("/a/@b");
+	}
+
+}
@@ -0,0 +1,102 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.xml.sax.SAXException;
+
+import io.github.astrapi69.xml.parser.DocumentExtensions;
+import io.github.astrapi69.xml.parser.DocumentFactory;
+
+/**
+ * The benchmark for the method {@link XmlExtensions#prettyPrint(String, int)}. It compares the
+ * pooled document builders and transformers with new factories, builders and transformers per
+ * call for a document of about 1 KB. Run it with
+ * <code>gradle benchmark -PbenchmarkClass=io.github.astrapi69.xml.XmlExtensionsBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlExtensionsBenchmark
+{
+
+	private String xml;
+
+	@Setup
+	public void setUp()
+	{
+		final StringBuilder builder = new StringBuilder("<employees>");
+		for (int i = 0; builder.length() < 1024; i++)
+		{
+			builder.append("<employee><person><name>Anna ").append(i)
+				.append("</name><gender>FEMALE</gender></person><id>").append(i)
+				.append("</id></employee>");
+		}
+		xml = builder.append("</employees>").toString();
+	}
+
+	@Benchmark
+	public String pooledPrettyPrint()
+		throws ParserConfigurationException, IOException, SAXException, TransformerException
+	{
+		return XmlExtensions.prettyPrint(xml, 4);
+	}
+
+	@Benchmark
+	public String newFactoriesPerCall()
+		throws ParserConfigurationException, IOException, SAXException, TransformerException
+	{
+		return DocumentExtensions.toString(DocumentFactory.newDocument(xml), 4);
+	}
+
+	public static void main(final String[] args) throws RunnerException
+	{
+		new Runner(
+			new OptionsBuilder().include(XmlExtensionsBenchmark.class.getSimpleName()).build())
+				.run();
+	}
+
+}
@@ -25,16 +25,30 @@
 package io.github.astrapi69.xml;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
 
 import org.meanbean.test.BeanTester;
 import org.testng.annotations.Test;
@@ -130,6 +144,95 @@ public class XmlExtensionsTest
 		assertNotNull(actual);
 	}
 
+	/**
+	 * Test method for {@link XmlExtensions#getInputSource(byte[])},
+	 * {@link XmlExtensions#getInputSource(ByteBuffer)} and {@link XmlExtensions#getInputSource(Path)}
+	 * with an encoding that is declared in the document
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testGetInputSourceFromBytes() throws Exception
+	{
+		DocumentBuilder documentBuilder;
+		byte[] xmlBytes;
+		ByteBuffer xmlBuffer;
+		Path xmlPath;
+
+		xmlBytes = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><name>Jürgen</name>"
+			.getBytes(StandardCharsets.ISO_8859_1);
+		documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+
+		assertEquals("Jürgen", documentBuilder.parse(XmlExtensions.getInputSource(xmlBytes))
+			.getDocumentElement().getTextContent());
+
+		xmlBuffer = ByteBuffer.allocateDirect(xmlBytes.length);
+		xmlBuffer.put(xmlBytes).flip();
+		assertEquals("Jürgen", documentBuilder.parse(XmlExtensions.getInputSource(xmlBuffer))
+			.getDocumentElement().getTextContent());
+		assertEquals(0, xmlBuffer.position());
+
+		xmlPath = Files.createTempFile("name", ".xml");
+		try
+		{
+			Files.write(xmlPath, xmlBytes);
+			assertEquals("Jürgen", documentBuilder.parse(XmlExtensions.getInputSource(xmlPath))
+				.getDocumentElement().getTextContent());
+			final StringWriter writer = new StringWriter();
+			TransformerFactory.newInstance().newTransformer()
+				.transform(XmlExtensions.getSource(xmlPath), new StreamResult(writer));
+			assertTrue(writer.toString().endsWith("<name>Jürgen</name>"));
+		}
+		finally
+		{
+			Files.delete(xmlPath);
+		}
+	}
+
+	/**
+	 * Test method for {@link XmlExtensions#getInputSource(Path)} with files below and above the
+	 * {@link XmlExtensions#MEMORY_MAPPING_THRESHOLD}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testGetInputSourceMemoryMappingThreshold() throws Exception
+	{
+		DocumentBuilder documentBuilder;
+		StringBuilder xml;
+		InputSource inputSource;
+		Path xmlPath;
+
+		documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+		xmlPath = Files.createTempFile("threshold", ".xml");
+		try
+		{
+			Files.write(xmlPath, "<name>small</name>".getBytes(StandardCharsets.UTF_8));
+			inputSource = XmlExtensions.getInputSource(xmlPath);
+			assertFalse(inputSource.getByteStream() instanceof ByteBufferInputStream);
+			assertEquals("small",
+				documentBuilder.parse(inputSource).getDocumentElement().getTextContent());
+
+			xml = new StringBuilder("<name>large");
+			while (xml.length() < XmlExtensions.MEMORY_MAPPING_THRESHOLD)
+			{
+				xml.append("<!-- padding -->");
+			}
+			xml.append("</name>");
+			Files.write(xmlPath, xml.toString().getBytes(StandardCharsets.UTF_8));
+			inputSource = XmlExtensions.getInputSource(xmlPath);
+			assertTrue(inputSource.getByteStream() instanceof ByteBufferInputStream);
+			assertEquals("large",
+				documentBuilder.parse(inputSource).getDocumentElement().getTextContent());
+		}
+		finally
+		{
+			Files.delete(xmlPath);
+		}
+	}
+
 	/**
 	 * Test method for {@link XmlExtensions#loadObject(File)}.
 	 *
@@ -182,6 +285,62 @@ public class XmlExtensionsTest
 		assertEquals(actual, expected);
 	}
 
+	/**
+	 * Test method for {@link XmlExtensions#loadObject(Path)}.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testLoadObjectPath() throws IOException
+	{
+		Employee actual;
+		Employee expected;
+		Path xmlPath;
+		Person person;
+
+		person = Person.builder().gender(Gender.FEMALE).name("Anna").nickname(null).married(null)
+			.about(null).build();
+		expected = Employee.builder().id("23").person(person).subOrdinates(new HashSet<>()).build();
+
+		xmlPath = PathFinder.getRelativePath(PathFinder.getSrcTestResourcesDir(), "newtest.xml")
+			.toPath();
+		actual = XmlExtensions.loadObject(xmlPath);
+		assertEquals(actual, expected);
+	}
+
+	/**
+	 * Test method for {@link XmlExtensions#loadObject(InputStream)} and
+	 * {@link XmlExtensions#loadObject(Reader)}.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testLoadObjectInputStreamAndReader() throws IOException
+	{
+		Employee actual;
+		Employee expected;
+		File xmlFile;
+		Person person;
+
+		person = Person.builder().gender(Gender.FEMALE).name("Anna").nickname(null).married(null)
+			.about(null).build();
+		expected = Employee.builder().id("23").person(person).subOrdinates(new HashSet<>()).build();
+		xmlFile = PathFinder.getRelativePath(PathFinder.getSrcTestResourcesDir(), "newtest.xml");
+
+		try (InputStream is = new FileInputStream(xmlFile))
+		{
+			actual = XmlExtensions.loadObject(is);
+			assertEquals(actual, expected);
+		}
+		try (Reader reader = Files.newBufferedReader(xmlFile.toPath(), StandardCharsets.UTF_8))
+		{
+			actual = XmlExtensions.loadObject(reader);
+			assertEquals(actual, expected);
+		}
+	}
+
 	/**
 	 * Test method for {@link XmlExtensions#newTag(String, String, Map)}
 	 */
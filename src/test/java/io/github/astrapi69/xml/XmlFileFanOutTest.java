@@ -0,0 +1,107 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link XmlFileFanOut}
+ */
+public class XmlFileFanOutTest
+{
+
+	/**
+	 * Test method for {@link XmlFileFanOut#run(java.util.Iterator, XmlFileFanOut.Task)}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testRun() throws Exception
+	{
+		ExecutorService executorService;
+		List<Path> xmlFiles;
+		AtomicInteger successCount;
+		List<XmlFileFailure> failures;
+
+		xmlFiles = new ArrayList<>();
+		for (int i = 0; i < 100; i++)
+		{
+			xmlFiles.add(Paths.get("file" + i + ".xml"));
+		}
+		successCount = new AtomicInteger();
+		executorService = Executors.newFixedThreadPool(4);
+		try
+		{
+			failures = new XmlFileFanOut(executorService, 3).run(xmlFiles.iterator(),
+				(index, xmlFile) -> {
+					if (index % 10 == 9)
+					{
+						throw new IOException(xmlFile.toString());
+					}
+					if (index == 50)
+					{
+						throw new StackOverflowError();
+					}
+					successCount.incrementAndGet();
+				});
+		}
+		finally
+		{
+			executorService.shutdown();
+		}
+		assertEquals(89, successCount.get());
+		assertEquals(11, failures.size());
+		for (int i = 1; i < failures.size(); i++)
+		{
+			assertTrue(failures.get(i - 1).getIndex() < failures.get(i).getIndex());
+		}
+		assertEquals(xmlFiles.get(9), failures.get(0).getXmlFile());
+		assertTrue(failures.get(5).getCause() instanceof StackOverflowError);
+	}
+
+	/**
+	 * Test method for {@link XmlFileFanOut#XmlFileFanOut(java.util.concurrent.Executor, int)} with
+	 * an invalid maximum
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testNewWithInvalidMaximumInFlight()
+	{
+		new XmlFileFanOut(Runnable::run, 0);
+	}
+
+}
@@ -0,0 +1,261 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link XmlFormatter}
+ */
+public class XmlFormatterTest
+{
+
+	private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+
+	private static String format(final XmlFormatter formatter, final String xml) throws IOException
+	{
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		formatter.format(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+			outputStream);
+		return outputStream.toString(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Test method for {@link XmlFormatter#prettyPrinter(int)}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testPrettyPrinter() throws IOException
+	{
+		String actual;
+		String expected;
+
+		actual = format(XmlFormatter.prettyPrinter(4), "<employee><person><name>Anna</name>"
+			+ "<gender>FEMALE</gender></person><id>23</id></employee>");
+		expected = XML_DECLARATION + "\n<employee>\n" + "    <person>\n"
+			+ "        <name>Anna</name>\n" + "        <gender>FEMALE</gender>\n"
+			+ "    </person>\n" + "    <id>23</id>\n" + "</employee>\n";
+		assertEquals(expected, actual);
+
+		actual = format(XmlFormatter.prettyPrinter(2),
+			"<?xml version=\"1.0\"?>\n<a:root xmlns:a=\"urn:a\" xmlns=\"urn:d\" id=\"1 &amp; 2\">"
+				+ "  <!-- note -->\n  <empty attr=\"x\">  </empty>\n"
+				+ "<p>Some <b>bold</b> text</p><![CDATA[<raw>]]></a:root>");
+		expected = XML_DECLARATION + "\n"
+			+ "<a:root xmlns:a=\"urn:a\" xmlns=\"urn:d\" id=\"1 &amp; 2\">\n"
+			+ "  <!-- note -->\n" + "  <empty attr=\"x\"/>\n"
+			+ "  <p>Some <b>bold</b> text</p>&lt;raw></a:root>\n";
+		assertEquals(expected, actual);
+	}
+
+	/**
+	 * Test method for {@link XmlFormatter#minifier()}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testMinifier() throws IOException
+	{
+		String actual;
+		String expected;
+
+		actual = format(XmlFormatter.minifier(), "<employee>\n  <person>\n    <name>Anna</name>\n"
+			+ "    <about> text with  spaces </about>\n  </person>\n  <id/>\n</employee>\n");
+		expected = XML_DECLARATION + "<employee><person><name>Anna</name>"
+			+ "<about> text with  spaces </about></person><id/></employee>";
+		assertEquals(expected, actual);
+	}
+
+	/**
+	 * Test method for {@link XmlFormatter#prettyPrinter(int)} and {@link XmlFormatter#minifier()}
+	 * with whitespace that is part of mixed content
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testMixedContentWhitespace() throws IOException
+	{
+		String xml;
+
+		xml = "<doc><p>Hello <b>big</b> <i>world</i></p></doc>";
+		assertEquals(XML_DECLARATION + "\n<doc>\n  <p>Hello <b>big</b> <i>world</i></p>\n</doc>\n",
+			format(XmlFormatter.prettyPrinter(2), xml));
+		assertEquals(XML_DECLARATION + xml, format(XmlFormatter.minifier(), xml));
+
+		xml = "<p>Hello<b> </b>world</p>";
+		assertEquals(XML_DECLARATION + xml, format(XmlFormatter.minifier(), xml));
+	}
+
+	/**
+	 * Test method for {@link XmlFormatter#minifier()} with whitespace that is not xml whitespace
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testNonXmlWhitespaceIsContent() throws IOException
+	{
+		String xml;
+
+		// an ideographic space and an em space are text, not formatting
+		xml = "<person><name>\u3000</name><title>\u2003</title></person>";
+		assertEquals(XML_DECLARATION + xml, format(XmlFormatter.minifier(), xml));
+		assertEquals(
+			XML_DECLARATION + "\n<person>\n  <name>\u3000</name>\n  <title>\u2003</title>\n"
+				+ "</person>\n",
+			format(XmlFormatter.prettyPrinter(2), xml));
+	}
+
+	/**
+	 * Test method for {@link XmlFormatter#prettyPrinter(int)} and {@link XmlFormatter#minifier()}
+	 * with <code>xml:space="preserve"</code>
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testPreservedWhitespace() throws IOException
+	{
+		String xml;
+
+		xml = "<doc><pre xml:space=\"preserve\">  </pre>"
+			+ "<code xml:space=\"preserve\">\n  <line/>\n  <line/>\n</code></doc>";
+		assertEquals(
+			XML_DECLARATION + "\n<doc>\n  <pre xml:space=\"preserve\">  </pre>\n"
+				+ "  <code xml:space=\"preserve\">\n  <line/>\n  <line/>\n</code>\n</doc>\n",
+			format(XmlFormatter.prettyPrinter(2), xml));
+		assertEquals(XML_DECLARATION + xml, format(XmlFormatter.minifier(), xml));
+
+		xml = "<pre xml:space=\"preserve\"> <note xml:space=\"default\"> <b/> </note> </pre>";
+		assertEquals(
+			XML_DECLARATION
+				+ "<pre xml:space=\"preserve\"> <note xml:space=\"default\"><b/></note> </pre>",
+			format(XmlFormatter.minifier(), xml));
+	}
+
+	/**
+	 * Test method for {@link XmlFormatter#formatInPlace(Path)} with the posix permissions of the
+	 * formatted file
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testFormatInPlaceKeepsPermissions() throws IOException
+	{
+		Path directory;
+		Path xmlFile;
+		Set<PosixFilePermission> permissions;
+
+		directory = Files.createTempDirectory("formatter");
+		xmlFile = directory.resolve("test.xml");
+		try
+		{
+			Files.write(xmlFile, "<a><b>1</b></a>".getBytes(StandardCharsets.UTF_8));
+			if (Files.getFileAttributeView(xmlFile, PosixFileAttributeView.class) == null)
+			{
+				// no posix permissions on this file system
+				return;
+			}
+			for (final String mode : new String[] { "rw-r--r--", "rw-r-----" })
+			{
+				permissions = PosixFilePermissions.fromString(mode);
+				Files.setPosixFilePermissions(xmlFile, permissions);
+				XmlFormatter.prettyPrinter(2).formatInPlace(xmlFile);
+				assertEquals(permissions, Files.getPosixFilePermissions(xmlFile));
+				assertEquals(Files.getOwner(directory), Files.getOwner(xmlFile));
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(xmlFile);
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * Test method for {@link XmlFormatter#formatInPlace(Path)}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testFormatInPlace() throws IOException
+	{
+		Path directory;
+		Path xmlFile;
+
+		directory = Files.createTempDirectory("formatter");
+		xmlFile = directory.resolve("test.xml");
+		try
+		{
+			Files.write(xmlFile, "<a><b>1</b></a>".getBytes(StandardCharsets.UTF_8));
+			XmlFormatter.prettyPrinter(1).formatInPlace(xmlFile);
+			assertEquals(XML_DECLARATION + "\n<a>\n <b>1</b>\n</a>\n",
+				new String(Files.readAllBytes(xmlFile), StandardCharsets.UTF_8));
+
+			// a document that is not well formed leaves the file unchanged
+			Files.write(xmlFile, "<a><b>1</b>".getBytes(StandardCharsets.UTF_8));
+			try
+			{
+				XmlFormatter.minifier().formatInPlace(xmlFile);
+			}
+			catch (final IOException e)
+			{
+				// expected
+			}
+			assertEquals("<a><b>1</b>",
+				new String(Files.readAllBytes(xmlFile), StandardCharsets.UTF_8));
+			try (Stream<Path> files = Files.list(directory))
+			{
+				assertEquals(1L, files.count());
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(xmlFile);
+			Files.delete(directory);
+		}
+	}
+
+}
@@ -0,0 +1,248 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.xml.stream.XMLStreamReader;
+
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+
+import io.github.astrapi69.test.object.Person;
+import io.github.astrapi69.test.object.enumtype.Gender;
+
+/**
+ * The unit test class for the class {@link XmlObjectLoader}
+ */
+public class XmlObjectLoaderTest
+{
+
+	private static final String PERSON_XML = "<Person><name>Anna</name><gender>FEMALE</gender>"
+		+ "<married>true</married></Person>";
+
+	private static final Person ANNA = Person.builder().name("Anna").gender(Gender.FEMALE)
+		.married(Boolean.TRUE).build();
+
+	/**
+	 * Test method for the load methods of {@link XmlObjectLoader}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testLoad() throws IOException
+	{
+		XmlObjectLoader loader;
+
+		loader = new XmlObjectLoader();
+		assertEquals(ANNA, loader.load(PERSON_XML, Person.class));
+		assertEquals(ANNA, loader.load(PERSON_XML.getBytes(StandardCharsets.UTF_8), Person.class));
+		assertEquals(ANNA, loader.load(new StringReader(PERSON_XML), Person.class));
+		try (InputStream is = new ByteArrayInputStream(PERSON_XML.getBytes(StandardCharsets.UTF_8)))
+		{
+			assertEquals(ANNA, loader.load(is, Person.class));
+		}
+		assertSame(loader.getReader(Person.class), loader.getReader(Person.class));
+		assertEquals(1, loader.getReaderCount());
+	}
+
+	/**
+	 * Test method for {@link XmlObjectLoader#XmlObjectLoader(XmlMapper)} with a configured mapper
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test(expectedExceptions = UnrecognizedPropertyException.class)
+	public void testLoadWithConfiguredMapper() throws IOException
+	{
+		XmlMapper xmlMapper;
+		XmlObjectLoader loader;
+		String xml;
+
+		xml = "<Person><name>Anna</name><unknown>1</unknown></Person>";
+		xmlMapper = new XmlMapper();
+		xmlMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		loader = new XmlObjectLoader(xmlMapper);
+		assertEquals("Anna", loader.load(xml, Person.class).getName());
+		// changes after the creation of the loader do not affect the loader
+		xmlMapper.enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		assertEquals("Anna", loader.load(xml, Person.class).getName());
+
+		new XmlObjectLoader(xmlMapper).load(xml, Person.class);
+	}
+
+	/**
+	 * Test method for {@link XmlObjectLoader#load(String, Class)} from several threads
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testLoadConcurrently() throws Exception
+	{
+		XmlObjectLoader loader;
+		ExecutorService executorService;
+		List<Callable<Person>> tasks;
+
+		loader = new XmlObjectLoader();
+		tasks = new ArrayList<>();
+		for (int i = 0; i < 64; i++)
+		{
+			tasks.add(() -> loader.load(PERSON_XML, Person.class));
+		}
+		executorService = Executors.newFixedThreadPool(4);
+		try
+		{
+			for (final Future<Person> future : executorService.invokeAll(tasks))
+			{
+				assertEquals(ANNA, future.get());
+			}
+		}
+		finally
+		{
+			executorService.shutdown();
+		}
+		assertEquals(1, loader.getReaderCount());
+	}
+
+	/**
+	 * Test method for {@link XmlRecordSpliterator#trySplit()}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTrySplit() throws Exception
+	{
+		XmlMapper xmlMapper;
+		StringBuilder xml;
+		XMLStreamReader xmlStreamReader;
+		Spliterator<Person> spliterator;
+		Spliterator<Person> split;
+		int splitCount;
+
+		xml = new StringBuilder("<persons>");
+		for (int i = 0; i < 1000; i++)
+		{
+			xml.append("<Person><name>").append(i).append("</name></Person>");
+		}
+		xml.append("</persons>");
+		xmlMapper = new XmlMapper();
+		xmlStreamReader = xmlMapper.getFactory().getXMLInputFactory()
+			.createXMLStreamReader(new StringReader(xml.toString()));
+		spliterator = new XmlRecordSpliterator<>(xmlStreamReader, xmlMapper.getFactory(),
+			xmlMapper.readerFor(Person.class), "Person");
+		splitCount = 0;
+		while ((split = spliterator.trySplit()) != null)
+		{
+			assertTrue(split.estimateSize() <= XmlRecordSpliterator.BATCH_SIZE);
+			splitCount++;
+		}
+		assertEquals((1000 + XmlRecordSpliterator.BATCH_SIZE - 1) / XmlRecordSpliterator.BATCH_SIZE,
+			splitCount);
+		assertFalse(spliterator.tryAdvance(person -> {
+		}));
+	}
+
+	/**
+	 * Test method for {@link XmlObjectLoader#stream(java.nio.file.Path, String, Class)}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testStream() throws IOException
+	{
+		XmlObjectLoader loader;
+		Path xmlPath;
+		StringBuilder xml;
+		List<Person> persons;
+
+		xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?><persons><header/>");
+		for (int i = 0; i < 10000; i++)
+		{
+			xml.append("<Person><name>").append(i).append("</name><gender>")
+				.append(i % 2 == 0 ? "FEMALE" : "MALE").append("</gender></Person>");
+		}
+		xml.append("</persons>");
+		xmlPath = Files.createTempFile("persons", ".xml");
+		try
+		{
+			Files.write(xmlPath, xml.toString().getBytes(StandardCharsets.UTF_8));
+			loader = new XmlObjectLoader();
+
+			try (Stream<Person> stream = loader.stream(xmlPath, "Person", Person.class))
+			{
+				persons = stream.limit(3).collect(Collectors.toList());
+			}
+			assertEquals(3, persons.size());
+			assertEquals("0", persons.get(0).getName());
+			assertEquals(Gender.MALE, persons.get(1).getGender());
+
+			try (Stream<Person> stream = XmlExtensions.streamObjects(xmlPath, "Person",
+				Person.class))
+			{
+				assertEquals(49995000L,
+					stream.parallel().mapToLong(person -> Long.parseLong(person.getName())).sum());
+			}
+
+			try (InputStream is = Files.newInputStream(xmlPath);
+				Stream<Person> stream = loader.stream(is, "Person", Person.class))
+			{
+				assertEquals(5000L,
+					stream.filter(person -> person.getGender() == Gender.FEMALE).count());
+			}
+		}
+		finally
+		{
+			Files.delete(xmlPath);
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+
+/**
+ * The benchmark for the method {@link XmlProjection#load(java.io.InputStream, Class)}. It compares
+ * the binding of two fields from a wide document of about 1 MB with and without a projection. Run
+ * it with
+ * <code>gradle benchmark -PbenchmarkClass=io.github.astrapi69.xml.XmlProjectionBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlProjectionBenchmark
+{
+
+	private byte[] xml;
+
+	private XmlObjectLoader objectLoader;
+
+	private XmlProjection projection;
+
+	@Setup
+	public void setUp()
+	{
+		final StringBuilder builder = new StringBuilder("<employee><person><name>Anna</name>");
+		builder.append("<history>");
+		for (int i = 0; builder.length() < 1024 * 1024; i++)
+		{
+			builder.append("<entry id=\"").append(i).append("\"><year>").append(1990 + i % 30)
+				.append("</year><text>changed the department</text></entry>");
+		}
+		builder.append("</history><gender>FEMALE</gender></person></employee>");
+		xml = builder.toString().getBytes(StandardCharsets.UTF_8);
+		final XmlMapper xmlMapper = new XmlMapper();
+		xmlMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		objectLoader = new XmlObjectLoader(xmlMapper);
+		projection = new XmlProjection(objectLoader,
+			Arrays.asList("/employee/person/name", "/employee/person/gender"));
+	}
+
+	@Benchmark
+	public Employee projected() throws IOException
+	{
+		return projection.load(new ByteArrayInputStream(xml), Employee.class);
+	}
+
+	@Benchmark
+	public Employee fullDocument() throws IOException
+	{
+		return objectLoader.load(new ByteArrayInputStream(xml), Employee.class);
+	}
+
+	public static void main(final String[] args) throws RunnerException
+	{
+		new Runner(
+			new OptionsBuilder().include(XmlProjectionBenchmark.class.getSimpleName()).build())
+				.run();
+	}
+
+	/**
+	 * The bound part of the benchmark document
+	 */
+	public static class Employee
+	{
+		public Person person;
+	}
+
+	/**
+	 * The bound part of the person in the benchmark document
+	 */
+	public static class Person
+	{
+		public String name;
+
+		public String gender;
+	}
+
+}
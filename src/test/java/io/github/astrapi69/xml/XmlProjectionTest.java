@@ -0,0 +1,137 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.test.object.Person;
+import io.github.astrapi69.test.object.enumtype.Gender;
+
+/**
+ * The unit test class for the class {@link XmlProjection}
+ */
+public class XmlProjectionTest
+{
+
+	private static final String PERSON = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+		+ "<Person><about><chapter><p>a long <b>text</b></p></chapter></about>"
+		+ "<name>Anna</name><nickname>an</nickname><gender>FEMALE</gender>"
+		+ "<married>true</married></Person>";
+
+	private static final String CATALOG = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+		+ "<catalog><book id=\"1\"><title>Dune</title><price>9.5</price></book>"
+		+ "<shelf><book id=\"2\"><title>Emma</title><price>4</price></book></shelf>"
+		+ "<!-- end --><note>see <b>also</b></note></catalog>";
+
+	private static String project(final XmlProjection projection, final String xml)
+		throws Exception
+	{
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		projection.project(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+			outputStream);
+		return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Test method for {@link XmlProjection#project(java.io.InputStream, java.io.OutputStream)}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testProject() throws Exception
+	{
+		assertEquals(
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+				+ "<catalog><book id=\"1\"><title>Dune</title></book></catalog>",
+			project(new XmlProjection("/catalog/book/title"), CATALOG));
+		assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<catalog><book id=\"1\"><price>9.5</price></book>"
+			+ "<shelf><book id=\"2\"><title>Emma</title><price>4</price></book></shelf>"
+			+ "<note/></catalog>",
+			project(new XmlProjection("/catalog/*/price", "/catalog/shelf"), CATALOG));
+		assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><catalog/>",
+			project(new XmlProjection("/library/book"), CATALOG));
+	}
+
+	/**
+	 * Test method for {@link XmlProjection#project(java.io.InputStream, java.io.OutputStream)}
+	 * with prefixed elements and paths
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testProjectPrefixedPath() throws Exception
+	{
+		final String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<p:r xmlns:p=\"urn:p\"><p:a>1</p:a><p:b>2</p:b></p:r>";
+
+		assertEquals(
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+				+ "<p:r xmlns:p=\"urn:p\"><p:a>1</p:a></p:r>",
+			project(new XmlProjection("/p:r/p:a"), xml));
+		assertEquals(project(new XmlProjection("/r/a"), xml),
+			project(new XmlProjection("/p:r/p:a"), xml));
+	}
+
+	/**
+	 * Test method for {@link XmlProjection#load(java.io.InputStream, Class)}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testLoad() throws Exception
+	{
+		final XmlProjection projection = new XmlProjection(new XmlObjectLoader(),
+			Arrays.asList("/Person/name", "/Person/gender"));
+		final Person person = projection
+			.load(new ByteArrayInputStream(PERSON.getBytes(StandardCharsets.UTF_8)), Person.class);
+		assertEquals("Anna", person.getName());
+		assertEquals(Gender.FEMALE, person.getGender());
+		// the skipped elements leave the defaults of the no-argument constructor unchanged
+		assertEquals("", person.getAbout());
+		assertEquals("", person.getNickname());
+		assertEquals(Boolean.FALSE, person.getMarried());
+	}
+
+	/**
+	 * Test method for {@link XmlProjection#XmlProjection(String...)} with an invalid path
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testInvalidPath()
+	{
+		new XmlProjection("/catalog//title");
+	}
+
+}
@@ -0,0 +1,93 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link XmlRecordIndexer}
+ */
+public class XmlRecordIndexerTest
+{
+
+	private static final String ITEMS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+		+ "<items><item id=\"a\"><name>Äpfel</name><item id=\"nested\"/></item>\n"
+		+ "<group><x:item xmlns:x=\"urn:x\" id=\"b\"><name>Birnen</name></x:item></group>\n"
+		+ "<item><name>Kirschen</name></item></items>";
+
+	/**
+	 * Test method for {@link XmlRecordIndexer#index(Path, Path)}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testIndex() throws IOException
+	{
+		final Path xmlFile = Files.createTempFile("items", ".xml");
+		final Path indexFile = Files.createTempFile("items", ".idx");
+		try
+		{
+			Files.write(xmlFile, ITEMS.getBytes(StandardCharsets.UTF_8));
+			assertEquals(3, XmlRecordIndexer.keyedByAttribute("item", "id").index(xmlFile,
+				indexFile));
+			assertTrue(Files.size(indexFile) < 64);
+			try (XmlRecordReader reader = new XmlRecordReader(xmlFile, indexFile))
+			{
+				assertEquals(3, reader.getRecordCount());
+				assertEquals("item", reader.getRecordName());
+				assertEquals(0, reader.getRecordNumber("a"));
+				assertEquals(1, reader.getRecordNumber("b"));
+				assertEquals(-1, reader.getRecordNumber("nested"));
+				assertEquals("<item id=\"a\"><name>Äpfel</name><item id=\"nested\"/></item>",
+					StandardCharsets.UTF_8.decode(reader.readRecord(0)).toString());
+				assertEquals("<item><name>Kirschen</name></item>",
+					StandardCharsets.UTF_8.decode(reader.readRecord(2)).toString());
+			}
+
+			assertEquals(3,
+				XmlRecordIndexer.keyedByElement("item", "name").index(xmlFile, indexFile));
+			try (XmlRecordReader reader = new XmlRecordReader(xmlFile, indexFile))
+			{
+				assertEquals(0, reader.getRecordNumber("Äpfel"));
+				assertEquals(2, reader.getRecordNumber("Kirschen"));
+			}
+		}
+		finally
+		{
+			Files.delete(xmlFile);
+			Files.delete(indexFile);
+		}
+	}
+
+}
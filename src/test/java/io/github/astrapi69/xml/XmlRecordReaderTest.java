@@ -0,0 +1,150 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.test.object.Employee;
+import io.github.astrapi69.test.object.Person;
+import io.github.astrapi69.test.object.enumtype.Gender;
+
+/**
+ * The unit test class for the class {@link XmlRecordReader}
+ */
+public class XmlRecordReaderTest
+{
+
+	private static final String EMPLOYEE = "<io.github.astrapi69.test.object.Employee>"
+		+ "<person><name>%s</name><gender>%s</gender></person><id>%s</id>"
+		+ "<subOrdinates class=\"empty-set\"/></io.github.astrapi69.test.object.Employee>\n";
+
+	/**
+	 * Test method for {@link XmlRecordReader#load(int)} and
+	 * {@link XmlRecordReader#loadByKey(String)}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testLoadWithXStream() throws IOException
+	{
+		final Path xmlFile = Files.createTempFile("employees", ".xml");
+		final Path indexFile = Files.createTempFile("employees", ".idx");
+		try
+		{
+			Files.write(xmlFile,
+				("<employees>\n" + String.format(EMPLOYEE, "Anna", "FEMALE", "23")
+					+ String.format(EMPLOYEE, "Ben", "MALE", "42") + "</employees>")
+						.getBytes(StandardCharsets.UTF_8));
+			XmlRecordIndexer.keyedByElement("io.github.astrapi69.test.object.Employee", "id")
+				.index(xmlFile, indexFile);
+			try (XmlRecordReader reader = new XmlRecordReader(xmlFile, indexFile))
+			{
+				final Employee ben = reader.loadByKey("42");
+				assertEquals("42", ben.getId());
+				assertEquals("Ben", ben.getPerson().getName());
+				assertEquals(Gender.MALE, ben.getPerson().getGender());
+				final Employee anna = reader.load(0);
+				assertEquals("23", anna.getId());
+				assertNull(reader.loadByKey("7"));
+			}
+		}
+		finally
+		{
+			Files.delete(xmlFile);
+			Files.delete(indexFile);
+		}
+	}
+
+	/**
+	 * Test method for {@link XmlRecordReader#load(int, Class)} and
+	 * {@link XmlRecordReader#loadByKey(String, Class)}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testLoadWithJackson() throws IOException
+	{
+		final Path xmlFile = Files.createTempFile("people", ".xml");
+		final Path indexFile = Files.createTempFile("people", ".idx");
+		try
+		{
+			Files.write(xmlFile, ("<people><Person><name>Anna</name><gender>FEMALE</gender>"
+				+ "</Person><Person><name>Ben</name><married>true</married></Person></people>")
+					.getBytes(StandardCharsets.UTF_8));
+			XmlRecordIndexer.keyedByElement("Person", "name").index(xmlFile, indexFile);
+			try (XmlRecordReader reader = new XmlRecordReader(xmlFile, indexFile))
+			{
+				final Person ben = reader.loadByKey("Ben", Person.class);
+				assertEquals(Boolean.TRUE, ben.getMarried());
+				assertEquals(Gender.FEMALE, reader.load(0, Person.class).getGender());
+				assertNull(reader.loadByKey("Carl", Person.class));
+			}
+		}
+		finally
+		{
+			Files.delete(xmlFile);
+			Files.delete(indexFile);
+		}
+	}
+
+	/**
+	 * Test method for {@link XmlRecordReader#XmlRecordReader(Path, Path)} with a xml file that
+	 * changed after it was indexed
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test(expectedExceptions = IOException.class)
+	public void testChangedFile() throws IOException
+	{
+		final Path xmlFile = Files.createTempFile("people", ".xml");
+		final Path indexFile = Files.createTempFile("people", ".idx");
+		try
+		{
+			Files.write(xmlFile, "<people><Person/></people>".getBytes(StandardCharsets.UTF_8));
+			XmlRecordIndexer.forRecords("Person").index(xmlFile, indexFile);
+			Files.setLastModifiedTime(xmlFile,
+				FileTime.fromMillis(Files.getLastModifiedTime(xmlFile).toMillis() + 10000));
+			new XmlRecordReader(xmlFile, indexFile).close();
+		}
+		finally
+		{
+			Files.delete(xmlFile);
+			Files.delete(indexFile);
+		}
+	}
+
+}
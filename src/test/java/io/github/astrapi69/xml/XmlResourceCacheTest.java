@@ -0,0 +1,157 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.test.object.Employee;
+import io.github.astrapi69.test.object.Person;
+
+/**
+ * The unit test class for the class {@link XmlResourceCache}
+ */
+public class XmlResourceCacheTest
+{
+
+	private static final String PERSON_RESOURCE = "io/github/astrapi69/xml/person.xml";
+
+	/**
+	 * Test method for {@link XmlResourceCache#getObject(String, Class)} and
+	 * {@link XmlResourceCache#getObject(String)}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testGetObject() throws IOException
+	{
+		XmlResourceCache cache;
+		Person person;
+		Employee employee;
+
+		cache = new XmlResourceCache();
+		person = cache.getObject(PERSON_RESOURCE, Person.class);
+		assertEquals("Anna", person.getName());
+		assertSame(person, cache.getObject(PERSON_RESOURCE, Person.class));
+
+		employee = cache.getObject("newtest.xml");
+		assertEquals("23", employee.getId());
+		assertSame(employee, cache.getObject("newtest.xml"));
+
+		assertEquals(2, cache.getSize());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(2, cache.getHitCount());
+
+		cache.invalidate(PERSON_RESOURCE);
+		assertNotSame(person, cache.getObject(PERSON_RESOURCE, Person.class));
+		assertEquals(3, cache.getMissCount());
+	}
+
+	/**
+	 * Test method for {@link XmlResourceCache#getObject(String, Class,
+	 * java.util.function.UnaryOperator)} and
+	 * {@link XmlResourceCache#getObject(String, java.util.function.UnaryOperator)}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testGetObjectWithCopier() throws IOException
+	{
+		XmlResourceCache cache;
+		Person copy;
+		Employee employeeCopy;
+
+		cache = new XmlResourceCache();
+		copy = cache.getObject(PERSON_RESOURCE, Person.class,
+			person -> Person.builder().name(person.getName()).gender(person.getGender())
+				.married(person.getMarried()).build());
+		copy.setName("Maria");
+		assertEquals("Anna", cache.getObject(PERSON_RESOURCE, Person.class).getName());
+
+		employeeCopy = cache.<Employee> getObject("newtest.xml",
+			employee -> Employee.builder().id(employee.getId()).person(employee.getPerson())
+				.build());
+		employeeCopy.setId("42");
+		assertEquals("23", cache.<Employee> getObject("newtest.xml").getId());
+	}
+
+	/**
+	 * Test method for {@link XmlResourceCache#invalidate(String)} while the resource is loaded
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testInvalidateDuringLoad() throws IOException
+	{
+		XmlResourceCache cache;
+		Object loaded;
+
+		cache = new XmlResourceCache();
+		loaded = cache.getObject(PERSON_RESOURCE, Person.class, () -> {
+			// the resource changes while the stale version is loaded
+			cache.invalidate(PERSON_RESOURCE);
+			return Person.builder().name("stale").build();
+		});
+		assertEquals("stale", ((Person)loaded).getName());
+		assertEquals(0, cache.getSize());
+		assertEquals("Anna", cache.getObject(PERSON_RESOURCE, Person.class).getName());
+		assertEquals(1, cache.getSize());
+	}
+
+	/**
+	 * Test method for the eviction and the expiration of {@link XmlResourceCache}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testEvictionAndExpiration() throws Exception
+	{
+		XmlResourceCache cache;
+		Person person;
+
+		cache = new XmlResourceCache(1);
+		cache.getObject(PERSON_RESOURCE, Person.class);
+		cache.getObject("newtest.xml");
+		assertEquals(1, cache.getSize());
+		assertEquals(1, cache.getEvictionCount());
+
+		cache = new XmlResourceCache(8, Duration.ofMillis(50));
+		person = cache.getObject(PERSON_RESOURCE, Person.class);
+		assertSame(person, cache.getObject(PERSON_RESOURCE, Person.class));
+		Thread.sleep(100);
+		assertNotSame(person, cache.getObject(PERSON_RESOURCE, Person.class));
+	}
+
+}
@@ -0,0 +1,199 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xml;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link XmlTagWriter}
+ */
+public class XmlTagWriterTest
+{
+
+	/**
+	 * Test method for {@link XmlTagWriter} with an {@link Appendable}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testWriteToAppendable() throws IOException
+	{
+		StringBuilder actual;
+		XmlTagWriter tagWriter;
+
+		actual = new StringBuilder();
+		tagWriter = new XmlTagWriter(actual);
+		tagWriter.startElement("land").attribute("capital", "paris")
+			.attribute("motto", "\"liberté\" & <more>\n").startElement("empty").endElement()
+			.element("name", "france & co <ltd>").text("\ttail\r").endElement().flush();
+
+		assertEquals("<land capital=\"paris\" motto=\"&quot;liberté&quot; &amp; &lt;more&gt;&#10;\">"
+			+ "<empty/><name>france &amp; co &lt;ltd&gt;</name>\ttail&#13;</land>",
+			actual.toString());
+		assertEquals(0, tagWriter.getDepth());
+	}
+
+	/**
+	 * Test method for {@link XmlTagWriter} with a {@link java.io.Writer} and more output than the
+	 * internal buffer holds
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testWriteToWriter() throws IOException
+	{
+		StringWriter actual;
+		StringBuilder expected;
+		XmlTagWriter tagWriter;
+
+		actual = new StringWriter();
+		expected = new StringBuilder("<items>");
+		tagWriter = new XmlTagWriter(actual);
+		tagWriter.startElement("items");
+		for (int i = 0; i < 2000; i++)
+		{
+			tagWriter.startElement("item").attribute("id", Integer.toString(i)).text("a&b")
+				.endElement();
+			expected.append("<item id=\"").append(i).append("\">a&amp;b</item>");
+		}
+		tagWriter.endElement().flush();
+		expected.append("</items>");
+
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	/**
+	 * Test method for {@link XmlTagWriter} with a {@link ByteBuffer}
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testWriteToByteBuffer() throws IOException
+	{
+		ByteBuffer byteBuffer;
+		XmlTagWriter tagWriter;
+		StringBuilder text;
+		String expected;
+
+		text = new StringBuilder();
+		for (int i = 0; i < 3000; i++)
+		{
+			text.append("ü€😀");
+		}
+		byteBuffer = ByteBuffer.allocate(64 * 1024);
+		tagWriter = new XmlTagWriter(byteBuffer);
+		// the start tag shifts the first emoji that is split by the internal buffer to its end
+		tagWriter.element("txt", text).flush();
+		byteBuffer.flip();
+
+		expected = "<txt>" + text + "</txt>";
+		assertEquals(expected, StandardCharsets.UTF_8.decode(byteBuffer).toString());
+	}
+
+	/**
+	 * Test method for {@link XmlTagWriter#text(CharSequence)} with a character that is not allowed
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testTextWithInvalidCharacter() throws IOException
+	{
+		new XmlTagWriter(new StringBuilder()).startElement("a").text("bell \u0007");
+	}
+
+	/**
+	 * Test method for {@link XmlTagWriter#element(String, CharSequence)} with unpaired surrogates
+	 * that are rejected for every kind of output
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testUnpairedSurrogates() throws IOException
+	{
+		StringBuilder actual;
+
+		for (final String text : new String[] { "x\uD800y", "x\uDC00y", "x\uD800", "\uDC00\uD800" })
+		{
+			try
+			{
+				new XmlTagWriter(new StringBuilder()).element("a", text);
+				throw new AssertionError("appendable accepted " + text);
+			}
+			catch (final IllegalArgumentException e)
+			{
+				// expected
+			}
+			try
+			{
+				new XmlTagWriter(ByteBuffer.allocate(64)).startElement("a").attribute("b", text);
+				throw new AssertionError("byte buffer accepted " + text);
+			}
+			catch (final IllegalArgumentException e)
+			{
+				// expected
+			}
+		}
+		actual = new StringBuilder();
+		new XmlTagWriter(actual).element("a", "x\uD83D\uDE00y").flush();
+		assertEquals("<a>x\uD83D\uDE00y</a>", actual.toString());
+	}
+
+	/**
+	 * Test method for {@link XmlTagWriter#attribute(String, CharSequence)} after text
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testAttributeAfterText() throws IOException
+	{
+		new XmlTagWriter(new StringBuilder()).startElement("a").text("b").attribute("c", "d");
+	}
+
+	/**
+	 * Test method for {@link XmlTagWriter#endElement()} without an open element
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testEndElementWithoutOpenElement() throws IOException
+	{
+		new XmlTagWriter(new StringBuilder()).element("a", "b").endElement();
+	}
+
+}
@@ -0,0 +1,72 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link DefaultExecutors}. The task <code>testJava21</code>
+ * runs it with the classes of src/main/java21
+ */
+public class DefaultExecutorsTest
+{
+
+	private static boolean isVirtual(final Thread thread) throws Exception
+	{
+		try
+		{
+			return (Boolean)Thread.class.getMethod("isVirtual").invoke(thread);
+		}
+		catch (final NoSuchMethodException e)
+		{
+			// no virtual threads before java 21
+			return false;
+		}
+	}
+
+	/**
+	 * Test method for {@link DefaultExecutors#getTransformExecutor()}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testGetTransformExecutor() throws Exception
+	{
+		boolean expected;
+		Thread actual;
+
+		// only set if the classes of src/main/java21 are on the class path
+		expected = System.getProperty("multiReleaseJavaVersion") != null;
+		actual = CompletableFuture
+			.supplyAsync(Thread::currentThread, DefaultExecutors.getTransformExecutor()).get();
+		assertEquals(expected, isVirtual(actual));
+	}
+
+}
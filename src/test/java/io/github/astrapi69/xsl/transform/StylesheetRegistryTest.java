@@ -0,0 +1,298 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link StylesheetRegistry}
+ */
+public class StylesheetRegistryTest
+{
+
+	private static final String XML = "<greeting>world</greeting>";
+
+	private Path directory;
+
+	private static String stylesheet(final String prefix)
+	{
+		return "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+			+ "<xsl:output method=\"text\"/>"
+			+ "<xsl:template match=\"/greeting\">" + prefix + "<xsl:value-of select=\".\"/>"
+			+ "</xsl:template></xsl:stylesheet>";
+	}
+
+	private static String transform(final StylesheetRegistry registry, final String name)
+		throws Exception
+	{
+		final StringWriter writer = new StringWriter();
+		registry.transform(name, new StreamSource(new StringReader(XML)), new StreamResult(writer));
+		return writer.toString();
+	}
+
+	private void write(final String name, final String content) throws Exception
+	{
+		Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@BeforeMethod
+	protected void setUp() throws Exception
+	{
+		directory = Files.createTempDirectory("stylesheet-registry");
+	}
+
+	@AfterMethod
+	protected void tearDown() throws Exception
+	{
+		FileUtils.deleteDirectory(directory.toFile());
+	}
+
+	/**
+	 * Test method for {@link StylesheetRegistry#transform(String, javax.xml.transform.Source,
+	 * javax.xml.transform.Result)} after a stylesheet was changed on disk
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testReloadOnChange() throws Exception
+	{
+		long deadline;
+
+		write("hello.xsl", stylesheet("Hello "));
+		write("ignored.txt", "no stylesheet");
+		try (StylesheetRegistry registry = new StylesheetRegistry(directory))
+		{
+			assertEquals(1, registry.getNames().size());
+			assertEquals("Hello world", transform(registry, "hello.xsl"));
+
+			write("hello.xsl", stylesheet("Bye "));
+			// on file systems without native notification the watch service polls
+			deadline = System.currentTimeMillis() + 30_000;
+			while (!"Bye world".equals(transform(registry, "hello.xsl"))
+				&& System.currentTimeMillis() < deadline)
+			{
+				Thread.sleep(50);
+			}
+			assertEquals("Bye world", transform(registry, "hello.xsl"));
+			assertTrue(registry.getReloadCount() >= 1);
+		}
+	}
+
+	/**
+	 * Test method for {@link StylesheetRegistry#reload(String)} with a broken stylesheet
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testReloadKeepsPreviousVersionOnFailure() throws Exception
+	{
+		Templates templates;
+
+		write("hello.xsl", stylesheet("Hello "));
+		try (StylesheetRegistry registry = new StylesheetRegistry(directory))
+		{
+			templates = registry.getTemplates("hello.xsl");
+			assertNotNull(templates);
+			write("hello.xsl", "<xsl:stylesheet");
+			try
+			{
+				registry.reload("hello.xsl");
+			}
+			catch (final TransformerConfigurationException e)
+			{
+				assertSame(e, registry.getCompileFailures().get("hello.xsl"));
+			}
+			assertSame(templates, registry.getTemplates("hello.xsl"));
+			assertEquals("Hello world", transform(registry, "hello.xsl"));
+			assertNull(registry.getTemplates("missing.xsl"));
+		}
+	}
+
+	/**
+	 * Test method for {@link StylesheetRegistry#reload(String)} from several threads while the
+	 * stylesheet is changed
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testConcurrentReloadKeepsNewestVersion() throws Exception
+	{
+		ExecutorService executorService;
+		List<Future<?>> futures;
+
+		write("hello.xsl", stylesheet("Version 0 "));
+		executorService = Executors.newFixedThreadPool(4);
+		try (StylesheetRegistry registry = new StylesheetRegistry(directory))
+		{
+			futures = new ArrayList<>();
+			for (int i = 0; i < 3; i++)
+			{
+				futures.add(executorService.submit(() -> {
+					for (int j = 0; j < 50; j++)
+					{
+						try
+						{
+							registry.reload("hello.xsl");
+						}
+						catch (final TransformerConfigurationException e)
+						{
+							// the file was read while it was written
+						}
+					}
+					return null;
+				}));
+			}
+			for (int i = 1; i <= 20; i++)
+			{
+				write("hello.xsl", stylesheet("Version " + i + " "));
+				registry.reload("hello.xsl");
+			}
+			for (final Future<?> future : futures)
+			{
+				future.get();
+			}
+			assertEquals("Version 20 world", transform(registry, "hello.xsl"));
+		}
+		finally
+		{
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test method for {@link StylesheetRegistry#reload(String)} with a broken stylesheet that must
+	 * not print anything to the console
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testCompileErrorsAreNotPrinted() throws Exception
+	{
+		PrintStream systemErr;
+		ByteArrayOutputStream console;
+		TransformerConfigurationException failure;
+
+		write("hello.xsl", stylesheet("Hello "));
+		systemErr = System.err;
+		console = new ByteArrayOutputStream();
+		failure = null;
+		try (StylesheetRegistry registry = new StylesheetRegistry(directory))
+		{
+			registry.close();
+			write("hello.xsl", "");
+			System.setErr(new PrintStream(console, true, "UTF-8"));
+			try
+			{
+				registry.reload("hello.xsl");
+			}
+			catch (final TransformerConfigurationException e)
+			{
+				failure = e;
+			}
+		}
+		finally
+		{
+			System.setErr(systemErr);
+		}
+		assertNotNull(failure);
+		assertTrue(String.valueOf(failure.getMessage()).contains("Premature end of file"));
+		assertEquals("", console.toString("UTF-8"));
+	}
+
+	/**
+	 * Test method for {@link StylesheetRegistry#getTemplates(String)} with a stylesheet that
+	 * includes another one by a relative uri
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testRelativeInclude() throws Exception
+	{
+		Files.createDirectory(directory.resolve("common"));
+		write("common/prefix.xsl",
+			"<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+				+ "<xsl:variable name=\"prefix\">Included </xsl:variable></xsl:stylesheet>");
+		write("hello.xsl",
+			"<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+				+ "<xsl:include href=\"common/prefix.xsl\"/><xsl:output method=\"text\"/>"
+				+ "<xsl:template match=\"/greeting\"><xsl:value-of select=\"$prefix\"/>"
+				+ "<xsl:value-of select=\".\"/></xsl:template></xsl:stylesheet>");
+		try (StylesheetRegistry registry = new StylesheetRegistry(directory))
+		{
+			assertFalse(registry.getNames().contains("prefix.xsl"));
+			assertEquals("Included world", transform(registry, "hello.xsl"));
+		}
+	}
+
+	/**
+	 * Test method for {@link StylesheetRegistry#transform(String, javax.xml.transform.Source,
+	 * javax.xml.transform.Result)} with an unknown stylesheet
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test(expectedExceptions = TransformerConfigurationException.class)
+	public void testTransformUnknownStylesheet() throws Exception
+	{
+		try (StylesheetRegistry registry = new StylesheetRegistry(directory))
+		{
+			transform(registry, "missing.xsl");
+		}
+	}
+
+}
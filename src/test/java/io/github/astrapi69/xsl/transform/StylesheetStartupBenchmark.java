@@ -0,0 +1,122 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.TransformerConfigurationException;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The cold start benchmark for the class {@link TemplatesCache}. Every measurement runs in a fresh
+ * jvm and compiles a directory of stylesheets, either one after another on first use or in
+ * parallel with {@link TemplatesCache#preload(java.util.Collection, java.util.concurrent.Executor)}.
+ * Run it with
+ * <code>gradle benchmark -PbenchmarkClass=io.github.astrapi69.xsl.transform.StylesheetStartupBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StylesheetStartupBenchmark
+{
+
+	@Param({ "40" })
+	public int stylesheetCount;
+
+	private Path directory;
+
+	private List<File> xsltFiles;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		final byte[] content = XsltTransformEngineBenchmark
+			.readResource("io/github/astrapi69/xsl/transform/functions.xsl");
+		directory = Files.createTempDirectory("stylesheet-startup");
+		xsltFiles = new ArrayList<>(stylesheetCount);
+		for (int i = 0; i < stylesheetCount; i++)
+		{
+			xsltFiles.add(Files.write(directory.resolve("functions" + i + ".xsl"), content).toFile());
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		FileUtils.deleteDirectory(directory.toFile());
+	}
+
+	@Benchmark
+	public TemplatesCache compileOnFirstUse() throws TransformerConfigurationException
+	{
+		final TemplatesCache cache = new TemplatesCache();
+		for (final File xsltFile : xsltFiles)
+		{
+			cache.getTemplates(xsltFile);
+		}
+		return cache;
+	}
+
+	@Benchmark
+	public TemplatesCache preload() throws TransformerConfigurationException
+	{
+		final TemplatesCache cache = new TemplatesCache();
+		cache.preload(xsltFiles, ForkJoinPool.commonPool());
+		return cache;
+	}
+
+	public static void main(final String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder().include(StylesheetStartupBenchmark.class.getSimpleName())
+			.build()).run();
+	}
+
+}
@@ -0,0 +1,305 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.stream.StreamSource;
+
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.file.search.PathFinder;
+
+/**
+ * The unit test class for the class {@link TemplatesCache}
+ */
+public class TemplatesCacheTest
+{
+
+	private static File getXsltFile()
+	{
+		return PathFinder.getRelativePathTo(PathFinder.getSrcTestResourcesDir(), "\\.",
+			"io.github.astrapi69.xsl.transform", "functions.xsl");
+	}
+
+	/**
+	 * Test method for {@link TemplatesCache#getTemplates(File)}
+	 *
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when parsing the stylesheet
+	 */
+	@Test
+	public void testGetTemplatesFile() throws TransformerConfigurationException
+	{
+		TemplatesCache cache;
+		Templates first;
+		Templates second;
+
+		cache = new TemplatesCache();
+		first = cache.getTemplates(getXsltFile());
+		second = cache.getTemplates(getXsltFile());
+		assertSame(first, second);
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.size());
+
+		second = cache.getTemplates(new StreamSource(getXsltFile()));
+		assertSame(first, second);
+		assertEquals(2, cache.getHitCount());
+	}
+
+	/**
+	 * Test method for {@link TemplatesCache#getTemplates(File)} with a modified stylesheet file
+	 *
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when parsing the stylesheet
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testGetTemplatesModifiedFile() throws TransformerConfigurationException, IOException
+	{
+		TemplatesCache cache;
+		File xsltFile;
+		Templates first;
+		Templates second;
+
+		xsltFile = File.createTempFile("functions", ".xsl");
+		xsltFile.deleteOnExit();
+		Files.copy(getXsltFile().toPath(), xsltFile.toPath(),
+			StandardCopyOption.REPLACE_EXISTING);
+		cache = new TemplatesCache();
+		first = cache.getTemplates(xsltFile);
+		assertTrue(xsltFile.setLastModified(xsltFile.lastModified() - 10000));
+		second = cache.getTemplates(xsltFile);
+		assertNotSame(first, second);
+		assertEquals(2, cache.getMissCount());
+		assertEquals(1, cache.size());
+	}
+
+	/**
+	 * Test method for {@link TemplatesCache#getTemplates(javax.xml.transform.Source)} with in-memory
+	 * stylesheets
+	 *
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when parsing the stylesheet
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testGetTemplatesInMemorySource()
+		throws TransformerConfigurationException, IOException
+	{
+		TemplatesCache cache;
+		byte[] content;
+		Templates first;
+		Templates second;
+
+		content = Files.readAllBytes(getXsltFile().toPath());
+		cache = new TemplatesCache();
+		first = cache.getTemplates(new StreamSource(new ByteArrayInputStream(content)));
+		second = cache.getTemplates(new StreamSource(new ByteArrayInputStream(content)));
+		assertSame(first, second);
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+
+		// the same content with another base uri resolves relative includes differently
+		first = cache.getTemplates(
+			new StreamSource(new ByteArrayInputStream(content), "http://example.org/a/f.xsl"));
+		second = cache.getTemplates(
+			new StreamSource(new ByteArrayInputStream(content), "http://example.org/b/f.xsl"));
+		assertNotSame(first, second);
+		assertEquals(3, cache.getMissCount());
+	}
+
+	/**
+	 * Test method for the eviction of the least recently used compiled stylesheet
+	 *
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when parsing the stylesheet
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Test
+	public void testEviction() throws TransformerConfigurationException, IOException
+	{
+		TemplatesCache cache;
+		byte[] content;
+
+		content = Files.readAllBytes(getXsltFile().toPath());
+		cache = new TemplatesCache(1);
+		cache.getTemplates(getXsltFile());
+		cache.getTemplates(new StreamSource(new ByteArrayInputStream(content)));
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		cache.getTemplates(getXsltFile());
+		assertEquals(3, cache.getMissCount());
+		assertEquals(2, cache.getEvictionCount());
+	}
+
+	/**
+	 * Test method for {@link TemplatesCache#invalidate(File)} and
+	 * {@link TemplatesCache#invalidateAll()}
+	 *
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when parsing the stylesheet
+	 */
+	@Test
+	public void testInvalidate() throws TransformerConfigurationException
+	{
+		TemplatesCache cache;
+
+		cache = new TemplatesCache();
+		cache.getTemplates(getXsltFile());
+		assertTrue(cache.invalidate(getXsltFile()));
+		assertFalse(cache.invalidate(getXsltFile()));
+		assertEquals(0, cache.size());
+		cache.getTemplates(getXsltFile());
+		assertEquals(2, cache.getMissCount());
+		cache.invalidateAll();
+		assertEquals(0, cache.size());
+	}
+
+	/**
+	 * Test method for {@link TemplatesCache#preload(java.util.Collection,
+	 * java.util.concurrent.Executor)}
+	 *
+	 * @throws TransformerConfigurationException
+	 *             is thrown if there are errors when parsing the stylesheet
+	 */
+	@Test
+	public void testPreload() throws TransformerConfigurationException
+	{
+		TemplatesCache cache;
+		ExecutorService executor;
+
+		cache = new TemplatesCache();
+		executor = Executors.newFixedThreadPool(2);
+		try
+		{
+			assertEquals(1, cache.preload(Collections.singletonList(getXsltFile()), executor));
+			assertEquals(0, cache.preload(Collections.singletonList(getXsltFile()), executor));
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		assertEquals(1, cache.size());
+		cache.getTemplates(getXsltFile());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	/**
+	 * Test method for {@link TemplatesCache#preload(java.util.Collection,
+	 * java.util.concurrent.Executor)} with a configured factory
+	 *
+	 * @throws Exception
+	 *             is thrown if any error occurs on the execution
+	 */
+	@Test
+	public void testPreloadWithConfiguredFactory() throws Exception
+	{
+		Path xsltFile;
+		AtomicInteger resolved;
+		AtomicInteger supplied;
+		URIResolver uriResolver;
+		TransformerFactory transformerFactory;
+		TemplatesCache cache;
+		ExecutorService executor;
+
+		// the included stylesheet can only be found by the uri resolver of the factory
+		xsltFile = Files.createTempFile("preload", ".xsl");
+		Files.write(xsltFile,
+			("<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+				+ "<xsl:include href=\"custom:included.xsl\"/></xsl:stylesheet>")
+					.getBytes(StandardCharsets.UTF_8));
+		resolved = new AtomicInteger();
+		uriResolver = (href, base) -> {
+			resolved.incrementAndGet();
+			return new StreamSource(new StringReader("<xsl:stylesheet version=\"1.0\""
+				+ " xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+				+ "<xsl:template match=\"/\">included</xsl:template></xsl:stylesheet>"), href);
+		};
+		supplied = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(2);
+		try
+		{
+			transformerFactory = TransformerFactory.newInstance();
+			transformerFactory.setURIResolver(uriResolver);
+			cache = new TemplatesCache(4, transformerFactory);
+			assertEquals(1,
+				cache.preload(Collections.singletonList(xsltFile.toFile()), executor));
+			assertEquals(1, resolved.get());
+
+			cache = new TemplatesCache(4, () -> {
+				supplied.incrementAndGet();
+				final TransformerFactory factory = TransformerFactory.newInstance();
+				factory.setURIResolver(uriResolver);
+				return factory;
+			});
+			assertEquals(1,
+				cache.preload(Collections.singletonList(xsltFile.toFile()), executor));
+			assertEquals(2, resolved.get());
+			assertEquals(2, supplied.get());
+		}
+		finally
+		{
+			executor.shutdown();
+			Files.deleteIfExists(xsltFile);
+		}
+	}
+
+	/**
+	 * Test method for the constructor of {@link TemplatesCache} with an invalid maximum size
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testInvalidMaximumSize()
+	{
+		new TemplatesCache(0);
+	}
+
+}
@@ -0,0 +1,208 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.file.search.PathFinder;
+
+/**
+ * The unit test class for the class {@link TransformMetrics}
+ */
+public class TransformMetricsTest
+{
+
+	private static File getResource(final String name)
+	{
+		return PathFinder.getRelativePathTo(PathFinder.getSrcTestResourcesDir(), "\\.",
+			"io.github.astrapi69.xsl.transform", name);
+	}
+
+	private static StylesheetMetricsSnapshot find(final List<StylesheetMetricsSnapshot> snapshots,
+		final String name)
+	{
+		return snapshots.stream().filter(snapshot -> snapshot.getName().equals(name)).findFirst()
+			.orElseThrow(AssertionError::new);
+	}
+
+	@AfterMethod
+	protected void tearDown()
+	{
+		XsltTransformerExtensions.getMetrics().setEnabled(false);
+		XsltTransformerExtensions.getMetrics().reset();
+	}
+
+	/**
+	 * Test method for {@link TransformMetrics#snapshot()} after transformations with
+	 * {@link XsltTransformerExtensions}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testSnapshot() throws Exception
+	{
+		TransformMetrics metrics;
+		File xmlFile;
+		File xsltFile;
+		ByteArrayOutputStream output;
+		StylesheetMetricsSnapshot snapshot;
+
+		metrics = XsltTransformerExtensions.getMetrics();
+		xmlFile = getResource("birthdates.xml");
+		xsltFile = getResource("functions.xsl");
+		XsltTransformerExtensions.getTemplatesCache().invalidate(xsltFile);
+		metrics.setEnabled(true);
+		output = new ByteArrayOutputStream();
+		XsltTransformerExtensions.transform(xmlFile, xsltFile, output);
+		XsltTransformerExtensions.transform(xmlFile, xsltFile, new ByteArrayOutputStream());
+
+		snapshot = find(metrics.snapshot(), xsltFile.getAbsolutePath());
+		assertEquals(1, snapshot.getCacheMissCount());
+		assertEquals(1, snapshot.getCacheHitCount());
+		assertEquals(0.5, snapshot.getCacheHitRatio(), 0.0);
+		assertEquals(2, snapshot.getTransformLatency().getCount());
+		assertTrue(snapshot.getTransformLatency().getP99Nanos() > 0);
+		assertEquals(0, snapshot.getTransformFailureCount());
+		assertEquals(2 * xmlFile.length(), snapshot.getBytesIn());
+		assertEquals(2 * output.size(), snapshot.getBytesOut());
+
+		metrics.setEnabled(false);
+		XsltTransformerExtensions.transform(xmlFile, xsltFile, new ByteArrayOutputStream());
+		snapshot = find(metrics.snapshot(), xsltFile.getAbsolutePath());
+		assertEquals(2, snapshot.getTransformLatency().getCount());
+	}
+
+	/**
+	 * Test method for {@link TransformMetrics#registerMBean()}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testRegisterMBean() throws Exception
+	{
+		TransformMetrics metrics;
+		MBeanServer server;
+		ObjectName objectName;
+		CompositeData[] stylesheets;
+
+		metrics = new TransformMetrics();
+		metrics.setEnabled(true);
+		metrics.recordCompile(new TemplatesCache().getTemplates(getResource("functions.xsl")),
+			"functions", 1000L);
+		server = ManagementFactory.getPlatformMBeanServer();
+		objectName = metrics.registerMBean();
+		try
+		{
+			assertEquals(Boolean.TRUE, server.getAttribute(objectName, "Enabled"));
+			stylesheets = (CompositeData[])server.getAttribute(objectName, "Stylesheets");
+			assertEquals(1, stylesheets.length);
+			assertEquals("functions", stylesheets[0].get("name"));
+			assertEquals(1L, stylesheets[0].get("cacheMissCount"));
+		}
+		finally
+		{
+			metrics.unregisterMBean();
+		}
+	}
+
+	/**
+	 * Test method for {@link TransformMetrics#snapshot()} with evicted in-memory stylesheets and
+	 * compiled stylesheets that did not come from a cache
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testSnapshotDoesNotGrow() throws Exception
+	{
+		TransformMetrics metrics;
+		TemplatesCache templatesCache;
+		Templates templates;
+		String xslt;
+
+		metrics = new TransformMetrics();
+		metrics.setEnabled(true);
+		templatesCache = new TemplatesCache(2);
+		templatesCache.setMetrics(metrics);
+		for (int i = 0; i < 20; i++)
+		{
+			xslt = "<xsl:stylesheet version=\"1.0\" "
+				+ "xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+				+ "<xsl:template match=\"/\">" + i + "</xsl:template></xsl:stylesheet>";
+			templates = templatesCache.getTemplates(new StreamSource(new StringReader(xslt)));
+			metrics.recordTransform(templates, 1000L, 10L, 10L, false);
+			metrics.recordTransform(TransformerFactory.newInstance()
+				.newTemplates(new StreamSource(new StringReader(xslt))), 1000L, 10L, 10L, false);
+		}
+		// the two cached stylesheets and one entry for all stylesheets without a name
+		assertEquals(3, metrics.snapshot().size());
+		assertEquals(20,
+			find(metrics.snapshot(), TransformMetrics.ANONYMOUS_NAME).getTransformLatency()
+				.getCount());
+	}
+
+	/**
+	 * Test method for the percentiles of {@link LatencyHistogram}
+	 */
+	@Test
+	public void testLatencyHistogram()
+	{
+		LatencyHistogram histogram;
+		LatencySnapshot snapshot;
+
+		histogram = new LatencyHistogram();
+		for (int i = 0; i < 99; i++)
+		{
+			histogram.record(100);
+		}
+		histogram.record(5000);
+		snapshot = histogram.snapshot();
+		assertEquals(100, snapshot.getCount());
+		assertEquals(127, snapshot.getP50Nanos());
+		assertEquals(127, snapshot.getP99Nanos());
+		assertEquals(5000, snapshot.getMaxNanos());
+		assertEquals(149, snapshot.getMeanNanos());
+	}
+
+}
@@ -0,0 +1,204 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link TransformResultCache}
+ */
+public class TransformResultCacheTest
+{
+
+	private static final String GREETING_XSL = "<xsl:stylesheet version=\"1.0\" "
+		+ "xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+		+ "<xsl:output method=\"text\"/><xsl:param name=\"prefix\" select=\"'Hello '\"/>"
+		+ "<xsl:template match=\"/greeting\"><xsl:value-of select=\"$prefix\"/>"
+		+ "<xsl:value-of select=\".\"/></xsl:template></xsl:stylesheet>";
+
+	private static byte[] xml(final String name)
+	{
+		return ("<greeting>" + name + "</greeting>").getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Test method for {@link TransformResultCache#transform(Templates, String, byte[],
+	 * java.util.Map)}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransform() throws Exception
+	{
+		XsltTransformEngine engine;
+		TransformResultCache cache;
+		Templates templates;
+
+		engine = new XsltTransformEngine(new TemplatesCache());
+		templates = engine.getTemplatesCache()
+			.getTemplates(new StreamSource(new StringReader(GREETING_XSL)));
+		cache = new TransformResultCache(1024, null, engine);
+
+		assertEquals("Hello world", new String(
+			cache.transform(templates, "v1", xml("world"), Collections.emptyMap()),
+			StandardCharsets.UTF_8));
+		assertEquals("Hello world", new String(
+			cache.transform(templates, "v1", xml("world"), Collections.emptyMap()),
+			StandardCharsets.UTF_8));
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getMemoryHitCount());
+
+		assertEquals("Bye world", new String(cache.transform(templates, "v1", xml("world"),
+			Collections.singletonMap("prefix", "Bye ")), StandardCharsets.UTF_8));
+		cache.transform(templates, "v2", xml("world"), Collections.emptyMap());
+		assertEquals(3, cache.getMissCount());
+		assertEquals(31, cache.getMemoryBytes());
+	}
+
+	/**
+	 * Test method for the size based eviction of {@link TransformResultCache}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testEviction() throws Exception
+	{
+		XsltTransformEngine engine;
+		TransformResultCache cache;
+		Templates templates;
+
+		engine = new XsltTransformEngine(new TemplatesCache());
+		templates = engine.getTemplatesCache()
+			.getTemplates(new StreamSource(new StringReader(GREETING_XSL)));
+		cache = new TransformResultCache(25, null, engine);
+
+		cache.transform(templates, "v1", xml("one"), Collections.emptyMap());
+		cache.transform(templates, "v1", xml("two"), Collections.emptyMap());
+		cache.transform(templates, "v1", xml("one"), Collections.emptyMap());
+		cache.transform(templates, "v1", xml("three"), Collections.emptyMap());
+		assertEquals(20, cache.getMemoryBytes());
+
+		cache.transform(templates, "v1", xml("one"), Collections.emptyMap());
+		assertEquals(2, cache.getMemoryHitCount());
+		cache.transform(templates, "v1", xml("two"), Collections.emptyMap());
+		assertEquals(4, cache.getMissCount());
+	}
+
+	/**
+	 * Test method for the disk tier of {@link TransformResultCache}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testDiskTier() throws Exception
+	{
+		XsltTransformEngine engine;
+		TransformResultCache cache;
+		Templates templates;
+		Path directory;
+
+		directory = Files.createTempDirectory("transform-result-cache");
+		try
+		{
+			engine = new XsltTransformEngine(new TemplatesCache());
+			templates = engine.getTemplatesCache()
+				.getTemplates(new StreamSource(new StringReader(GREETING_XSL)));
+			cache = new TransformResultCache(1024, directory, engine);
+			cache.transform(templates, "v1", xml("world"), Collections.emptyMap());
+			assertEquals(1, cache.getMissCount());
+
+			cache = new TransformResultCache(1024, directory, engine);
+			assertEquals("Hello world", new String(
+				cache.transform(templates, "v1", xml("world"), Collections.emptyMap()),
+				StandardCharsets.UTF_8));
+			assertEquals(0, cache.getMissCount());
+			assertEquals(1, cache.getDiskHitCount());
+
+			cache.invalidateAll();
+			cache.transform(templates, "v1", xml("world"), Collections.emptyMap());
+			assertEquals(1, cache.getMissCount());
+		}
+		finally
+		{
+			FileUtils.deleteDirectory(directory.toFile());
+		}
+	}
+
+	/**
+	 * Test method for the eviction of the disk tier of {@link TransformResultCache}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testDiskTierEviction() throws Exception
+	{
+		XsltTransformEngine engine;
+		TransformResultCache cache;
+		Templates templates;
+		Path directory;
+
+		directory = Files.createTempDirectory("transform-result-cache");
+		try
+		{
+			engine = new XsltTransformEngine(new TemplatesCache());
+			templates = engine.getTemplatesCache()
+				.getTemplates(new StreamSource(new StringReader(GREETING_XSL)));
+			// every result has 12 bytes, so the disk tier holds two of them
+			cache = new TransformResultCache(0, directory, 30, engine);
+			for (int i = 0; i < 5; i++)
+			{
+				cache.transform(templates, "v1", xml("world" + i), Collections.emptyMap());
+			}
+			assertEquals(24, cache.getDiskBytes());
+			assertEquals(2, directory.toFile().list().length);
+
+			// the results of an earlier run count against the maximum
+			cache = new TransformResultCache(0, directory, 20, engine);
+			assertEquals(12, cache.getDiskBytes());
+			assertEquals(1, directory.toFile().list().length);
+		}
+		finally
+		{
+			FileUtils.deleteDirectory(directory.toFile());
+		}
+	}
+
+}
@@ -0,0 +1,172 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.file.search.PathFinder;
+
+/**
+ * The unit test class for the class {@link XsltBatchTransformer}
+ */
+public class XsltBatchTransformerTest
+{
+
+	private ExecutorService executorService;
+
+	private Path inputDirectory;
+
+	private Path outputDirectory;
+
+	private static File getResource(final String name)
+	{
+		return PathFinder.getRelativePathTo(PathFinder.getSrcTestResourcesDir(), "\\.",
+			"io.github.astrapi69.xsl.transform", name);
+	}
+
+	/**
+	 * Sets up method will be invoked before every unit test method
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@BeforeMethod
+	protected void setUp() throws Exception
+	{
+		executorService = Executors.newFixedThreadPool(4);
+		inputDirectory = Files.createTempDirectory("batch-input");
+		outputDirectory = Files.createTempDirectory("batch-output");
+		for (int i = 0; i < 50; i++)
+		{
+			Files.copy(getResource("birthdates.xml").toPath(),
+				inputDirectory.resolve("birthdates-" + i + ".xml"));
+		}
+		Files.write(inputDirectory.resolve("broken.xml"),
+			"<birthdates><birthdate>".getBytes(StandardCharsets.UTF_8));
+		Files.write(inputDirectory.resolve("ignored.txt"),
+			"no xml".getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Tear down method will be invoked after every unit test method
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@AfterMethod
+	protected void tearDown() throws Exception
+	{
+		executorService.shutdownNow();
+		FileUtils.deleteDirectory(inputDirectory.toFile());
+		FileUtils.deleteDirectory(outputDirectory.toFile());
+	}
+
+	/**
+	 * Test method for {@link XsltBatchTransformer#transform(File, Path, Path)}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransformDirectory() throws Exception
+	{
+		XsltBatchTransformer batchTransformer;
+		BatchTransformResult result;
+		String actual;
+
+		batchTransformer = new XsltBatchTransformer(new XsltTransformEngine(), executorService, 3);
+		result = batchTransformer.transform(getResource("functions.xsl"), inputDirectory,
+			outputDirectory);
+		assertEquals(51, result.getTotalCount());
+		assertEquals(50, result.getSuccessCount());
+		assertEquals(1, result.getFailureCount());
+		assertEquals(inputDirectory.resolve("broken.xml"),
+			result.getFailures().get(0).getXmlFile());
+		assertTrue(result.getFilesPerSecond() > 0);
+
+		actual = new String(Files.readAllBytes(outputDirectory.resolve("birthdates-7.xml")),
+			StandardCharsets.UTF_8);
+		assertTrue(actual.replaceAll("\\s", "").contains("<id>3</id><date>08:40</date>"));
+		assertEquals(false, Files.exists(outputDirectory.resolve("ignored.txt")));
+	}
+
+	/**
+	 * Test method for {@link XsltBatchTransformer#transform(javax.xml.transform.Templates,
+	 * java.util.stream.Stream, java.util.function.Function)} where a task throws an error
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransformWithError() throws Exception
+	{
+		XsltBatchTransformer batchTransformer;
+		BatchTransformResult result;
+		XsltTransformEngine transformEngine;
+
+		transformEngine = new XsltTransformEngine();
+		batchTransformer = new XsltBatchTransformer(transformEngine, executorService, 3);
+		result = batchTransformer.transform(
+			transformEngine.getTemplatesCache().getTemplates(getResource("functions.xsl")),
+			Stream.of(inputDirectory.resolve("birthdates-0.xml"),
+				inputDirectory.resolve("birthdates-1.xml")),
+			xmlFile -> {
+				if (xmlFile.endsWith("birthdates-1.xml"))
+				{
+					throw new StackOverflowError();
+				}
+				return outputDirectory.resolve(xmlFile.getFileName());
+			});
+		assertEquals(2, result.getTotalCount());
+		assertEquals(1, result.getSuccessCount());
+		assertEquals(1, result.getFailureCount());
+		assertTrue(result.getFailures().get(0).getCause() instanceof StackOverflowError);
+	}
+
+	/**
+	 * Test method for the constructor of {@link XsltBatchTransformer} with an invalid maximum
+	 * number of files in flight
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testInvalidMaximumInFlight()
+	{
+		new XsltBatchTransformer(new XsltTransformEngine(), executorService, 0);
+	}
+
+}
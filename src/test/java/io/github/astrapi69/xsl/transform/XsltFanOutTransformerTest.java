@@ -0,0 +1,175 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.file.search.PathFinder;
+
+/**
+ * The unit test class for the class {@link XsltFanOutTransformer}
+ */
+public class XsltFanOutTransformerTest
+{
+
+	private static final String COUNT_XSL = "<xsl:stylesheet version=\"1.0\" "
+		+ "xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+		+ "<xsl:output method=\"text\"/>"
+		+ "<xsl:template match=\"/\"><xsl:value-of select=\"count(//*)\"/></xsl:template>"
+		+ "</xsl:stylesheet>";
+
+	private static final String DOCUMENT_XSL = "<xsl:stylesheet version=\"1.0\" "
+		+ "xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+		+ "<xsl:output method=\"text\"/>"
+		+ "<xsl:template match=\"/\"><xsl:value-of select=\"document(/r/@href)/d\"/>"
+		+ "</xsl:template></xsl:stylesheet>";
+
+	private static File getResource(final String name)
+	{
+		return PathFinder.getRelativePathTo(PathFinder.getSrcTestResourcesDir(), "\\.",
+			"io.github.astrapi69.xsl.transform", name);
+	}
+
+	/**
+	 * Test method for {@link XsltFanOutTransformer#transform(javax.xml.transform.Source, List,
+	 * List, java.util.concurrent.Executor)}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransform() throws Exception
+	{
+		TemplatesCache templatesCache;
+		XsltTransformEngine engine;
+		List<Templates> templates;
+		List<ByteArrayOutputStream> outputStreams;
+		ByteArrayOutputStream expected;
+		ExecutorService executor;
+
+		templatesCache = new TemplatesCache();
+		engine = new XsltTransformEngine(templatesCache);
+		templates = Arrays.asList(templatesCache.getTemplates(getResource("functions.xsl")),
+			templatesCache.getTemplates(new StreamSource(new StringReader(COUNT_XSL))));
+		expected = new ByteArrayOutputStream();
+		engine.transform(templates.get(0), new StreamSource(getResource("birthdates.xml")),
+			new StreamResult(expected));
+
+		outputStreams = Arrays.asList(new ByteArrayOutputStream(), new ByteArrayOutputStream());
+		new XsltFanOutTransformer().transform(new StreamSource(getResource("birthdates.xml")),
+			templates, outputStreams);
+		assertEquals(expected.toString("UTF-8"), outputStreams.get(0).toString("UTF-8"));
+		assertEquals("10", new String(outputStreams.get(1).toByteArray(), StandardCharsets.UTF_8));
+
+		executor = Executors.newFixedThreadPool(2);
+		try
+		{
+			outputStreams = Arrays.asList(new ByteArrayOutputStream(),
+				new ByteArrayOutputStream());
+			new XsltFanOutTransformer().transform(
+				new StreamSource(getResource("birthdates.xml")), templates, outputStreams,
+				executor);
+			assertEquals(expected.toString("UTF-8"), outputStreams.get(0).toString("UTF-8"));
+			assertEquals("10",
+				new String(outputStreams.get(1).toByteArray(), StandardCharsets.UTF_8));
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Test method for {@link XsltFanOutTransformer#transform(javax.xml.transform.Source, List,
+	 * List)} with a relative uri that is resolved against the system id of the xml source
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransformResolvesRelativeUris() throws Exception
+	{
+		Path directory;
+		Path xmlFile;
+		Templates templates;
+		List<ByteArrayOutputStream> outputStreams;
+
+		directory = Files.createTempDirectory("fan-out");
+		try
+		{
+			xmlFile = directory.resolve("input.xml");
+			Files.write(xmlFile, "<r href=\"data.xml\"/>".getBytes(StandardCharsets.UTF_8));
+			Files.write(directory.resolve("data.xml"),
+				"<d>relative</d>".getBytes(StandardCharsets.UTF_8));
+			templates = new TemplatesCache()
+				.getTemplates(new StreamSource(new StringReader(DOCUMENT_XSL)));
+			outputStreams = Collections.singletonList(new ByteArrayOutputStream());
+			new XsltFanOutTransformer().transform(new StreamSource(xmlFile.toFile()),
+				Collections.singletonList(templates), outputStreams);
+			assertEquals("relative", outputStreams.get(0).toString("UTF-8"));
+		}
+		finally
+		{
+			FileUtils.deleteDirectory(directory.toFile());
+		}
+	}
+
+	/**
+	 * Test method for {@link XsltFanOutTransformer#transform(javax.xml.transform.Source, List,
+	 * List)} with a different number of stylesheets and output streams
+	 *
+	 * @throws TransformerException
+	 *             is thrown if an unrecoverable error occurs during the course of the
+	 *             transformation.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testTransformWithMissingOutputStream() throws TransformerException
+	{
+		new XsltFanOutTransformer().transform(
+			new StreamSource(new StringReader("<a/>")), Collections.emptyList(),
+			Collections.singletonList(new ByteArrayOutputStream()));
+	}
+
+}
@@ -0,0 +1,112 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.file.search.PathFinder;
+
+/**
+ * The unit test class for the class {@link XsltPipeline}
+ */
+public class XsltPipelineTest
+{
+
+	private static final String TIMES_XSL = "<xsl:stylesheet version=\"1.0\" "
+		+ "xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+		+ "<xsl:output method=\"xml\" omit-xml-declaration=\"yes\"/>"
+		+ "<xsl:param name=\"separator\" select=\"','\"/>"
+		+ "<xsl:template match=\"/birthdates\"><times><xsl:for-each select=\"birthdate\">"
+		+ "<xsl:if test=\"position() &gt; 1\"><xsl:value-of select=\"$separator\"/></xsl:if>"
+		+ "<xsl:value-of select=\"date\"/></xsl:for-each></times></xsl:template>"
+		+ "</xsl:stylesheet>";
+
+	private static File getResource(final String name)
+	{
+		return PathFinder.getRelativePathTo(PathFinder.getSrcTestResourcesDir(), "\\.",
+			"io.github.astrapi69.xsl.transform", name);
+	}
+
+	/**
+	 * Test method for {@link XsltPipeline#transform(javax.xml.transform.Source,
+	 * javax.xml.transform.Result)}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransform() throws Exception
+	{
+		TemplatesCache templatesCache;
+		XsltPipeline pipeline;
+		StringWriter writer;
+
+		templatesCache = new TemplatesCache();
+		pipeline = XsltPipeline.builder(templatesCache).addStage(getResource("functions.xsl"))
+			.addStage("times",
+				templatesCache.getTemplates(new StreamSource(new StringReader(TIMES_XSL))),
+				Collections.singletonMap("separator", ";"))
+			.build();
+
+		writer = new StringWriter();
+		pipeline.transform(new StreamSource(getResource("birthdates.xml")),
+			new StreamResult(writer));
+		assertEquals("<times>19:07;13:48;08:40</times>", writer.toString());
+
+		writer = new StringWriter();
+		pipeline.transform(new StreamSource(getResource("birthdates.xml")),
+			new StreamResult(writer));
+		assertEquals("<times>19:07;13:48;08:40</times>", writer.toString());
+
+		assertEquals(2, pipeline.getStages().size());
+		assertEquals("functions.xsl", pipeline.getStages().get(0).getName());
+		for (final XsltPipelineStage stage : pipeline.getStages())
+		{
+			assertEquals(2, stage.getInvocationCount());
+			assertTrue(stage.getTotalTime().toNanos() > 0);
+		}
+	}
+
+	/**
+	 * Test method for {@link XsltPipeline.Builder#build()} without stages
+	 */
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testBuildWithoutStages()
+	{
+		XsltPipeline.builder().build();
+	}
+
+}
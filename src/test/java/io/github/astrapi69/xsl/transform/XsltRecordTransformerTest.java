@@ -0,0 +1,162 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.stream.StreamSource;
+
+import org.testng.annotations.Test;
+
+import io.github.astrapi69.file.search.PathFinder;
+
+/**
+ * The unit test class for the class {@link XsltRecordTransformer}
+ */
+public class XsltRecordTransformerTest
+{
+
+	private static final String RECORD_XSL = "<xsl:stylesheet version=\"1.0\" "
+		+ "xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+		+ "<xsl:output method=\"xml\" encoding=\"UTF-8\"/>"
+		+ "<xsl:template match=\"/record\"><item id=\"{@id}\"><xsl:value-of select=\"name\"/>"
+		+ "</item></xsl:template></xsl:stylesheet>";
+
+	private static Templates newTemplates() throws Exception
+	{
+		return new TemplatesCache().getTemplates(new StreamSource(new StringReader(RECORD_XSL)));
+	}
+
+	/**
+	 * Test method for {@link XsltRecordTransformer#transform(Templates, java.io.InputStream,
+	 * String, String, java.io.OutputStream)}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransform() throws Exception
+	{
+		String xml;
+		ByteArrayOutputStream outputStream;
+		long recordCount;
+		String actual;
+		String expected;
+
+		xml = "<?xml version=\"1.0\"?><export><header><record id=\"0\"/></header>"
+			+ "<record id=\"1\"><name>Anna</name></record>"
+			+ "<record id=\"2\"><name>Bob</name><record id=\"3\"/></record>"
+			+ "<!-- comment --><record id=\"4\"><name>Carl &amp; Co</name></record></export>";
+		outputStream = new ByteArrayOutputStream();
+		recordCount = new XsltRecordTransformer(new XsltTransformEngine()).transform(
+			newTemplates(), new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+			"/export/record", "items", outputStream);
+		actual = outputStream.toString(StandardCharsets.UTF_8.name());
+		expected = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><items><item id=\"1\">Anna</item>"
+			+ "<item id=\"2\">Bob</item><item id=\"4\">Carl &amp; Co</item></items>";
+		assertEquals(3, recordCount);
+		assertEquals(expected, actual);
+	}
+
+	/**
+	 * Test method for {@link XsltRecordTransformer#transform(Templates, java.io.InputStream,
+	 * String, String, java.io.OutputStream)} with many records
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransformManyRecords() throws Exception
+	{
+		StringBuilder xml;
+		ByteArrayOutputStream outputStream;
+		long recordCount;
+		String actual;
+
+		xml = new StringBuilder("<export>");
+		for (int i = 0; i < 10000; i++)
+		{
+			xml.append("<record id=\"").append(i).append("\"><name>name").append(i)
+				.append("</name></record>");
+		}
+		xml.append("</export>");
+		outputStream = new ByteArrayOutputStream();
+		recordCount = new XsltRecordTransformer().transform(newTemplates(),
+			new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)),
+			"/export/record", null, outputStream);
+		actual = outputStream.toString(StandardCharsets.UTF_8.name());
+		assertEquals(10000, recordCount);
+		assertTrue(actual.endsWith("<item id=\"9999\">name9999</item>"));
+	}
+
+	/**
+	 * Test method for {@link XsltRecordTransformer#transform(File, Path, String, String,
+	 * java.io.OutputStream)}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransformFile() throws Exception
+	{
+		File resourcesDir;
+		ByteArrayOutputStream outputStream;
+		long recordCount;
+		String actual;
+
+		resourcesDir = PathFinder.getRelativePathTo(PathFinder.getSrcTestResourcesDir(), "\\.",
+			"io.github.astrapi69.xsl.transform", "");
+		outputStream = new ByteArrayOutputStream();
+		recordCount = new XsltRecordTransformer().transform(new File(resourcesDir, "functions.xsl"),
+			new File(resourcesDir, "birthdates.xml").toPath(), "/birthdates/birthdate",
+			"birthdates", outputStream);
+		actual = outputStream.toString(StandardCharsets.UTF_8.name()).replaceAll("\\s", "");
+		assertEquals(3, recordCount);
+		assertTrue(actual.contains("<birthdate><id>2</id><date>13:48</date></birthdate>"));
+	}
+
+	/**
+	 * Test method for {@link XsltRecordTransformer} with an invalid record path
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testInvalidRecordPath() throws Exception
+	{
+		new XsltRecordTransformer().transform(newTemplates(),
+			new ByteArrayInputStream(new byte[0]), "record", null, new ByteArrayOutputStream());
+	}
+
+}
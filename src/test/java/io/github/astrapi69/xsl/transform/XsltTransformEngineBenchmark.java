@@ -0,0 +1,132 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The contention benchmark for the class {@link XsltTransformEngine}. It compares the pooled
+ * transformers of the engine with a new transformer per call. Run it with
+ * <code>gradle benchmark -PbenchmarkClass=io.github.astrapi69.xsl.transform.XsltTransformEngineBenchmark</code>
+ * for the throughput with 1, 4, 16 and 64 threads
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XsltTransformEngineBenchmark
+{
+
+	private static final int[] THREAD_COUNTS = { 1, 4, 16, 64 };
+
+	private XsltTransformEngine engine;
+
+	private Templates templates;
+
+	private byte[] xml;
+
+	static byte[] readResource(final String name) throws IOException
+	{
+		try (InputStream inputStream = XsltTransformEngineBenchmark.class.getClassLoader()
+			.getResourceAsStream(name))
+		{
+			return inputStream.readAllBytes();
+		}
+	}
+
+	@Setup
+	public void setUp() throws IOException, TransformerException
+	{
+		engine = new XsltTransformEngine(new TemplatesCache(), 64);
+		templates = engine.getTemplatesCache().getTemplates(new StreamSource(
+			new ByteArrayInputStream(readResource("io/github/astrapi69/xsl/transform/functions.xsl"))));
+		xml = readResource("io/github/astrapi69/xsl/transform/birthdates.xml");
+	}
+
+	@Benchmark
+	public void pooledTransformer() throws TransformerException
+	{
+		engine.transform(templates, new StreamSource(new ByteArrayInputStream(xml)),
+			new StreamResult(OutputStream.nullOutputStream()));
+	}
+
+	@Benchmark
+	public void newTransformerPerCall() throws TransformerException
+	{
+		templates.newTransformer().transform(new StreamSource(new ByteArrayInputStream(xml)),
+			new StreamResult(OutputStream.nullOutputStream()));
+	}
+
+	public static void main(final String[] args) throws RunnerException
+	{
+		final List<String> summary = new ArrayList<>();
+		for (final int threads : THREAD_COUNTS)
+		{
+			final Options options = new OptionsBuilder()
+				.include(XsltTransformEngineBenchmark.class.getSimpleName()).threads(threads)
+				.build();
+			final Collection<RunResult> results = new Runner(options).run();
+			for (final RunResult result : results)
+			{
+				summary.add(String.format("%-24s threads=%-3d %12.1f %s",
+					result.getParams().getBenchmark().replaceAll(".*\\.", ""), threads,
+					result.getPrimaryResult().getScore(),
+					result.getPrimaryResult().getScoreUnit()));
+			}
+		}
+		summary.forEach(System.out::println);
+	}
+
+}
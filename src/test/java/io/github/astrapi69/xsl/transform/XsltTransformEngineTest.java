@@ -0,0 +1,314 @@
+/**
+ * The MIT License
+ *
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.astrapi69.xsl.transform;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+import io.github.astrapi69.file.search.PathFinder;
+
+/**
+ * The unit test class for the classes {@link XsltTransformEngine} and {@link TransformerPool}
+ */
+public class XsltTransformEngineTest
+{
+
+	private static final String EXPECTED = "<birthdates><birthdate><id>1</id><date>19:07</date>"
+		+ "</birthdate><birthdate><id>2</id><date>13:48</date></birthdate><birthdate><id>3</id>"
+		+ "<date>08:40</date></birthdate></birthdates>";
+
+	private static File getResource(final String name)
+	{
+		return PathFinder.getRelativePathTo(PathFinder.getSrcTestResourcesDir(), "\\.",
+			"io.github.astrapi69.xsl.transform", name);
+	}
+
+	private static String transform(final XsltTransformEngine engine) throws Exception
+	{
+		final StringWriter writer = new StringWriter();
+		engine.transform(getResource("functions.xsl"),
+			new StreamSource(getResource("birthdates.xml")), new StreamResult(writer));
+		return writer.toString().replaceAll("<\\?xml[^>]*>", "").replaceAll("\\s", "");
+	}
+
+	/**
+	 * Test method for {@link XsltTransformEngine#transform(File, javax.xml.transform.Source,
+	 * javax.xml.transform.Result)} with reuse of the transformer
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransform() throws Exception
+	{
+		XsltTransformEngine engine;
+		Templates templates;
+
+		engine = new XsltTransformEngine();
+		assertEquals(EXPECTED, transform(engine));
+		assertEquals(EXPECTED, transform(engine));
+		templates = engine.getTemplatesCache().getTemplates(getResource("functions.xsl"));
+		assertEquals(1, engine.getTransformerPool(templates).getIdleCount());
+	}
+
+	/**
+	 * Test method for {@link XsltTransformEngine} with many concurrent threads
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testConcurrentTransform() throws Exception
+	{
+		XsltTransformEngine engine;
+		ExecutorService executorService;
+		List<Future<String>> futures;
+
+		engine = new XsltTransformEngine(new TemplatesCache(), 4);
+		executorService = Executors.newFixedThreadPool(8);
+		futures = new ArrayList<>();
+		for (int i = 0; i < 200; i++)
+		{
+			futures.add(executorService.submit(() -> transform(engine)));
+		}
+		for (final Future<String> future : futures)
+		{
+			assertEquals(EXPECTED, future.get());
+		}
+		executorService.shutdown();
+		assertTrue(engine.getTransformerPool(engine.getTemplatesCache()
+			.getTemplates(getResource("functions.xsl"))).getIdleCount() <= 4);
+	}
+
+	/**
+	 * Test method for the removal of the transformer pool when the compiled stylesheet leaves the
+	 * cache
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testPoolRemovedWithTemplates() throws Exception
+	{
+		XsltTransformEngine engine;
+		Templates templates;
+		TransformerPool pool;
+
+		engine = new XsltTransformEngine();
+		transform(engine);
+		templates = engine.getTemplatesCache().getTemplates(getResource("functions.xsl"));
+		pool = engine.getTransformerPool(templates);
+		engine.getTemplatesCache().invalidate(getResource("functions.xsl"));
+		assertNotSame(pool, engine.getTransformerPool(templates));
+	}
+
+	/**
+	 * Test method for {@link XsltTransformEngine#transform(javax.xml.transform.Source,
+	 * javax.xml.transform.Source, javax.xml.transform.Result)} with stylesheets that the cache does
+	 * not hold, which must not leave a transformer pool behind
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testNoPoolForUncachedTemplates() throws Exception
+	{
+		XsltTransformEngine engine;
+		DocumentBuilderFactory documentBuilderFactory;
+		Document document;
+		Templates templates;
+		StringWriter writer;
+
+		engine = new XsltTransformEngine(new TemplatesCache());
+		documentBuilderFactory = DocumentBuilderFactory.newInstance();
+		documentBuilderFactory.setNamespaceAware(true);
+		for (int i = 0; i < 100; i++)
+		{
+			writer = new StringWriter();
+			document = documentBuilderFactory.newDocumentBuilder()
+				.parse(getResource("functions.xsl"));
+			engine.transform(new DOMSource(document),
+				new StreamSource(getResource("birthdates.xml")), new StreamResult(writer));
+			assertEquals(EXPECTED,
+				writer.toString().replaceAll("<\\?xml[^>]*>", "").replaceAll("\\s", ""));
+			templates = engine.getTemplatesCache().getTemplates(new DOMSource(
+				documentBuilderFactory.newDocumentBuilder().parse(getResource("functions.xsl"))));
+			engine.transform(templates, new StreamSource(getResource("birthdates.xml")),
+				new StreamResult(new StringWriter()));
+		}
+		assertEquals(0, engine.getTransformerPoolCount());
+		transform(engine);
+		assertEquals(1, engine.getTransformerPoolCount());
+	}
+
+	/**
+	 * Test method for {@link TransformerPool#borrow()} and
+	 * {@link TransformerPool#release(Transformer)}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransformerPool() throws Exception
+	{
+		TransformerPool pool;
+		Transformer first;
+		Transformer second;
+
+		pool = new TransformerPool(
+			new TemplatesCache().getTemplates(getResource("functions.xsl")), 1);
+		first = pool.borrow();
+		first.setParameter("name", "value");
+		second = pool.borrow();
+		assertNotSame(first, second);
+		pool.release(first);
+		pool.release(second);
+		assertEquals(1, pool.getIdleCount());
+		second = pool.borrow();
+		assertSame(first, second);
+		assertEquals(null, second.getParameter("name"));
+		assertEquals(0, pool.getIdleCount());
+	}
+
+	/**
+	 * Test method for {@link XsltTransformEngine#transform(Templates,
+	 * javax.xml.transform.Source, javax.xml.transform.Result, java.util.Map, CancellationToken)}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransformWithCancellationToken() throws Exception
+	{
+		XsltTransformEngine engine;
+		Templates templates;
+		StringWriter writer;
+
+		engine = new XsltTransformEngine(new TemplatesCache());
+		templates = engine.getTemplatesCache().getTemplates(getResource("functions.xsl"));
+		writer = new StringWriter();
+		engine.transform(templates, new StreamSource(getResource("birthdates.xml")),
+			new StreamResult(writer), Collections.emptyMap(),
+			CancellationToken.withTimeout(Duration.ofMinutes(1)));
+		assertEquals(EXPECTED,
+			writer.toString().replaceAll("<\\?xml[^>]*>", "").replaceAll("\\s", ""));
+	}
+
+	/**
+	 * Test method for {@link XsltTransformEngine#transform(Templates,
+	 * javax.xml.transform.Source, javax.xml.transform.Result, java.util.Map, CancellationToken)}
+	 * with a transformation that exceeds its deadline
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransformDeadlineExceeded() throws Exception
+	{
+		XsltTransformEngine engine;
+		Templates templates;
+		StringBuilder xml;
+		long start;
+
+		xml = new StringBuilder("<root>");
+		for (int i = 0; i < 1000; i++)
+		{
+			xml.append("<item/>");
+		}
+		xml.append("</root>");
+		engine = new XsltTransformEngine(new TemplatesCache());
+		// one billion output elements
+		templates = engine.getTemplatesCache().getTemplates(new StreamSource(new StringReader(
+			"<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+				+ "<xsl:template match=\"/\"><out><xsl:for-each select=\"//item\">"
+				+ "<xsl:for-each select=\"//item\"><xsl:for-each select=\"//item\"><x/>"
+				+ "</xsl:for-each></xsl:for-each></xsl:for-each></out></xsl:template>"
+				+ "</xsl:stylesheet>")));
+		start = System.nanoTime();
+		try
+		{
+			engine.transform(templates, new StreamSource(new StringReader(xml.toString())),
+				new StreamResult(OutputStream.nullOutputStream()), Collections.emptyMap(),
+				CancellationToken.withTimeout(Duration.ofMillis(200)));
+			fail("the transformation should exceed its deadline");
+		}
+		catch (final TransformCancelledException e)
+		{
+			assertEquals(2002, e.getInputEventCount());
+			assertTrue(e.getOutputEventCount() > 0);
+			assertTrue(e.getElapsed().toMillis() >= 200);
+		}
+		assertTrue(Duration.ofNanos(System.nanoTime() - start).getSeconds() < 10);
+		assertEquals(0, engine.getTransformerPool(templates).getIdleCount());
+	}
+
+	/**
+	 * Test method for {@link XsltTransformEngine#transform(Templates,
+	 * javax.xml.transform.Source, javax.xml.transform.Result, java.util.Map, CancellationToken)}
+	 * with a cancelled token
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test(expectedExceptions = TransformCancelledException.class)
+	public void testTransformCancelled() throws Exception
+	{
+		XsltTransformEngine engine;
+		CancellationToken cancellationToken;
+
+		engine = new XsltTransformEngine(new TemplatesCache());
+		cancellationToken = new CancellationToken();
+		cancellationToken.cancel();
+		engine.transform(engine.getTemplatesCache().getTemplates(getResource("functions.xsl")),
+			new StreamSource(getResource("birthdates.xml")), new StreamResult(new StringWriter()),
+			Collections.emptyMap(), cancellationToken);
+	}
+
+}
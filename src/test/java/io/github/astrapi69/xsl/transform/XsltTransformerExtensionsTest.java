@@ -25,13 +25,21 @@
 package io.github.astrapi69.xsl.transform;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.StringReader;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.xml.transform.Source;
 import javax.xml.transform.TransformerConfigurationException;
@@ -259,6 +267,81 @@ public class XsltTransformerExtensionsTest extends AbstractTestCase<String, Stri
 		assertEquals(actual, expected);
 	}
 
+	/**
+	 * Test method for {@link XsltTransformerExtensions#transformAsync(File, File, OutputStream,
+	 * java.util.concurrent.Executor)} and
+	 * {@link XsltTransformerExtensions#transformAsync(File, File, OutputStream)}
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransformAsync() throws Exception
+	{
+		File resDestDir;
+		File xmlFile;
+		File xsltFile;
+		ByteArrayOutputStream output;
+		ExecutorService executor;
+
+		resDestDir = PathFinder.getSrcTestResourcesDir();
+		xmlFile = PathFinder.getRelativePathTo(resDestDir, "\\.",
+			"io.github.astrapi69.xsl.transform", "birthdates.xml");
+		xsltFile = PathFinder.getRelativePathTo(resDestDir, "\\.",
+			"io.github.astrapi69.xsl.transform", "functions.xsl");
+		expected = StringUtils.remove(expected, '\r');
+		expected = StringUtils.remove(expected, '\n');
+		expected = StringUtils.remove(expected, ' ');
+
+		executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			output = new ByteArrayOutputStream();
+			XsltTransformerExtensions.transformAsync(xmlFile, xsltFile, output, executor).get();
+			actual = output.toString("UTF-8").replaceAll("\\s", "");
+			assertEquals(expected, actual);
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		output = new ByteArrayOutputStream();
+		XsltTransformerExtensions.transformAsync(xmlFile, xsltFile, output).get();
+		actual = output.toString("UTF-8").replaceAll("\\s", "");
+		assertEquals(expected, actual);
+	}
+
+	/**
+	 * Test method for {@link XsltTransformerExtensions#transformAsync(Source,
+	 * javax.xml.transform.Templates, OutputStream)} with a broken xml source
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testTransformAsyncFailure() throws Exception
+	{
+		File xsltFile;
+		CompletableFuture<Void> future;
+
+		xsltFile = PathFinder.getRelativePathTo(PathFinder.getSrcTestResourcesDir(), "\\.",
+			"io.github.astrapi69.xsl.transform", "functions.xsl");
+		future = XsltTransformerExtensions.transformAsync(
+			new StreamSource(new StringReader("<birthdates>")),
+			XsltTransformerExtensions.getTemplatesCache().getTemplates(xsltFile),
+			new ByteArrayOutputStream());
+		try
+		{
+			future.get();
+			fail("the transformation of a broken xml source should fail");
+		}
+		catch (final ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof TransformerException);
+		}
+	}
+
 	/**
 	 * Test method for {@link XsltTransformerExtensions}
 	 */